@@ -0,0 +1,58 @@
+package org.fogbowcloud.blowout.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Synthetic workloads shared by the benchmarks. A workload of size N has N
+ * tasks spread round-robin over {@link #SPECIFICATIONS} specifications and
+ * N / {@link #TASKS_PER_RESOURCE} resources, which is the shape of a real
+ * bag of tasks: far more tasks than virtual machines.
+ */
+public class BenchmarkWorkload {
+
+	public static final int SPECIFICATIONS = 8;
+	public static final int TASKS_PER_RESOURCE = 10;
+
+	private static final String FAKE_UUID = "benchmark";
+
+	public static List<Specification> createSpecifications() {
+		List<Specification> specs = new ArrayList<Specification>();
+		for (int i = 0; i < SPECIFICATIONS; i++) {
+			specs.add(new Specification("image" + i, "username", "publicKey", "privateKeyFilePath"));
+		}
+		return specs;
+	}
+
+	public static List<Task> createTasks(int size, List<Specification> specs) {
+		List<Task> tasks = new ArrayList<Task>(size);
+		for (int i = 0; i < size; i++) {
+			tasks.add(new TaskImpl("task" + i, specs.get(i % specs.size()), FAKE_UUID));
+		}
+		return tasks;
+	}
+
+	public static List<AbstractResource> createResources(int size, List<Specification> specs,
+			ResourceState state) {
+		int resourceCount = Math.max(1, size / TASKS_PER_RESOURCE);
+		List<AbstractResource> resources = new ArrayList<AbstractResource>(resourceCount);
+		for (int i = 0; i < resourceCount; i++) {
+			AbstractResource resource = new InMemoryResource("resource" + i, specs.get(i % specs.size()));
+			resource.setState(state);
+			resources.add(resource);
+		}
+		return resources;
+	}
+
+	public static void resetResources(List<AbstractResource> resources, ResourceState state) {
+		for (AbstractResource resource : resources) {
+			resource.setState(state);
+		}
+	}
+}
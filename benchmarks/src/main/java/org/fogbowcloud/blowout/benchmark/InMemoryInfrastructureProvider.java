@@ -0,0 +1,52 @@
+package org.fogbowcloud.blowout.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.infrastructure.exception.RequestResourceException;
+import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+public class InMemoryInfrastructureProvider implements InfrastructureProvider {
+
+	private Map<String, AbstractResource> resources = new ConcurrentHashMap<String, AbstractResource>();
+
+	@Override
+	public String requestResource(Specification specification) throws RequestResourceException {
+		String resourceId = UUID.randomUUID().toString();
+		resources.put(resourceId, new InMemoryResource(resourceId, specification));
+		return resourceId;
+	}
+
+	@Override
+	public List<String> requestResources(Specification specification, int count) throws RequestResourceException {
+		List<String> resourceIds = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			resourceIds.add(requestResource(specification));
+		}
+		return resourceIds;
+	}
+
+	@Override
+	public List<AbstractResource> getAllResources() {
+		return new ArrayList<AbstractResource>(resources.values());
+	}
+
+	@Override
+	public AbstractResource getResource(String resourceId) {
+		return resources.get(resourceId);
+	}
+
+	@Override
+	public void deleteResource(String resourceId) throws Exception {
+		resources.remove(resourceId);
+	}
+
+	public void clear() {
+		resources.clear();
+	}
+}
@@ -0,0 +1,25 @@
+package org.fogbowcloud.blowout.benchmark;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Resource that never leaves the JVM: it matches the specification it was
+ * requested with and is always reachable.
+ */
+public class InMemoryResource extends AbstractResource {
+
+	public InMemoryResource(String id, Specification requestedSpec) {
+		super(id, requestedSpec);
+	}
+
+	@Override
+	public boolean match(Specification spec) {
+		return getRequestedSpec().equals(spec);
+	}
+
+	@Override
+	protected boolean internalCheckConnectivity() {
+		return true;
+	}
+}
@@ -0,0 +1,84 @@
+package org.fogbowcloud.blowout.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.benchmark.BenchmarkWorkload;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StandardSchedulerBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	private List<Task> tasks;
+	private List<AbstractResource> resources;
+	private TaskMonitor taskMonitor;
+
+	private StandardScheduler freshScheduler;
+	private StandardScheduler steadyScheduler;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		List<Specification> specs = BenchmarkWorkload.createSpecifications();
+		tasks = BenchmarkWorkload.createTasks(size, specs);
+		resources = BenchmarkWorkload.createResources(size, specs, ResourceState.IDLE);
+		taskMonitor = new TaskMonitor(null, 0) {
+			@Override
+			public void runTask(Task task, AbstractResource resource) {
+			}
+		};
+
+		steadyScheduler = new StandardScheduler(taskMonitor);
+		steadyScheduler.act(tasks, resources);
+		BenchmarkWorkload.resetResources(resources, ResourceState.BUSY);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		freshScheduler = new StandardScheduler(taskMonitor);
+	}
+
+	/**
+	 * First pass over the workload: every resource is idle and gets a task.
+	 */
+	@Benchmark
+	public List<Task> actAssigningAllResources() {
+		BenchmarkWorkload.resetResources(resources, ResourceState.IDLE);
+		freshScheduler.act(tasks, resources);
+		return freshScheduler.getRunningTasks();
+	}
+
+	/**
+	 * Pass with every resource busy, which is what most act calls look like
+	 * while a bag of tasks is being consumed.
+	 */
+	@Benchmark
+	public List<Task> actWithAllResourcesBusy() {
+		BenchmarkWorkload.resetResources(resources, ResourceState.BUSY);
+		steadyScheduler.act(tasks, resources);
+		return steadyScheduler.getRunningTasks();
+	}
+}
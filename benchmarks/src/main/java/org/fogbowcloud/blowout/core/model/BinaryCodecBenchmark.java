@@ -0,0 +1,120 @@
+package org.fogbowcloud.blowout.core.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.benchmark.BenchmarkWorkload;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Writes and reads a whole task list with {@link BinaryCodec} and with the
+ * JSON form, one task per line as the task journal does. The round trip
+ * benchmarks check their result, so a lossy codec fails instead of looking
+ * fast.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryCodecBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private List<Task> tasks;
+	private byte[] binary;
+	private List<String> json;
+
+	@Setup
+	public void setUp() throws IOException {
+		List<Specification> specs = BenchmarkWorkload.createSpecifications();
+		for (Specification spec : specs) {
+			spec.addRequirement("FogbowRequirements", "Glue2vCPU >= 1 && Glue2RAM >= 1024");
+		}
+		tasks = BenchmarkWorkload.createTasks(size, specs);
+		for (Task task : tasks) {
+			task.addCommand(new Command("cd /tmp/sandbox && ./run.sh " + task.getId(), Command.Type.REMOTE));
+			task.addCommand(new Command("scp out " + task.getId() + ".out", Command.Type.LOCAL));
+			task.putMetadata(TaskImpl.METADATA_SANDBOX, "/tmp/sandbox/" + task.getId());
+			task.putMetadata(TaskImpl.METADATA_TASK_TIMEOUT, "3600000");
+		}
+		binary = encodeBinary();
+		json = encodeJson();
+	}
+
+	@Benchmark
+	public byte[] encodeBinary() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(out);
+		for (Task task : tasks) {
+			encoder.writeTask(task);
+		}
+		encoder.flush();
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public void decodeBinary(Blackhole blackhole) throws IOException {
+		BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(new ByteArrayInputStream(binary));
+		while (decoder.hasMore()) {
+			blackhole.consume(decoder.readTask());
+		}
+	}
+
+	@Benchmark
+	public List<String> encodeJson() {
+		List<String> lines = new ArrayList<String>(tasks.size());
+		for (Task task : tasks) {
+			lines.add(task.toJSON().toString());
+		}
+		return lines;
+	}
+
+	@Benchmark
+	public void decodeJson(Blackhole blackhole) throws Exception {
+		for (String line : json) {
+			blackhole.consume(TaskImpl.fromJSON(new JSONObject(line)));
+		}
+	}
+
+	@Benchmark
+	public void roundTripBinary() throws IOException {
+		byte[] bytes = encodeBinary();
+		BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(new ByteArrayInputStream(bytes));
+		for (Task task : tasks) {
+			check(task, decoder.readTask());
+		}
+	}
+
+	@Benchmark
+	public void roundTripJson() throws Exception {
+		for (Task task : tasks) {
+			check(task, TaskImpl.fromJSON(new JSONObject(task.toJSON().toString())));
+		}
+	}
+
+	private static void check(Task expected, Task actual) {
+		if (!expected.equals(actual) || !expected.getAllMetadata().equals(actual.getAllMetadata())
+				|| expected.getNumberOfCommands() != actual.getNumberOfCommands()) {
+			throw new IllegalStateException("Task " + expected.getId() + " changed in the round trip");
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.fogbowcloud.blowout.core.monitor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.benchmark.BenchmarkWorkload;
+import org.fogbowcloud.blowout.core.SchedulerInterface;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskProcess;
+import org.fogbowcloud.blowout.core.model.TaskProcessImpl;
+import org.fogbowcloud.blowout.core.model.TaskState;
+import org.fogbowcloud.blowout.infrastructure.manager.InfrastructureManager;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.fogbowcloud.blowout.pool.DefaultBlowoutPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One polling sweep of the task monitor over N / 10 running processes, a
+ * tenth of which have finished and another tenth failed since the last sweep.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskMonitorBenchmark {
+
+	private static final int FINISHED_EVERY = 10;
+	private static final int FAILED_EVERY = 10;
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	private List<Task> tasks;
+	private List<AbstractResource> resources;
+	private TaskMonitor taskMonitor;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		List<Specification> specs = BenchmarkWorkload.createSpecifications();
+		resources = BenchmarkWorkload.createResources(size, specs, ResourceState.BUSY);
+		tasks = BenchmarkWorkload.createTasks(resources.size(), specs);
+
+		DefaultBlowoutPool pool = new DefaultBlowoutPool();
+		pool.start(new InfrastructureManager() {
+			@Override
+			public void act(List<AbstractResource> resources, List<Task> tasks) throws Exception {
+			}
+		}, new SchedulerInterface() {
+			@Override
+			public void act(List<Task> tasks, List<AbstractResource> resources) {
+			}
+
+			@Override
+			public void stopTask(Task task) {
+			}
+
+			@Override
+			public void runTask(Task task, AbstractResource resource) {
+			}
+
+			@Override
+			public List<Task> getRunningTasks() {
+				return null;
+			}
+		});
+		pool.addTasks(tasks);
+		pool.addResourceList(resources);
+		taskMonitor = new TaskMonitor(pool, 0);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		Map<Task, TaskProcess> runningTasks = new HashMap<Task, TaskProcess>();
+		for (int i = 0; i < tasks.size(); i++) {
+			Task task = tasks.get(i);
+			TaskProcessImpl process = new TaskProcessImpl(task.getId(), task.getAllCommands(),
+					task.getSpecification(), task.getUUID());
+			process.setResource(resources.get(i));
+			if (i % FINISHED_EVERY == 0) {
+				process.setStatus(TaskState.FINISHED);
+			} else if (i % FAILED_EVERY == 1) {
+				process.setStatus(TaskState.FAILED);
+			} else {
+				process.setStatus(TaskState.RUNNING);
+			}
+			runningTasks.put(task, process);
+		}
+		taskMonitor.setRunningTasks(runningTasks);
+	}
+
+	@Benchmark
+	public Map<Task, TaskProcess> procMon() {
+		taskMonitor.procMon();
+		return taskMonitor.getRunningTasks();
+	}
+}
@@ -0,0 +1,55 @@
+package org.fogbowcloud.blowout.infrastructure.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.benchmark.BenchmarkWorkload;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultInfrastructureManagerBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	private List<Task> tasks;
+	private List<AbstractResource> resources;
+	private DefaultInfrastructureManager infraManager;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		List<Specification> specs = BenchmarkWorkload.createSpecifications();
+		tasks = BenchmarkWorkload.createTasks(size, specs);
+		resources = new ArrayList<AbstractResource>();
+		resources.addAll(BenchmarkWorkload.createResources(size, specs, ResourceState.IDLE));
+		resources.addAll(BenchmarkWorkload.createResources(size, specs, ResourceState.BUSY));
+		infraManager = new DefaultInfrastructureManager(null, null);
+	}
+
+	@Benchmark
+	public Map<Specification, Integer> generateDemandBySpec() {
+		return infraManager.generateDemandBySpec(tasks, resources);
+	}
+}
@@ -0,0 +1,83 @@
+package org.fogbowcloud.blowout.infrastructure.provider.fogbow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matches one specification against a set of Fogbow resources, through the
+ * compiled requirements and through ClassAd, as
+ * DefaultInfrastructureManager.generateDemandBySpec does for every task.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FogbowRequirementsBenchmark {
+
+	private static final String REQUIREMENTS = "Glue2vCPU >= 2 && Glue2RAM >= 2048 && Glue2disk >= 20 "
+			+ "&& Glue2CloudComputeManagerID == \"servers.your.domain\"";
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private Specification spec;
+	private List<FogbowResource> resources;
+
+	@Setup
+	public void setUp() {
+		spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		spec.addRequirement(FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS, REQUIREMENTS);
+		resources = new ArrayList<FogbowResource>(size);
+		for (int i = 0; i < size; i++) {
+			FogbowResource resource = new FogbowResource("resource" + i, "order" + i, spec);
+			resource.putMetadata(AbstractResource.METADATA_IMAGE, "image");
+			resource.putMetadata(AbstractResource.METADATA_PUBLIC_KEY, "publicKey");
+			resource.putMetadata(AbstractResource.METADATA_VCPU, String.valueOf(1 + i % 4));
+			resource.putMetadata(AbstractResource.METADATA_MEN_SIZE, String.valueOf(1024 * (1 + i % 8)));
+			resource.putMetadata(AbstractResource.METADATA_DISK_SIZE, "30");
+			resource.putMetadata(AbstractResource.METADATA_LOCATION, "\"servers.your.domain\"");
+			resources.add(resource);
+		}
+	}
+
+	@Benchmark
+	public int matchCompiled() {
+		int matches = 0;
+		for (FogbowResource resource : resources) {
+			if (resource.match(spec)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int matchClassAd() {
+		int matches = 0;
+		for (FogbowResource resource : resources) {
+			// Not a supported expression, so every call goes to ClassAd.
+			if (FogbowRequirementsHelper.matches(resource, REQUIREMENTS + " && Glue2vCPU =!= 3")) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+}
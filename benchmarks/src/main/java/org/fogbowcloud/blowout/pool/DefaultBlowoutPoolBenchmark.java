@@ -0,0 +1,88 @@
+package org.fogbowcloud.blowout.pool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.benchmark.BenchmarkWorkload;
+import org.fogbowcloud.blowout.benchmark.InMemoryInfrastructureProvider;
+import org.fogbowcloud.blowout.core.StandardScheduler;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.infrastructure.manager.DefaultInfrastructureManager;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.infrastructure.monitor.ResourceMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full act pass of the pool: demand computation and resource requests in the
+ * infrastructure manager followed by task assignment in the scheduler. Both
+ * are rebuilt before each invocation so every pass starts from the same
+ * state.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultBlowoutPoolBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	private DefaultBlowoutPool pool;
+	private List<AbstractResource> resources;
+	private InMemoryInfrastructureProvider infraProvider;
+	private TaskMonitor taskMonitor;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		List<Specification> specs = BenchmarkWorkload.createSpecifications();
+		List<Task> tasks = BenchmarkWorkload.createTasks(size, specs);
+		resources = BenchmarkWorkload.createResources(size, specs, ResourceState.IDLE);
+
+		pool = new DefaultBlowoutPool();
+		pool.setTaskPool(tasks);
+		Map<String, AbstractResource> resourcePool = new ConcurrentHashMap<String, AbstractResource>();
+		for (AbstractResource resource : resources) {
+			resourcePool.put(resource.getId(), resource);
+		}
+		pool.setResourcePool(resourcePool);
+
+		infraProvider = new InMemoryInfrastructureProvider();
+		taskMonitor = new TaskMonitor(pool, 0) {
+			@Override
+			public void runTask(Task task, AbstractResource resource) {
+			}
+		};
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		infraProvider.clear();
+		ResourceMonitor resourceMonitor = new ResourceMonitor(infraProvider, pool, new Properties());
+		pool.setInfraManager(new DefaultInfrastructureManager(infraProvider, resourceMonitor));
+		pool.setSchedulerInterface(new StandardScheduler(taskMonitor));
+		BenchmarkWorkload.resetResources(resources, ResourceState.IDLE);
+	}
+
+	@Benchmark
+	public void callAct() {
+		pool.callAct();
+	}
+}
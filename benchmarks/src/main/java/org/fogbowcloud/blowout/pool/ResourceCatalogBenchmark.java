@@ -0,0 +1,81 @@
+package org.fogbowcloud.blowout.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowRequirementsHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finds the resources meeting a requirement on cores and memory that few of
+ * them meet, through the catalog indexes and by matching every resource.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourceCatalogBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private Specification spec;
+	private List<FogbowResource> resources;
+	private ResourceCatalog catalog;
+
+	@Setup
+	public void setUp() {
+		spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		spec.addRequirement(FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS,
+				"Glue2vCPU >= 16 && Glue2RAM >= 65536");
+		resources = new ArrayList<FogbowResource>(size);
+		catalog = new ResourceCatalog();
+		for (int i = 0; i < size; i++) {
+			FogbowResource resource = new FogbowResource("resource" + i, "order" + i, spec);
+			resource.putMetadata(AbstractResource.METADATA_IMAGE, "image");
+			resource.putMetadata(AbstractResource.METADATA_PUBLIC_KEY, "publicKey");
+			resource.putMetadata(AbstractResource.METADATA_VCPU, String.valueOf(1 << (i % 5)));
+			resource.putMetadata(AbstractResource.METADATA_MEN_SIZE, String.valueOf(4096.0 * (1 << (i % 5))));
+			resource.putMetadata(AbstractResource.METADATA_LOCATION, "\"member" + (i % 3) + "\"");
+			resources.add(resource);
+			catalog.add(resource);
+		}
+	}
+
+	@Benchmark
+	public List<AbstractResource> findInCatalog() {
+		List<AbstractResource> matching = new ArrayList<AbstractResource>();
+		for (AbstractResource resource : catalog.find(FogbowRequirementsHelper.toQuery(spec))) {
+			if (resource.match(spec)) {
+				matching.add(resource);
+			}
+		}
+		return matching;
+	}
+
+	@Benchmark
+	public List<AbstractResource> scanAll() {
+		List<AbstractResource> matching = new ArrayList<AbstractResource>();
+		for (FogbowResource resource : resources) {
+			if (resource.match(spec)) {
+				matching.add(resource);
+			}
+		}
+		return matching;
+	}
+}
@@ -7,11 +7,18 @@ import org.apache.log4j.Logger;
 import org.fogbowcloud.blowout.core.exception.BlowoutException;
 import org.fogbowcloud.blowout.core.model.Task;
 import org.fogbowcloud.blowout.core.model.TaskState;
+import org.fogbowcloud.blowout.core.monitor.TaskExecutor;
 import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.core.output.FileTaskOutputSink;
+import org.fogbowcloud.blowout.core.output.TaskOutputSink;
+import org.fogbowcloud.blowout.core.output.TaskProcessOutput;
+import org.fogbowcloud.blowout.core.ssh.SshSessionPool;
 import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.blowout.infrastructure.manager.DefaultInfrastructureManager;
 import org.fogbowcloud.blowout.infrastructure.manager.InfrastructureManager;
 import org.fogbowcloud.blowout.infrastructure.monitor.ResourceMonitor;
 import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
+import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowInfrastructureProvider;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 import org.fogbowcloud.blowout.pool.BlowoutPool;
 
@@ -23,6 +30,8 @@ public class BlowoutController {
 	private String DEFAULT_IMPLEMENTATION_SCHEDULER = "org.fogbowcloud.blowout.core.StandardScheduler";
 	private String DEFAULT_IMPLEMENTATION_INFRA_MANAGER = "org.fogbowcloud.blowout.infrastructure.manager.DefaultInfrastructureManager";
 	private String DEFAULT_IMPLEMENTATION_INFRA_PROVIDER = "org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowInfrastructureProvider";
+	private String DEFAULT_TASK_MONITOR_SWEEP_PERIOD = "30000";
+	private String DEFAULT_TASK_MONITOR_MIN_SWEEP_PERIOD = "1000";
 
 	protected BlowoutPool blowoutPool;
 
@@ -57,7 +66,20 @@ public class BlowoutController {
 		blowoutPool = createBlowoutInstance();
 		infraProvider = createInfraProviderInstance(removePreviousResouces);
 
-		taskMonitor = new TaskMonitor(blowoutPool, 30000);
+		long taskMonitorSweepPeriod = Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.TASK_MONITOR_SWEEP_PERIOD, DEFAULT_TASK_MONITOR_SWEEP_PERIOD));
+		taskMonitor = new TaskMonitor(blowoutPool, taskMonitorSweepPeriod,
+				TaskExecutor.createTaskExecutor(properties));
+		SshSessionPool sshSessionPool = SshSessionPool.createSshSessionPool(properties);
+		if (sshSessionPool != null) {
+			sshSessionPool.start();
+			taskMonitor.setSshSessionPool(sshSessionPool);
+		}
+		taskMonitor.setMinSweepPeriod(Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.TASK_MONITOR_MIN_SWEEP_PERIOD, DEFAULT_TASK_MONITOR_MIN_SWEEP_PERIOD)));
+		taskMonitor.setOutputSink(createTaskOutputSinkInstance());
+		taskMonitor.setOutputTailSize(Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.TASK_OUTPUT_TAIL_SIZE, String.valueOf(TaskProcessOutput.DEFAULT_TAIL_SIZE))));
 		taskMonitor.start();
 		resourceMonitor = new ResourceMonitor(infraProvider, blowoutPool, properties);
 		resourceMonitor.start();
@@ -75,7 +97,18 @@ public class BlowoutController {
 		}
 
 		taskMonitor.stop();
+		taskMonitor.getTaskExecutor().shutdown();
+		if (taskMonitor.getSshSessionPool() != null) {
+			taskMonitor.getSshSessionPool().close();
+		}
 		resourceMonitor.stop();
+		blowoutPool.stop();
+		if (infraManager instanceof DefaultInfrastructureManager) {
+			((DefaultInfrastructureManager) infraManager).stop();
+		}
+		if (infraProvider instanceof FogbowInfrastructureProvider) {
+			((FogbowInfrastructureProvider) infraProvider).close();
+		}
 
 		started = false;
 	}
@@ -99,12 +132,7 @@ public class BlowoutController {
 	}
 
 	public TaskState getTaskState(String taskId) {
-		Task task = null;
-		for (Task t : blowoutPool.getAllTasks()) {
-			if (t.getId().equals(taskId)) {
-				task = t;
-			}
-		}
+		Task task = blowoutPool.getTaskById(taskId);
 		if (task == null) {
 			return TaskState.NOT_CREATED;
 		} else {
@@ -116,7 +144,12 @@ public class BlowoutController {
 		String providerClassName = this.properties.getProperty(AppPropertiesConstants.IMPLEMENTATION_BLOWOUT_POOL,
 				DEFAULT_IMPLEMENTATION_BLOWOUT_POOL);
 		Class<?> forName = Class.forName(providerClassName);
-		Object clazz = forName.getConstructor().newInstance();
+		Object clazz;
+		try {
+			clazz = forName.getConstructor(Properties.class).newInstance(properties);
+		} catch (NoSuchMethodException e) {
+			clazz = forName.getConstructor().newInstance();
+		}
 		if (!(clazz instanceof BlowoutPool)) {
 			throw new Exception("Blowout Pool Class Name is not a BlowoutPool implementation");
 		}
@@ -138,7 +171,13 @@ public class BlowoutController {
 		String providerClassName = this.properties.getProperty(AppPropertiesConstants.IMPLEMENTATION_INFRA_MANAGER,
 				DEFAULT_IMPLEMENTATION_INFRA_MANAGER);
 		Class<?> forName = Class.forName(providerClassName);
-		Object clazz = forName.getConstructor(InfrastructureProvider.class, ResourceMonitor.class).newInstance(infraProvider, resourceMonitor);
+		Object clazz;
+		try {
+			clazz = forName.getConstructor(InfrastructureProvider.class, ResourceMonitor.class, Properties.class)
+					.newInstance(infraProvider, resourceMonitor, properties);
+		} catch (NoSuchMethodException e) {
+			clazz = forName.getConstructor(InfrastructureProvider.class, ResourceMonitor.class).newInstance(infraProvider, resourceMonitor);
+		}
 		if (!(clazz instanceof InfrastructureManager)) {
 			throw new Exception("Infrastructure Manager Class Name is not a InfrastructureManager implementation");
 		}
@@ -149,13 +188,39 @@ public class BlowoutController {
 		String providerClassName = this.properties.getProperty(AppPropertiesConstants.IMPLEMENTATION_SCHEDULER,
 				DEFAULT_IMPLEMENTATION_SCHEDULER);
 		Class<?> forName = Class.forName(providerClassName);
-		Object clazz = forName.getConstructor(TaskMonitor.class).newInstance(taskMonitor);
+		Object clazz;
+		try {
+			clazz = forName.getConstructor(TaskMonitor.class, Properties.class).newInstance(taskMonitor, properties);
+		} catch (NoSuchMethodException e) {
+			clazz = forName.getConstructor(TaskMonitor.class).newInstance(taskMonitor);
+		}
 		if (!(clazz instanceof SchedulerInterface)) {
 			throw new Exception("Scheduler Class Name is not a SchedulerInterface implementation");
 		}
 		return (SchedulerInterface) clazz;
 	}
 
+	/**
+	 * Returns null when neither a sink class nor an output directory is set,
+	 * in which case only the output tail of each process is kept.
+	 */
+	protected TaskOutputSink createTaskOutputSinkInstance() throws Exception {
+		String sinkClassName = this.properties.getProperty(AppPropertiesConstants.IMPLEMENTATION_TASK_OUTPUT_SINK);
+		if (sinkClassName == null || sinkClassName.isEmpty()) {
+			String outputDir = this.properties.getProperty(AppPropertiesConstants.TASK_OUTPUT_DIR);
+			if (outputDir == null || outputDir.isEmpty()) {
+				return null;
+			}
+			return new FileTaskOutputSink(properties);
+		}
+		Class<?> forName = Class.forName(sinkClassName);
+		Object clazz = forName.getConstructor(Properties.class).newInstance(properties);
+		if (!(clazz instanceof TaskOutputSink)) {
+			throw new Exception("Task Output Sink Class Name is not a TaskOutputSink implementation");
+		}
+		return (TaskOutputSink) clazz;
+	}
+
 	protected static boolean checkProperties(Properties properties) {//FIXME: MAKE IT IN A GENERAL WAY.
 		if (!properties.containsKey(AppPropertiesConstants.IMPLEMENTATION_INFRA_PROVIDER)) {
 			LOGGER.error("Required property " + AppPropertiesConstants.IMPLEMENTATION_INFRA_PROVIDER + " was not set");
@@ -240,12 +305,7 @@ public class BlowoutController {
 	}
 
 	public int getTaskRetries(String taskId) {
-		Task task = null;
-		for (Task t : blowoutPool.getAllTasks()) {
-			if (t.getId().equals(taskId)) {
-				task = t;
-			}
-		}
+		Task task = blowoutPool.getTaskById(taskId);
 		if (task == null) {
 			return 0;
 		} else {
@@ -0,0 +1,73 @@
+package org.fogbowcloud.blowout.core;
+
+import java.util.Properties;
+
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Weighs the task priority against the seconds it has waited: with the
+ * default weights one priority level is worth a minute of waiting. Tasks run
+ * at their preferred location are worth a priority level more, and resources
+ * that already ran tasks, whose images and connections are warm, are served
+ * first.
+ */
+public class DefaultSchedulingScore implements SchedulingScore {
+
+	private static final String DEFAULT_PRIORITY_WEIGHT = "60";
+	private static final String DEFAULT_WAIT_WEIGHT = "1";
+	private static final String DEFAULT_LOCALITY_WEIGHT = "60";
+	private static final String DEFAULT_REUSE_WEIGHT = "1";
+
+	private final double priorityWeight;
+	private final double waitWeight;
+	private final double localityWeight;
+	private final double reuseWeight;
+
+	public DefaultSchedulingScore() {
+		this(new Properties());
+	}
+
+	public DefaultSchedulingScore(Properties properties) {
+		this.priorityWeight = Double.parseDouble(properties.getProperty(
+				AppPropertiesConstants.SCHEDULER_SCORE_PRIORITY_WEIGHT, DEFAULT_PRIORITY_WEIGHT));
+		this.waitWeight = Double.parseDouble(properties.getProperty(
+				AppPropertiesConstants.SCHEDULER_SCORE_WAIT_WEIGHT, DEFAULT_WAIT_WEIGHT));
+		this.localityWeight = Double.parseDouble(properties.getProperty(
+				AppPropertiesConstants.SCHEDULER_SCORE_LOCALITY_WEIGHT, DEFAULT_LOCALITY_WEIGHT));
+		this.reuseWeight = Double.parseDouble(properties.getProperty(
+				AppPropertiesConstants.SCHEDULER_SCORE_REUSE_WEIGHT, DEFAULT_REUSE_WEIGHT));
+	}
+
+	@Override
+	public double scoreTask(Task task, long readySince) {
+		return priorityWeight * getPriority(task) - waitWeight * (readySince / 1000d);
+	}
+
+	@Override
+	public double getLocalityBonus() {
+		return localityWeight;
+	}
+
+	@Override
+	public double scoreResource(AbstractResource resource, int tasksRun) {
+		return reuseWeight * Math.max(tasksRun, resource.getReusedTimes());
+	}
+
+	/**
+	 * Tasks without a valid priority have priority 0.
+	 */
+	public static int getPriority(Task task) {
+		String priority = task.getMetadata(TaskImpl.METADATA_PRIORITY);
+		if (priority == null) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(priority.trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package org.fogbowcloud.blowout.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.SpecificationRegistry;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Scheduler that shares the resources among jobs instead of running tasks in
+ * the order they arrived. Tasks are grouped by their job
+ * ({@link TaskImpl#METADATA_JOB_ID}, set by {@link org.fogbowcloud.blowout.core.model.Job}),
+ * tasks without a job forming one job of their own.
+ *
+ * Among the jobs with a ready task for a resource, the ones of highest
+ * priority are served first, and among those the job with the lowest pass
+ * (stride scheduling): each task run advances the pass of its job by the
+ * inverse of the job weight, so a job of weight 2 runs twice as many tasks as
+ * one of weight 1. A job that had no ready tasks rejoins at the current pass,
+ * without credit for the time it was away, so a short job submitted during a
+ * long one runs right away. Jobs at their maximum of running tasks are
+ * skipped. Tasks of the same job run in arrival order.
+ */
+public class FairShareScheduler extends StandardScheduler {
+
+	private static final String NO_JOB = "";
+
+	private final Map<String, JobQueue> jobQueues = new LinkedHashMap<String, JobQueue>();
+	private final Map<String, JobQueue> queuedTaskJobs = new HashMap<String, JobQueue>();
+	private double virtualTime = 0;
+
+	public FairShareScheduler(TaskMonitor taskMon) {
+		super(taskMon);
+	}
+
+	@Override
+	protected void syncReadyQueues(List<Task> tasks) {
+		super.syncReadyQueues(tasks);
+		for (JobQueue jobQueue : jobQueues.values()) {
+			jobQueue.runningTasks = 0;
+		}
+		for (Task runningTask : getRunningTasks()) {
+			JobQueue jobQueue = jobQueues.get(getJobId(runningTask));
+			if (jobQueue != null && !runningTask.isFinished()) {
+				jobQueue.runningTasks++;
+			}
+		}
+		Iterator<JobQueue> jobIterator = jobQueues.values().iterator();
+		while (jobIterator.hasNext()) {
+			JobQueue jobQueue = jobIterator.next();
+			if (jobQueue.queuedTasks == 0 && jobQueue.runningTasks == 0) {
+				jobIterator.remove();
+			}
+		}
+	}
+
+	@Override
+	protected Task chooseTaskForRunning(AbstractResource resource) {
+		Specification spec = SpecificationRegistry.intern(resource.getRequestedSpec());
+		if (getTaskMonitor().isSaturated(spec)) {
+			return null;
+		}
+		while (true) {
+			JobQueue chosen = null;
+			for (JobQueue jobQueue : jobQueues.values()) {
+				if (jobQueue.isFull() || !jobQueue.hasReady(spec)) {
+					continue;
+				}
+				if (chosen == null || jobQueue.priority > chosen.priority
+						|| (jobQueue.priority == chosen.priority && jobQueue.pass < chosen.pass)) {
+					chosen = jobQueue;
+				}
+			}
+			if (chosen == null) {
+				return null;
+			}
+			Task task = chosen.firstReady(spec);
+			if (isRunnable(task)) {
+				return task;
+			}
+			dequeue(task);
+		}
+	}
+
+	@Override
+	public void runTask(Task task, AbstractResource resource) {
+		JobQueue jobQueue = queuedTaskJobs.get(task.getId());
+		super.runTask(task, resource);
+		if (jobQueue != null && isRunning(task)) {
+			virtualTime = Math.max(virtualTime, jobQueue.pass);
+			jobQueue.pass += 1d / jobQueue.weight;
+			jobQueue.runningTasks++;
+		}
+	}
+
+	@Override
+	protected void addToReadyQueue(Task task) {
+		String jobId = getJobId(task);
+		JobQueue jobQueue = jobQueues.get(jobId);
+		if (jobQueue == null) {
+			jobQueue = new JobQueue();
+			jobQueues.put(jobId, jobQueue);
+		}
+		if (jobQueue.queuedTasks == 0) {
+			jobQueue.pass = Math.max(jobQueue.pass, virtualTime);
+		}
+		jobQueue.update(task);
+		jobQueue.add(task);
+		queuedTaskJobs.put(task.getId(), jobQueue);
+	}
+
+	@Override
+	protected void removeFromReadyQueue(Task task) {
+		JobQueue jobQueue = queuedTaskJobs.remove(task.getId());
+		if (jobQueue != null) {
+			jobQueue.remove(task);
+		}
+	}
+
+	private static String getJobId(Task task) {
+		String jobId = task.getMetadata(TaskImpl.METADATA_JOB_ID);
+		return jobId == null ? NO_JOB : jobId;
+	}
+
+	private static int parseInt(String value, int defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private static class JobQueue {
+		private final Map<Specification, LinkedHashMap<String, Task>> readyBySpec = new HashMap<Specification, LinkedHashMap<String, Task>>();
+		// The specification each task was queued under, even if it changed since.
+		private final Map<String, Specification> readySpecs = new HashMap<String, Specification>();
+		private int queuedTasks = 0;
+		private int runningTasks = 0;
+		private int weight = 1;
+		private int priority = 0;
+		private int maxRunningTasks = 0;
+		private double pass = 0;
+
+		/**
+		 * The settings of a job are those of its last queued task.
+		 */
+		private void update(Task task) {
+			weight = Math.max(parseInt(task.getMetadata(TaskImpl.METADATA_JOB_WEIGHT), 1), 1);
+			priority = parseInt(task.getMetadata(TaskImpl.METADATA_JOB_PRIORITY), 0);
+			maxRunningTasks = Math.max(parseInt(task.getMetadata(TaskImpl.METADATA_JOB_MAX_RUNNING_TASKS), 0), 0);
+		}
+
+		private boolean isFull() {
+			return maxRunningTasks > 0 && runningTasks >= maxRunningTasks;
+		}
+
+		private boolean hasReady(Specification spec) {
+			LinkedHashMap<String, Task> ready = readyBySpec.get(spec);
+			return ready != null && !ready.isEmpty();
+		}
+
+		private Task firstReady(Specification spec) {
+			return readyBySpec.get(spec).values().iterator().next();
+		}
+
+		private void add(Task task) {
+			Specification spec = SpecificationRegistry.intern(task.getSpecification());
+			readySpecs.put(task.getId(), spec);
+			LinkedHashMap<String, Task> ready = readyBySpec.get(spec);
+			if (ready == null) {
+				ready = new LinkedHashMap<String, Task>();
+				readyBySpec.put(spec, ready);
+			}
+			if (ready.put(task.getId(), task) == null) {
+				queuedTasks++;
+			}
+		}
+
+		private void remove(Task task) {
+			Specification spec = readySpecs.remove(task.getId());
+			LinkedHashMap<String, Task> ready = spec == null ? null : readyBySpec.get(spec);
+			if (ready != null && ready.remove(task.getId()) != null) {
+				queuedTasks--;
+				if (ready.isEmpty()) {
+					readyBySpec.remove(spec);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package org.fogbowcloud.blowout.core;
+
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Scores used by {@link ScoringScheduler}; higher scores are served first.
+ * Implementations are given by the impl_scheduler_score_class_name property
+ * and built with a Properties constructor, or a no-argument one.
+ */
+public interface SchedulingScore {
+
+	/**
+	 * Score of a ready task, computed once when it is queued. It must not
+	 * depend on the current time, so waiting time enters through readySince,
+	 * as a score that is lower the later the task became ready.
+	 */
+	double scoreTask(Task task, long readySince);
+
+	/**
+	 * Added to the score of a task when the resource is at the location the
+	 * task prefers.
+	 */
+	double getLocalityBonus();
+
+	/**
+	 * Orders idle resources; the first ones get the best tasks.
+	 *
+	 * @param tasksRun
+	 *            number of tasks this scheduler has run on the resource
+	 */
+	double scoreResource(AbstractResource resource, int tasksRun);
+}
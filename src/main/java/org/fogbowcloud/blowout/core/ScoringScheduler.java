@@ -0,0 +1,293 @@
+package org.fogbowcloud.blowout.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.SpecificationRegistry;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Scheduler that gives each idle resource the best scored task it can run,
+ * instead of the oldest one of its specification. A resource can run the
+ * tasks of the specification it was requested for and of any other it
+ * matches. Scores come from a {@link SchedulingScore}; idle resources are
+ * served in the order of their own score.
+ *
+ * Ready tasks are kept in sorted sets by specification, and by specification
+ * and preferred location ({@link TaskImpl#METADATA_PREFERRED_LOCATION}), so
+ * choosing a task for a resource only looks at the first task of two sets per
+ * specification, in O(log n). A task keeps the time it first became ready
+ * while it stays in the list of tasks, so one queued again after a rejected
+ * or failed run keeps its wait.
+ */
+public class ScoringScheduler extends StandardScheduler {
+
+	private static final Comparator<QueuedTask> BEST_FIRST = new Comparator<QueuedTask>() {
+		@Override
+		public int compare(QueuedTask a, QueuedTask b) {
+			int byScore = Double.compare(b.score, a.score);
+			if (byScore != 0) {
+				return byScore;
+			}
+			return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+		}
+	};
+
+	private final SchedulingScore score;
+	private final Map<Specification, SpecQueue> specQueues = new HashMap<Specification, SpecQueue>();
+	private final Map<String, QueuedTask> queuedTasks = new HashMap<String, QueuedTask>();
+	private final Map<String, Integer> tasksRunByResource = new HashMap<String, Integer>();
+	private Map<String, Long> readySince = new HashMap<String, Long>();
+	private long nextSequence = 0;
+
+	public ScoringScheduler(TaskMonitor taskMon) {
+		this(taskMon, new DefaultSchedulingScore());
+	}
+
+	public ScoringScheduler(TaskMonitor taskMon, Properties properties) {
+		this(taskMon, createSchedulingScore(properties));
+	}
+
+	public ScoringScheduler(TaskMonitor taskMon, SchedulingScore score) {
+		super(taskMon);
+		this.score = score;
+	}
+
+	protected static SchedulingScore createSchedulingScore(Properties properties) {
+		String scoreClassName = properties.getProperty(AppPropertiesConstants.IMPLEMENTATION_SCHEDULER_SCORE);
+		if (scoreClassName == null || scoreClassName.trim().isEmpty()) {
+			return new DefaultSchedulingScore(properties);
+		}
+		try {
+			Class<?> forName = Class.forName(scoreClassName.trim());
+			Object clazz;
+			try {
+				clazz = forName.getConstructor(Properties.class).newInstance(properties);
+			} catch (NoSuchMethodException e) {
+				clazz = forName.getConstructor().newInstance();
+			}
+			if (!(clazz instanceof SchedulingScore)) {
+				throw new IllegalArgumentException("Scheduler Score Class Name is not a SchedulingScore implementation");
+			}
+			return (SchedulingScore) clazz;
+		} catch (IllegalArgumentException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Could not create the scheduler score " + scoreClassName, e);
+		}
+	}
+
+	@Override
+	public void act(List<Task> tasks, List<AbstractResource> resources) {
+		Set<String> resourceIds = new HashSet<String>();
+		final Map<AbstractResource, Double> resourceScores = new HashMap<AbstractResource, Double>();
+		for (AbstractResource resource : resources) {
+			resourceIds.add(resource.getId());
+			resourceScores.put(resource, score.scoreResource(resource, getTasksRun(resource)));
+		}
+		tasksRunByResource.keySet().retainAll(resourceIds);
+
+		List<AbstractResource> orderedResources = new ArrayList<AbstractResource>(resources);
+		Collections.sort(orderedResources, new Comparator<AbstractResource>() {
+			@Override
+			public int compare(AbstractResource a, AbstractResource b) {
+				return Double.compare(resourceScores.get(b), resourceScores.get(a));
+			}
+		});
+		super.act(tasks, orderedResources);
+	}
+
+	@Override
+	protected void syncReadyQueues(List<Task> tasks) {
+		if (readySince.size() > tasks.size()) {
+			// Tasks left the list; forget when they became ready.
+			Map<String, Long> current = new HashMap<String, Long>();
+			for (Task task : tasks) {
+				Long since = readySince.get(task.getId());
+				if (since != null && !task.isFinished()) {
+					current.put(task.getId(), since);
+				}
+			}
+			readySince = current;
+		}
+		super.syncReadyQueues(tasks);
+	}
+
+	@Override
+	protected Task chooseTaskForRunning(AbstractResource resource) {
+		String location = normalizeLocation(resource.getMetadataValue(AbstractResource.METADATA_LOCATION));
+		QueuedTask best = null;
+		double bestScore = 0;
+		for (Entry<Specification, SpecQueue> entry : new ArrayList<Entry<Specification, SpecQueue>>(
+				specQueues.entrySet())) {
+			if (!canRun(resource, entry.getKey())) {
+				continue;
+			}
+			SpecQueue queue = entry.getValue();
+			QueuedTask top = firstRunnable(queue.tasks);
+			if (top != null) {
+				double topScore = top.score + (location != null && location.equals(top.location) ? score.getLocalityBonus() : 0);
+				if (best == null || topScore > bestScore || (topScore == bestScore && top.sequence < best.sequence)) {
+					best = top;
+					bestScore = topScore;
+				}
+			}
+			TreeSet<QueuedTask> local = location == null ? null : queue.tasksByLocation.get(location);
+			QueuedTask localTop = local == null ? null : firstRunnable(local);
+			if (localTop != null) {
+				double localScore = localTop.score + score.getLocalityBonus();
+				if (best == null || localScore > bestScore || (localScore == bestScore && localTop.sequence < best.sequence)) {
+					best = localTop;
+					bestScore = localScore;
+				}
+			}
+		}
+		return best == null ? null : best.task;
+	}
+
+	private boolean canRun(AbstractResource resource, Specification spec) {
+		return (spec.equals(resource.getRequestedSpec()) || resource.match(spec))
+				&& !getTaskMonitor().isSaturated(spec);
+	}
+
+	private QueuedTask firstRunnable(TreeSet<QueuedTask> tasks) {
+		while (!tasks.isEmpty()) {
+			QueuedTask first = tasks.first();
+			if (isRunnable(first.task)) {
+				return first;
+			}
+			dequeue(first.task);
+			if (tasks.contains(first)) {
+				removeFromReadyQueue(first.task);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected void addToReadyQueue(Task task) {
+		removeFromReadyQueue(task);
+		Long since = readySince.get(task.getId());
+		if (since == null) {
+			since = currentTimeMillis();
+			readySince.put(task.getId(), since);
+		}
+		QueuedTask queuedTask = new QueuedTask(task, score.scoreTask(task, since),
+				nextSequence++, normalizeLocation(task.getMetadata(TaskImpl.METADATA_PREFERRED_LOCATION)));
+		queuedTasks.put(task.getId(), queuedTask);
+		SpecQueue queue = specQueues.get(queuedTask.spec);
+		if (queue == null) {
+			queue = new SpecQueue();
+			specQueues.put(queuedTask.spec, queue);
+		}
+		queue.add(queuedTask);
+	}
+
+	@Override
+	protected void removeFromReadyQueue(Task task) {
+		QueuedTask queuedTask = queuedTasks.remove(task.getId());
+		if (queuedTask == null) {
+			return;
+		}
+		SpecQueue queue = specQueues.get(queuedTask.spec);
+		if (queue != null) {
+			queue.remove(queuedTask);
+			if (queue.tasks.isEmpty()) {
+				specQueues.remove(queuedTask.spec);
+			}
+		}
+	}
+
+	@Override
+	public void runTask(Task task, AbstractResource resource) {
+		super.runTask(task, resource);
+		if (!isRunning(task)) {
+			return;
+		}
+		tasksRunByResource.put(resource.getId(), getTasksRun(resource) + 1);
+	}
+
+	protected int getTasksRun(AbstractResource resource) {
+		Integer tasksRun = tasksRunByResource.get(resource.getId());
+		return tasksRun == null ? 0 : tasksRun;
+	}
+
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Resources report their location as a quoted ClassAd string; both sides
+	 * are compared without quotes and case.
+	 */
+	private static String normalizeLocation(String location) {
+		if (location == null) {
+			return null;
+		}
+		String normalized = location.trim();
+		if (normalized.length() >= 2 && normalized.startsWith("\"") && normalized.endsWith("\"")) {
+			normalized = normalized.substring(1, normalized.length() - 1);
+		}
+		return normalized.isEmpty() ? null : normalized.toLowerCase();
+	}
+
+	private static class SpecQueue {
+		private final TreeSet<QueuedTask> tasks = new TreeSet<QueuedTask>(BEST_FIRST);
+		private final Map<String, TreeSet<QueuedTask>> tasksByLocation = new HashMap<String, TreeSet<QueuedTask>>();
+
+		private void add(QueuedTask queuedTask) {
+			tasks.add(queuedTask);
+			if (queuedTask.location != null) {
+				TreeSet<QueuedTask> local = tasksByLocation.get(queuedTask.location);
+				if (local == null) {
+					local = new TreeSet<QueuedTask>(BEST_FIRST);
+					tasksByLocation.put(queuedTask.location, local);
+				}
+				local.add(queuedTask);
+			}
+		}
+
+		private void remove(QueuedTask queuedTask) {
+			tasks.remove(queuedTask);
+			if (queuedTask.location != null) {
+				TreeSet<QueuedTask> local = tasksByLocation.get(queuedTask.location);
+				if (local != null) {
+					local.remove(queuedTask);
+					if (local.isEmpty()) {
+						tasksByLocation.remove(queuedTask.location);
+					}
+				}
+			}
+		}
+	}
+
+	private static class QueuedTask {
+		private final Task task;
+		private final Specification spec;
+		private final double score;
+		private final long sequence;
+		private final String location;
+
+		private QueuedTask(Task task, double score, long sequence, String location) {
+			this.task = task;
+			this.spec = SpecificationRegistry.intern(task.getSpecification());
+			this.score = score;
+			this.sequence = sequence;
+			this.location = location;
+		}
+	}
+}
@@ -2,85 +2,214 @@ package org.fogbowcloud.blowout.core;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.SpecificationRegistry;
 import org.fogbowcloud.blowout.core.model.Task;
 import org.fogbowcloud.blowout.core.model.TaskProcess;
 import org.fogbowcloud.blowout.core.model.TaskProcessImpl;
 import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.core.monitor.TaskRejectionListener;
 import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 
-public class StandardScheduler implements SchedulerInterface {
+public class StandardScheduler implements SchedulerInterface, TaskRejectionListener {
 
 	private Map<AbstractResource, Task> runningTasks = new HashMap<AbstractResource, Task>();
+	private Map<String, AbstractResource> runningTaskResources = new HashMap<String, AbstractResource>();
+	private Map<Specification, LinkedHashMap<String, Task>> readyQueues = new HashMap<Specification, LinkedHashMap<String, Task>>();
+	private Set<String> queuedTaskIds = new HashSet<String>();
+	private Map<String, Specification> readyQueueSpecs = new HashMap<String, Specification>();
+	private Set<String> currentTaskIds = new HashSet<String>();
 	private TaskMonitor taskMon;
 
 	public StandardScheduler(TaskMonitor taskMon) {
 		this.taskMon = taskMon;
+		taskMon.setRejectionListener(this);
 	}
 
 	@Override
 	public void act(List<Task> tasks, List<AbstractResource> resources) {
+		syncReadyQueues(tasks);
 		for (AbstractResource resource : resources) {
-			actOnResource(resource, tasks);
+			actOnResource(resource);
 		}
-		for (Task runningTask : runningTasks.values()) {
-			if (!tasks.contains(runningTask)) {
+		for (Task runningTask : new ArrayList<Task>(runningTasks.values())) {
+			if (!currentTaskIds.contains(runningTask.getId())) {
 				stopTask(runningTask);
 			}
 		}
-		for (AbstractResource inUse : runningTasks.keySet()) {
-			if (!resources.contains(inUse)) {
-				stopTask(runningTasks.get(inUse));
+		Set<AbstractResource> currentResources = new HashSet<AbstractResource>(resources);
+		for (Entry<AbstractResource, Task> inUse : new ArrayList<Entry<AbstractResource, Task>>(
+				runningTasks.entrySet())) {
+			if (!currentResources.contains(inUse.getKey())) {
+				stopTask(inUse.getValue());
 			}
 		}
 	}
 
-	protected void actOnResource(AbstractResource resource, List<Task> tasks) {
+	protected void actOnResource(AbstractResource resource) {
 		if (resource.getState().equals(ResourceState.IDLE)) {
-			Task task = chooseTaskForRunning(resource, tasks);
+			Task task = chooseTaskForRunning(resource);
 			if (task != null) {
 				runTask(task, resource);
 			}
 		}
-		
+
 		if (resource.getState().equals(ResourceState.TO_REMOVE)) {
-			runningTasks.remove(resource);
+			removeRunningTask(resource);
 		}
 
 	}
 
-	protected Task chooseTaskForRunning(AbstractResource resource, List<Task> tasks) {
+	protected void syncReadyQueues(List<Task> tasks) {
+		currentTaskIds = new HashSet<String>(tasks.size() * 2);
 		for (Task task : tasks) {
-			boolean isSameSpecification = resource.getRequestedSpec().equals(task.getSpecification());
-			if (!task.isFinished() && !runningTasks.containsValue(task) && isSameSpecification) {
+			currentTaskIds.add(task.getId());
+			if (!task.isFinished() && !queuedTaskIds.contains(task.getId())
+					&& !runningTaskResources.containsKey(task.getId())) {
+				enqueue(task);
+			}
+		}
+	}
+
+	protected Task chooseTaskForRunning(AbstractResource resource, List<Task> tasks) {
+		syncReadyQueues(tasks);
+		return chooseTaskForRunning(resource);
+	}
+
+	/**
+	 * Subclasses check each specification they may choose a task of against
+	 * {@link TaskMonitor#isSaturated(Specification)}, as this does for the
+	 * requested one.
+	 */
+	protected Task chooseTaskForRunning(AbstractResource resource) {
+		Specification spec = SpecificationRegistry.intern(resource.getRequestedSpec());
+		LinkedHashMap<String, Task> readyQueue = readyQueues.get(spec);
+		if (readyQueue == null || taskMon.isSaturated(spec)) {
+			return null;
+		}
+		Iterator<Task> queueIterator = readyQueue.values().iterator();
+		while (queueIterator.hasNext()) {
+			Task task = queueIterator.next();
+			if (isRunnable(task)) {
 				return task;
 			}
+			queueIterator.remove();
+			queuedTaskIds.remove(task.getId());
+			readyQueueSpecs.remove(task.getId());
 		}
 		return null;
 	}
 
+	/**
+	 * Whether a queued task may still be run: it is unfinished, was in the
+	 * last list of tasks given to act and is not running.
+	 */
+	protected boolean isRunnable(Task task) {
+		return !task.isFinished() && currentTaskIds.contains(task.getId())
+				&& !runningTaskResources.containsKey(task.getId());
+	}
+
+	private void enqueue(Task task) {
+		addToReadyQueue(task);
+		queuedTaskIds.add(task.getId());
+	}
+
+	protected void dequeue(Task task) {
+		if (queuedTaskIds.remove(task.getId())) {
+			removeFromReadyQueue(task);
+		}
+	}
+
+	/**
+	 * Ready queues hold each task once, from the act that first sees it
+	 * ready until it runs or is found not runnable. Subclasses that keep
+	 * their own queues override these and
+	 * {@link #chooseTaskForRunning(AbstractResource)} together. Queues are
+	 * keyed by the canonical specification, see {@link SpecificationRegistry},
+	 * and a task leaves the queue it joined even if its specification changed.
+	 */
+	protected void addToReadyQueue(Task task) {
+		removeFromReadyQueue(task);
+		Specification spec = SpecificationRegistry.intern(task.getSpecification());
+		LinkedHashMap<String, Task> readyQueue = readyQueues.get(spec);
+		if (readyQueue == null) {
+			readyQueue = new LinkedHashMap<String, Task>();
+			readyQueues.put(spec, readyQueue);
+		}
+		readyQueue.put(task.getId(), task);
+		readyQueueSpecs.put(task.getId(), spec);
+	}
+
+	protected void removeFromReadyQueue(Task task) {
+		Specification spec = readyQueueSpecs.remove(task.getId());
+		LinkedHashMap<String, Task> readyQueue = spec == null ? null : readyQueues.get(spec);
+		if (readyQueue != null) {
+			readyQueue.remove(task.getId());
+		}
+	}
+
+	private void removeRunningTask(AbstractResource resource) {
+		Task task = runningTasks.remove(resource);
+		if (task != null) {
+			runningTaskResources.remove(task.getId());
+		}
+	}
+
 	@Override
 	public void stopTask(Task task) {
 		// TODO: Find out how to stop the execution of the process
-		for (AbstractResource resource : runningTasks.keySet()) {
-			if (runningTasks.get(resource).equals(task)) {
-				this.taskMon.stopTask(task);
-				runningTasks.remove(resource);
-			}
+		AbstractResource resource = runningTaskResources.remove(task.getId());
+		if (resource != null) {
+			this.taskMon.stopTask(task);
+			runningTasks.remove(resource);
 		}
 	}
 
 	@Override
 	public void runTask(Task task, AbstractResource resource) {
 		task.setRetries(task.getRetries()+1);
+		dequeue(task);
+		removeRunningTask(resource);
 		runningTasks.put(resource, task);
+		runningTaskResources.put(task.getId(), resource);
 
 		submitToMonitor(task, resource);
 	}
 
+	/**
+	 * Undoes {@link #runTask(Task, AbstractResource)} for a task the monitor
+	 * could not start, putting it back in its ready queue.
+	 */
+	@Override
+	public void taskRejected(Task task, AbstractResource resource) {
+		if (!resource.equals(runningTaskResources.get(task.getId()))) {
+			return;
+		}
+		runningTaskResources.remove(task.getId());
+		runningTasks.remove(resource);
+		task.setRetries(task.getRetries() - 1);
+		if (!task.isFinished() && currentTaskIds.contains(task.getId())) {
+			enqueue(task);
+		}
+	}
+
+	protected boolean isRunning(Task task) {
+		return runningTaskResources.containsKey(task.getId());
+	}
+
+	protected TaskMonitor getTaskMonitor() {
+		return taskMon;
+	}
+
 	public void submitToMonitor(Task task, AbstractResource resource) {
 		taskMon.runTask(task, resource);
 	}
@@ -94,8 +223,12 @@ public class StandardScheduler implements SchedulerInterface {
 	public List<Task> getRunningTasks() {
 		return new ArrayList<Task>(runningTasks.values());
 	}
-	
+
 	protected void setRunningTasks(Map<AbstractResource, Task> runningTasks) {
 		this.runningTasks = runningTasks;
+		this.runningTaskResources = new HashMap<String, AbstractResource>();
+		for (Entry<AbstractResource, Task> entry : runningTasks.entrySet()) {
+			runningTaskResources.put(entry.getValue().getId(), entry.getKey());
+		}
 	}
 }
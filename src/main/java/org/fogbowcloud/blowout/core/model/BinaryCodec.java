@@ -0,0 +1,378 @@
+package org.fogbowcloud.blowout.core.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Compact binary form of tasks, commands and specifications, for persistence
+ * and for the wire. A stream starts with a magic number and a format version;
+ * integers are varints and strings are UTF-8 prefixed with their length, null
+ * being kept apart from the empty string. Enums are written as their ordinal,
+ * so adding a constant anywhere but at the end needs a new version.
+ *
+ * Specifications are interned per stream: the first one written gets the next
+ * ref and is written in full, later equal ones are written as their ref only.
+ * Tasks read from the same stream share their specification instances.
+ */
+public class BinaryCodec {
+
+	public static final int VERSION = 1;
+
+	private static final int MAGIC = 0xB10C;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final int FINISHED = 1;
+	private static final int FAILED = 2;
+
+	public static byte[] encode(Task task) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			Encoder encoder = new Encoder(out);
+			encoder.writeTask(task);
+			encoder.flush();
+		} catch (IOException e) {
+			// Not thrown by a byte array.
+			throw new IllegalStateException(e);
+		}
+		return out.toByteArray();
+	}
+
+	public static Task decode(byte[] bytes) throws IOException {
+		return new Decoder(new ByteArrayInputStream(bytes)).readTask();
+	}
+
+	/**
+	 * Writes to a buffer that goes to the stream on {@link #flush()}, or
+	 * whenever it grows past its initial size between two values.
+	 */
+	public static class Encoder {
+
+		private static final int BUFFER_SIZE = 64 * 1024;
+
+		private final OutputStream out;
+		private final Map<Specification, Integer> specRefs = new HashMap<Specification, Integer>();
+		private byte[] buffer = new byte[BUFFER_SIZE];
+		private int position = 0;
+
+		public Encoder(OutputStream out) throws IOException {
+			this.out = out;
+			ensureCapacity(2);
+			buffer[position++] = (byte) (MAGIC >> 8);
+			buffer[position++] = (byte) MAGIC;
+			writeVarInt(VERSION);
+		}
+
+		public void writeTask(Task task) throws IOException {
+			writeString(task.getId());
+			writeString(task.getUUID());
+			writeSpecificationValue(task.getSpecification());
+			writeVarInt((task.isFinished() ? FINISHED : 0) | (task.isFailed() ? FAILED : 0));
+			writeVarInt(zigZag(task.getRetries()));
+			writeEnum(task.getState());
+
+			List<Command> commands = task.getAllCommands();
+			writeVarInt(commands.size());
+			for (Command command : commands) {
+				writeCommandValue(command);
+			}
+			writeStringMap(task.getAllMetadata());
+			List<String> processIds = task.getProcessId();
+			writeVarInt(processIds.size());
+			for (String processId : processIds) {
+				writeString(processId);
+			}
+			flushIfFull();
+		}
+
+		public void writeCommand(Command command) throws IOException {
+			writeCommandValue(command);
+			flushIfFull();
+		}
+
+		public void writeSpecification(Specification spec) throws IOException {
+			writeSpecificationValue(spec);
+			flushIfFull();
+		}
+
+		public void writeInt(int value) throws IOException {
+			writeVarInt(zigZag(value));
+			flushIfFull();
+		}
+
+		public void flush() throws IOException {
+			out.write(buffer, 0, position);
+			position = 0;
+			out.flush();
+		}
+
+		private void flushIfFull() throws IOException {
+			if (position >= BUFFER_SIZE) {
+				out.write(buffer, 0, position);
+				position = 0;
+			}
+		}
+
+		private void writeCommandValue(Command command) {
+			writeString(command.getCommand());
+			writeEnum(command.getType());
+			writeEnum(command.getState());
+		}
+
+		private void writeSpecificationValue(Specification spec) {
+			if (spec == null) {
+				writeVarInt(0);
+				return;
+			}
+			Integer ref = specRefs.get(spec);
+			if (ref != null) {
+				writeVarInt(ref + 1);
+				return;
+			}
+			ref = specRefs.size();
+			specRefs.put(spec, ref);
+			writeVarInt(ref + 1);
+			writeString(spec.getImage());
+			writeString(spec.getUsername());
+			writeString(spec.getPublicKey());
+			writeString(spec.getPrivateKeyFilePath());
+			writeString(spec.getContextScript());
+			writeString(spec.getUserDataFile());
+			writeString(spec.getUserDataType());
+			writeStringMap(spec.requirements);
+		}
+
+		private void writeStringMap(Map<String, String> map) {
+			writeVarInt(map.size());
+			for (Entry<String, String> entry : map.entrySet()) {
+				writeString(entry.getKey());
+				writeString(entry.getValue());
+			}
+		}
+
+		private void writeEnum(Enum<?> value) {
+			writeVarInt(value == null ? 0 : value.ordinal() + 1);
+		}
+
+		private void writeString(String value) {
+			if (value == null) {
+				writeVarInt(0);
+				return;
+			}
+			int length = value.length();
+			boolean ascii = true;
+			for (int i = 0; i < length && ascii; i++) {
+				ascii = value.charAt(i) < 0x80;
+			}
+			if (ascii) {
+				writeVarInt(length + 1);
+				ensureCapacity(length);
+				for (int i = 0; i < length; i++) {
+					buffer[position++] = (byte) value.charAt(i);
+				}
+			} else {
+				byte[] bytes = value.getBytes(UTF_8);
+				writeVarInt(bytes.length + 1);
+				ensureCapacity(bytes.length);
+				System.arraycopy(bytes, 0, buffer, position, bytes.length);
+				position += bytes.length;
+			}
+		}
+
+		private void writeVarInt(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[position++] = (byte) value;
+		}
+
+		private void ensureCapacity(int length) {
+			if (position + length > buffer.length) {
+				byte[] grown = new byte[Math.max(buffer.length * 2, position + length)];
+				System.arraycopy(buffer, 0, grown, 0, position);
+				buffer = grown;
+			}
+		}
+
+		private static int zigZag(int value) {
+			return (value << 1) ^ (value >> 31);
+		}
+	}
+
+	public static class Decoder {
+
+		private static final int BUFFER_SIZE = 64 * 1024;
+
+		private final InputStream in;
+		private final List<Specification> specs = new ArrayList<Specification>();
+		private final int version;
+		private byte[] buffer = new byte[BUFFER_SIZE];
+		private int position = 0;
+		private int limit = 0;
+
+		public Decoder(InputStream in) throws IOException {
+			this.in = in;
+			require(2);
+			int magic = ((buffer[position] & 0xFF) << 8) | (buffer[position + 1] & 0xFF);
+			position += 2;
+			if (magic != MAGIC) {
+				throw new IOException("Not a task stream");
+			}
+			this.version = readVarInt();
+			if (version < 1 || version > VERSION) {
+				throw new IOException("Unsupported task stream version " + version);
+			}
+		}
+
+		public int getVersion() {
+			return version;
+		}
+
+		/**
+		 * Returns false at the end of the stream.
+		 */
+		public boolean hasMore() throws IOException {
+			return position < limit || fill(1);
+		}
+
+		public Task readTask() throws IOException {
+			String id = readString();
+			String uuid = readString();
+			Specification spec = readSpecification();
+			TaskImpl task = new TaskImpl(id, spec, uuid);
+			int flags = readVarInt();
+			if ((flags & FINISHED) != 0) {
+				task.finish();
+			}
+			if ((flags & FAILED) != 0) {
+				task.fail();
+			}
+			task.setRetries(unZigZag(readVarInt()));
+			task.setState(readEnum(TaskState.values()));
+
+			int commands = readVarInt();
+			for (int i = 0; i < commands; i++) {
+				task.addCommand(readCommand());
+			}
+			int metadata = readVarInt();
+			for (int i = 0; i < metadata; i++) {
+				task.putMetadata(readString(), readString());
+			}
+			int processIds = readVarInt();
+			for (int i = 0; i < processIds; i++) {
+				task.addProcessId(readString());
+			}
+			return task;
+		}
+
+		public Command readCommand() throws IOException {
+			Command command = new Command(readString(), readEnum(Command.Type.values()));
+			command.setState(readEnum(Command.State.values()));
+			return command;
+		}
+
+		public Specification readSpecification() throws IOException {
+			int ref = readVarInt();
+			if (ref == 0) {
+				return null;
+			}
+			if (ref <= specs.size()) {
+				return specs.get(ref - 1);
+			}
+			if (ref != specs.size() + 1) {
+				throw new IOException("Unknown specification ref " + (ref - 1));
+			}
+			Specification spec = new Specification(readString(), readString(), readString(), readString());
+			spec.setContextScript(readString());
+			spec.setUserDataFile(readString());
+			spec.setUserDataType(readString());
+			int requirements = readVarInt();
+			for (int i = 0; i < requirements; i++) {
+				spec.addRequirement(readString(), readString());
+			}
+			specs.add(spec);
+			return spec;
+		}
+
+		public int readInt() throws IOException {
+			return unZigZag(readVarInt());
+		}
+
+		private <T extends Enum<T>> T readEnum(T[] values) throws IOException {
+			int ordinal = readVarInt();
+			if (ordinal == 0) {
+				return null;
+			}
+			if (ordinal > values.length) {
+				throw new IOException("Unknown enum ordinal " + (ordinal - 1));
+			}
+			return values[ordinal - 1];
+		}
+
+		private String readString() throws IOException {
+			int length = readVarInt() - 1;
+			if (length < 0) {
+				return null;
+			}
+			require(length);
+			String value = new String(buffer, position, length, UTF_8);
+			position += length;
+			return value;
+		}
+
+		private int readVarInt() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				require(1);
+				byte b = buffer[position++];
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed varint");
+		}
+
+		private void require(int length) throws IOException {
+			if (limit - position < length && !fill(length)) {
+				throw new EOFException();
+			}
+		}
+
+		private boolean fill(int length) throws IOException {
+			if (position > 0) {
+				System.arraycopy(buffer, position, buffer, 0, limit - position);
+				limit -= position;
+				position = 0;
+			}
+			if (length > buffer.length) {
+				byte[] grown = new byte[length];
+				System.arraycopy(buffer, 0, grown, 0, limit);
+				buffer = grown;
+			}
+			while (limit < length) {
+				int read = in.read(buffer, limit, buffer.length - limit);
+				if (read < 0) {
+					return false;
+				}
+				limit += read;
+			}
+			return true;
+		}
+
+		private static int unZigZag(int value) {
+			return (value >>> 1) ^ -(value & 1);
+		}
+	}
+}
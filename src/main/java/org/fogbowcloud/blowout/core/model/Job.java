@@ -15,6 +15,10 @@ public abstract class Job implements Serializable {
 	protected Map<String, Task> taskList = new HashMap<String, Task>();
 	
 	public static final Logger LOGGER = Logger.getLogger(Job.class);
+
+	private int weight = 1;
+	private int priority = 0;
+	private int maxRunningTasks = 0;
 	
 	public Job(List<Task> tasks) {
 		for(Task task : tasks){
@@ -30,6 +34,68 @@ public abstract class Job implements Serializable {
 		getTaskList().put(task.getId(), task);
 	}
 
+	/**
+	 * Share of the resources this job gets under the fair share scheduler,
+	 * relative to the weights of the other jobs with ready tasks.
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	public void setWeight(int weight) {
+		if (weight < 1) {
+			throw new IllegalArgumentException("Job weight must be at least 1");
+		}
+		this.weight = weight;
+	}
+
+	/**
+	 * Jobs of higher priority get resources before any job of lower
+	 * priority; weights only share resources among jobs of the same priority.
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * Maximum number of tasks of this job running at the same time, 0 for no
+	 * limit.
+	 */
+	public int getMaxRunningTasks() {
+		return maxRunningTasks;
+	}
+
+	public void setMaxRunningTasks(int maxRunningTasks) {
+		this.maxRunningTasks = Math.max(maxRunningTasks, 0);
+	}
+
+	/**
+	 * The scheduler only sees tasks, so this sets the job id and settings as
+	 * metadata on the tasks of the job. Call it once the job has its id and
+	 * settings, before its tasks are submitted, and again after changing
+	 * them or adding tasks.
+	 */
+	public void tagTasks() {
+		String id = getId();
+		if (id == null) {
+			return;
+		}
+		for (Task task : getTaskList().values()) {
+			tagTask(task, id);
+		}
+	}
+
+	private void tagTask(Task task, String id) {
+		task.putMetadata(TaskImpl.METADATA_JOB_ID, id);
+		task.putMetadata(TaskImpl.METADATA_JOB_WEIGHT, String.valueOf(weight));
+		task.putMetadata(TaskImpl.METADATA_JOB_PRIORITY, String.valueOf(priority));
+		task.putMetadata(TaskImpl.METADATA_JOB_MAX_RUNNING_TASKS, String.valueOf(maxRunningTasks));
+	}
+
 	public Map<String, Task> getTaskList(){
 		return this.taskList;
 	}
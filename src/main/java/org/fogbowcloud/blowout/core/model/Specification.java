@@ -6,10 +6,13 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -53,6 +56,12 @@ public class Specification implements Serializable {
 
 	Map<String, String> requirements = new HashMap<String, String>();
 
+	// Set on the canonical instances of SpecificationRegistry only.
+	private transient int internId = 0;
+	private transient int internedHash;
+	// The canonical instance this one was last interned to, until it changes.
+	private transient volatile Specification canonical;
+
 	public Specification(String image, String username, String publicKey, String privateKeyFilePath) {
 		this(image, username, publicKey, privateKeyFilePath, "", "");
 	}
@@ -68,6 +77,7 @@ public class Specification implements Serializable {
 	}
 
 	public void addRequirement(String key, String value) {
+		beforeChange();
 		requirements.put(key, value);
 	}
 
@@ -76,17 +86,26 @@ public class Specification implements Serializable {
 	}
 
 	public void putAllRequirements(Map<String, String> requirements) {
+		beforeChange();
 		for (Entry<String, String> e : requirements.entrySet()) {
 			
 			this.requirements.put(e.getKey(), e.getValue());
 		}
 	}
 
+	/**
+	 * The map may be changed by the caller, so a specification is interned
+	 * again after giving it out.
+	 */
 	public Map<String, String> getAllRequirements() {
+		if (internId == 0) {
+			canonical = null;
+		}
 		return requirements;
 	}
 
 	public void removeAllRequirements() {
+		beforeChange();
 		requirements = new HashMap<String, String>();
 	}
 
@@ -165,6 +184,7 @@ public class Specification implements Serializable {
 	}
 
 	public void setPublicKey(String publicKey) {
+		beforeChange();
 		this.publicKey = publicKey;
 	}
 
@@ -173,6 +193,7 @@ public class Specification implements Serializable {
 	}
 
 	public void setContextScript(String contextScript) {
+		beforeChange();
 		this.contextScript = contextScript;
 	}
 
@@ -181,6 +202,7 @@ public class Specification implements Serializable {
 	}
 
 	public void setUserDataFile(String userDataFile) {
+		beforeChange();
 		this.userDataFile = userDataFile;
 	}
 
@@ -189,6 +211,7 @@ public class Specification implements Serializable {
 	}
 
 	public void setUserDataType(String userDataType) {
+		beforeChange();
 		this.userDataType = userDataType;
 	}
 
@@ -216,8 +239,63 @@ public class Specification implements Serializable {
 		return sb.toString();
 	}
 
+	/**
+	 * The canonical instance of this specification, see
+	 * {@link SpecificationRegistry}.
+	 */
+	public Specification intern() {
+		return SpecificationRegistry.intern(this);
+	}
+
+	public boolean isInterned() {
+		return internId != 0;
+	}
+
+	/**
+	 * Id given by {@link SpecificationRegistry}, or 0 when not interned.
+	 */
+	public int getInternId() {
+		return internId;
+	}
+
+	Specification internedCopy(int internId) {
+		Specification copy = clone();
+		copy.contextScript = this.contextScript;
+		copy.requirements = Collections.unmodifiableMap(copy.requirements);
+		copy.internedHash = copy.hashCode();
+		copy.internId = internId;
+		return copy;
+	}
+
+	/**
+	 * A copy of a canonical instance is an ordinary, mutable specification.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		requirements = requirements == null ? new HashMap<String, String>()
+				: new HashMap<String, String>(requirements);
+	}
+
+	private void beforeChange() {
+		if (internId != 0) {
+			throw new UnsupportedOperationException("Interned specifications cannot change");
+		}
+		canonical = null;
+	}
+
+	Specification getCanonical() {
+		return canonical;
+	}
+
+	void setCanonical(Specification canonical) {
+		this.canonical = canonical;
+	}
+
 	@Override
 	public int hashCode() {
+		if (internId != 0) {
+			return internedHash;
+		}
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((contextScript == null) ? 0 : contextScript.hashCode());
@@ -240,6 +318,10 @@ public class Specification implements Serializable {
 		if (getClass() != obj.getClass())
 			return false;
 		Specification other = (Specification) obj;
+		if (internId != 0 && other.internId != 0) {
+			// Equal canonical instances are the same instance.
+			return false;
+		}
 		if (contextScript == null) {
 			if (other.contextScript != null)
 				return false;
@@ -286,7 +368,7 @@ public class Specification implements Serializable {
 	public Specification clone() {
 		Specification cloneSpec = new Specification(this.image, this.username, this.publicKey, this.privateKeyFilePath,
 				this.userDataFile, this.userDataType);
-		cloneSpec.putAllRequirements(this.getAllRequirements());
+		cloneSpec.putAllRequirements(this.requirements);
 		return cloneSpec;
 	}
 
@@ -300,7 +382,7 @@ public class Specification implements Serializable {
 			specification.put(CONTEXT_SCRIPT_STR, this.getContextScript());
 			specification.put(USER_DATA_FILE_STR, this.getUserDataFile());
 			specification.put(USER_DATA_TYPE_STR, this.getUserDataType());
-			specification.put(REQUIREMENTS_MAP_STR, getAllRequirements().toString());
+			specification.put(REQUIREMENTS_MAP_STR, new JSONObject(requirements));
 			return specification;
 		} catch (JSONException e) {
 			LOGGER.debug("Error while trying to create a JSON from Specification", e);
@@ -312,8 +394,18 @@ public class Specification implements Serializable {
 		Specification specification = new Specification(specJSON.optString(IMAGE_STR), specJSON.optString(USERNAME_STR),
 				specJSON.optString(PUBLIC_KEY_STR), specJSON.optString(PRIVATE_KEY_FILE_PATH_STR),
 				specJSON.optString(USER_DATA_FILE_STR), specJSON.optString(USER_DATA_TYPE_STR));
-		HashMap<String, String> reqMap = (HashMap<String, String>) toMap(specJSON.optString(REQUIREMENTS_MAP_STR));
-		specification.putAllRequirements(reqMap);
+		specification.setContextScript(specJSON.optString(CONTEXT_SCRIPT_STR, null));
+		JSONObject requirements = specJSON.optJSONObject(REQUIREMENTS_MAP_STR);
+		if (requirements != null) {
+			Iterator<?> keys = requirements.keys();
+			while (keys.hasNext()) {
+				String key = (String) keys.next();
+				specification.addRequirement(key, requirements.optString(key));
+			}
+		} else {
+			// Written as Map.toString() by older versions.
+			specification.putAllRequirements(toMap(specJSON.optString(REQUIREMENTS_MAP_STR)));
+		}
 		return specification;
 	}
 
@@ -0,0 +1,72 @@
+package org.fogbowcloud.blowout.core.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gives each distinct specification one canonical instance. Canonical
+ * instances cannot change, know their hash and carry a small id, starting at
+ * 1, so maps keyed by specification mostly compare them by identity. The
+ * scheduler ready queues, the demand matcher and the pending requests of
+ * the resource monitor key by canonical instances; tasks and resources keep
+ * the specification they were given. A specification remembers its
+ * canonical instance until it changes, so interning it again is a field
+ * read; callers that key by the canonical instance keep the one they used,
+ * since a specification changed in between interns to another.
+ *
+ * Canonical instances are never released; a run only uses a handful of
+ * specifications.
+ */
+public class SpecificationRegistry {
+
+	private static final ConcurrentMap<Specification, Specification> canonicalSpecs = new ConcurrentHashMap<Specification, Specification>();
+	private static final List<Specification> specsById = new ArrayList<Specification>();
+
+	/**
+	 * Returns the canonical instance equal to the given specification, which
+	 * is left as it is. Subclasses are returned as they are, since a copy
+	 * would lose them.
+	 */
+	public static Specification intern(Specification spec) {
+		if (spec == null || spec.getClass() != Specification.class || spec.isInterned()) {
+			return spec;
+		}
+		Specification canonical = spec.getCanonical();
+		if (canonical != null) {
+			return canonical;
+		}
+		canonical = canonicalSpecs.get(spec);
+		if (canonical == null) {
+			synchronized (specsById) {
+				canonical = canonicalSpecs.get(spec);
+				if (canonical == null) {
+					canonical = spec.internedCopy(specsById.size() + 1);
+					specsById.add(canonical);
+					canonicalSpecs.put(canonical, canonical);
+				}
+			}
+		}
+		spec.setCanonical(canonical);
+		return canonical;
+	}
+
+	/**
+	 * Returns null for an unknown id.
+	 */
+	public static Specification getById(int internId) {
+		synchronized (specsById) {
+			if (internId < 1 || internId > specsById.size()) {
+				return null;
+			}
+			return specsById.get(internId - 1);
+		}
+	}
+
+	public static int size() {
+		synchronized (specsById) {
+			return specsById.size();
+		}
+	}
+}
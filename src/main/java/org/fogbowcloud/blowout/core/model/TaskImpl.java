@@ -29,6 +29,12 @@ public class TaskImpl implements Task {
 	public static final String METADATA_RESOURCE_ID = "resource_id";
 	public static final String METADATA_TASK_TIMEOUT = "task_timeout";
 	public static final String METADATA_MAX_RESOURCE_CONN_RETRIES = "max_conn_retries";
+	public static final String METADATA_PRIORITY = "priority";
+	public static final String METADATA_PREFERRED_LOCATION = "preferred_location";
+	public static final String METADATA_JOB_ID = "job_id";
+	public static final String METADATA_JOB_WEIGHT = "job_weight";
+	public static final String METADATA_JOB_PRIORITY = "job_priority";
+	public static final String METADATA_JOB_MAX_RUNNING_TASKS = "job_max_running_tasks";
 
 	private boolean isFinished = false;
 	private String id;
@@ -255,7 +261,14 @@ public class TaskImpl implements Task {
 	}
 
 	public static Task fromJSON(JSONObject taskJSON) {
-		Specification specification = Specification.fromJSON(taskJSON.optJSONObject("spec"));
+		return fromJSON(taskJSON, Specification.fromJSON(taskJSON.optJSONObject("spec")));
+	}
+
+	/**
+	 * Reads a task whose specification was read before, ignoring the "spec"
+	 * field, so tasks of the same specification share it.
+	 */
+	public static Task fromJSON(JSONObject taskJSON, Specification specification) {
 		Task task = new TaskImpl(taskJSON.optString("id"), specification, taskJSON.optString("uuid"));
 		task.setRetries(taskJSON.optInt("retries"));
 		if (taskJSON.optBoolean("isFinished")) {
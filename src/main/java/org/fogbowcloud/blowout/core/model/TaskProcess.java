@@ -2,6 +2,7 @@ package org.fogbowcloud.blowout.core.model;
 
 import java.util.List;
 
+import org.fogbowcloud.blowout.core.output.TaskProcessOutput;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 
 public interface TaskProcess {
@@ -21,4 +22,8 @@ public interface TaskProcess {
 	AbstractResource getResource();
 	
 	void setStatus(TaskState taskState);
+	
+	void addListener(TaskProcessListener listener);
+
+	TaskProcessOutput getOutput();
 }
\ No newline at end of file
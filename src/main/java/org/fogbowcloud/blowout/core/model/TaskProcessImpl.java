@@ -6,10 +6,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.output.StreamPump;
+import org.fogbowcloud.blowout.core.output.TaskProcessOutput;
+import org.fogbowcloud.blowout.core.ssh.SshSessionKey;
+import org.fogbowcloud.blowout.core.ssh.SshSessionPool;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 
+import com.jcraft.jsch.JSchException;
+
 public class TaskProcessImpl implements TaskProcess {
 
 	private static final Logger LOGGER = Logger.getLogger(TaskProcessImpl.class);
@@ -44,6 +51,12 @@ public class TaskProcessImpl implements TaskProcess {
 
 	private String userIdValue;
 
+	private SshSessionPool sshSessionPool;
+
+	private TaskProcessOutput output;
+
+	private List<TaskProcessListener> listeners = new CopyOnWriteArrayList<TaskProcessListener>();
+
 	public TaskProcessImpl(String taskId, List<Command> commandList, Specification spec, String UserId) {
 		this.processId = UUID.randomUUID().toString();
 		this.taskId = taskId;
@@ -52,7 +65,7 @@ public class TaskProcessImpl implements TaskProcess {
 		this.commandList = commandList;
 		this.userId = UserID;
 		this.userIdValue = UserId;
-
+		this.output = new TaskProcessOutput(taskId, processId, TaskProcessOutput.DEFAULT_TAIL_SIZE, null);
 	}
 
 	public String getProcessId() {
@@ -77,30 +90,54 @@ public class TaskProcessImpl implements TaskProcess {
 		TaskExecutionResult taskExecutionResult = new TaskExecutionResult();
 
 		this.setStatus(TaskState.RUNNING);
-		for (Command command : this.getCommands()) {
-			// FIXME: avoid multiple related log line when possible
-			LOGGER.debug("Command " + command.getCommand());
-			LOGGER.debug("Command Type " + command.getType());
-			String commandString = getExecutableCommandString(command);
-
-			taskExecutionResult = executeCommandString(commandString, command.getType(), resource);
-			LOGGER.debug("Command result: " + taskExecutionResult.getExitValue());
-			if (taskExecutionResult.getExitValue() != TaskExecutionResult.OK) {
-				if(taskExecutionResult.getExitValue() == TaskExecutionResult.TIMEOUT) {
-					this.setStatus(TaskState.TIMEDOUT);
+		try {
+			for (Command command : this.getCommands()) {
+				// FIXME: avoid multiple related log line when possible
+				LOGGER.debug("Command " + command.getCommand());
+				LOGGER.debug("Command Type " + command.getType());
+				String commandString = getExecutableCommandString(command);
+
+				taskExecutionResult = executeCommandString(commandString, command.getType(), resource);
+				LOGGER.debug("Command result: " + taskExecutionResult.getExitValue());
+				if (taskExecutionResult.getExitValue() != TaskExecutionResult.OK) {
+					LOGGER.debug("Command error output: " + output.getTail(TaskProcessOutput.Type.STDERR));
+					if(taskExecutionResult.getExitValue() == TaskExecutionResult.TIMEOUT) {
+						this.setStatus(TaskState.TIMEDOUT);
+						break;
+					}
+					this.setStatus(TaskState.FAILED);
 					break;
 				}
-				this.setStatus(TaskState.FAILED);
-				break;
 			}
-		}
-		if (!this.getStatus().equals(TaskState.FAILED)) {
-			this.setStatus(TaskState.FINISHED);
+			if (!this.getStatus().equals(TaskState.FAILED)) {
+				this.setStatus(TaskState.FINISHED);
+			}
+		} catch (RuntimeException e) {
+			LOGGER.error("Error while executing task " + taskId, e);
+			this.setStatus(TaskState.FAILED);
+		} finally {
+			output.close();
+			notifyListeners();
 		}
 
 		return taskExecutionResult;
 	}
 
+	@Override
+	public void addListener(TaskProcessListener listener) {
+		listeners.add(listener);
+	}
+
+	protected void notifyListeners() {
+		for (TaskProcessListener listener : listeners) {
+			try {
+				listener.processCompleted(this);
+			} catch (Exception e) {
+				LOGGER.error("Error while notifying completion of task " + taskId, e);
+			}
+		}
+	}
+
 	@Override
 	public void setStatus(TaskState status) {
 		this.status = status;
@@ -110,6 +147,19 @@ public class TaskProcessImpl implements TaskProcess {
 		this.resource = resource;
 	}
 
+	public void setSshSessionPool(SshSessionPool sshSessionPool) {
+		this.sshSessionPool = sshSessionPool;
+	}
+
+	@Override
+	public TaskProcessOutput getOutput() {
+		return output;
+	}
+
+	public void setOutput(TaskProcessOutput output) {
+		this.output = output;
+	}
+
 	private String getExecutableCommandString(Command command) {
 			return command.getCommand();
 	}
@@ -124,11 +174,14 @@ public class TaskProcessImpl implements TaskProcess {
 		try {
 			if (type.equals(Command.Type.LOCAL)) {
 				Process localProc = startLocalProcess(commandString, additionalVariables);
-				returnValue = localProc.waitFor();
+				returnValue = waitFor(localProc);
+
+			} else if (sshSessionPool != null) {
+				returnValue = executeRemoteCommand(commandString, additionalVariables);
 
 			} else {
 				Process remoteProc = startRemoteProcess(commandString, additionalVariables);
-				returnValue = remoteProc.waitFor();
+				returnValue = waitFor(remoteProc);
 
 			}
 		} catch (Exception e) {
@@ -139,6 +192,32 @@ public class TaskProcessImpl implements TaskProcess {
 		return taskExecutionResult;
 	}
 
+	private int executeRemoteCommand(String commandString, Map<String, String> additionalVariables)
+			throws IOException, InterruptedException {
+		SshSessionKey sessionKey = SshSessionPool.createKey(additionalVariables.get(ENV_HOST),
+				additionalVariables.get(ENV_SSH_PORT), additionalVariables.get(ENV_SSH_USER),
+				additionalVariables.get(ENV_PRIVATE_KEY_FILE));
+		try {
+			return sshSessionPool.execute(sessionKey, parseEnvironVariable(commandString, additionalVariables),
+					output.getStream(TaskProcessOutput.Type.STDOUT), output.getStream(TaskProcessOutput.Type.STDERR));
+		} catch (JSchException e) {
+			// Keys or servers the SSH library cannot handle still work with the ssh client
+			LOGGER.warn("Could not use pooled SSH session to " + sessionKey + ", forking ssh client", e);
+			return waitFor(startRemoteProcess(commandString, additionalVariables));
+		}
+	}
+
+	/**
+	 * Drains the process output while waiting for it, otherwise a process
+	 * writing more than the pipe buffer blocks forever.
+	 */
+	private int waitFor(Process process) throws IOException, InterruptedException {
+		process.getOutputStream().close();
+		StreamPump.pump(process, output.getStream(TaskProcessOutput.Type.STDOUT),
+				output.getStream(TaskProcessOutput.Type.STDERR));
+		return process.waitFor();
+	}
+
 	private Process startRemoteProcess(String commandString, Map<String, String> additionalVariables)
 			throws IOException {
 		// FIXME: extract strings or commands to a variable
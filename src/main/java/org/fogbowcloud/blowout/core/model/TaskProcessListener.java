@@ -0,0 +1,11 @@
+package org.fogbowcloud.blowout.core.model;
+
+public interface TaskProcessListener {
+
+	/**
+	 * Called on the thread that executed the process, once its final status
+	 * (FINISHED or FAILED) is set.
+	 */
+	void processCompleted(TaskProcess taskProcess);
+
+}
@@ -0,0 +1,244 @@
+package org.fogbowcloud.blowout.core.monitor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+
+/**
+ * Runs task processes on an {@link ExecutorService} while keeping track of
+ * how many of them are queued or running, globally and per specification.
+ *
+ * When a limit is reached the executor reports itself as saturated and
+ * refuses new processes, so callers can leave the task waiting in the pool
+ * instead of piling up threads. A limit of zero means no limit.
+ */
+public class TaskExecutor {
+
+	private static final Logger LOGGER = Logger.getLogger(TaskExecutor.class);
+
+	public static final String TYPE_CACHED = "cached";
+	public static final String TYPE_BOUNDED = "bounded";
+	public static final String TYPE_VIRTUAL = "virtual";
+
+	private static final String DEFAULT_TYPE = TYPE_BOUNDED;
+	private static final String DEFAULT_MAX_THREADS = "200";
+	private static final String DEFAULT_QUEUE_SIZE = "1000";
+	private static final String DEFAULT_MAX_TASKS_PER_SPECIFICATION = "0";
+	private static final long IDLE_THREAD_KEEP_ALIVE = 60;
+
+	private final ExecutorService executorService;
+	private final int maxInFlight;
+	private final int maxPerSpecification;
+
+	private final Map<Specification, Integer> inFlightBySpec = new HashMap<Specification, Integer>();
+	private int inFlight = 0;
+	private int running = 0;
+	private long completed = 0;
+	private long rejected = 0;
+
+	private final ThreadLocal<Slot> currentSlot = new ThreadLocal<Slot>();
+
+	public TaskExecutor(ExecutorService executorService, int maxInFlight, int maxPerSpecification) {
+		this.executorService = executorService;
+		this.maxInFlight = maxInFlight;
+		this.maxPerSpecification = maxPerSpecification;
+	}
+
+	/**
+	 * A bounded executor with the default settings.
+	 */
+	public static TaskExecutor createDefaultExecutor() {
+		return createTaskExecutor(new Properties());
+	}
+
+	public static TaskExecutor createTaskExecutor(Properties properties) {
+		String type = properties.getProperty(AppPropertiesConstants.TASK_EXECUTOR_TYPE, DEFAULT_TYPE).trim();
+		int maxThreads = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.TASK_EXECUTOR_MAX_THREADS, DEFAULT_MAX_THREADS));
+		int queueSize = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.TASK_EXECUTOR_QUEUE_SIZE, DEFAULT_QUEUE_SIZE));
+		int maxPerSpecification = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.TASK_EXECUTOR_MAX_TASKS_PER_SPECIFICATION,
+				DEFAULT_MAX_TASKS_PER_SPECIFICATION));
+
+		if (TYPE_CACHED.equalsIgnoreCase(type)) {
+			return new TaskExecutor(Executors.newCachedThreadPool(), 0, maxPerSpecification);
+		}
+		if (TYPE_VIRTUAL.equalsIgnoreCase(type)) {
+			ExecutorService virtualExecutor = createVirtualThreadExecutor();
+			if (virtualExecutor != null) {
+				return new TaskExecutor(virtualExecutor, maxThreads, maxPerSpecification);
+			}
+			LOGGER.warn("Virtual threads are not available in this runtime, using a bounded task executor");
+		} else if (!TYPE_BOUNDED.equalsIgnoreCase(type)) {
+			LOGGER.warn("Unknown task executor type " + type + ", using a bounded task executor");
+		}
+		return new TaskExecutor(createBoundedExecutor(maxThreads, queueSize), maxThreads + queueSize,
+				maxPerSpecification);
+	}
+
+	protected static ExecutorService createBoundedExecutor(int maxThreads, int queueSize) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, IDLE_THREAD_KEEP_ALIVE,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(Math.max(1, queueSize)),
+				new TaskThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	protected static ExecutorService createVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	public synchronized boolean isSaturated(Specification spec) {
+		if (maxInFlight > 0 && inFlight >= maxInFlight) {
+			return true;
+		}
+		return maxPerSpecification > 0 && getInFlightCount(spec) >= maxPerSpecification;
+	}
+
+	/**
+	 * Returns false, without running the command, when the executor is
+	 * saturated for the given specification.
+	 */
+	public boolean execute(Specification spec, final Runnable command) {
+		final Slot slot = new Slot(spec);
+		synchronized (this) {
+			if (isSaturated(spec)) {
+				rejected++;
+				return false;
+			}
+			inFlight++;
+			inFlightBySpec.put(spec, getInFlightCount(spec) + 1);
+		}
+		try {
+			executorService.execute(new Runnable() {
+				@Override
+				public void run() {
+					start(slot);
+					currentSlot.set(slot);
+					try {
+						command.run();
+					} finally {
+						currentSlot.remove();
+						release(slot);
+					}
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("Task executor rejected a process of specification " + spec, e);
+			release(slot);
+			synchronized (this) {
+				rejected++;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Frees the slot of the command running on the calling thread before the
+	 * command returns, so that work triggered by its completion already sees
+	 * the capacity. Does nothing outside a command of this executor.
+	 */
+	public void releaseCurrentSlot() {
+		Slot slot = currentSlot.get();
+		if (slot != null) {
+			release(slot);
+		}
+	}
+
+	private synchronized void start(Slot slot) {
+		slot.started = true;
+		running++;
+	}
+
+	private synchronized void release(Slot slot) {
+		if (slot.released) {
+			return;
+		}
+		slot.released = true;
+		inFlight--;
+		int specInFlight = getInFlightCount(slot.spec) - 1;
+		if (specInFlight > 0) {
+			inFlightBySpec.put(slot.spec, specInFlight);
+		} else {
+			inFlightBySpec.remove(slot.spec);
+		}
+		if (slot.started) {
+			running--;
+			completed++;
+		}
+	}
+
+	public synchronized int getInFlightCount() {
+		return inFlight;
+	}
+
+	public synchronized int getInFlightCount(Specification spec) {
+		Integer specInFlight = inFlightBySpec.get(spec);
+		return specInFlight == null ? 0 : specInFlight;
+	}
+
+	public synchronized int getRunningCount() {
+		return running;
+	}
+
+	public synchronized int getQueueDepth() {
+		return inFlight - running;
+	}
+
+	public synchronized long getCompletedCount() {
+		return completed;
+	}
+
+	public synchronized long getRejectedCount() {
+		return rejected;
+	}
+
+	public ExecutorService getExecutorService() {
+		return executorService;
+	}
+
+	public void shutdown() {
+		executorService.shutdown();
+	}
+
+	private static class Slot {
+
+		private final Specification spec;
+		private boolean started = false;
+		private boolean released = false;
+
+		private Slot(Specification spec) {
+			this.spec = spec;
+		}
+	}
+
+	private static class TaskThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadCount = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "blowout-task-executor-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
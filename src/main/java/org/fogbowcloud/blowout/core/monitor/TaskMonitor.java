@@ -1,37 +1,67 @@
 package org.fogbowcloud.blowout.core.monitor;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.model.Specification;
 import org.fogbowcloud.blowout.core.model.Task;
 import org.fogbowcloud.blowout.core.model.TaskProcess;
 import org.fogbowcloud.blowout.core.model.TaskProcessImpl;
+import org.fogbowcloud.blowout.core.model.TaskProcessListener;
 import org.fogbowcloud.blowout.core.model.TaskState;
+import org.fogbowcloud.blowout.core.output.TaskOutputSink;
+import org.fogbowcloud.blowout.core.output.TaskProcessOutput;
+import org.fogbowcloud.blowout.core.ssh.SshSessionPool;
+import org.fogbowcloud.blowout.core.util.AdaptivePeriod;
 import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 import org.fogbowcloud.blowout.pool.BlowoutPool;
 
-public class TaskMonitor implements Runnable{
+/**
+ * Tracks running task processes. Processes report their completion through
+ * {@link TaskProcessListener}, which moves the resource back to the pool right
+ * away; the periodic {@link #procMon()} sweep only catches what was missed.
+ * The sweep runs soon after a task starts and less and less often while
+ * tasks keep running, up to the sweep period, which is also used when idle.
+ */
+public class TaskMonitor implements Runnable, TaskProcessListener {
 
-	Map<Task, TaskProcess> runningTasks = new HashMap<Task, TaskProcess>();
+	private static final Logger LOGGER = Logger.getLogger(TaskMonitor.class);
+
+	private static final long DEFAULT_MIN_SWEEP_PERIOD = 1000;
+
+	Map<Task, TaskProcess> runningTasks = new ConcurrentHashMap<Task, TaskProcess>();
 	
-	private ExecutorService taskExecutor = Executors.newCachedThreadPool();
+	private TaskExecutor taskExecutor;
+
+	private SshSessionPool sshSessionPool;
+
+	private TaskOutputSink outputSink;
+
+	private TaskRejectionListener rejectionListener;
+
+	private int outputTailSize = TaskProcessOutput.DEFAULT_TAIL_SIZE;
 
 	private Thread monitoringServiceRunner;
 	
 	private BlowoutPool pool;
 	
-	private long timeout;
+	private AdaptivePeriod sweepPeriod;
 	
-	private boolean active = false;
+	private volatile boolean active = false;
 	
 	public TaskMonitor(BlowoutPool pool, long timeout) {
+		this(pool, timeout, TaskExecutor.createDefaultExecutor());
+	}
+
+	public TaskMonitor(BlowoutPool pool, long timeout, TaskExecutor taskExecutor) {
 		this.pool = pool;
-		this.timeout = timeout;
+		this.sweepPeriod = new AdaptivePeriod(DEFAULT_MIN_SWEEP_PERIOD, timeout);
+		this.taskExecutor = taskExecutor;
 	}
 	
 	public void start() {
@@ -42,6 +72,7 @@ public class TaskMonitor implements Runnable{
 	
 	public void stop(){
 		active = false;
+		sweepPeriod.wakeUp();
 		monitoringServiceRunner.interrupt();
 	}
 	
@@ -49,8 +80,10 @@ public class TaskMonitor implements Runnable{
 	public void run() {
 		while(active){
 			procMon();
+			LOGGER.debug("Task executor: " + taskExecutor.getRunningCount() + " running, "
+					+ taskExecutor.getQueueDepth() + " queued, " + taskExecutor.getRejectedCount() + " rejected");
 			try {
-				Thread.sleep(timeout);
+				sweepPeriod.await(runningTasks.isEmpty());
 			} catch (InterruptedException e) {
 			}
 		}
@@ -58,16 +91,28 @@ public class TaskMonitor implements Runnable{
 	
 	public void procMon() {
 		for (TaskProcess tp : getRunningProcesses()) {
-			if (tp.getStatus().equals(TaskState.FAILED)) {
-				getRunningTasks().remove(getTaskById(tp.getTaskId()));
-				if (tp.getResource() != null) {
-					pool.updateResource(tp.getResource(), ResourceState.FAILED);
-				}
+			handleCompletion(tp);
+		}
+	}
+
+	@Override
+	public void processCompleted(TaskProcess tp) {
+		getTaskExecutor().releaseCurrentSlot();
+		handleCompletion(tp);
+	}
+
+	protected void handleCompletion(TaskProcess tp) {
+		if (tp.getStatus().equals(TaskState.FAILED)) {
+			Task task = getTaskById(tp.getTaskId());
+			if (task != null && getRunningTasks().remove(task) != null && tp.getResource() != null) {
+				pool.updateResource(tp.getResource(), ResourceState.FAILED);
 			}
-			if (tp.getStatus().equals(TaskState.FINISHED)) {
-				Task task = getTaskById(tp.getTaskId());
+		}
+		if (tp.getStatus().equals(TaskState.FINISHED)) {
+			Task task = getTaskById(tp.getTaskId());
+			if (task != null && getRunningTasks().remove(task) != null) {
 				task.finish();
-				getRunningTasks().remove(task);
+				pool.updateTask(task);
 				if (tp.getResource()!= null) {
 					pool.updateResource(tp.getResource(), ResourceState.IDLE);
 				}
@@ -91,17 +136,33 @@ public class TaskMonitor implements Runnable{
 	
 	public void runTask(Task task,final AbstractResource resource) {
 		final TaskProcess tp = createProcess(task);
+		tp.addListener(this);
 		if (getRunningTasks().get(task) == null) {
 			getRunningTasks().put(task, tp);
 			pool.updateResource(resource, ResourceState.BUSY);
 		}
-		getExecutorService().submit(new Runnable() {
+		boolean accepted = getTaskExecutor().execute(task.getSpecification(), new Runnable() {
 			
 			@Override
 			public void run() {
 				tp.executeTask(resource);
 			}
 		});
+		if (!accepted) {
+			LOGGER.warn("Task executor is saturated, task " + task.getId() + " will wait for a free slot");
+			getRunningTasks().remove(task);
+			pool.updateResource(resource, ResourceState.IDLE);
+			if (rejectionListener != null) {
+				rejectionListener.taskRejected(task, resource);
+			}
+		} else {
+			pool.updateTask(task);
+			sweepPeriod.reset();
+		}
+	}
+
+	public boolean isSaturated(Specification spec) {
+		return getTaskExecutor().isSaturated(spec);
 	}
 	
 	public TaskState getTaskState(Task task){
@@ -117,9 +178,49 @@ public class TaskMonitor implements Runnable{
 	}
 	
 	public ExecutorService getExecutorService() {
+		return this.taskExecutor.getExecutorService();
+	}
+
+	public TaskExecutor getTaskExecutor() {
 		return this.taskExecutor;
 	}
 
+	public SshSessionPool getSshSessionPool() {
+		return this.sshSessionPool;
+	}
+
+	public void setSshSessionPool(SshSessionPool sshSessionPool) {
+		this.sshSessionPool = sshSessionPool;
+	}
+
+	public TaskOutputSink getOutputSink() {
+		return this.outputSink;
+	}
+
+	public void setOutputSink(TaskOutputSink outputSink) {
+		this.outputSink = outputSink;
+	}
+
+	public TaskRejectionListener getRejectionListener() {
+		return this.rejectionListener;
+	}
+
+	public void setRejectionListener(TaskRejectionListener rejectionListener) {
+		this.rejectionListener = rejectionListener;
+	}
+
+	public void setMinSweepPeriod(long minSweepPeriod) {
+		this.sweepPeriod.setMinPeriod(minSweepPeriod);
+	}
+
+	public AdaptivePeriod getSweepPeriod() {
+		return this.sweepPeriod;
+	}
+
+	public void setOutputTailSize(int outputTailSize) {
+		this.outputTailSize = outputTailSize;
+	}
+
 	public Task getTaskById(String taskId) {
 		for (Task task : runningTasks.keySet()) {
 			if (task.getId().equals(taskId)) {
@@ -130,7 +231,9 @@ public class TaskMonitor implements Runnable{
 	}
 	
 	protected TaskProcess createProcess(Task task) {
-		TaskProcess tp = new TaskProcessImpl(task.getId(), task.getAllCommands(), task.getSpecification(), task.getUUID());
+		TaskProcessImpl tp = new TaskProcessImpl(task.getId(), task.getAllCommands(), task.getSpecification(), task.getUUID());
+		tp.setSshSessionPool(sshSessionPool);
+		tp.setOutput(new TaskProcessOutput(task.getId(), tp.getProcessId(), outputTailSize, outputSink));
 		return tp;
 	}
 
@@ -0,0 +1,15 @@
+package org.fogbowcloud.blowout.core.monitor;
+
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+public interface TaskRejectionListener {
+
+	/**
+	 * Called from {@link TaskMonitor#runTask(Task, AbstractResource)} when the
+	 * task executor has no room for the task. The resource is already back to
+	 * IDLE and the task is not running.
+	 */
+	void taskRejected(Task task, AbstractResource resource);
+
+}
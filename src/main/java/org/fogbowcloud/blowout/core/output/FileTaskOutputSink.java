@@ -0,0 +1,75 @@
+package org.fogbowcloud.blowout.core.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+
+/**
+ * Writes each output of each process to its own file in the task output
+ * directory, named taskId.processId.stdout or .stderr. Bytes beyond the
+ * maximum file size are dropped.
+ */
+public class FileTaskOutputSink implements TaskOutputSink {
+
+	private static final String DEFAULT_MAX_FILE_SIZE = "10485760";
+
+	private final File outputDir;
+	private final long maxFileSize;
+
+	public FileTaskOutputSink(Properties properties) {
+		this(new File(properties.getProperty(AppPropertiesConstants.TASK_OUTPUT_DIR)), Long.parseLong(
+				properties.getProperty(AppPropertiesConstants.TASK_OUTPUT_MAX_FILE_SIZE, DEFAULT_MAX_FILE_SIZE)));
+	}
+
+	public FileTaskOutputSink(File outputDir, long maxFileSize) {
+		this.outputDir = outputDir;
+		this.maxFileSize = maxFileSize;
+	}
+
+	@Override
+	public OutputStream openStream(String taskId, String processId, TaskProcessOutput.Type type)
+			throws IOException {
+		if (!outputDir.isDirectory() && !outputDir.mkdirs() && !outputDir.isDirectory()) {
+			throw new IOException("Could not create task output directory " + outputDir);
+		}
+		File outputFile = getOutputFile(taskId, processId, type);
+		return new CappedOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)), maxFileSize);
+	}
+
+	public File getOutputFile(String taskId, String processId, TaskProcessOutput.Type type) {
+		return new File(outputDir, taskId + "." + processId + "." + type.name().toLowerCase());
+	}
+
+	private static class CappedOutputStream extends FilterOutputStream {
+
+		private long remaining;
+
+		private CappedOutputStream(OutputStream out, long maxSize) {
+			super(out);
+			this.remaining = maxSize;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (remaining > 0) {
+				out.write(b);
+				remaining--;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			int allowed = (int) Math.min(len, remaining);
+			if (allowed > 0) {
+				out.write(b, off, allowed);
+				remaining -= allowed;
+			}
+		}
+	}
+}
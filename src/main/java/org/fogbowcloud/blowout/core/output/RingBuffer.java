@@ -0,0 +1,53 @@
+package org.fogbowcloud.blowout.core.output;
+
+/**
+ * Fixed-size byte buffer that keeps only the last bytes written to it.
+ */
+public class RingBuffer {
+
+	private final byte[] buffer;
+	private int next = 0;
+	private long written = 0;
+
+	public RingBuffer(int capacity) {
+		this.buffer = new byte[capacity];
+	}
+
+	public synchronized void write(byte[] data, int offset, int length) {
+		if (buffer.length == 0) {
+			written += length;
+			return;
+		}
+		if (length >= buffer.length) {
+			System.arraycopy(data, offset + length - buffer.length, buffer, 0, buffer.length);
+			next = 0;
+		} else {
+			int firstPart = Math.min(length, buffer.length - next);
+			System.arraycopy(data, offset, buffer, next, firstPart);
+			System.arraycopy(data, offset + firstPart, buffer, 0, length - firstPart);
+			next = (next + length) % buffer.length;
+		}
+		written += length;
+	}
+
+	/**
+	 * Returns up to maxBytes of the most recent content, oldest byte first.
+	 */
+	public synchronized byte[] tail(int maxBytes) {
+		int size = (int) Math.min(Math.min(written, buffer.length), Math.max(0, maxBytes));
+		byte[] tail = new byte[size];
+		int start = (next - size + buffer.length) % Math.max(1, buffer.length);
+		int firstPart = Math.min(size, buffer.length - start);
+		System.arraycopy(buffer, start, tail, 0, firstPart);
+		System.arraycopy(buffer, 0, tail, firstPart, size - firstPart);
+		return tail;
+	}
+
+	public synchronized long getWrittenBytes() {
+		return written;
+	}
+
+	public int getCapacity() {
+		return buffer.length;
+	}
+}
@@ -0,0 +1,99 @@
+package org.fogbowcloud.blowout.core.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Drains process streams so a process never blocks on a full pipe. Both
+ * streams of a process are drained on the calling thread, so running a
+ * process does not take a thread besides the one of its task.
+ */
+public class StreamPump {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final long MIN_IDLE_WAIT = 1;
+	private static final long MAX_IDLE_WAIT = 50;
+
+	private StreamPump() {
+	}
+
+	/**
+	 * Copies the input to the output until the end of the input, then closes
+	 * the input. A null output discards the input.
+	 */
+	public static void pump(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				if (out != null) {
+					out.write(buffer, 0, read);
+				}
+			}
+			if (out != null) {
+				out.flush();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Copies the stdout and stderr of the process to the given outputs until
+	 * the process exits and both streams end, then closes them. While the
+	 * process runs, only what is available is read; the wait between empty
+	 * polls grows up to {@value #MAX_IDLE_WAIT} ms.
+	 */
+	public static void pump(Process process, OutputStream out, OutputStream err)
+			throws IOException, InterruptedException {
+		InputStream stdout = process.getInputStream();
+		InputStream stderr = process.getErrorStream();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try {
+			long idleWait = MIN_IDLE_WAIT;
+			while (true) {
+				int moved = pumpAvailable(stdout, out, buffer) + pumpAvailable(stderr, err, buffer);
+				if (moved > 0) {
+					idleWait = MIN_IDLE_WAIT;
+				} else if (hasExited(process)) {
+					break;
+				} else {
+					Thread.sleep(idleWait);
+					idleWait = Math.min(idleWait * 2, MAX_IDLE_WAIT);
+				}
+			}
+			pump(stdout, out);
+			pump(stderr, err);
+		} finally {
+			stdout.close();
+			stderr.close();
+		}
+	}
+
+	private static int pumpAvailable(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+		int moved = 0;
+		int available;
+		while ((available = in.available()) > 0) {
+			int read = in.read(buffer, 0, Math.min(available, buffer.length));
+			if (read <= 0) {
+				break;
+			}
+			if (out != null) {
+				out.write(buffer, 0, read);
+			}
+			moved += read;
+		}
+		return moved;
+	}
+
+	private static boolean hasExited(Process process) {
+		try {
+			process.exitValue();
+			return true;
+		} catch (IllegalThreadStateException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package org.fogbowcloud.blowout.core.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destination of the output of task processes. Implementations are created
+ * by BlowoutController from the impl_task_output_sink_class_name property and
+ * must have a constructor receiving the Blowout properties.
+ */
+public interface TaskOutputSink {
+
+	/**
+	 * Opens the stream that receives one output of a process. It is written by
+	 * a single thread and closed when the process ends.
+	 */
+	OutputStream openStream(String taskId, String processId, TaskProcessOutput.Type type) throws IOException;
+
+}
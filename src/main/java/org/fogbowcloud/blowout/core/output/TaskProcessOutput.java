@@ -0,0 +1,127 @@
+package org.fogbowcloud.blowout.core.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Output of a task process. Each output keeps its last bytes in a ring buffer
+ * for tailing and, when a sink is configured, is also written to the stream
+ * the sink opens for it. The sink stream is opened on the first write, so
+ * processes that print nothing do not create empty files.
+ */
+public class TaskProcessOutput {
+
+	private static final Logger LOGGER = Logger.getLogger(TaskProcessOutput.class);
+
+	public static final int DEFAULT_TAIL_SIZE = 8192;
+
+	public enum Type {
+		STDOUT, STDERR
+	}
+
+	private final OutputCapture stdout;
+	private final OutputCapture stderr;
+
+	public TaskProcessOutput(String taskId, String processId, int tailSize, TaskOutputSink sink) {
+		this.stdout = new OutputCapture(taskId, processId, Type.STDOUT, tailSize, sink);
+		this.stderr = new OutputCapture(taskId, processId, Type.STDERR, tailSize, sink);
+	}
+
+	public OutputStream getStream(Type type) {
+		return getCapture(type);
+	}
+
+	public byte[] tail(Type type, int maxBytes) {
+		return getCapture(type).ringBuffer.tail(maxBytes);
+	}
+
+	public String getTail(Type type) {
+		RingBuffer ringBuffer = getCapture(type).ringBuffer;
+		return new String(ringBuffer.tail(ringBuffer.getCapacity()), Charset.defaultCharset());
+	}
+
+	public long getWrittenBytes(Type type) {
+		return getCapture(type).ringBuffer.getWrittenBytes();
+	}
+
+	public void close() {
+		stdout.close();
+		stderr.close();
+	}
+
+	private OutputCapture getCapture(Type type) {
+		return Type.STDOUT.equals(type) ? stdout : stderr;
+	}
+
+	private static class OutputCapture extends OutputStream {
+
+		private final String taskId;
+		private final String processId;
+		private final Type type;
+		private final RingBuffer ringBuffer;
+		private TaskOutputSink sink;
+		private OutputStream sinkStream;
+
+		private OutputCapture(String taskId, String processId, Type type, int tailSize, TaskOutputSink sink) {
+			this.taskId = taskId;
+			this.processId = processId;
+			this.type = type;
+			this.ringBuffer = new RingBuffer(tailSize);
+			this.sink = sink;
+		}
+
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			ringBuffer.write(b, off, len);
+			if (sink == null) {
+				return;
+			}
+			try {
+				if (sinkStream == null) {
+					sinkStream = sink.openStream(taskId, processId, type);
+				}
+				sinkStream.write(b, off, len);
+			} catch (IOException e) {
+				// A broken sink must not stop the process output from being drained
+				LOGGER.error("Could not write " + type + " of task " + taskId + " to output sink", e);
+				closeSinkStream();
+				sink = null;
+			}
+		}
+
+		@Override
+		public synchronized void flush() {
+			if (sinkStream != null) {
+				try {
+					sinkStream.flush();
+				} catch (IOException e) {
+					LOGGER.warn("Could not flush " + type + " of task " + taskId, e);
+				}
+			}
+		}
+
+		@Override
+		public synchronized void close() {
+			closeSinkStream();
+		}
+
+		private void closeSinkStream() {
+			if (sinkStream != null) {
+				try {
+					sinkStream.close();
+				} catch (IOException e) {
+					LOGGER.warn("Could not close " + type + " of task " + taskId, e);
+				}
+				sinkStream = null;
+			}
+		}
+	}
+}
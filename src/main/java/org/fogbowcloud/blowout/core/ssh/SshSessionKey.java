@@ -0,0 +1,77 @@
+package org.fogbowcloud.blowout.core.ssh;
+
+public class SshSessionKey {
+
+	private final String host;
+	private final int port;
+	private final String username;
+	private final String privateKeyFilePath;
+
+	public SshSessionKey(String host, int port, String username, String privateKeyFilePath) {
+		this.host = host;
+		this.port = port;
+		this.username = username;
+		this.privateKeyFilePath = privateKeyFilePath;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getPrivateKeyFilePath() {
+		return privateKeyFilePath;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((host == null) ? 0 : host.hashCode());
+		result = prime * result + port;
+		result = prime * result + ((privateKeyFilePath == null) ? 0 : privateKeyFilePath.hashCode());
+		result = prime * result + ((username == null) ? 0 : username.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SshSessionKey other = (SshSessionKey) obj;
+		if (host == null) {
+			if (other.host != null)
+				return false;
+		} else if (!host.equals(other.host))
+			return false;
+		if (port != other.port)
+			return false;
+		if (privateKeyFilePath == null) {
+			if (other.privateKeyFilePath != null)
+				return false;
+		} else if (!privateKeyFilePath.equals(other.privateKeyFilePath))
+			return false;
+		if (username == null) {
+			if (other.username != null)
+				return false;
+		} else if (!username.equals(other.username))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return username + "@" + host + ":" + port;
+	}
+}
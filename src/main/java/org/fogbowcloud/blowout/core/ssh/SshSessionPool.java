@@ -0,0 +1,304 @@
+package org.fogbowcloud.blowout.core.ssh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Keeps one authenticated SSH session per (host, port, user, key) and opens
+ * an exec channel on it for each command, so consecutive commands on the same
+ * resource skip the TCP handshake, key exchange and authentication.
+ *
+ * Commands go to the remote shell as written. The ssh client path runs them
+ * through a local bash first, which expands variables, removes quotes and
+ * runs whatever follows a ; or && locally, so the pool is off by default.
+ *
+ * The number of channels open at the same time on a session is limited by
+ * max channels per host (sshd refuses more than MaxSessions, 10 by default).
+ * Sessions without open channels for longer than the idle timeout are closed.
+ * A session that fails to open a channel is closed once the commands still
+ * running on it end; until then borrowing it fails, so callers fall back.
+ */
+public class SshSessionPool {
+
+	private static final Logger LOGGER = Logger.getLogger(SshSessionPool.class);
+
+	private static final String DEFAULT_ENABLED = "false";
+	private static final String DEFAULT_MAX_CHANNELS_PER_HOST = "10";
+	private static final String DEFAULT_IDLE_TIMEOUT = "300000";
+	private static final String DEFAULT_CONNECT_TIMEOUT = "30000";
+	private static final int DEFAULT_SSH_PORT = 22;
+	private static final long CHANNEL_CLOSE_POLL_INTERVAL = 10;
+	private static final long MAX_EVICTION_PERIOD = 60000;
+
+	private final int maxChannelsPerHost;
+	private final long idleTimeout;
+	private final int connectTimeout;
+
+	private final Map<SshSessionKey, PooledSession> sessions = new HashMap<SshSessionKey, PooledSession>();
+	private ScheduledExecutorService evictionService;
+
+	public SshSessionPool(int maxChannelsPerHost, long idleTimeout, int connectTimeout) {
+		this.maxChannelsPerHost = maxChannelsPerHost;
+		this.idleTimeout = idleTimeout;
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * Returns null when the pool is disabled in the given properties.
+	 */
+	public static SshSessionPool createSshSessionPool(Properties properties) {
+		boolean enabled = Boolean.parseBoolean(
+				properties.getProperty(AppPropertiesConstants.SSH_SESSION_POOL_ENABLED, DEFAULT_ENABLED));
+		if (!enabled) {
+			return null;
+		}
+		int maxChannelsPerHost = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.SSH_SESSION_POOL_MAX_CHANNELS_PER_HOST, DEFAULT_MAX_CHANNELS_PER_HOST));
+		long idleTimeout = Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.SSH_SESSION_POOL_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT));
+		int connectTimeout = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.SSH_SESSION_POOL_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT));
+		return new SshSessionPool(maxChannelsPerHost, idleTimeout, connectTimeout);
+	}
+
+	public static SshSessionKey createKey(String host, String port, String username, String privateKeyFilePath) {
+		int sshPort = DEFAULT_SSH_PORT;
+		if (port != null && !port.trim().isEmpty()) {
+			sshPort = Integer.parseInt(port.trim());
+		}
+		return new SshSessionKey(host, sshPort, username, privateKeyFilePath);
+	}
+
+	public synchronized void start() {
+		if (evictionService != null || idleTimeout <= 0) {
+			return;
+		}
+		long evictionPeriod = Math.min(MAX_EVICTION_PERIOD, Math.max(1000, idleTimeout / 2));
+		evictionService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "blowout-ssh-session-eviction");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		evictionService.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					evictIdleSessions();
+				} catch (Exception e) {
+					LOGGER.error("Error while evicting idle SSH sessions", e);
+				}
+			}
+		}, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+	}
+
+	public void close() {
+		List<PooledSession> pooledSessions;
+		synchronized (this) {
+			if (evictionService != null) {
+				evictionService.shutdownNow();
+				evictionService = null;
+			}
+			pooledSessions = new ArrayList<PooledSession>(sessions.values());
+			sessions.clear();
+		}
+		for (PooledSession pooled : pooledSessions) {
+			synchronized (pooled) {
+				pooled.removed = true;
+				pooled.disconnect();
+			}
+		}
+	}
+
+	/**
+	 * Runs the command on a channel of the pooled session and returns its
+	 * exit status. Output and error are copied to the given streams; null
+	 * streams discard them.
+	 */
+	public int execute(SshSessionKey key, String command, OutputStream out, OutputStream err)
+			throws JSchException, IOException, InterruptedException {
+		PooledSession pooled = borrow(key);
+		Session session = pooled.session;
+		try {
+			ChannelExec channel;
+			try {
+				channel = (ChannelExec) session.openChannel("exec");
+			} catch (JSchException e) {
+				synchronized (pooled) {
+					pooled.broken = true;
+				}
+				throw e;
+			}
+			try {
+				channel.setCommand(command);
+				channel.setInputStream(null);
+				channel.setErrStream(err == null ? new DiscardOutputStream() : err, true);
+				InputStream in = channel.getInputStream();
+				channel.connect(connectTimeout);
+				copy(in, out);
+				while (!channel.isClosed()) {
+					Thread.sleep(CHANNEL_CLOSE_POLL_INTERVAL);
+				}
+				return channel.getExitStatus();
+			} finally {
+				channel.disconnect();
+			}
+		} finally {
+			giveBack(pooled);
+		}
+	}
+
+	protected Session createSession(SshSessionKey key) throws JSchException {
+		JSch jsch = new JSch();
+		if (key.getPrivateKeyFilePath() != null && !key.getPrivateKeyFilePath().isEmpty()) {
+			jsch.addIdentity(key.getPrivateKeyFilePath());
+		}
+		Session session = jsch.getSession(key.getUsername(), key.getHost(), key.getPort());
+		session.setConfig("StrictHostKeyChecking", "no");
+		session.connect(connectTimeout);
+		LOGGER.debug("Opened SSH session to " + key);
+		return session;
+	}
+
+	private PooledSession borrow(SshSessionKey key) throws JSchException, InterruptedException {
+		while (true) {
+			PooledSession pooled;
+			synchronized (this) {
+				pooled = sessions.get(key);
+				if (pooled == null) {
+					pooled = new PooledSession(key, maxChannelsPerHost);
+					sessions.put(key, pooled);
+				}
+			}
+			pooled.channels.acquire();
+			synchronized (pooled) {
+				if (pooled.removed) {
+					pooled.channels.release();
+					continue;
+				}
+				if (pooled.broken) {
+					pooled.channels.release();
+					throw new JSchException("SSH session to " + key + " is broken, waiting for its commands to end");
+				}
+				try {
+					if (pooled.session == null || !pooled.session.isConnected()) {
+						pooled.session = createSession(key);
+					}
+				} catch (JSchException e) {
+					pooled.channels.release();
+					throw e;
+				}
+				pooled.activeChannels++;
+				pooled.lastUsed = System.currentTimeMillis();
+				return pooled;
+			}
+		}
+	}
+
+	private void giveBack(PooledSession pooled) {
+		synchronized (pooled) {
+			pooled.activeChannels--;
+			pooled.lastUsed = System.currentTimeMillis();
+			if (pooled.broken && pooled.activeChannels == 0) {
+				pooled.disconnect();
+				pooled.broken = false;
+			}
+		}
+		pooled.channels.release();
+	}
+
+	protected void evictIdleSessions() {
+		List<PooledSession> pooledSessions;
+		synchronized (this) {
+			pooledSessions = new ArrayList<PooledSession>(sessions.values());
+		}
+		long now = System.currentTimeMillis();
+		for (PooledSession pooled : pooledSessions) {
+			synchronized (pooled) {
+				if (pooled.removed || pooled.activeChannels > 0 || now - pooled.lastUsed < idleTimeout) {
+					continue;
+				}
+				pooled.removed = true;
+				pooled.disconnect();
+			}
+			synchronized (this) {
+				if (sessions.get(pooled.key) == pooled) {
+					sessions.remove(pooled.key);
+				}
+			}
+			LOGGER.debug("Closed idle SSH session to " + pooled.key);
+		}
+	}
+
+	public synchronized int getSessionCount() {
+		return sessions.size();
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			if (out != null) {
+				out.write(buffer, 0, read);
+			}
+		}
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	private static class PooledSession {
+
+		private final SshSessionKey key;
+		private final Semaphore channels;
+		private Session session;
+		private int activeChannels = 0;
+		private long lastUsed = System.currentTimeMillis();
+		private boolean removed = false;
+		private boolean broken = false;
+
+		private PooledSession(SshSessionKey key, int maxChannels) {
+			this.key = key;
+			this.channels = new Semaphore(maxChannels, true);
+		}
+
+		private void disconnect() {
+			if (session != null) {
+				session.disconnect();
+				session = null;
+			}
+		}
+	}
+
+	private static class DiscardOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+}
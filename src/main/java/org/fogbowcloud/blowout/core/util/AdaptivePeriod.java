@@ -0,0 +1,58 @@
+package org.fogbowcloud.blowout.core.util;
+
+/**
+ * Wait between two monitoring cycles. Right after {@link #reset()} the wait is
+ * the minimum period; it then doubles after every busy cycle, up to the
+ * maximum period, which is also the wait of an idle cycle. A reset shortens a
+ * wait in progress and {@link #wakeUp()} ends it at once.
+ */
+public class AdaptivePeriod {
+
+	private long minPeriod;
+	private final long maxPeriod;
+	private long currentPeriod;
+	private boolean wakeUpRequested = false;
+
+	public AdaptivePeriod(long minPeriod, long maxPeriod) {
+		this.maxPeriod = maxPeriod;
+		this.minPeriod = Math.min(minPeriod, maxPeriod);
+		this.currentPeriod = maxPeriod;
+	}
+
+	public synchronized void await(boolean idle) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		if (idle) {
+			currentPeriod = maxPeriod;
+		}
+		while (!wakeUpRequested) {
+			long remaining = start + currentPeriod - System.currentTimeMillis();
+			if (remaining <= 0) {
+				break;
+			}
+			wait(remaining);
+		}
+		wakeUpRequested = false;
+		currentPeriod = Math.min(Math.max(currentPeriod * 2, 1), maxPeriod);
+	}
+
+	/**
+	 * New work started: poll again after the minimum period.
+	 */
+	public synchronized void reset() {
+		currentPeriod = minPeriod;
+		notifyAll();
+	}
+
+	public synchronized void wakeUp() {
+		wakeUpRequested = true;
+		notifyAll();
+	}
+
+	public synchronized long getCurrentPeriod() {
+		return currentPeriod;
+	}
+
+	public synchronized void setMinPeriod(long minPeriod) {
+		this.minPeriod = Math.min(minPeriod, maxPeriod);
+	}
+}
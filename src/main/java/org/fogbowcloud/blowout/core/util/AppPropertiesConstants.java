@@ -6,22 +6,59 @@ public class AppPropertiesConstants {
 	public static final String IMPLEMENTATION_SCHEDULER = "impl_scheduler_class_name";
 	public static final String IMPLEMENTATION_BLOWOUT_POOL = "impl_blowout_pool_class_name";
 	public static final String IMPLEMENTATION_INFRA_PROVIDER = "infra_provider_class_name";
+	public static final String IMPLEMENTATION_TASK_OUTPUT_SINK = "impl_task_output_sink_class_name";
+	public static final String IMPLEMENTATION_SCHEDULER_SCORE = "impl_scheduler_score_class_name";
 	public static final String BLOWOUT_CONFIG_FILE = "blowout.configuration";
 	public static final String DEFAULT_BLOWOUT_CONFIG_FILE = "blowout.conf";
 	
 
 	public static final String INFRA_IS_STATIC = "infra_is_elastic";
 	public static final String INFRA_RESOURCE_CONNECTION_TIMEOUT = "infra_resource_connection_timeout";
+	public static final String INFRA_RESOURCE_PROBE_SSH_BANNER = "infra_resource_probe_ssh_banner";
+	public static final String INFRA_RESOURCE_PROBE_MAX_CONCURRENT = "infra_resource_probe_max_concurrent";
 	public static final String INFRA_RESOURCE_IDLE_LIFETIME = "infra_resource_idle_lifetime";
 	public static final String INFRA_RESOURCE_REUSE_TIMES = "max_resource_reuse";
 	public static final String INFRA_RESOURCE_CONNECTION_RETRY = "max_resource_connection_retry";
 	public static final String INFRA_MONITOR_PERIOD = "infra_monitor_period";
+	public static final String INFRA_MONITOR_MIN_PERIOD = "infra_monitor_min_period";
+	public static final String INFRA_MONITOR_MAX_CONCURRENT_POLLS = "infra_monitor_max_concurrent_polls";
+	public static final String INFRA_MONITOR_POLLING_TIMEOUT = "infra_monitor_polling_timeout";
+	public static final String INFRA_MONITOR_BULK_LISTING = "infra_monitor_bulk_listing";
+	public static final String PROVISIONING_MAX_CONCURRENT_REQUESTS = "provisioning_max_concurrent_requests";
+	public static final String PROVISIONING_MAX_RESOURCES_PER_REQUEST = "provisioning_max_resources_per_request";
+	public static final String PROVISIONING_MAX_RETRIES = "provisioning_max_retries";
+	public static final String PROVISIONING_RETRY_INITIAL_DELAY = "provisioning_retry_initial_delay";
+	public static final String PROVISIONING_RETRY_MAX_DELAY = "provisioning_retry_max_delay";
 	public static final String LOCAL_COMMAND_INTERPRETER = "local_command_interpreter";
+	public static final String POOL_ACT_MAX_RATE = "pool_act_max_rate";
+	public static final String POOL_ACT_MAX_LATENCY = "pool_act_max_latency";
+	public static final String SCHEDULER_SCORE_PRIORITY_WEIGHT = "scheduler_score_priority_weight";
+	public static final String SCHEDULER_SCORE_WAIT_WEIGHT = "scheduler_score_wait_weight";
+	public static final String SCHEDULER_SCORE_LOCALITY_WEIGHT = "scheduler_score_locality_weight";
+	public static final String SCHEDULER_SCORE_REUSE_WEIGHT = "scheduler_score_reuse_weight";
+	public static final String TASK_MONITOR_SWEEP_PERIOD = "task_monitor_sweep_period";
+	public static final String TASK_MONITOR_MIN_SWEEP_PERIOD = "task_monitor_min_sweep_period";
+	public static final String TASK_EXECUTOR_TYPE = "task_executor_type";
+	public static final String TASK_EXECUTOR_MAX_THREADS = "task_executor_max_threads";
+	public static final String TASK_EXECUTOR_QUEUE_SIZE = "task_executor_queue_size";
+	public static final String TASK_EXECUTOR_MAX_TASKS_PER_SPECIFICATION = "task_executor_max_tasks_per_specification";
+	public static final String SSH_SESSION_POOL_ENABLED = "ssh_session_pool_enabled";
+	public static final String SSH_SESSION_POOL_MAX_CHANNELS_PER_HOST = "ssh_session_pool_max_channels_per_host";
+	public static final String SSH_SESSION_POOL_IDLE_TIMEOUT = "ssh_session_pool_idle_timeout";
+	public static final String SSH_SESSION_POOL_CONNECT_TIMEOUT = "ssh_session_pool_connect_timeout";
+	public static final String TASK_OUTPUT_DIR = "task_output_dir";
+	public static final String TASK_OUTPUT_MAX_FILE_SIZE = "task_output_max_file_size";
+	public static final String TASK_OUTPUT_TAIL_SIZE = "task_output_tail_size";
 	public static final String INFRA_AUTH_TOKEN_PREFIX = "auth_token_prop_";
 	public static final String INFRA_AUTH_TOKEN_UPDATE_PLUGIN = "infra_auth_token_update_plugin";
 	
 
 	public static final String INFRA_FOGBOW_MANAGER_BASE_URL = "infra_fogbow_manager_base_url";
+	public static final String HTTP_MAX_CONNECTIONS = "http_max_connections";
+	public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "http_max_connections_per_route";
+	public static final String HTTP_CONNECT_TIMEOUT = "http_connect_timeout";
+	public static final String HTTP_READ_TIMEOUT = "http_read_timeout";
+	public static final String HTTP_IDLE_CONNECTION_TIMEOUT = "http_idle_connection_timeout";
 
 	
 	public static final String TOKEN_UPDATE_TIME = "token_update_time";
@@ -29,6 +66,10 @@ public class AppPropertiesConstants {
 	
 
 	public static final String DB_DATASTORE_URL = "blowout_datastore_url";
+	public static final String DB_WRITE_MAX_DELAY = "blowout_datastore_write_max_delay";
+	public static final String DB_WRITE_MAX_BATCH = "blowout_datastore_write_max_batch";
+	public static final String TASK_JOURNAL_DIR = "blowout_task_journal_dir";
+	public static final String TASK_JOURNAL_SNAPSHOT_THRESHOLD = "blowout_task_journal_snapshot_threshold";
 	public static final String DB_REST_SERVER_PORT = "blowout_rest_server_port";
 
 	
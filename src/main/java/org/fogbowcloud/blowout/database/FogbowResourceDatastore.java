@@ -8,8 +8,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.Logger;
 import org.fogbowcloud.blowout.core.model.Specification;
@@ -18,6 +23,15 @@ import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+/**
+ * Stores the requested Fogbow resources, so they are recovered after a
+ * restart. All access goes through one connection in WAL mode with cached
+ * prepared statements. Mutations are written behind: they are queued and a
+ * writer thread commits them together at most
+ * {@link AppPropertiesConstants#DB_WRITE_MAX_DELAY} milliseconds later, or
+ * as soon as a full batch is queued. Reads first write what is queued. With
+ * a max delay of 0 every mutation is committed before its method returns.
+ */
 public class FogbowResourceDatastore {
 
 	private static final Logger LOGGER = Logger.getLogger(FogbowResourceDatastore.class);
@@ -41,33 +55,61 @@ public class FogbowResourceDatastore {
 	private static final String DELETE_ALL_CONTENT_SQL = "DELETE FROM " + FOGBOW_RESOURCE_TABLE_NAME;
 	private static final String DELETE_BY_RESOURCE_ID_SQL = DELETE_ALL_CONTENT_SQL + " WHERE " + RESOURCE_ID + "=? ";
 
+	private static final String DEFAULT_WRITE_MAX_DELAY = "1000";
+	private static final String DEFAULT_WRITE_MAX_BATCH = "500";
+
 	private String dataStoreURL;
 	private Properties properties;
 
+	private final long writeMaxDelay;
+	private final int writeMaxBatch;
+	private final BlockingQueue<Mutation> pendingMutations = new LinkedBlockingQueue<Mutation>();
+	private final Object writerSignal = new Object();
+	private final Object connectionLock = new Object();
+	private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+	private Connection connection;
+	private Thread writer;
+	private final AtomicBoolean active = new AtomicBoolean(true);
+
 	public FogbowResourceDatastore(Properties properties) {
 		this.properties = properties;
 		this.dataStoreURL = this.properties.getProperty(AppPropertiesConstants.DB_DATASTORE_URL);
+		this.writeMaxDelay = Long.parseLong(
+				properties.getProperty(AppPropertiesConstants.DB_WRITE_MAX_DELAY, DEFAULT_WRITE_MAX_DELAY));
+		this.writeMaxBatch = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.DB_WRITE_MAX_BATCH, DEFAULT_WRITE_MAX_BATCH));
 
 		Statement statement = null;
-		Connection connection = null;
 		try {
 			LOGGER.debug("DatastoreURL: " + dataStoreURL);
 
 			Class.forName(MANAGER_DATASTORE_SQLITE_DRIVER);
 
 			connection = getConnection();
-			connection.setAutoCommit(false);
 			statement = connection.createStatement();
+			statement.execute("PRAGMA journal_mode=WAL");
+			statement.execute("PRAGMA synchronous=NORMAL");
+			connection.setAutoCommit(false);
 			statement.execute("CREATE TABLE IF NOT EXISTS " + FOGBOW_RESOURCE_TABLE_NAME + "(" + RESOURCE_ID
 					+ " VARCHAR(255) PRIMARY KEY," + ORDER_ID + " VARCHAR(255)," + INSTANCE_ID + " VARCHAR(255)," + SPEC
 					+ " TEXT " + ")");
-			statement.close();
 			connection.commit();
 
 		} catch (Exception e) {
 			LOGGER.error("Error while initializing the DataStore.", e);
 		} finally {
-			close(statement, connection);
+			close(statement);
+		}
+
+		if (writeMaxDelay > 0) {
+			writer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					runWriter();
+				}
+			}, "blowout-datastore-writer");
+			writer.setDaemon(true);
+			writer.start();
 		}
 	}
 
@@ -80,7 +122,7 @@ public class FogbowResourceDatastore {
 		}
 	}
 
-	private void close(Statement statement, Connection conn) {
+	private void close(Statement statement) {
 		if (statement != null) {
 			try {
 				if (!statement.isClosed()) {
@@ -90,11 +132,29 @@ public class FogbowResourceDatastore {
 				LOGGER.error("Couldn't close statement");
 			}
 		}
+	}
 
-		if (conn != null) {
+	/**
+	 * Writes what is queued and closes the connection.
+	 */
+	public void close() {
+		active.set(false);
+		if (writer != null) {
+			synchronized (writerSignal) {
+				writerSignal.notifyAll();
+			}
 			try {
-				if (!conn.isClosed()) {
-					conn.close();
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		flush();
+		synchronized (connectionLock) {
+			closeStatements();
+			try {
+				if (connection != null && !connection.isClosed()) {
+					connection.close();
 				}
 			} catch (SQLException e) {
 				LOGGER.error("Couldn't close connection");
@@ -104,208 +164,244 @@ public class FogbowResourceDatastore {
 
 	public boolean addFogbowResource(FogbowResource fogbowResource) {
 		LOGGER.debug("Adding resource id: " + fogbowResource.getId());
-		PreparedStatement insertResourceStatement = null;
-		Connection connection = null;
-		try {
-			connection = getConnection();
-			connection.setAutoCommit(false);
+		return write(new InsertResource(fogbowResource));
+	}
 
-			String spec = null;
+	public boolean addResourceIds(List<FogbowResource> fogbowResources) {
+		LOGGER.debug("Adding resource ids");
+		boolean result = true;
+		for (FogbowResource fogbowResource : fogbowResources) {
+			result &= write(new InsertResource(fogbowResource));
+		}
+		return result;
+	}
 
-			if (fogbowResource.getRequestedSpec() != null) {
-				JSONObject json = fogbowResource.getRequestedSpec().toJSON();
-				spec = json.toString();
+	public boolean updateFogbowResource(final FogbowResource fogbowResource) {
+		LOGGER.debug("Updating resource id: " + fogbowResource.getId());
+		final String orderId = fogbowResource.getOrderId();
+		final String instanceId = fogbowResource.getInstanceId();
+		return write(new Mutation("update fogbow resource " + fogbowResource.getId()) {
+			@Override
+			void apply() throws SQLException {
+				PreparedStatement updateFogbowResourceStatment = statement(UPDATE_FOGBOW_RESOURCE);
+				updateFogbowResourceStatment.setString(1, orderId);
+				updateFogbowResourceStatment.setString(2, instanceId);
+				updateFogbowResourceStatment.setString(3, fogbowResource.getId());
+				updateFogbowResourceStatment.executeUpdate();
 			}
+		});
+	}
 
-			insertResourceStatement = prepare(connection, INSERT_FOGBOW_RESOURCE_SQL);
-			insertResourceStatement.setString(1, fogbowResource.getId());
-			insertResourceStatement.setString(2, fogbowResource.getOrderId());
-			insertResourceStatement.setString(3, fogbowResource.getInstanceId());
-			if (spec == null) {
-				insertResourceStatement.setNull(4, Types.VARCHAR);
-			} else {
-				insertResourceStatement.setString(4, spec);
-			}
-			boolean result = insertResourceStatement.execute();
-			connection.commit();
-			return result;
-		} catch (SQLException e) {
-			LOGGER.error("Couldn't store the current resource id", e);
+	protected PreparedStatement prepare(Connection connection, String statement) throws SQLException {
+		return connection.prepareStatement(statement);
+	}
+
+	public List<FogbowResource> getAllFogbowResources() {
+		flush();
+		List<FogbowResource> fogbowResources = new ArrayList<FogbowResource>();
+		Statement getRequestIdStatement = null;
+		synchronized (connectionLock) {
 			try {
-				if (connection != null) {
-					connection.rollback();
+				getRequestIdStatement = connection.createStatement();
+				getRequestIdStatement.execute(SELECT_REQUEST_ID);
+				ResultSet result = getRequestIdStatement.getResultSet();
+
+				while (result.next()) {
+					FogbowResource fogbowresource = createFogbowResource(result);
+					fogbowResources.add(fogbowresource);
 				}
-			} catch (SQLException e1) {
-				LOGGER.error("Couldn't rollback transaction.", e1);
+				result.close();
+				connection.commit();
+
+				return fogbowResources;
+
+			} catch (Exception e) {
+				LOGGER.error("Couldn't recover request Ids from DB", e);
+				return null;
+			} finally {
+				close(getRequestIdStatement);
 			}
-			return false;
-		} finally {
-			close(insertResourceStatement, connection);
 		}
 	}
 
-	public boolean addResourceIds(List<FogbowResource> fogbowResources) {
-		LOGGER.debug("Adding resource ids");
-		PreparedStatement insertResourcesStatement = null;
-		Connection connection = null;
-		try {
-			connection = getConnection();
-			connection.setAutoCommit(false);
-			insertResourcesStatement = prepare(connection, INSERT_FOGBOW_RESOURCE_SQL);
-			for (FogbowResource fogbowResource : fogbowResources) {
+	public boolean deleteFogbowResourceById(final FogbowResource fogbowResource) {
 
-				String spec = null;
+		LOGGER.debug("Deleting resource id: " + fogbowResource.getId());
+		return write(new Mutation("delete the resource " + fogbowResource.getId()) {
+			@Override
+			void apply() throws SQLException {
+				PreparedStatement deleteResourceId = statement(DELETE_BY_RESOURCE_ID_SQL);
+				deleteResourceId.setString(1, fogbowResource.getId());
+				deleteResourceId.executeUpdate();
+			}
+		});
+	}
 
-				if (fogbowResource.getRequestedSpec() != null) {
-					JSONObject json = fogbowResource.getRequestedSpec().toJSON();
-					spec = json.toString();
-				}
+	public boolean deleteAll() {
 
-				insertResourcesStatement.setString(1, fogbowResource.getId());
-				insertResourcesStatement.setString(2, fogbowResource.getOrderId());
-				insertResourcesStatement.setString(3, fogbowResource.getInstanceId());
-				if (spec == null) {
-					insertResourcesStatement.setNull(4, Types.VARCHAR);
-				} else {
-					insertResourcesStatement.setString(4, spec);
-				}
-				insertResourcesStatement.addBatch();
-				connection.rollback();
+		LOGGER.debug("Deleting all resources");
+		return write(new Mutation("delete all resource ids") {
+			@Override
+			void apply() throws SQLException {
+				statement(DELETE_ALL_CONTENT_SQL).executeUpdate();
 			}
+		});
+	}
 
-			if (hasBatchExecutionError(insertResourcesStatement.executeBatch())) {
+	/**
+	 * Commits every queued mutation in a single transaction and returns
+	 * whether all of them were written. Without a usable connection the
+	 * queued mutations are dropped.
+	 */
+	public boolean flush() {
+		synchronized (connectionLock) {
+			List<Mutation> batch = new ArrayList<Mutation>();
+			pendingMutations.drainTo(batch);
+			if (batch.isEmpty()) {
+				return true;
+			}
+			if (!isConnected()) {
+				LOGGER.error("Couldn't write " + batch.size() + " mutations, the DataStore has no open connection");
 				return false;
 			}
-			connection.commit();
-			return true;
-		} catch (SQLException e) {
-			LOGGER.error("Couldn't store the current resource id", e);
 			try {
-				if (connection != null) {
-					connection.rollback();
+				for (Mutation mutation : batch) {
+					mutation.apply();
 				}
-			} catch (SQLException e1) {
-				LOGGER.error("Couldn't rollback transaction.", e1);
+				connection.commit();
+				return true;
+			} catch (SQLException e) {
+				LOGGER.warn("Couldn't write " + batch.size() + " mutations at once, writing them one by one", e);
+				rollback();
 			}
-			return false;
-		} finally {
-			close(insertResourcesStatement, connection);
+
+			boolean result = true;
+			for (Mutation mutation : batch) {
+				try {
+					mutation.apply();
+					connection.commit();
+				} catch (SQLException e) {
+					LOGGER.error("Couldn't " + mutation.description, e);
+					rollback();
+					result = false;
+				}
+			}
+			return result;
 		}
 	}
 
-	public boolean updateFogbowResource(FogbowResource fogbowResource) {
-		LOGGER.debug("Updating resource id: " + fogbowResource.getId());
-		PreparedStatement updateFogbowResourceStatment = null;
-		Connection connection = null;
+	private boolean isConnected() {
 		try {
-			connection = getConnection();
-			connection.setAutoCommit(false);
-
-			updateFogbowResourceStatment = prepare(connection, UPDATE_FOGBOW_RESOURCE);
-			updateFogbowResourceStatment.setString(1, fogbowResource.getOrderId());
-			updateFogbowResourceStatment.setString(2, fogbowResource.getInstanceId());
-			updateFogbowResourceStatment.setString(3, fogbowResource.getId());
-			boolean result = updateFogbowResourceStatment.executeUpdate() > 0 ? true : false;
-			connection.commit();
-			return result;
+			return connection != null && !connection.isClosed();
 		} catch (SQLException e) {
-			LOGGER.error("Couldn't update fogbow resource " + fogbowResource.getId(), e);
-			try {
-				if (connection != null) {
-					connection.rollback();
-				}
-			} catch (SQLException e1) {
-				LOGGER.error("Couldn't rollback transaction.", e1);
-			}
+			LOGGER.error("Couldn't check the DataStore connection", e);
 			return false;
-		} finally {
-			close(updateFogbowResourceStatment, connection);
 		}
 	}
 
-	protected PreparedStatement prepare(Connection connection, String statement) throws SQLException {
-		return connection.prepareStatement(statement);
+	public int getPendingMutations() {
+		return pendingMutations.size();
 	}
 
-	public List<FogbowResource> getAllFogbowResources() {
-		List<FogbowResource> fogbowResources = new ArrayList<FogbowResource>();
-		Statement getRequestIdStatement = null;
-		Connection connection = null;
-		try {
-			connection = getConnection();
-			getRequestIdStatement = connection.createStatement();
-			getRequestIdStatement.execute(SELECT_REQUEST_ID);
-			ResultSet result = getRequestIdStatement.getResultSet();
+	private boolean write(Mutation mutation) {
+		pendingMutations.add(mutation);
+		if (writer == null) {
+			return flush();
+		}
+		if (pendingMutations.size() >= writeMaxBatch) {
+			synchronized (writerSignal) {
+				writerSignal.notifyAll();
+			}
+		}
+		return true;
+	}
 
-			while (result.next()) {
-				FogbowResource fogbowresource = createFogbowResource(result);
-				fogbowResources.add(fogbowresource);
+	private void runWriter() {
+		while (active.get()) {
+			try {
+				synchronized (writerSignal) {
+					if (active.get() && pendingMutations.size() < writeMaxBatch) {
+						writerSignal.wait(writeMaxDelay);
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				flush();
+			} catch (RuntimeException e) {
+				LOGGER.error("Couldn't write the queued mutations", e);
 			}
+		}
+	}
 
-			return fogbowResources;
+	private void rollback() {
+		try {
+			connection.rollback();
+		} catch (SQLException e1) {
+			LOGGER.error("Couldn't rollback transaction.", e1);
+		}
+		// The SQLite driver leaves a statement unusable once it fails.
+		closeStatements();
+	}
 
-		} catch (Exception e) {
-			LOGGER.error("Couldn't recover request Ids from DB", e);
-			return null;
-		} finally {
-			close(getRequestIdStatement, connection);
+	private void closeStatements() {
+		for (PreparedStatement statement : statements.values()) {
+			close(statement);
 		}
+		statements.clear();
 	}
 
-	public boolean deleteFogbowResourceById(FogbowResource fogbowResource) {
+	private PreparedStatement statement(String sql) throws SQLException {
+		PreparedStatement statement = statements.get(sql);
+		if (statement == null) {
+			statement = prepare(connection, sql);
+			statements.put(sql, statement);
+		}
+		return statement;
+	}
 
-		LOGGER.debug("Deleting resource id: " + fogbowResource.getId());
-		PreparedStatement deleteResourceId = null;
-		Connection connection = null;
-		try {
-			connection = getConnection();
-			connection.setAutoCommit(false);
+	private abstract class Mutation {
 
-			deleteResourceId = prepare(connection, DELETE_BY_RESOURCE_ID_SQL);
-			deleteResourceId.setString(1, fogbowResource.getId());
-			boolean result = deleteResourceId.execute();
-			connection.commit();
-			return result;
-		} catch (SQLException e) {
-			LOGGER.error("Couldn't delete the resource " + fogbowResource.getId(), e);
-			try {
-				if (connection != null) {
-					connection.rollback();
-				}
-			} catch (SQLException e1) {
-				LOGGER.error("Couldn't rollback transaction.", e1);
-			}
-			return false;
-		} finally {
-			close(deleteResourceId, connection);
+		private final String description;
+
+		Mutation(String description) {
+			this.description = description;
 		}
+
+		abstract void apply() throws SQLException;
 	}
 
-	public boolean deleteAll() {
+	private class InsertResource extends Mutation {
 
-		LOGGER.debug("Deleting all resources");
-		PreparedStatement deleteOldContent = null;
-		Connection connection = null;
-		try {
-			connection = getConnection();
-			connection.setAutoCommit(false);
-			deleteOldContent = connection.prepareStatement(DELETE_ALL_CONTENT_SQL);
-			deleteOldContent.executeUpdate();
-			connection.commit();
-			return true;
-		} catch (SQLException e) {
-			LOGGER.error("Couldn't delete all resource ids", e);
-			try {
-				if (connection != null) {
-					connection.rollback();
-				}
-			} catch (SQLException e1) {
-				LOGGER.error("Couldn't rollback transaction.", e1);
+		private final FogbowResource fogbowResource;
+		private final String instanceId;
+
+		InsertResource(FogbowResource fogbowResource) {
+			super("store the resource id " + fogbowResource.getId());
+			this.fogbowResource = fogbowResource;
+			this.instanceId = fogbowResource.getInstanceId();
+		}
+
+		@Override
+		void apply() throws SQLException {
+			String spec = null;
+
+			if (fogbowResource.getRequestedSpec() != null) {
+				JSONObject json = fogbowResource.getRequestedSpec().toJSON();
+				spec = json.toString();
 			}
-			return false;
-		} finally {
-			close(deleteOldContent, connection);
 
+			PreparedStatement insertResourceStatement = statement(INSERT_FOGBOW_RESOURCE_SQL);
+			insertResourceStatement.setString(1, fogbowResource.getId());
+			insertResourceStatement.setString(2, fogbowResource.getOrderId());
+			insertResourceStatement.setString(3, instanceId);
+			if (spec == null) {
+				insertResourceStatement.setNull(4, Types.VARCHAR);
+			} else {
+				insertResourceStatement.setString(4, spec);
+			}
+			insertResourceStatement.executeUpdate();
 		}
 	}
 
@@ -322,13 +418,4 @@ public class FogbowResourceDatastore {
 		fogbowResource.setInstanceId(instanceId);
 		return fogbowResource;
 	}
-
-	private boolean hasBatchExecutionError(int[] executeBatch) {
-		for (int i : executeBatch) {
-			if (i == PreparedStatement.EXECUTE_FAILED) {
-				return true;
-			}
-		}
-		return false;
-	}
 }
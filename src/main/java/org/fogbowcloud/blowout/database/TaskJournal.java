@@ -0,0 +1,386 @@
+package org.fogbowcloud.blowout.database;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.model.BinaryCodec;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.model.TaskState;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Durable record of the submitted tasks, so a restarted controller goes on
+ * from where it stopped. Submissions, state changes and removals are appended
+ * to a log, one JSON record per line, and reach the operating system before
+ * the recording method returns. Once the log holds
+ * {@link AppPropertiesConstants#TASK_JOURNAL_SNAPSHOT_THRESHOLD} records, the
+ * tasks are written to a snapshot file with {@link BinaryCodec}, synced and
+ * atomically renamed, and the log starts over. Each specification is written
+ * once, in its own record, and task records refer to it.
+ *
+ * {@link #recover()} loads the snapshot, replays the log on top of it and,
+ * when the log was not empty, compacts both. Tasks that were running are recovered as ready, keeping
+ * their retry count.
+ */
+public class TaskJournal {
+
+	private static final Logger LOGGER = Logger.getLogger(TaskJournal.class);
+
+	protected static final String LOG_FILE_NAME = "tasks.log";
+	protected static final String SNAPSHOT_FILE_NAME = "tasks.snapshot";
+
+	private static final String DEFAULT_SNAPSHOT_THRESHOLD = "100000";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String OPERATION = "op";
+	private static final String ADD = "add";
+	private static final String SPEC = "spec";
+	private static final String UPDATE = "update";
+	private static final String REMOVE = "remove";
+	private static final String TASK = "task";
+	private static final String SPEC_REF = "specRef";
+	private static final String ID = "id";
+	private static final String STATE = "state";
+	private static final String FINISHED = "isFinished";
+	private static final String FAILED = "isFailed";
+	private static final String RETRIES = "retries";
+
+	private final File logFile;
+	private final File snapshotFile;
+	private final int snapshotThreshold;
+
+	private final Map<String, Task> tasks = new LinkedHashMap<String, Task>();
+	private final Map<Specification, Integer> specRefs = new HashMap<Specification, Integer>();
+	// Only used while recovering.
+	private final Map<Integer, Specification> specsByRef = new HashMap<Integer, Specification>();
+	private boolean unreadableRecords = false;
+	private Writer log;
+	private int logRecords = 0;
+
+	public TaskJournal(File directory, int snapshotThreshold) {
+		this.logFile = new File(directory, LOG_FILE_NAME);
+		this.snapshotFile = new File(directory, SNAPSHOT_FILE_NAME);
+		this.snapshotThreshold = snapshotThreshold;
+	}
+
+	/**
+	 * Returns null when no journal directory is set.
+	 */
+	public static TaskJournal createTaskJournal(Properties properties) {
+		String directory = properties.getProperty(AppPropertiesConstants.TASK_JOURNAL_DIR);
+		if (directory == null || directory.isEmpty()) {
+			return null;
+		}
+		int snapshotThreshold = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.TASK_JOURNAL_SNAPSHOT_THRESHOLD, DEFAULT_SNAPSHOT_THRESHOLD));
+		return new TaskJournal(new File(directory), snapshotThreshold);
+	}
+
+	/**
+	 * Reads the tasks back and opens the journal for recording.
+	 */
+	public synchronized List<Task> recover() throws IOException {
+		close();
+		tasks.clear();
+		specRefs.clear();
+		specsByRef.clear();
+		unreadableRecords = false;
+		File directory = logFile.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create task journal directory " + directory);
+		}
+
+		int snapshotRecords = replaySnapshot();
+		int records = replay(logFile);
+		specsByRef.clear();
+		for (Task task : tasks.values()) {
+			if (!task.isFinished() && TaskState.RUNNING.equals(task.getState())) {
+				task.setState(TaskState.READY);
+			}
+		}
+		LOGGER.info("Recovered " + tasks.size() + " tasks from " + snapshotRecords + " snapshot and " + records
+				+ " log records");
+
+		if (records > 0 || unreadableRecords) {
+			writeSnapshot();
+		} else {
+			openLog(true);
+		}
+		return new ArrayList<Task>(tasks.values());
+	}
+
+	public synchronized void recordAdded(Collection<Task> addedTasks) {
+		if (log == null) {
+			return;
+		}
+		try {
+			for (Task task : addedTasks) {
+				tasks.put(task.getId(), task);
+				append(taskRecord(task, specRef(task.getSpecification(), log)));
+			}
+			commit();
+		} catch (Exception e) {
+			LOGGER.error("Could not record " + addedTasks.size() + " added tasks", e);
+		}
+	}
+
+	public synchronized void recordUpdated(Task task) {
+		if (log == null || !tasks.containsKey(task.getId())) {
+			return;
+		}
+		try {
+			JSONObject record = new JSONObject();
+			record.put(OPERATION, UPDATE);
+			record.put(ID, task.getId());
+			record.put(FINISHED, task.isFinished());
+			record.put(FAILED, task.isFailed());
+			record.put(RETRIES, task.getRetries());
+			record.put(STATE, task.getState() == null ? null : task.getState().name());
+			append(record);
+			commit();
+		} catch (Exception e) {
+			LOGGER.error("Could not record the update of task " + task.getId(), e);
+		}
+	}
+
+	public synchronized void recordRemoved(Task task) {
+		if (log == null || tasks.remove(task.getId()) == null) {
+			return;
+		}
+		try {
+			JSONObject record = new JSONObject();
+			record.put(OPERATION, REMOVE);
+			record.put(ID, task.getId());
+			append(record);
+			commit();
+		} catch (Exception e) {
+			LOGGER.error("Could not record the removal of task " + task.getId(), e);
+		}
+	}
+
+	public synchronized boolean isOpen() {
+		return log != null;
+	}
+
+	public synchronized void close() {
+		if (log != null) {
+			try {
+				log.close();
+			} catch (IOException e) {
+				LOGGER.warn("Error while closing the task journal", e);
+			}
+			log = null;
+		}
+	}
+
+	private void append(JSONObject record) throws IOException {
+		write(log, record);
+		logRecords++;
+	}
+
+	private static void write(Writer writer, JSONObject record) throws IOException {
+		writer.write(record.toString());
+		writer.write('\n');
+	}
+
+	/**
+	 * Refs stay the same for the life of the journal directory, so the log
+	 * left by a crash during a snapshot still reads right after it.
+	 */
+	private Integer specRef(Specification spec, Writer writer) throws IOException, JSONException {
+		Integer ref = specRefs.get(spec);
+		if (ref == null) {
+			ref = specRefs.size();
+			specRefs.put(spec, ref);
+			if (writer != null) {
+				write(writer, specRecord(spec, ref));
+			}
+		}
+		return ref;
+	}
+
+	private void commit() throws IOException {
+		log.flush();
+		if (logRecords >= snapshotThreshold) {
+			writeSnapshot();
+		}
+	}
+
+	private void writeSnapshot() throws IOException {
+		File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(tmpFile);
+		try {
+			for (Task task : tasks.values()) {
+				specRef(task.getSpecification(), null);
+			}
+			BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(out);
+			encoder.writeInt(specRefs.size());
+			for (Map.Entry<Specification, Integer> specRef : specRefs.entrySet()) {
+				encoder.writeInt(specRef.getValue());
+				encoder.writeSpecification(specRef.getKey());
+			}
+			for (Task task : tasks.values()) {
+				encoder.writeTask(task);
+			}
+			encoder.flush();
+			out.getFD().sync();
+		} catch (JSONException e) {
+			throw new IOException("Could not write task snapshot", e);
+		} finally {
+			out.close();
+		}
+		Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+
+		openLog(false);
+	}
+
+	private void openLog(boolean append) throws IOException {
+		close();
+		log = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile, append), UTF_8));
+		logRecords = 0;
+	}
+
+	private int replaySnapshot() throws IOException {
+		if (!snapshotFile.exists()) {
+			return 0;
+		}
+		InputStream in = new FileInputStream(snapshotFile);
+		try {
+			if (in.read() == '{') {
+				// Snapshots used to be written as log records.
+				return replay(snapshotFile);
+			}
+		} finally {
+			in.close();
+		}
+
+		int records = 0;
+		in = new FileInputStream(snapshotFile);
+		try {
+			BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(in);
+			int specCount = decoder.readInt();
+			for (int i = 0; i < specCount; i++) {
+				int ref = decoder.readInt();
+				Specification spec = decoder.readSpecification();
+				specsByRef.put(ref, spec);
+				specRefs.put(spec, ref);
+			}
+			while (decoder.hasMore()) {
+				Task task = decoder.readTask();
+				tasks.put(task.getId(), task);
+				records++;
+			}
+		} finally {
+			in.close();
+		}
+		return records;
+	}
+
+	private int replay(File file) throws IOException {
+		if (!file.exists()) {
+			return 0;
+		}
+		int records = 0;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				try {
+					apply(new JSONObject(line));
+					records++;
+				} catch (JSONException e) {
+					// A crash while appending leaves the last record incomplete.
+					unreadableRecords = true;
+					LOGGER.warn("Ignoring unreadable record " + (records + 1) + " of " + file);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return records;
+	}
+
+	private void apply(JSONObject record) throws JSONException {
+		String operation = record.getString(OPERATION);
+		if (SPEC.equals(operation)) {
+			Specification spec = Specification.fromJSON(record.getJSONObject(SPEC));
+			int ref = record.getInt(SPEC_REF);
+			specsByRef.put(ref, spec);
+			specRefs.put(spec, ref);
+		} else if (ADD.equals(operation)) {
+			Specification spec = specsByRef.get(record.getInt(SPEC_REF));
+			if (spec == null) {
+				throw new JSONException("Unknown specification ref " + record.getInt(SPEC_REF));
+			}
+			Task task = TaskImpl.fromJSON(record.getJSONObject(TASK), spec);
+			task.setState(readState(record, TaskState.READY));
+			tasks.put(task.getId(), task);
+		} else if (UPDATE.equals(operation)) {
+			Task task = tasks.get(record.getString(ID));
+			if (task == null) {
+				return;
+			}
+			if (record.optBoolean(FINISHED) && !task.isFinished()) {
+				task.finish();
+			}
+			if (record.optBoolean(FAILED) && !task.isFailed()) {
+				task.fail();
+			}
+			task.setRetries(record.optInt(RETRIES, task.getRetries()));
+			task.setState(readState(record, task.getState()));
+		} else if (REMOVE.equals(operation)) {
+			tasks.remove(record.getString(ID));
+		}
+	}
+
+	private static TaskState readState(JSONObject record, TaskState defaultState) {
+		String state = record.optString(STATE, null);
+		return state == null ? defaultState : TaskState.valueOf(state);
+	}
+
+	private static JSONObject specRecord(Specification spec, int ref) throws JSONException {
+		JSONObject record = new JSONObject();
+		record.put(OPERATION, SPEC);
+		record.put(SPEC_REF, ref);
+		record.put(SPEC, spec.toJSON());
+		return record;
+	}
+
+	private static JSONObject taskRecord(Task task, int specRef) throws JSONException {
+		JSONObject taskJSON = task.toJSON();
+		taskJSON.remove(SPEC);
+		JSONObject record = new JSONObject();
+		record.put(OPERATION, ADD);
+		record.put(SPEC_REF, specRef);
+		record.put(TASK, taskJSON);
+		record.put(STATE, task.getState() == null ? null : task.getState().name());
+		return record;
+	}
+}
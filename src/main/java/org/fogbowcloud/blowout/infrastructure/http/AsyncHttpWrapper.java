@@ -0,0 +1,105 @@
+package org.fogbowcloud.blowout.infrastructure.http;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Future;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+
+/**
+ * Non-blocking counterpart of {@link HttpWrapper}. Requests are sent by the
+ * I/O threads of an asynchronous client and their results are delivered to
+ * a callback, so a single caller thread can keep many requests in flight.
+ * Callbacks run on the I/O threads and must not block.
+ */
+public class AsyncHttpWrapper {
+
+	private static final Logger LOGGER = Logger.getLogger(AsyncHttpWrapper.class);
+
+	private static final String DEFAULT_MAX_CONNECTIONS = "100";
+	private static final String DEFAULT_MAX_CONNECTIONS_PER_ROUTE = "50";
+	private static final String DEFAULT_CONNECT_TIMEOUT = "10000";
+	private static final String DEFAULT_READ_TIMEOUT = "60000";
+
+	private final CloseableHttpAsyncClient httpClient;
+
+	public AsyncHttpWrapper() {
+		this(new Properties());
+	}
+
+	public AsyncHttpWrapper(Properties properties) {
+		int maxConnections = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.HTTP_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS));
+		int maxConnectionsPerRoute = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.HTTP_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+		int connectTimeout = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.HTTP_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT));
+		int readTimeout = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.HTTP_READ_TIMEOUT, DEFAULT_READ_TIMEOUT));
+
+		RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout)
+				.setConnectionRequestTimeout(connectTimeout).setSocketTimeout(readTimeout).build();
+
+		httpClient = HttpAsyncClients.custom().setMaxConnTotal(maxConnections)
+				.setMaxConnPerRoute(maxConnectionsPerRoute).setDefaultRequestConfig(requestConfig).build();
+		httpClient.start();
+	}
+
+	/**
+	 * Sends the request and returns right away. The future, and the callback
+	 * when not null, receive the same result {@link HttpWrapper#doRequest}
+	 * would return, or the exception it would throw. Cancelling the future
+	 * cancels the request.
+	 */
+	public Future<String> doRequest(final String method, final String endpoint, String authToken,
+			List<Header> additionalHeaders, FutureCallback<String> callback) {
+
+		final RequestFuture<String> result = new RequestFuture<String>(callback);
+		result.follow(httpClient.execute(HttpWrapper.createRequest(method, endpoint, authToken, additionalHeaders),
+				new FutureCallback<HttpResponse>() {
+
+					@Override
+					public void completed(HttpResponse response) {
+						String content;
+						try {
+							content = HttpWrapper.readResponse(method, endpoint, response);
+						} catch (Exception e) {
+							result.failed(e);
+							return;
+						}
+						result.completed(content);
+					}
+
+					@Override
+					public void failed(Exception e) {
+						result.failed(e);
+					}
+
+					@Override
+					public void cancelled() {
+						result.cancel();
+					}
+				}));
+		return result;
+	}
+
+	public boolean isRunning() {
+		return httpClient.isRunning();
+	}
+
+	public void close() {
+		try {
+			httpClient.close();
+		} catch (IOException e) {
+			LOGGER.warn("Error while closing asynchronous HTTP client", e);
+		}
+	}
+}
@@ -1,35 +1,127 @@
 package org.fogbowcloud.blowout.infrastructure.http;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.Consts;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
 import org.fogbowcloud.manager.occi.model.HeaderUtils;
 import org.fogbowcloud.manager.occi.model.OCCIHeaders;
 import org.fogbowcloud.manager.occi.order.OrderConstants;
 
+/**
+ * Sends requests to the Fogbow manager through a single client whose
+ * connections are pooled and kept alive between requests. Every response is
+ * fully consumed so its connection goes back to the pool.
+ */
 public class HttpWrapper {
 
+	private static final Logger LOGGER = Logger.getLogger(HttpWrapper.class);
+
     private static final int SERVER_SIDE_ERRO_MAX = 505;
 	private static final int CLIENT_SIDE_CODE_ERRO_INIT = 400;
 
-    private static HttpClient createHttpClient() {
-		return HttpClients.createMinimal();
-    }
+	private static final String DEFAULT_MAX_CONNECTIONS = "100";
+	private static final String DEFAULT_MAX_CONNECTIONS_PER_ROUTE = "50";
+	private static final String DEFAULT_CONNECT_TIMEOUT = "10000";
+	private static final String DEFAULT_READ_TIMEOUT = "60000";
+	private static final String DEFAULT_IDLE_CONNECTION_TIMEOUT = "60000";
+	private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final CloseableHttpClient httpClient;
+
+	public HttpWrapper() {
+		this(new Properties());
+	}
+
+	public HttpWrapper(Properties properties) {
+		int maxConnections = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.HTTP_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS));
+		int maxConnectionsPerRoute = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.HTTP_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+		int connectTimeout = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.HTTP_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT));
+		int readTimeout = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.HTTP_READ_TIMEOUT, DEFAULT_READ_TIMEOUT));
+		long idleConnectionTimeout = Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.HTTP_IDLE_CONNECTION_TIMEOUT, DEFAULT_IDLE_CONNECTION_TIMEOUT));
+
+		connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+		connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+		RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout)
+				.setConnectionRequestTimeout(connectTimeout).setSocketTimeout(readTimeout).build();
+
+		httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig).evictExpiredConnections()
+				.evictIdleConnections(idleConnectionTimeout, TimeUnit.MILLISECONDS).build();
+	}
 
     public String doRequest(String method, String endpoint, String authToken, List<Header> additionalHeaders) throws Exception {
-        
+
+        CloseableHttpResponse response = httpClient.execute(createRequest(method, endpoint, authToken, additionalHeaders));
+        try {
+            return readResponse(method, endpoint, response);
+        } finally {
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+        }
+    }
+
+    /**
+     * Sends the request and hands each line of a successful response body to
+     * the handler while it is read.
+     */
+    public void doRequest(String method, String endpoint, String authToken, List<Header> additionalHeaders,
+            ResponseLineHandler handler) throws Exception {
+
+        CloseableHttpResponse response = httpClient.execute(createRequest(method, endpoint, authToken, additionalHeaders));
+        try {
+            int statusCode = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (statusCode != HttpStatus.SC_OK || entity == null) {
+                readResponse(method, endpoint, response);
+                return;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(entity.getContent(), Consts.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                handler.handleLine(line);
+            }
+        } finally {
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+        }
+    }
+
+    protected static HttpUriRequest createRequest(String method, String endpoint, String authToken,
+            List<Header> additionalHeaders) {
+
     	HttpUriRequest request = null;
-        
+
     	if (method.equals("get")) {
             request = new HttpGet(endpoint);
         } else if (method.equals("delete")) {
@@ -37,52 +129,53 @@ public class HttpWrapper {
         } else if (method.equals("post")) {
             request = new HttpPost(endpoint);
         }
-    	
+
         request.addHeader(OCCIHeaders.CONTENT_TYPE, OCCIHeaders.OCCI_CONTENT_TYPE);
-        
+
         if (authToken != null) {
             request.addHeader(OCCIHeaders.X_AUTH_TOKEN, authToken);
         }
         for (Header header : additionalHeaders) {
             request.addHeader(header);
         }
-        
-        HttpResponse response = createHttpClient().execute(request);
-        HttpEntity entity = null;
-        
-        try {
-        	
-            entity = response.getEntity();
-            
-            int statusCode = response.getStatusLine().getStatusCode();
-            
-            if (statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_CREATED) {
-            	
-                Header locationHeader = getLocationHeader(response.getAllHeaders());
-                
-                if (locationHeader != null && locationHeader.getValue().contains(OrderConstants.TERM)) {
-                    return generateLocationHeaderResponse(locationHeader);
-                } else {
-                    return EntityUtils.toString(response.getEntity());
-                }
-                
-            }else if(statusCode >= CLIENT_SIDE_CODE_ERRO_INIT && statusCode <= SERVER_SIDE_ERRO_MAX){
-            	throw new Exception("Erro on request - Method ["+method+"] Endpoit: ["+endpoint+"] - Status: "+statusCode+" -  Msg: "+response.getStatusLine().toString());
-            }else {
-                return response.getStatusLine().toString();
-            }
-            
-        } finally {
-            try {
-                if (entity != null) {
-                	EntityUtils.toString(entity);
-                }
-            } catch (Exception e) {
-                // Do nothing
+        return request;
+    }
+
+    protected static String readResponse(String method, String endpoint, HttpResponse response) throws Exception {
+
+        HttpEntity entity = response.getEntity();
+
+        int statusCode = response.getStatusLine().getStatusCode();
+
+        if (statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_CREATED) {
+
+            Header locationHeader = getLocationHeader(response.getAllHeaders());
+
+            if (locationHeader != null && locationHeader.getValue().contains(OrderConstants.TERM)) {
+                return generateLocationHeaderResponse(locationHeader);
+            } else {
+                return entity == null ? "" : EntityUtils.toString(entity);
             }
+
+        }else if(statusCode >= CLIENT_SIDE_CODE_ERRO_INIT && statusCode <= SERVER_SIDE_ERRO_MAX){
+        	throw new Exception("Erro on request - Method ["+method+"] Endpoit: ["+endpoint+"] - Status: "+statusCode+" -  Msg: "+response.getStatusLine().toString());
+        }else {
+            return response.getStatusLine().toString();
         }
     }
 
+	public PoolStats getPoolStats() {
+		return connectionManager.getTotalStats();
+	}
+
+	public void close() {
+		try {
+			httpClient.close();
+		} catch (IOException e) {
+			LOGGER.warn("Error while closing HTTP client", e);
+		}
+	}
+
     protected static Header getLocationHeader(Header[] headers) {
         Header locationHeader = null;
         for (Header header : headers) {
@@ -0,0 +1,41 @@
+package org.fogbowcloud.blowout.infrastructure.http;
+
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+
+/**
+ * Result of an operation made of one or more asynchronous HTTP requests.
+ * Cancelling it also cancels the request the operation is waiting on, so
+ * the connection is released instead of the request running to its end.
+ */
+public class RequestFuture<T> extends BasicFuture<T> {
+
+	private volatile Future<?> request;
+
+	public RequestFuture(FutureCallback<T> callback) {
+		super(callback);
+	}
+
+	/**
+	 * Makes the request the one cancelled along with this future. A request
+	 * followed after this future was cancelled is cancelled right away.
+	 */
+	public void follow(Future<?> request) {
+		this.request = request;
+		if (isCancelled()) {
+			request.cancel(true);
+		}
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		Future<?> current = request;
+		if (cancelled && current != null) {
+			current.cancel(mayInterruptIfRunning);
+		}
+		return cancelled;
+	}
+}
@@ -0,0 +1,11 @@
+package org.fogbowcloud.blowout.infrastructure.http;
+
+/**
+ * Receives the lines of a response body as they are read, so long listings
+ * are parsed without being held in memory.
+ */
+public interface ResponseLineHandler {
+
+	void handleLine(String line);
+
+}
@@ -5,11 +5,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Properties;
 
 import org.fogbowcloud.blowout.core.model.Specification;
 import org.fogbowcloud.blowout.core.model.Task;
 import org.fogbowcloud.blowout.core.model.TaskState;
-import org.fogbowcloud.blowout.infrastructure.exception.RequestResourceException;
 import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
 import org.fogbowcloud.blowout.infrastructure.monitor.ResourceMonitor;
 import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
@@ -19,11 +19,25 @@ public class DefaultInfrastructureManager implements InfrastructureManager {
 
 	private InfrastructureProvider infraProvider;
 	private ResourceMonitor resourceMonitor;
+	private ResourceProvisioner provisioner;
 
 	public DefaultInfrastructureManager(InfrastructureProvider infraProvider,
 			ResourceMonitor resourceMonitor) {
+		this(infraProvider, resourceMonitor, ResourceProvisioner.createSynchronousProvisioner(
+				infraProvider, resourceMonitor));
+	}
+
+	public DefaultInfrastructureManager(InfrastructureProvider infraProvider,
+			ResourceMonitor resourceMonitor, Properties properties) {
+		this(infraProvider, resourceMonitor, ResourceProvisioner.createResourceProvisioner(
+				infraProvider, resourceMonitor, properties));
+	}
+
+	public DefaultInfrastructureManager(InfrastructureProvider infraProvider,
+			ResourceMonitor resourceMonitor, ResourceProvisioner provisioner) {
 		this.infraProvider = infraProvider;
 		this.resourceMonitor = resourceMonitor;
+		this.provisioner = provisioner;
 	}
 
 	@Override
@@ -36,27 +50,32 @@ public class DefaultInfrastructureManager implements InfrastructureManager {
 		requestResources(specsDemand);
 	}
 
-	private void requestResources(Map<Specification, Integer> specsDemand)
-			throws RequestResourceException {
+	private void requestResources(Map<Specification, Integer> specsDemand) {
 		
+		Map<Specification, Integer> pendingRequests = this.resourceMonitor.getPendingRequests();
 		for (Entry<Specification, Integer> entry : specsDemand.entrySet()) {
 
 			Specification spec = entry.getKey();
 			
-			Integer requested = this.resourceMonitor.getPendingRequests().get(
-					spec);
+			Integer requested = pendingRequests.get(spec);
 			if (requested == null)
 				requested = 0;
-			int requiredResources = entry.getValue() - requested;
+			int requiredResources = entry.getValue() - requested - provisioner.getInFlightCount(spec);
 
-			for (int count = 0; count < requiredResources; count++) {
-
-				String resourceId = infraProvider.requestResource(spec);
-				resourceMonitor.addPendingResource(resourceId, spec);
+			if (requiredResources > 0) {
+				provisioner.provision(spec, requiredResources);
 			}
 		}
 	}
 
+	public ResourceProvisioner getProvisioner() {
+		return provisioner;
+	}
+
+	public void stop() {
+		provisioner.shutdown();
+	}
+
 	private List<AbstractResource> filterResourcesByState(
 			List<AbstractResource> resources, ResourceState... resourceStates) {
 
@@ -86,47 +105,15 @@ public class DefaultInfrastructureManager implements InfrastructureManager {
 
 	}
 
-	private Map<Specification, Integer> generateDemandBySpec(List<Task> tasks,
+	protected Map<Specification, Integer> generateDemandBySpec(List<Task> tasks,
 			List<AbstractResource> resources) {
-		Map<Specification, Integer> specsDemand = new HashMap<Specification, Integer>();
 
 		// FIXME: this variable name is incorrect, since the list will not
 		List<AbstractResource> currentResources = filterResourcesByState(
 				resources, ResourceState.IDLE, ResourceState.BUSY,
 				ResourceState.FAILED);
-		
-		for (Task task : tasks) {
-
-			if (!task.isFinished()) {
 
-				boolean resourceResolved = false;
-
-				for (AbstractResource resource : currentResources) {
-					if (resource.match(task.getSpecification())) {
-						resourceResolved = true;
-						currentResources.remove(resource);
-						break;
-					}
-				}
-				if (!resourceResolved) {
-					incrementDecrementDemand(specsDemand,
-							task.getSpecification(), true);
-				}
-			}
-		}
-		return specsDemand;
-	}
-
-	private void incrementDecrementDemand(
-			Map<Specification, Integer> specsDemand, Specification spec,
-			boolean increment) {
-		Integer zero = new Integer(0);
-		Integer demand = specsDemand.get(spec);
-		if (demand == null) {
-			demand = zero;
-		}
-		demand = new Integer(demand.intValue() + (increment ? 1 : -1));
-		specsDemand.put(spec, zero.compareTo(demand) > 0 ? zero : demand);
+		return DemandMatcher.computeDemand(tasks, currentResources);
 	}
 
 }
\ No newline at end of file
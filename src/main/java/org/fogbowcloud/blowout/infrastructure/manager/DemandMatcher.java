@@ -0,0 +1,247 @@
+package org.fogbowcloud.blowout.infrastructure.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.SpecificationRegistry;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowRequirementsHelper;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.fogbowcloud.blowout.pool.ResourceCatalog;
+
+/**
+ * Works out how many more resources each specification needs, assigning every
+ * resource to at most one unfinished task it matches so as to leave as few
+ * tasks without one as possible.
+ *
+ * Tasks are grouped by specification and resources by the set of those
+ * specifications they match, so a resource is matched against each
+ * specification once and the assignment works on counts. Fogbow resources
+ * are put in a {@link ResourceCatalog}, so each specification is only
+ * matched against the ones its requirements may accept; other resources are
+ * matched against every specification. Resources matching a single
+ * specification go to it directly; only the ones matching several are
+ * assigned by a maximum flow between the groups.
+ */
+public class DemandMatcher {
+
+	/**
+	 * Returns the number of tasks left without a resource, by specification;
+	 * specifications with every task covered are left out.
+	 */
+	public static Map<Specification, Integer> computeDemand(List<Task> tasks,
+			List<AbstractResource> resources) {
+
+		Map<Specification, Integer> specIndexes = new HashMap<Specification, Integer>();
+		List<Specification> specs = new ArrayList<Specification>();
+		int[] taskCounts = new int[8];
+		for (Task task : tasks) {
+			if (task.isFinished()) {
+				continue;
+			}
+			Specification spec = SpecificationRegistry.intern(task.getSpecification());
+			Integer index = specIndexes.get(spec);
+			if (index == null) {
+				index = specs.size();
+				specIndexes.put(spec, index);
+				specs.add(task.getSpecification());
+				if (index == taskCounts.length) {
+					taskCounts = Arrays.copyOf(taskCounts, index * 2);
+				}
+			}
+			taskCounts[index]++;
+		}
+
+		Map<BitSet, int[]> resourceClasses = new HashMap<BitSet, int[]>();
+		for (BitSet matchedSpecs : matchResources(specs, resources)) {
+			if (matchedSpecs.isEmpty()) {
+				continue;
+			}
+			int[] count = resourceClasses.get(matchedSpecs);
+			if (count == null) {
+				resourceClasses.put(matchedSpecs, new int[] { 1 });
+			} else {
+				count[0]++;
+			}
+		}
+
+		int[] demand = Arrays.copyOf(taskCounts, specs.size());
+		List<BitSet> sharedClasses = new ArrayList<BitSet>();
+		List<Integer> sharedCounts = new ArrayList<Integer>();
+		for (Entry<BitSet, int[]> resourceClass : resourceClasses.entrySet()) {
+			BitSet matchedSpecs = resourceClass.getKey();
+			int count = resourceClass.getValue()[0];
+			if (matchedSpecs.cardinality() == 1) {
+				// Giving these to their only specification never takes a
+				// resource from a task that could not use another one.
+				int spec = matchedSpecs.nextSetBit(0);
+				demand[spec] -= Math.min(count, demand[spec]);
+			} else {
+				sharedClasses.add(matchedSpecs);
+				sharedCounts.add(count);
+			}
+		}
+		if (!sharedClasses.isEmpty()) {
+			assignSharedResources(demand, sharedClasses, sharedCounts);
+		}
+
+		Map<Specification, Integer> specsDemand = new HashMap<Specification, Integer>();
+		for (int i = 0; i < specs.size(); i++) {
+			if (demand[i] > 0) {
+				specsDemand.put(specs.get(i), demand[i]);
+			}
+		}
+		return specsDemand;
+	}
+
+	/**
+	 * Returns, for each resource, the indexes of the specifications it
+	 * matches.
+	 */
+	private static Collection<BitSet> matchResources(List<Specification> specs, List<AbstractResource> resources) {
+		Map<AbstractResource, BitSet> matchedSpecs = new IdentityHashMap<AbstractResource, BitSet>();
+		ResourceCatalog catalog = new ResourceCatalog();
+		List<AbstractResource> uncataloged = new ArrayList<AbstractResource>();
+		for (AbstractResource resource : resources) {
+			matchedSpecs.put(resource, new BitSet(specs.size()));
+			if (resource instanceof FogbowResource) {
+				catalog.add(resource);
+			} else {
+				uncataloged.add(resource);
+			}
+		}
+
+		for (int i = 0; i < specs.size(); i++) {
+			Specification spec = specs.get(i);
+			for (AbstractResource resource : catalog.find(FogbowRequirementsHelper.toQuery(spec))) {
+				if (resource.match(spec)) {
+					matchedSpecs.get(resource).set(i);
+				}
+			}
+			for (AbstractResource resource : uncataloged) {
+				if (resource.match(spec)) {
+					matchedSpecs.get(resource).set(i);
+				}
+			}
+		}
+		return matchedSpecs.values();
+	}
+
+	/**
+	 * Takes the resources of the given classes off the demand with a maximum
+	 * flow from specifications to resource classes.
+	 */
+	private static void assignSharedResources(int[] demand, List<BitSet> sharedClasses,
+			List<Integer> sharedCounts) {
+
+		int specCount = demand.length;
+		int source = specCount + sharedClasses.size();
+		int sink = source + 1;
+		FlowNetwork network = new FlowNetwork(sink + 1);
+
+		int[] demandEdges = new int[specCount];
+		for (int spec = 0; spec < specCount; spec++) {
+			demandEdges[spec] = network.addEdge(source, spec, demand[spec]);
+		}
+		for (int i = 0; i < sharedClasses.size(); i++) {
+			int classNode = specCount + i;
+			BitSet matchedSpecs = sharedClasses.get(i);
+			for (int spec = matchedSpecs.nextSetBit(0); spec >= 0; spec = matchedSpecs.nextSetBit(spec + 1)) {
+				network.addEdge(spec, classNode, Integer.MAX_VALUE);
+			}
+			network.addEdge(classNode, sink, sharedCounts.get(i));
+		}
+
+		network.maxFlow(source, sink);
+		for (int spec = 0; spec < specCount; spec++) {
+			demand[spec] = network.residualCapacity(demandEdges[spec]);
+		}
+	}
+
+	/**
+	 * Edmonds-Karp over a graph with a node per specification and per
+	 * resource class, which stays small however many tasks there are.
+	 */
+	private static class FlowNetwork {
+
+		private final int[] firstEdge;
+		private int[] edgeTarget = new int[16];
+		private int[] edgeCapacity = new int[16];
+		private int[] nextEdge = new int[16];
+		private int edgeCount = 0;
+
+		FlowNetwork(int nodes) {
+			firstEdge = new int[nodes];
+			Arrays.fill(firstEdge, -1);
+		}
+
+		/**
+		 * Returns the id of the new edge; its reverse edge is the id plus one.
+		 */
+		int addEdge(int from, int to, int capacity) {
+			int edge = edgeCount;
+			link(from, to, capacity);
+			link(to, from, 0);
+			return edge;
+		}
+
+		int residualCapacity(int edge) {
+			return edgeCapacity[edge];
+		}
+
+		private void link(int from, int to, int capacity) {
+			if (edgeCount == edgeTarget.length) {
+				edgeTarget = Arrays.copyOf(edgeTarget, edgeCount * 2);
+				edgeCapacity = Arrays.copyOf(edgeCapacity, edgeCount * 2);
+				nextEdge = Arrays.copyOf(nextEdge, edgeCount * 2);
+			}
+			edgeTarget[edgeCount] = to;
+			edgeCapacity[edgeCount] = capacity;
+			nextEdge[edgeCount] = firstEdge[from];
+			firstEdge[from] = edgeCount;
+			edgeCount++;
+		}
+
+		void maxFlow(int source, int sink) {
+			int[] pathEdge = new int[firstEdge.length];
+			int[] queue = new int[firstEdge.length];
+			while (true) {
+				Arrays.fill(pathEdge, -1);
+				int head = 0;
+				int tail = 0;
+				queue[tail++] = source;
+				while (head < tail && pathEdge[sink] == -1) {
+					int node = queue[head++];
+					for (int edge = firstEdge[node]; edge != -1; edge = nextEdge[edge]) {
+						int target = edgeTarget[edge];
+						if (edgeCapacity[edge] > 0 && target != source && pathEdge[target] == -1) {
+							pathEdge[target] = edge;
+							queue[tail++] = target;
+						}
+					}
+				}
+				if (pathEdge[sink] == -1) {
+					return;
+				}
+
+				int bottleneck = Integer.MAX_VALUE;
+				for (int node = sink; node != source; node = edgeTarget[pathEdge[node] ^ 1]) {
+					bottleneck = Math.min(bottleneck, edgeCapacity[pathEdge[node]]);
+				}
+				for (int node = sink; node != source; node = edgeTarget[pathEdge[node] ^ 1]) {
+					edgeCapacity[pathEdge[node]] -= bottleneck;
+					edgeCapacity[pathEdge[node] ^ 1] += bottleneck;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package org.fogbowcloud.blowout.infrastructure.manager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.blowout.infrastructure.monitor.ResourceMonitor;
+import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
+
+/**
+ * Sends resource requests to the infrastructure provider on a bounded pool
+ * of threads, so the infrastructure manager does not wait for the provider
+ * while holding the pool.
+ *
+ * Requests count as in flight, per specification, from submission until the
+ * provider answers and the resource is handed to the resource monitor as
+ * pending. Failed requests are retried with exponential backoff and stay in
+ * flight meanwhile, so a new act does not request the same resource again.
+ * With zero concurrent requests, resources are requested on the caller
+ * thread and failures are not retried.
+ *
+ * Resources of the same specification are requested together, up to max
+ * resources per request, using
+ * {@link InfrastructureProvider#requestResources(Specification, int)}.
+ */
+public class ResourceProvisioner {
+
+	private static final Logger LOGGER = Logger.getLogger(ResourceProvisioner.class);
+
+	private static final String DEFAULT_MAX_CONCURRENT_REQUESTS = "10";
+	private static final String DEFAULT_MAX_RETRIES = "3";
+	private static final String DEFAULT_RETRY_INITIAL_DELAY = "1000";
+	private static final String DEFAULT_RETRY_MAX_DELAY = "60000";
+	private static final String DEFAULT_MAX_RESOURCES_PER_REQUEST = "10";
+
+	private final InfrastructureProvider infraProvider;
+	private final ResourceMonitor resourceMonitor;
+	private final int maxRetries;
+	private final long retryInitialDelay;
+	private final long retryMaxDelay;
+	private final int maxResourcesPerRequest;
+
+	private final ScheduledExecutorService requestService;
+	private final Map<Specification, Integer> inFlightBySpec = new HashMap<Specification, Integer>();
+	private long requested = 0;
+	private long failed = 0;
+
+	public ResourceProvisioner(InfrastructureProvider infraProvider, ResourceMonitor resourceMonitor,
+			int maxConcurrentRequests, int maxRetries, long retryInitialDelay, long retryMaxDelay,
+			int maxResourcesPerRequest) {
+		this.infraProvider = infraProvider;
+		this.resourceMonitor = resourceMonitor;
+		this.maxRetries = maxRetries;
+		this.retryInitialDelay = retryInitialDelay;
+		this.retryMaxDelay = retryMaxDelay;
+		this.maxResourcesPerRequest = Math.max(1, maxResourcesPerRequest);
+		if (maxConcurrentRequests > 0) {
+			this.requestService = createRequestService(maxConcurrentRequests);
+		} else {
+			this.requestService = null;
+		}
+	}
+
+	public static ResourceProvisioner createSynchronousProvisioner(InfrastructureProvider infraProvider,
+			ResourceMonitor resourceMonitor) {
+		return new ResourceProvisioner(infraProvider, resourceMonitor, 0, 0, 0, 0, 1);
+	}
+
+	public static ResourceProvisioner createResourceProvisioner(InfrastructureProvider infraProvider,
+			ResourceMonitor resourceMonitor, Properties properties) {
+		int maxConcurrentRequests = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.PROVISIONING_MAX_CONCURRENT_REQUESTS, DEFAULT_MAX_CONCURRENT_REQUESTS));
+		int maxRetries = Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.PROVISIONING_MAX_RETRIES, DEFAULT_MAX_RETRIES));
+		long retryInitialDelay = Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.PROVISIONING_RETRY_INITIAL_DELAY, DEFAULT_RETRY_INITIAL_DELAY));
+		long retryMaxDelay = Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.PROVISIONING_RETRY_MAX_DELAY, DEFAULT_RETRY_MAX_DELAY));
+		int maxResourcesPerRequest = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.PROVISIONING_MAX_RESOURCES_PER_REQUEST, DEFAULT_MAX_RESOURCES_PER_REQUEST));
+		return new ResourceProvisioner(infraProvider, resourceMonitor, maxConcurrentRequests, maxRetries,
+				retryInitialDelay, retryMaxDelay, maxResourcesPerRequest);
+	}
+
+	private static ScheduledExecutorService createRequestService(int maxConcurrentRequests) {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(maxConcurrentRequests,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "blowout-provisioner-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		return executor;
+	}
+
+	/**
+	 * Requests count resources of the given specification and returns
+	 * without waiting for the provider, unless the provisioner is synchronous.
+	 */
+	public void provision(Specification spec, int count) {
+		int remaining = count;
+		while (remaining > 0) {
+			int requestCount = Math.min(remaining, maxResourcesPerRequest);
+			remaining -= requestCount;
+			incrementInFlight(spec, requestCount);
+			if (requestService == null) {
+				request(spec, requestCount, 0);
+				continue;
+			}
+			try {
+				requestService.execute(new ResourceRequest(spec, requestCount, 0));
+			} catch (RejectedExecutionException e) {
+				LOGGER.warn("Provisioner is shut down, resources of spec " + spec + " were not requested");
+				decrementInFlight(spec, requestCount);
+				return;
+			}
+		}
+	}
+
+	private void request(Specification spec, int count, int attempt) {
+		try {
+			List<String> resourceIds;
+			if (count == 1) {
+				resourceIds = Collections.singletonList(infraProvider.requestResource(spec));
+			} else {
+				resourceIds = infraProvider.requestResources(spec, count);
+			}
+			for (String resourceId : resourceIds) {
+				resourceMonitor.addPendingResource(resourceId, spec);
+			}
+			synchronized (this) {
+				requested += resourceIds.size();
+			}
+			decrementInFlight(spec, count);
+		} catch (Exception e) {
+			if (requestService == null || attempt >= maxRetries) {
+				LOGGER.error("Could not request " + count + " resource(s) of spec " + spec + " after "
+						+ (attempt + 1) + " attempt(s)", e);
+				synchronized (this) {
+					failed += count;
+				}
+				decrementInFlight(spec, count);
+				return;
+			}
+			long delay = getRetryDelay(attempt);
+			LOGGER.warn("Could not request " + count + " resource(s) of spec " + spec + ", retrying in " + delay
+					+ " ms", e);
+			try {
+				requestService.schedule(new ResourceRequest(spec, count, attempt + 1), delay,
+						TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException ree) {
+				decrementInFlight(spec, count);
+			}
+		}
+	}
+
+	protected long getRetryDelay(int attempt) {
+		long delay = retryInitialDelay << Math.min(attempt, 30);
+		return Math.min(delay, retryMaxDelay);
+	}
+
+	private synchronized void incrementInFlight(Specification spec, int delta) {
+		Integer count = inFlightBySpec.get(spec);
+		inFlightBySpec.put(spec, count == null ? delta : count + delta);
+	}
+
+	private synchronized void decrementInFlight(Specification spec, int delta) {
+		Integer count = inFlightBySpec.get(spec);
+		if (count == null || count <= delta) {
+			inFlightBySpec.remove(spec);
+		} else {
+			inFlightBySpec.put(spec, count - delta);
+		}
+	}
+
+	public synchronized int getInFlightCount(Specification spec) {
+		Integer count = inFlightBySpec.get(spec);
+		return count == null ? 0 : count;
+	}
+
+	public synchronized int getInFlightCount() {
+		int total = 0;
+		for (Integer count : inFlightBySpec.values()) {
+			total += count;
+		}
+		return total;
+	}
+
+	public synchronized long getRequestedCount() {
+		return requested;
+	}
+
+	public synchronized long getFailedCount() {
+		return failed;
+	}
+
+	public void shutdown() {
+		if (requestService != null) {
+			requestService.shutdownNow();
+		}
+	}
+
+	private class ResourceRequest implements Runnable {
+
+		private final Specification spec;
+		private final int count;
+		private final int attempt;
+
+		private ResourceRequest(Specification spec, int count, int attempt) {
+			this.spec = spec;
+			this.count = count;
+			this.attempt = attempt;
+		}
+
+		@Override
+		public void run() {
+			request(spec, count, attempt);
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package org.fogbowcloud.blowout.infrastructure.model;
 
-import java.util.Scanner;
+import java.util.concurrent.Future;
 
 import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.infrastructure.monitor.ConnectivityProber;
+import org.fogbowcloud.blowout.infrastructure.monitor.ProbeResult;
+import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowRequirements;
 import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowRequirementsHelper;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 
@@ -10,6 +13,8 @@ public class FogbowResource extends AbstractResource{
 
 	private final String orderId;
 	private String instanceId;
+	private volatile FogbowRequirements.Attributes requirementAttributes;
+	private int connectTimeout = ConnectivityProber.DEFAULT_CONNECT_TIMEOUT;
 	
 	public FogbowResource(String id, String orderId, Specification spec) {
 		super(id, spec);
@@ -43,35 +48,41 @@ public class FogbowResource extends AbstractResource{
 		
 		String host = this.getMetadataValue(METADATA_SSH_HOST);
 		String port = this.getMetadataValue(METADATA_SSH_PORT);
+		try {
+			return ConnectivityProber.isReachable(host, Integer.parseInt(port), connectTimeout);
+		} catch (Exception e) {
+			return false;
+		}
+	}
 
-		Runtime run = null;
-		Process p = null;
-		Scanner scanner = null;
+	@Override
+	public Future<Boolean> probeConnectivity(ConnectivityProber prober) {
 
+		String host = this.getMetadataValue(METADATA_SSH_HOST);
+		String port = this.getMetadataValue(METADATA_SSH_PORT);
 		try {
-			run = Runtime.getRuntime();
-			p = run.exec(new String[] { "/bin/bash", "-c",
-					"echo quit | telnet " + host + " " + port + " 2>/dev/null | grep Connected" });
-			p.waitFor();
-			scanner = new Scanner(p.getInputStream());
-			if (scanner.hasNext()) {
-				String result = scanner.nextLine();
-				if (result != null && !result.isEmpty()) {
-					return true;
-				}
-			}
+			return prober.probe(host, Integer.parseInt(port));
 		} catch (Exception e) {
-			return false;
-		} finally {
-			run = null;
-			if (p != null) {
-				p.destroy();
-			}
-			if (scanner != null) {
-				scanner.close();
-			}
+			return ProbeResult.of(false);
 		}
-		return false;
+	}
+
+	/**
+	 * Typed view of the metadata that requirements are matched against, kept
+	 * until the metadata changes.
+	 */
+	public FogbowRequirements.Attributes getRequirementAttributes() {
+		FogbowRequirements.Attributes attributes = FogbowRequirements.Attributes.of(this, requirementAttributes);
+		requirementAttributes = attributes;
+		return attributes;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
 	}
 
 	public String getInstanceId() {
@@ -0,0 +1,292 @@
+package org.fogbowcloud.blowout.infrastructure.monitor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+
+/**
+ * Checks that resources accept TCP connections without leaving the JVM. All
+ * probes share one selector thread, so hundreds of resources are checked at
+ * once; each probe gives up after the connect timeout. When SSH banner
+ * validation is on, a probe only succeeds once the peer greets with "SSH-".
+ */
+public class ConnectivityProber {
+
+	private static final Logger LOGGER = Logger.getLogger(ConnectivityProber.class);
+
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+	private static final String DEFAULT_MAX_CONCURRENT_PROBES = "256";
+	private static final String SSH_BANNER_PREFIX = "SSH-";
+
+	private final long connectTimeout;
+	private final boolean validateSshBanner;
+	private final int maxConcurrentProbes;
+
+	private final Queue<Probe> waitingProbes = new ConcurrentLinkedQueue<Probe>();
+	private Selector selector;
+	private Thread selectorThread;
+	private volatile boolean active = true;
+	// Only used by the selector thread.
+	private int activeProbes = 0;
+
+	public ConnectivityProber(long connectTimeout, boolean validateSshBanner, int maxConcurrentProbes) {
+		this.connectTimeout = connectTimeout;
+		this.validateSshBanner = validateSshBanner;
+		this.maxConcurrentProbes = maxConcurrentProbes;
+	}
+
+	public static ConnectivityProber createConnectivityProber(Properties properties) {
+		long connectTimeout = Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.INFRA_RESOURCE_CONNECTION_TIMEOUT, String.valueOf(DEFAULT_CONNECT_TIMEOUT)));
+		boolean validateSshBanner = Boolean.parseBoolean(
+				properties.getProperty(AppPropertiesConstants.INFRA_RESOURCE_PROBE_SSH_BANNER, "false"));
+		int maxConcurrentProbes = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.INFRA_RESOURCE_PROBE_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT_PROBES));
+		return new ConnectivityProber(connectTimeout, validateSshBanner, maxConcurrentProbes);
+	}
+
+	/**
+	 * Blocking check of a single address, for callers outside a monitoring
+	 * cycle.
+	 */
+	public static boolean isReachable(String host, int port, int timeout) {
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(host, port), timeout);
+			return true;
+		} catch (Exception e) {
+			return false;
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Nothing to do.
+			}
+		}
+	}
+
+	/**
+	 * Starts a probe and returns once the host name is resolved. The future
+	 * completes with false when the address does not answer in time.
+	 */
+	public Future<Boolean> probe(String host, int port) {
+		ProbeResult result = new ProbeResult();
+		// Resolved here, so a slow DNS lookup never stalls the selector thread
+		InetSocketAddress address = resolve(host, port);
+		if (address == null || !active || !ensureStarted()) {
+			result.complete(false);
+			return result;
+		}
+		waitingProbes.add(new Probe(address, result));
+		selector.wakeup();
+		return result;
+	}
+
+	private static InetSocketAddress resolve(String host, int port) {
+		try {
+			InetSocketAddress address = new InetSocketAddress(host, port);
+			return address.isUnresolved() ? null : address;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	public long getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public synchronized void close() {
+		active = false;
+		if (selector != null) {
+			selector.wakeup();
+		}
+	}
+
+	private synchronized boolean ensureStarted() {
+		if (selectorThread != null) {
+			return true;
+		}
+		try {
+			selector = Selector.open();
+		} catch (IOException e) {
+			LOGGER.error("Could not open connectivity probe selector", e);
+			return false;
+		}
+		selectorThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				runSelector();
+			}
+		}, "blowout-connectivity-prober");
+		selectorThread.setDaemon(true);
+		selectorThread.start();
+		return true;
+	}
+
+	private void runSelector() {
+		try {
+			while (active) {
+				startWaitingProbes();
+				selector.select(nextTimeout());
+				Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+				while (selectedKeys.hasNext()) {
+					SelectionKey key = selectedKeys.next();
+					selectedKeys.remove();
+					handle(key);
+				}
+				expireProbes();
+			}
+		} catch (Exception e) {
+			LOGGER.error("Connectivity prober stopped", e);
+		} finally {
+			for (SelectionKey key : new ArrayList<SelectionKey>(selector.keys())) {
+				finish(key, false);
+			}
+			for (Probe probe = waitingProbes.poll(); probe != null; probe = waitingProbes.poll()) {
+				probe.result.complete(false);
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+				LOGGER.warn("Error while closing connectivity probe selector", e);
+			}
+		}
+	}
+
+	private void startWaitingProbes() {
+		while (activeProbes < maxConcurrentProbes) {
+			Probe probe = waitingProbes.poll();
+			if (probe == null) {
+				return;
+			}
+			SocketChannel channel = null;
+			SelectionKey key = null;
+			try {
+				channel = SocketChannel.open();
+				channel.configureBlocking(false);
+				probe.deadline = System.currentTimeMillis() + connectTimeout;
+				key = channel.register(selector, SelectionKey.OP_CONNECT, probe);
+				activeProbes++;
+				if (channel.connect(probe.address)) {
+					connected(key);
+				}
+			} catch (Exception e) {
+				// Unreachable addresses may fail in connect itself
+				if (key != null) {
+					finish(key, false);
+				} else {
+					closeQuietly(channel);
+					probe.result.complete(false);
+				}
+			}
+		}
+	}
+
+	private long nextTimeout() {
+		long next = 0;
+		long now = System.currentTimeMillis();
+		for (SelectionKey key : selector.keys()) {
+			if (!key.isValid()) {
+				continue;
+			}
+			long remaining = Math.max(1, ((Probe) key.attachment()).deadline - now);
+			next = next == 0 ? remaining : Math.min(next, remaining);
+		}
+		return next;
+	}
+
+	private void handle(SelectionKey key) {
+		try {
+			if (key.isConnectable()) {
+				if (((SocketChannel) key.channel()).finishConnect()) {
+					connected(key);
+				}
+			} else if (key.isReadable()) {
+				readBanner(key);
+			}
+		} catch (IOException e) {
+			finish(key, false);
+		}
+	}
+
+	private void connected(SelectionKey key) {
+		if (!validateSshBanner) {
+			finish(key, true);
+			return;
+		}
+		Probe probe = (Probe) key.attachment();
+		probe.banner = ByteBuffer.allocate(SSH_BANNER_PREFIX.length());
+		key.interestOps(SelectionKey.OP_READ);
+	}
+
+	private void readBanner(SelectionKey key) throws IOException {
+		Probe probe = (Probe) key.attachment();
+		if (((SocketChannel) key.channel()).read(probe.banner) < 0) {
+			finish(key, false);
+		} else if (!probe.banner.hasRemaining()) {
+			String banner = new String(probe.banner.array(), Charset.forName("US-ASCII"));
+			finish(key, SSH_BANNER_PREFIX.equals(banner));
+		}
+	}
+
+	private void expireProbes() {
+		long now = System.currentTimeMillis();
+		List<SelectionKey> expired = new ArrayList<SelectionKey>();
+		for (SelectionKey key : selector.keys()) {
+			if (key.isValid() && ((Probe) key.attachment()).deadline <= now) {
+				expired.add(key);
+			}
+		}
+		for (SelectionKey key : expired) {
+			finish(key, false);
+		}
+	}
+
+	private void finish(SelectionKey key, boolean reachable) {
+		if (key.isValid()) {
+			activeProbes--;
+		}
+		key.cancel();
+		closeQuietly(key.channel());
+		((Probe) key.attachment()).result.complete(reachable);
+	}
+
+	private static void closeQuietly(Channel channel) {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// Nothing to do.
+			}
+		}
+	}
+
+	private static class Probe {
+
+		private final InetSocketAddress address;
+		private final ProbeResult result;
+		private long deadline;
+		private ByteBuffer banner;
+
+		private Probe(InetSocketAddress address, ProbeResult result) {
+			this.address = address;
+			this.result = result;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package org.fogbowcloud.blowout.infrastructure.monitor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Whether a resource answered a connectivity probe, known once the probe
+ * ends. Only the first result counts, and probes cannot be cancelled; they
+ * end by themselves after the connect timeout.
+ */
+public class ProbeResult implements Future<Boolean> {
+
+	private final CountDownLatch done = new CountDownLatch(1);
+	private boolean reachable;
+
+	public static ProbeResult of(boolean reachable) {
+		ProbeResult result = new ProbeResult();
+		result.complete(reachable);
+		return result;
+	}
+
+	synchronized void complete(boolean reachable) {
+		if (!isDone()) {
+			this.reachable = reachable;
+			done.countDown();
+		}
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return false;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return false;
+	}
+
+	@Override
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	@Override
+	public Boolean get() throws InterruptedException {
+		done.await();
+		return getReachable();
+	}
+
+	@Override
+	public Boolean get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return getReachable();
+	}
+
+	private synchronized boolean getReachable() {
+		return reachable;
+	}
+}
@@ -8,12 +8,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.log4j.Logger;
 import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.SpecificationRegistry;
+import org.fogbowcloud.blowout.core.util.AdaptivePeriod;
 import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
 import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.infrastructure.provider.AsyncInfrastructureProvider;
+import org.fogbowcloud.blowout.infrastructure.provider.BulkInfrastructureProvider;
 import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 import org.fogbowcloud.blowout.pool.BlowoutPool;
@@ -22,6 +35,8 @@ import org.fogbowcloud.manager.occi.order.OrderType;
 public class ResourceMonitor {
 
 	private static final Logger LOGGER = Logger.getLogger(ResourceMonitor.class);
+	private static final String DEFAULT_MIN_MONITOR_PERIOD = "2000";
+	private static final long PROBE_TIMEOUT_MARGIN = 5000;
 
 	private InfrastructureProvider infraProvider;
 	private BlowoutPool resourcePool;
@@ -31,6 +46,11 @@ public class ResourceMonitor {
 	private Thread monitoringServiceRunner;
 	private MonitoringService monitoringService;
 	private long infraMonitoringPeriod;
+	private AdaptivePeriod monitoringPeriod;
+	private long pollingTimeout;
+	private boolean bulkListing;
+	private ExecutorService pollingExecutor;
+	private ConnectivityProber connectivityProber;
 	private Long noExpirationTime = new Long(0);
 	private Long idleLifeTime = new Long(0);
 	private int maxConnectionTries;
@@ -47,6 +67,16 @@ public class ResourceMonitor {
 				.parseInt(properties.getProperty(AppPropertiesConstants.INFRA_RESOURCE_CONNECTION_RETRY, "1"));
 		this.maxReuse = Integer
 				.parseInt(properties.getProperty(AppPropertiesConstants.INFRA_RESOURCE_REUSE_TIMES, "1"));
+		this.pollingTimeout = Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.INFRA_MONITOR_POLLING_TIMEOUT, String.valueOf(infraMonitoringPeriod)));
+		this.bulkListing = Boolean.parseBoolean(
+				properties.getProperty(AppPropertiesConstants.INFRA_MONITOR_BULK_LISTING, "false"));
+		this.connectivityProber = ConnectivityProber.createConnectivityProber(properties);
+		this.pollingExecutor = createPollingExecutor(Integer.parseInt(
+				properties.getProperty(AppPropertiesConstants.INFRA_MONITOR_MAX_CONCURRENT_POLLS, "10")));
+		
+		this.monitoringPeriod = new AdaptivePeriod(Long.parseLong(properties.getProperty(
+				AppPropertiesConstants.INFRA_MONITOR_MIN_PERIOD, DEFAULT_MIN_MONITOR_PERIOD)), infraMonitoringPeriod);
 		
 		monitoringService = new MonitoringService();
 		monitoringServiceRunner = new Thread(monitoringService);
@@ -57,22 +87,36 @@ public class ResourceMonitor {
 		
 	}
 
+	private static ExecutorService createPollingExecutor(int maxConcurrentPolls) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentPolls, maxConcurrentPolls, 60,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "blowout-monitor-poll-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	public void start() {
 		monitoringServiceRunner.start();
 		LOGGER.warn("Started");
 	}
 
 	public void addPendingResource(String resourceId, Specification spec){
-		pendingResources.put(resourceId, spec);
-		if(monitoringService.isPaused()){
-			monitoringService.resume();
-		}
+		pendingResources.put(resourceId, SpecificationRegistry.intern(spec));
+		monitoringPeriod.reset();
 	}
 	
 	protected class MonitoringService implements Runnable {
 
-		private boolean paused = false;
-		private boolean active = true;
+		private volatile boolean active = true;
+		private Map<String, Future<Boolean>> connectivityProbes = new HashMap<String, Future<Boolean>>();
 
 		@Override
 		public void run() {
@@ -81,7 +125,7 @@ public class ResourceMonitor {
 
 				try {
 					monitorProcess();
-					Thread.sleep(infraMonitoringPeriod);
+					monitoringPeriod.await(pendingResources.isEmpty());
 					
 				} catch (InterruptedException e) {
 					LOGGER.error("Error while executing MonitoringService");
@@ -97,19 +141,118 @@ public class ResourceMonitor {
 			monitoringResources(resources);
 		}
 		
-		private void monitoringPendingResources() {
+		/**
+		 * Polls every pending resource at once, on the provider I/O threads when
+		 * it is asynchronous or on the polling pool otherwise. Ready resources
+		 * are added to the pool in batches as the answers arrive; the ones not
+		 * answered before the polling timeout are polled again on the next cycle.
+		 */
+		private void monitoringPendingResources() throws InterruptedException {
+
+			List<String> resourceIds = getPendingResources();
+			if (resourceIds.isEmpty()) {
+				return;
+			}
+			if (bulkListing && infraProvider instanceof BulkInfrastructureProvider) {
+				monitoringPendingResourcesInBulk(resourceIds);
+				return;
+			}
+
+			final BlockingQueue<PollResult> results = new LinkedBlockingQueue<PollResult>();
+			List<Future<?>> polls = new ArrayList<Future<?>>();
+			for (String resourceId : resourceIds) {
+				polls.add(poll(resourceId, results));
+			}
+
+			long deadline = System.currentTimeMillis() + pollingTimeout;
+			int answered = 0;
+			while (answered < resourceIds.size()) {
+				PollResult first = results.poll(Math.max(0, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+				if (first == null) {
+					break;
+				}
+				List<PollResult> batch = new ArrayList<PollResult>();
+				batch.add(first);
+				results.drainTo(batch);
+				answered += batch.size();
+
+				List<AbstractResource> readyResources = new ArrayList<AbstractResource>();
+				for (PollResult result : batch) {
+					if (result.resource != null) {
+						pendingResources.remove(result.resourceId);
+						readyResources.add(result.resource);
+					}
+				}
+				if (!readyResources.isEmpty()) {
+					resourcePool.addResourceList(readyResources);
+				}
+			}
 
-			for (String resourceId : getPendingResources()) {
-				AbstractResource resource = infraProvider.getResource(resourceId);
-				if (resource != null) {
-					pendingResources.remove(resourceId);
-					resourcePool.addResource(resource);
+			if (answered < resourceIds.size()) {
+				LOGGER.warn((resourceIds.size() - answered) + " of " + resourceIds.size()
+						+ " pending resources were not answered in " + pollingTimeout + " ms");
+				for (Future<?> poll : polls) {
+					poll.cancel(true);
 				}
 			}
 		}
-		
+
+		private void monitoringPendingResourcesInBulk(List<String> resourceIds) {
+			try {
+				List<AbstractResource> readyResources = ((BulkInfrastructureProvider) infraProvider)
+						.getResources(resourceIds);
+				for (AbstractResource resource : readyResources) {
+					pendingResources.remove(resource.getId());
+				}
+				if (!readyResources.isEmpty()) {
+					resourcePool.addResourceList(readyResources);
+				}
+			} catch (Exception e) {
+				LOGGER.error("Error while monitoring " + resourceIds.size() + " pending resources - " + e.getMessage());
+			}
+		}
+
+		private Future<?> poll(final String resourceId, final BlockingQueue<PollResult> results) {
+			if (infraProvider instanceof AsyncInfrastructureProvider) {
+				return ((AsyncInfrastructureProvider) infraProvider).getResourceAsync(resourceId,
+						new FutureCallback<AbstractResource>() {
+
+							@Override
+							public void completed(AbstractResource resource) {
+								results.add(new PollResult(resourceId, resource));
+							}
+
+							@Override
+							public void failed(Exception e) {
+								LOGGER.error("Error while monitoring resource " + resourceId + " - " + e.getMessage());
+								results.add(new PollResult(resourceId, null));
+							}
+
+							@Override
+							public void cancelled() {
+							}
+						});
+			}
+			return pollingExecutor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					AbstractResource resource = null;
+					try {
+						resource = infraProvider.getResource(resourceId);
+					} catch (Exception e) {
+						LOGGER.error("Error while monitoring resource " + resourceId + " - " + e.getMessage());
+					}
+					results.add(new PollResult(resourceId, resource));
+				}
+			});
+		}
+
 		private void monitoringResources(List<AbstractResource> resources) {
 
+			connectivityProbes = probeConnectivity(resources);
+			Map<AbstractResource, Future<Void>> deletions = new HashMap<AbstractResource, Future<Void>>();
 			for (AbstractResource resource : resources) {
 
 				if (ResourceState.IDLE.equals(resource.getState())) {
@@ -125,8 +268,13 @@ public class ResourceMonitor {
 						}
 					}
 				} else if (ResourceState.TO_REMOVE.equals(resource.getState())) {
+					idleResources.remove(resource.getId());
+					if (infraProvider instanceof AsyncInfrastructureProvider) {
+						deletions.put(resource, ((AsyncInfrastructureProvider) infraProvider)
+								.deleteResourceAsync(resource.getId(), null));
+						continue;
+					}
 					try {
-						idleResources.remove(resource.getId());
 						infraProvider.deleteResource(resource.getId());
 						resourcePool.removeResource(resource);
 					} catch (Exception e) {
@@ -136,6 +284,41 @@ public class ResourceMonitor {
 				}
 
 			}
+
+			long deadline = System.currentTimeMillis() + infraMonitoringPeriod;
+			for (Entry<AbstractResource, Future<Void>> deletion : deletions.entrySet()) {
+				AbstractResource resource = deletion.getKey();
+				try {
+					deletion.getValue().get(Math.max(0, deadline - System.currentTimeMillis()),
+							TimeUnit.MILLISECONDS);
+					resourcePool.removeResource(resource);
+				} catch (Exception e) {
+					LOGGER.error("Error while tring to remove resource "+resource.getId()+" - "+e.getMessage());
+				}
+			}
+		}
+
+		/**
+		 * Starts the connectivity checks of this cycle all at once, so the
+		 * resources are checked concurrently instead of one after the other.
+		 */
+		private Map<String, Future<Boolean>> probeConnectivity(List<AbstractResource> resources) {
+			Map<String, Future<Boolean>> probes = new HashMap<String, Future<Boolean>>();
+			for (AbstractResource resource : resources) {
+				if (needsConnectivityCheck(resource)) {
+					probes.put(resource.getId(), resource.probeConnectivity(connectivityProber));
+				}
+			}
+			return probes;
+		}
+
+		private boolean needsConnectivityCheck(AbstractResource resource) {
+			if (ResourceState.FAILED.equals(resource.getState())) {
+				return true;
+			}
+			return ResourceState.IDLE.equals(resource.getState()) && idleResources.containsKey(resource.getId())
+					&& OrderType.ONE_TIME.getValue()
+							.equals(resource.getMetadataValue(AbstractResource.METADATA_REQUEST_TYPE));
 		}
 
 		private void resolveIdleResource(AbstractResource resource) {
@@ -186,7 +369,14 @@ public class ResourceMonitor {
 		}
 
 		private boolean checkResourceConnectivity(AbstractResource resource) {
-			if (!resource.checkConnectivity()) {
+			Future<Boolean> probe = connectivityProbes.get(resource.getId());
+			boolean isAlive;
+			if (probe == null) {
+				isAlive = resource.checkConnectivity();
+			} else {
+				isAlive = resource.updateConnectivity(waitForProbe(probe));
+			}
+			if (!isAlive) {
 				if(resource.getConnectionFailTries() >= maxConnectionTries){
 					resourcePool.updateResource(resource, ResourceState.TO_REMOVE);
 				}else{
@@ -197,41 +387,27 @@ public class ResourceMonitor {
 			return true;
 		}
 
-		public void checkIsPaused() throws InterruptedException {
-			synchronized (this) {
-				while (paused) {
-					wait();
-				}
+		private boolean waitForProbe(Future<Boolean> probe) {
+			try {
+				return probe.get(connectivityProber.getConnectTimeout() + PROBE_TIMEOUT_MARGIN, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				LOGGER.debug("Connectivity probe did not complete: " + e.getMessage());
 			}
+			return false;
 		}
-		
 
-		public synchronized void stop() {
-			if(paused){
-				resume();
-			}
+		public void stop() {
 			active = false;
-		}
-
-		public synchronized void pause() {
-			paused = true;
-		}
-
-		public synchronized void resume() {
-			paused = false;
-			notify();
-		}
-
-		public boolean isPaused() {
-			return paused;
+			monitoringPeriod.wakeUp();
 		}
 	}
 	
 	public void stop(){
-		if(monitoringService.isPaused()){
-			monitoringService.resume();
-		}
 		monitoringService.stop();
+		pollingExecutor.shutdownNow();
+		connectivityProber.close();
 	}
 
 	protected void setMonitoringService(MonitoringService monitoringService){
@@ -263,4 +439,15 @@ public class ResourceMonitor {
 		
 	}
 	
+	private static class PollResult {
+
+		private final String resourceId;
+		private final AbstractResource resource;
+
+		private PollResult(String resourceId, AbstractResource resource) {
+			this.resourceId = resourceId;
+			this.resource = resource;
+		}
+	}
+
 }
@@ -0,0 +1,31 @@
+package org.fogbowcloud.blowout.infrastructure.provider;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Infrastructure provider whose operations can also be started without
+ * waiting for the infrastructure to answer. Each method returns at once; the
+ * returned future and the callback, when not null, receive the same result
+ * as the blocking method. Callbacks may run on the provider I/O threads and
+ * must not block. Cancelling a returned future cancels the requests the
+ * operation still has in flight.
+ */
+public interface AsyncInfrastructureProvider extends InfrastructureProvider {
+
+	Future<List<String>> requestResourcesAsync(Specification specification, int count,
+			FutureCallback<List<String>> callback);
+
+	/**
+	 * Completes with null while the resource is not ready, as
+	 * {@link InfrastructureProvider#getResource(String)} returns.
+	 */
+	Future<AbstractResource> getResourceAsync(String resourceId, FutureCallback<AbstractResource> callback);
+
+	Future<Void> deleteResourceAsync(String resourceId, FutureCallback<Void> callback);
+
+}
@@ -0,0 +1,21 @@
+package org.fogbowcloud.blowout.infrastructure.provider;
+
+import java.util.List;
+
+import org.fogbowcloud.blowout.infrastructure.exception.InfrastructureException;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+
+/**
+ * Infrastructure provider able to check many resources with a fixed number
+ * of calls to the infrastructure, whatever the number of resources.
+ */
+public interface BulkInfrastructureProvider extends InfrastructureProvider {
+
+	/**
+	 * Returns the given resources that are ready; the ones not ready yet are
+	 * left out, as {@link InfrastructureProvider#getResource(String)} returns
+	 * null for them.
+	 */
+	List<AbstractResource> getResources(List<String> resourceIds) throws InfrastructureException;
+
+}
@@ -9,6 +9,12 @@ import org.fogbowcloud.blowout.pool.AbstractResource;
 public interface InfrastructureProvider {
 
 	String requestResource(Specification specification) throws RequestResourceException;
+
+	/**
+	 * Requests count resources of the same specification at once and returns
+	 * the ids of the resources actually requested, which may be fewer.
+	 */
+	List<String> requestResources(Specification specification, int count) throws RequestResourceException;
 	
 	List<AbstractResource> getAllResources();
 	
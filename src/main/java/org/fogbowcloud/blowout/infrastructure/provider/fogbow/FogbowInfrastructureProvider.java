@@ -11,15 +11,22 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.Header;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.message.BasicHeader;
 import org.apache.log4j.Logger;
 import org.fogbowcloud.blowout.core.model.Specification;
@@ -28,9 +35,14 @@ import org.fogbowcloud.blowout.core.util.AppUtil;
 import org.fogbowcloud.blowout.database.FogbowResourceDatastore;
 import org.fogbowcloud.blowout.infrastructure.exception.InfrastructureException;
 import org.fogbowcloud.blowout.infrastructure.exception.RequestResourceException;
+import org.fogbowcloud.blowout.infrastructure.http.AsyncHttpWrapper;
 import org.fogbowcloud.blowout.infrastructure.http.HttpWrapper;
+import org.fogbowcloud.blowout.infrastructure.http.RequestFuture;
+import org.fogbowcloud.blowout.infrastructure.http.ResponseLineHandler;
 import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
-import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
+import org.fogbowcloud.blowout.infrastructure.monitor.ConnectivityProber;
+import org.fogbowcloud.blowout.infrastructure.provider.AsyncInfrastructureProvider;
+import org.fogbowcloud.blowout.infrastructure.provider.BulkInfrastructureProvider;
 import org.fogbowcloud.blowout.infrastructure.token.AbstractTokenUpdatePlugin;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 import org.fogbowcloud.manager.core.util.UserdataUtils;
@@ -39,7 +51,7 @@ import org.fogbowcloud.manager.occi.model.Token.User;
 import org.fogbowcloud.manager.occi.order.OrderAttribute;
 import org.fogbowcloud.manager.occi.order.OrderConstants;
 
-public class FogbowInfrastructureProvider implements InfrastructureProvider {
+public class FogbowInfrastructureProvider implements AsyncInfrastructureProvider, BulkInfrastructureProvider {
 
 	private static final int MEMORY_1Gbit = 1024;
 
@@ -50,6 +62,9 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 	private static final String NULL_VALUE = "null";
 	private static final String CATEGORY = "Category";
 	private static final String X_OCCI_ATTRIBUTE = "X-OCCI-Attribute";
+	private static final String X_OCCI_LOCATION = "X-OCCI-Location";
+	// Asks the manager to list every order or instance with its attributes.
+	private static final String VERBOSE_HEADER = "verbose";
 	private static final User DEFAULT_USER = new Token.User("9999", "User");
 
 	public static final String REQUEST_ATTRIBUTE_MEMBER_ID = "org.fogbowcloud.order.providing-member";
@@ -65,11 +80,14 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 	public static final String INSTANCE_ATTRIBUTE_REQUEST_TYPE = "org.fogbowcloud.order.type";
 
 	private HttpWrapper httpWrapper;
+	private AsyncHttpWrapper asyncHttpWrapper;
+	private ExecutorService datastoreExecutor;
 	private String managerUrl;
 	private Token token;
 	private Properties properties;
 	private AbstractTokenUpdatePlugin tokenUpdatePlugin;
 	private FogbowResourceDatastore frDatastore;
+	private int resourceConnectTimeout;
 
 	private Map<String, FogbowResource> resourcesMap = new ConcurrentHashMap<String, FogbowResource>();
 
@@ -78,7 +96,7 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 		this(properties, handleTokeUpdateExecutor, createTokenUpdatePlugin(properties));
 		frDatastore = new FogbowResourceDatastore(properties);
 		for (FogbowResource fogbowResource : frDatastore.getAllFogbowResources()) {
-			
+			fogbowResource.setConnectTimeout(resourceConnectTimeout);
 			resourcesMap.put(fogbowResource.getId(), fogbowResource);
 
 			if(cleanPrevious){
@@ -94,9 +112,12 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 
 	protected FogbowInfrastructureProvider(Properties properties, ScheduledExecutorService handleTokeUpdateExecutor,
 			AbstractTokenUpdatePlugin tokenUpdatePlugin) throws Exception {
-		httpWrapper = new HttpWrapper();
+		httpWrapper = new HttpWrapper(properties);
 		this.properties = properties;
 		this.managerUrl = properties.getProperty(AppPropertiesConstants.INFRA_FOGBOW_MANAGER_BASE_URL);
+		this.resourceConnectTimeout = Integer.parseInt(properties.getProperty(
+				AppPropertiesConstants.INFRA_RESOURCE_CONNECTION_TIMEOUT,
+				String.valueOf(ConnectivityProber.DEFAULT_CONNECT_TIMEOUT)));
 		this.tokenUpdatePlugin = tokenUpdatePlugin;
 
 		this.token = tokenUpdatePlugin.generateToken();
@@ -127,8 +148,18 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 
 	@Override
 	public String requestResource(Specification spec) throws RequestResourceException {
+		return requestResources(spec, 1).get(0);
+	}
 
-		LOGGER.debug("Requesting resource on Fogbow with specifications: " + spec.toString());
+	/**
+	 * Sends a single order with instance count set to count. The manager
+	 * answers with one location per order it created, and each of them
+	 * becomes a resource of its own.
+	 */
+	@Override
+	public List<String> requestResources(Specification spec, int count) throws RequestResourceException {
+
+		LOGGER.debug("Requesting " + count + " resource(s) on Fogbow with specifications: " + spec.toString());
 
 		String requestInformation;
 
@@ -136,7 +167,7 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 
 			this.validateSpecification(spec);
 
-			List<Header> headers = (LinkedList<Header>) requestNewInstanceHeaders(spec);
+			List<Header> headers = (LinkedList<Header>) requestNewInstanceHeaders(spec, count);
 			LOGGER.debug("Headers: " + headers.toString());
 			requestInformation = this.doRequest("post", managerUrl + "/" + OrderConstants.TERM, headers);
 
@@ -146,21 +177,41 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 			throw new RequestResourceException("Request for Fogbow Resource has FAILED: " + e.getMessage(), e);
 		}
 
-		String orderId = getOrderId(requestInformation);
-		String resourceId = String.valueOf(UUID.randomUUID());
-
-		FogbowResource fogbowResource = new FogbowResource(resourceId, orderId, spec);
-		String requestType = spec.getRequirementValue(FogbowRequirementsHelper.METADATA_FOGBOW_REQUEST_TYPE);
-		fogbowResource.putMetadata(AbstractResource.METADATA_REQUEST_TYPE, requestType);
-		fogbowResource.putMetadata(AbstractResource.METADATA_IMAGE, spec.getImage());
-		fogbowResource.putMetadata(AbstractResource.METADATA_PUBLIC_KEY, spec.getPublicKey());
+		return registerOrders(spec, count, requestInformation);
+	}
 
-		resourcesMap.put(resourceId, fogbowResource);
-		frDatastore.addFogbowResource(fogbowResource);
+	private List<String> registerOrders(Specification spec, int count, String requestInformation) {
+		List<String> orderIds = getOrderIds(requestInformation);
+		if (orderIds.size() < count) {
+			LOGGER.warn("Requested " + count + " resource(s) on Fogbow but only " + orderIds.size()
+					+ " order(s) were created");
+		}
 
-		LOGGER.debug("Request for Fogbow Resource was Successful. Resource ID: [" + resourceId + "] Order ID: ["
-				+ orderId + "]");
-		return fogbowResource.getId();
+		String requestType = spec.getRequirementValue(FogbowRequirementsHelper.METADATA_FOGBOW_REQUEST_TYPE);
+		List<FogbowResource> fogbowResources = new ArrayList<FogbowResource>();
+		List<String> resourceIds = new ArrayList<String>();
+		for (String orderId : orderIds) {
+			String resourceId = String.valueOf(UUID.randomUUID());
+
+			FogbowResource fogbowResource = new FogbowResource(resourceId, orderId, spec);
+			fogbowResource.setConnectTimeout(resourceConnectTimeout);
+			fogbowResource.putMetadata(AbstractResource.METADATA_REQUEST_TYPE, requestType);
+			fogbowResource.putMetadata(AbstractResource.METADATA_IMAGE, spec.getImage());
+			fogbowResource.putMetadata(AbstractResource.METADATA_PUBLIC_KEY, spec.getPublicKey());
+
+			resourcesMap.put(resourceId, fogbowResource);
+			fogbowResources.add(fogbowResource);
+			resourceIds.add(resourceId);
+
+			LOGGER.debug("Request for Fogbow Resource was Successful. Resource ID: [" + resourceId + "] Order ID: ["
+					+ orderId + "]");
+		}
+		if (fogbowResources.size() == 1) {
+			frDatastore.addFogbowResource(fogbowResources.get(0));
+		} else {
+			frDatastore.addResourceIds(fogbowResources);
+		}
+		return resourceIds;
 	}
 
 	@Override
@@ -182,7 +233,6 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 
 		LOGGER.debug("Initiating Resource Instanciation - Resource id: [" + resourceId + "]");
 		String instanceId;
-		String sshInformation;
 		Map<String, String> requestAttributes;
 
 		FogbowResource fogbowResource = resourcesMap.get(resourceId);
@@ -207,41 +257,8 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 				
 				Map<String, String> instanceAttributes = getFogbowInstanceAttributes(fogbowResource.getInstanceId());
 
-				if (this.validateInstanceAttributes(instanceAttributes)) {
-
-					LOGGER.debug("Getting Instance attributes.");
-					
-					sshInformation = instanceAttributes.get(INSTANCE_ATTRIBUTE_SSH_PUBLIC_ADDRESS_ATT);
-
-					String[] addressInfo = sshInformation.split(":");
-					String host = addressInfo[0];
-					String port = addressInfo[1];
-
-					fogbowResource.setLocalCommandInterpreter(
-							properties.getProperty(AppPropertiesConstants.LOCAL_COMMAND_INTERPRETER));
-					fogbowResource.putMetadata(AbstractResource.METADATA_SSH_HOST, host);
-					fogbowResource.putMetadata(AbstractResource.METADATA_SSH_PORT, port);
-					fogbowResource.putMetadata(AbstractResource.METADATA_SSH_USERNAME_ATT,
-							instanceAttributes.get(INSTANCE_ATTRIBUTE_SSH_USERNAME_ATT));
-					fogbowResource.putMetadata(AbstractResource.METADATA_EXTRA_PORTS_ATT,
-							instanceAttributes.get(INSTANCE_ATTRIBUTE_EXTRA_PORTS_ATT));
-					fogbowResource.putMetadata(AbstractResource.METADATA_VCPU,
-							instanceAttributes.get(INSTANCE_ATTRIBUTE_VCORE));
-					float menSize = Float.parseFloat(instanceAttributes.get(INSTANCE_ATTRIBUTE_MEMORY_SIZE));
-					String menSizeFormated = String.valueOf(menSize * MEMORY_1Gbit);
-					fogbowResource.putMetadata(AbstractResource.METADATA_MEN_SIZE, menSizeFormated);
-					fogbowResource.putMetadata(AbstractResource.METADATA_LOCATION,
-							"\"" + requestAttributes.get(REQUEST_ATTRIBUTE_MEMBER_ID) + "\"");
-
-					// TODO: Make fogbow return these attributes: newResource.putMetadata(Resource.METADATA_DISK_SIZE and instanceAttributes.get(INSTANCE_ATTRIBUTE_DISKSIZE));
-
-					LOGGER.debug("New Fogbow Resource created - Instace ID: [" + instanceId + "]");
-
-					frDatastore.updateFogbowResource(fogbowResource);
+				if (fillResource(fogbowResource, requestAttributes, instanceAttributes)) {
 					return fogbowResource;
-
-				} else {
-					LOGGER.debug("Instance attributes not yet ready for instance: [" + instanceId + "]");
 				}
 			}
 
@@ -250,7 +267,138 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 		}
 		return null;
 	}
-	
+
+	/**
+	 * Checks all the given resources with one listing of the user orders and,
+	 * when any of them has an instance, one listing of the user instances,
+	 * instead of two requests per resource.
+	 */
+	@Override
+	public List<AbstractResource> getResources(List<String> resourceIds) throws InfrastructureException {
+
+		Map<String, FogbowResource> resourcesByOrder = new HashMap<String, FogbowResource>();
+		for (String resourceId : resourceIds) {
+			FogbowResource fogbowResource = resourcesMap.get(resourceId);
+			if (fogbowResource != null) {
+				resourcesByOrder.put(fogbowResource.getOrderId(), fogbowResource);
+			}
+		}
+		List<AbstractResource> readyResources = new ArrayList<AbstractResource>();
+		if (resourcesByOrder.isEmpty()) {
+			return readyResources;
+		}
+
+		try {
+			Map<String, Map<String, String>> orders = listEntries(managerUrl + "/" + OrderConstants.TERM,
+					resourcesByOrder.keySet());
+
+			Map<String, FogbowResource> resourcesByInstance = new HashMap<String, FogbowResource>();
+			for (Entry<String, Map<String, String>> order : orders.entrySet()) {
+				String instanceId = order.getValue().get(OrderAttribute.INSTANCE_ID.getValue());
+				if (instanceId != null && !instanceId.isEmpty()) {
+					FogbowResource fogbowResource = resourcesByOrder.get(order.getKey());
+					fogbowResource.setInstanceId(instanceId);
+					resourcesByInstance.put(instanceId, fogbowResource);
+				}
+			}
+			if (orders.size() < resourcesByOrder.size()) {
+				LOGGER.warn((resourcesByOrder.size() - orders.size()) + " orders were not listed by the manager");
+			}
+			if (resourcesByInstance.isEmpty()) {
+				return readyResources;
+			}
+
+			Map<String, Map<String, String>> instances = listEntries(managerUrl + "/compute/",
+					resourcesByInstance.keySet());
+			for (Entry<String, Map<String, String>> instance : instances.entrySet()) {
+				FogbowResource fogbowResource = resourcesByInstance.get(instance.getKey());
+				if (fillResource(fogbowResource, orders.get(fogbowResource.getOrderId()), instance.getValue())) {
+					readyResources.add(fogbowResource);
+				}
+			}
+		} catch (Exception e) {
+			throw new InfrastructureException("Error while listing orders and instances on Fogbow", e);
+		}
+		return readyResources;
+	}
+
+	/**
+	 * Reads a verbose listing in a single pass, keeping only the attributes
+	 * of the wanted entries. Each entry starts with its location, followed by
+	 * its attributes.
+	 */
+	private Map<String, Map<String, String>> listEntries(String endpoint, final Set<String> wantedIds)
+			throws Exception {
+
+		final Map<String, Map<String, String>> entries = new HashMap<String, Map<String, String>>();
+		List<Header> headers = new ArrayList<Header>();
+		headers.add(new BasicHeader(VERBOSE_HEADER, "true"));
+		httpWrapper.doRequest("get", endpoint, token.getAccessId(), headers, new ResponseLineHandler() {
+
+			private Map<String, String> current;
+
+			@Override
+			public void handleLine(String line) {
+				if (line.startsWith(X_OCCI_LOCATION + ": ")) {
+					String location = line.substring((X_OCCI_LOCATION + ": ").length()).trim();
+					String id = location.substring(location.lastIndexOf("/") + 1);
+					current = null;
+					if (wantedIds.contains(id)) {
+						current = new HashMap<String, String>();
+						entries.put(id, current);
+					}
+				} else if (current != null) {
+					putAttribute(current, line);
+				}
+			}
+		});
+		return entries;
+	}
+
+	/**
+	 * Puts the instance attributes in the resource metadata and returns true,
+	 * or returns false if the instance is not ready yet.
+	 */
+	private boolean fillResource(FogbowResource fogbowResource, Map<String, String> requestAttributes,
+			Map<String, String> instanceAttributes) {
+
+		if (!this.validateInstanceAttributes(instanceAttributes)) {
+			LOGGER.debug("Instance attributes not yet ready for instance: [" + fogbowResource.getInstanceId() + "]");
+			return false;
+		}
+
+		LOGGER.debug("Getting Instance attributes.");
+
+		String sshInformation = instanceAttributes.get(INSTANCE_ATTRIBUTE_SSH_PUBLIC_ADDRESS_ATT);
+
+		String[] addressInfo = sshInformation.split(":");
+		String host = addressInfo[0];
+		String port = addressInfo[1];
+
+		fogbowResource.setLocalCommandInterpreter(
+				properties.getProperty(AppPropertiesConstants.LOCAL_COMMAND_INTERPRETER));
+		fogbowResource.putMetadata(AbstractResource.METADATA_SSH_HOST, host);
+		fogbowResource.putMetadata(AbstractResource.METADATA_SSH_PORT, port);
+		fogbowResource.putMetadata(AbstractResource.METADATA_SSH_USERNAME_ATT,
+				instanceAttributes.get(INSTANCE_ATTRIBUTE_SSH_USERNAME_ATT));
+		fogbowResource.putMetadata(AbstractResource.METADATA_EXTRA_PORTS_ATT,
+				instanceAttributes.get(INSTANCE_ATTRIBUTE_EXTRA_PORTS_ATT));
+		fogbowResource.putMetadata(AbstractResource.METADATA_VCPU,
+				instanceAttributes.get(INSTANCE_ATTRIBUTE_VCORE));
+		float menSize = Float.parseFloat(instanceAttributes.get(INSTANCE_ATTRIBUTE_MEMORY_SIZE));
+		String menSizeFormated = String.valueOf(menSize * MEMORY_1Gbit);
+		fogbowResource.putMetadata(AbstractResource.METADATA_MEN_SIZE, menSizeFormated);
+		fogbowResource.putMetadata(AbstractResource.METADATA_LOCATION,
+				"\"" + requestAttributes.get(REQUEST_ATTRIBUTE_MEMBER_ID) + "\"");
+
+		// TODO: Make fogbow return these attributes: newResource.putMetadata(Resource.METADATA_DISK_SIZE and instanceAttributes.get(INSTANCE_ATTRIBUTE_DISKSIZE));
+
+		LOGGER.debug("New Fogbow Resource created - Instace ID: [" + fogbowResource.getInstanceId() + "]");
+
+		frDatastore.updateFogbowResource(fogbowResource);
+		return true;
+	}
+
 	@Override
 	public List<AbstractResource> getAllResources(){
 		return new ArrayList<AbstractResource>(resourcesMap.values());
@@ -276,15 +424,176 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 			
 			this.doRequest("delete", managerUrl + "/" + OrderConstants.TERM + "/" + fogbowResource.getOrderId(),
 					new ArrayList<Header>());
-			resourcesMap.remove(resourceId);
-			frDatastore.deleteFogbowResourceById(fogbowResource);
-			LOGGER.debug("Resource " + fogbowResource.getId() + " deleted successfully");
+			removeResource(fogbowResource);
 		} catch (Exception e) {
 			throw new InfrastructureException("Error when trying to delete resource id[" + fogbowResource.getId() + "]",
 					e);
 		}
 	}
 
+	@Override
+	public Future<List<String>> requestResourcesAsync(final Specification spec, final int count,
+			FutureCallback<List<String>> callback) {
+
+		final RequestFuture<List<String>> result = new RequestFuture<List<String>>(callback);
+		List<Header> headers;
+		try {
+			this.validateSpecification(spec);
+			headers = requestNewInstanceHeaders(spec, count);
+		} catch (Exception e) {
+			result.failed(new RequestResourceException("Request for Fogbow Resource has FAILED: " + e.getMessage(), e));
+			return result;
+		}
+
+		doRequestAsync(result, "post", managerUrl + "/" + OrderConstants.TERM, headers, new FutureCallback<String>() {
+
+			@Override
+			public void completed(final String requestInformation) {
+				getDatastoreExecutor().execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							result.completed(registerOrders(spec, count, requestInformation));
+						} catch (Exception e) {
+							result.failed(e);
+						}
+					}
+				});
+			}
+
+			@Override
+			public void failed(Exception e) {
+				LOGGER.error("Error while requesting resource on Fogbow", e);
+				result.failed(new RequestResourceException("Request for Fogbow Resource has FAILED: " + e.getMessage(), e));
+			}
+
+			@Override
+			public void cancelled() {
+				result.cancel();
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public Future<AbstractResource> getResourceAsync(final String resourceId,
+			FutureCallback<AbstractResource> callback) {
+
+		final RequestFuture<AbstractResource> result = new RequestFuture<AbstractResource>(callback);
+		final FogbowResource fogbowResource = resourcesMap.get(resourceId);
+		if (fogbowResource == null) {
+			LOGGER.error("Error while getting resource with id: [" + resourceId + "] ");
+			result.completed(null);
+			return result;
+		}
+
+		String orderEndpoint = managerUrl + "/" + OrderConstants.TERM + "/" + fogbowResource.getOrderId();
+		doRequestAsync(result, "get", orderEndpoint, new ArrayList<Header>(), new ResultCallback<AbstractResource>(result) {
+
+			@Override
+			public void completed(String requestResponse) {
+				final Map<String, String> requestAttributes = parseRequestAttributes(requestResponse);
+				String instanceId = requestAttributes.get(OrderAttribute.INSTANCE_ID.getValue());
+				if (instanceId == null || instanceId.isEmpty()) {
+					result.completed(null);
+					return;
+				}
+				fogbowResource.setInstanceId(instanceId);
+
+				doRequestAsync(result, "get", managerUrl + "/compute/" + instanceId, new ArrayList<Header>(),
+						new ResultCallback<AbstractResource>(result) {
+
+							@Override
+							public void completed(final String instanceInformation) {
+								getDatastoreExecutor().execute(new Runnable() {
+									@Override
+									public void run() {
+										try {
+											boolean ready = fillResource(fogbowResource, requestAttributes,
+													parseAttributes(instanceInformation));
+											result.completed(ready ? fogbowResource : null);
+										} catch (Exception e) {
+											failed(e);
+										}
+									}
+								});
+							}
+						});
+			}
+
+			@Override
+			public void failed(Exception e) {
+				LOGGER.error("Error while getting resource from Order id: [" + fogbowResource.getOrderId() + "]", e);
+				result.completed(null);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public Future<Void> deleteResourceAsync(String resourceId, FutureCallback<Void> callback) {
+
+		final RequestFuture<Void> result = new RequestFuture<Void>(callback);
+		final FogbowResource fogbowResource = resourcesMap.get(resourceId);
+		if (fogbowResource == null) {
+			result.failed(new InfrastructureException(
+					"The resource is not a valid. Was never requested or is already deleted"));
+			return result;
+		}
+
+		LOGGER.debug("Deleting resource with ID = " + fogbowResource.getId());
+
+		final String orderEndpoint = managerUrl + "/" + OrderConstants.TERM + "/" + fogbowResource.getOrderId();
+		final ResultCallback<Void> deleteOrder = new ResultCallback<Void>(result) {
+
+			@Override
+			public void completed(String response) {
+				getDatastoreExecutor().execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							removeResource(fogbowResource);
+							result.completed(null);
+						} catch (Exception e) {
+							failed(e);
+						}
+					}
+				});
+			}
+
+			@Override
+			public void failed(Exception e) {
+				result.failed(new InfrastructureException(
+						"Error when trying to delete resource id[" + fogbowResource.getId() + "]", e));
+			}
+		};
+
+		if (fogbowResource.getInstanceId() == null) {
+			doRequestAsync(result, "delete", orderEndpoint, new ArrayList<Header>(), deleteOrder);
+		} else {
+			doRequestAsync(result, "delete", managerUrl + "/compute/" + fogbowResource.getInstanceId(),
+					new ArrayList<Header>(), new ResultCallback<Void>(result) {
+
+						@Override
+						public void completed(String response) {
+							doRequestAsync(result, "delete", orderEndpoint, new ArrayList<Header>(), deleteOrder);
+						}
+
+						@Override
+						public void failed(Exception e) {
+							deleteOrder.failed(e);
+						}
+					});
+		}
+		return result;
+	}
+
+	private void removeResource(FogbowResource fogbowResource) {
+		resourcesMap.remove(fogbowResource.getId());
+		frDatastore.deleteFogbowResourceById(fogbowResource);
+		LOGGER.debug("Resource " + fogbowResource.getId() + " deleted successfully");
+	}
+
 	protected Token createNewTokenFromFile(String certificateFilePath) throws FileNotFoundException, IOException {
 
 		String certificate = IOUtils.toString(new FileInputStream(certificateFilePath)).replaceAll("\n", "");
@@ -334,7 +643,7 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 
 	}
 
-	private List<Header> requestNewInstanceHeaders(Specification specs) {
+	private List<Header> requestNewInstanceHeaders(Specification specs, int instanceCount) {
 		String fogbowImage = specs.getImage();
 		String fogbowRequirements = specs.getRequirementValue(FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS);
 		String fogbowRequestType = specs.getRequirementValue(FogbowRequirementsHelper.METADATA_FOGBOW_REQUEST_TYPE);
@@ -342,7 +651,7 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 		List<Header> headers = new LinkedList<Header>();
 		headers.add(new BasicHeader(CATEGORY, OrderConstants.TERM + "; scheme=\"" + OrderConstants.SCHEME
 				+ "\"; class=\"" + OrderConstants.KIND_CLASS + "\""));
-		headers.add(new BasicHeader(X_OCCI_ATTRIBUTE, OrderAttribute.INSTANCE_COUNT.getValue() + "=" + 1));
+		headers.add(new BasicHeader(X_OCCI_ATTRIBUTE, OrderAttribute.INSTANCE_COUNT.getValue() + "=" + instanceCount));
 		headers.add(new BasicHeader(X_OCCI_ATTRIBUTE, OrderAttribute.TYPE.getValue() + "=" + fogbowRequestType));
 
 		headers.add(new BasicHeader(CATEGORY, fogbowImage + "; scheme=\"" + OrderConstants.TEMPLATE_OS_SCHEME
@@ -403,6 +712,57 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 		return httpWrapper.doRequest(method, endpoint, token.getAccessId(), headers);
 	}
 
+	/**
+	 * Sends a request of the operation whose future is given, so cancelling
+	 * that future cancels the request.
+	 */
+	private void doRequestAsync(RequestFuture<?> operation, String method, String endpoint, List<Header> headers,
+			FutureCallback<String> callback) {
+		operation.follow(getAsyncHttpWrapper().doRequest(method, endpoint, token.getAccessId(), headers, callback));
+	}
+
+	/**
+	 * Step of an asynchronous operation: failures and cancellation are passed
+	 * on to the future of the whole operation.
+	 */
+	private abstract static class ResultCallback<T> implements FutureCallback<String> {
+
+		private final RequestFuture<T> result;
+
+		private ResultCallback(RequestFuture<T> result) {
+			this.result = result;
+		}
+
+		@Override
+		public void failed(Exception e) {
+			result.failed(e);
+		}
+
+		@Override
+		public void cancelled() {
+			result.cancel();
+		}
+	}
+
+	/**
+	 * Returns the id of every order location in the response of an order
+	 * request. Responses without location lines are read as a single order.
+	 */
+	protected List<String> getOrderIds(String requestInformation) {
+		List<String> orderIds = new ArrayList<String>();
+		if (requestInformation != null) {
+			for (String responseLine : requestInformation.split("\n")) {
+				if (responseLine.trim().startsWith(X_OCCI_LOCATION)) {
+					orderIds.add(getOrderId(responseLine.trim()));
+				}
+			}
+		}
+		if (orderIds.isEmpty()) {
+			orderIds.add(getOrderId(requestInformation));
+		}
+		return orderIds;
+	}
+
 	protected String getOrderId(String requestInformation) {
 		String[] requestRes = requestInformation.split(":");
 		String[] requestId = requestRes[requestRes.length - 1].split("/");
@@ -451,13 +811,7 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 	private Map<String, String> parseRequestAttributes(String response) {
 		Map<String, String> atts = new HashMap<String, String>();
 		for (String responseLine : response.split("\n")) {
-			if (responseLine.contains(X_OCCI_ATTRIBUTE + ": ")) {
-				String[] responseLineSplit = responseLine.substring((X_OCCI_ATTRIBUTE + ": ").length()).split("=");
-				String valueStr = responseLineSplit[1].trim().replace("\"", "");
-				if (!valueStr.equals(NULL_VALUE)) {
-					atts.put(responseLineSplit[0].trim(), valueStr);
-				}
-			}
+			putAttribute(atts, responseLine);
 		}
 		return atts;
 	}
@@ -465,17 +819,21 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 	private Map<String, String> parseAttributes(String response) {
 		Map<String, String> atts = new HashMap<String, String>();
 		for (String responseLine : response.split("\n")) {
-			if (responseLine.contains(X_OCCI_ATTRIBUTE + ": ")) {
-				String[] responseLineSplit = responseLine.substring((X_OCCI_ATTRIBUTE + ": ").length()).split("=");
-				String valueStr = responseLineSplit[1].trim().replace("\"", "");
-				if (!valueStr.equals(NULL_VALUE)) {
-					atts.put(responseLineSplit[0].trim(), valueStr);
-				}
-			}
+			putAttribute(atts, responseLine);
 		}
 		return atts;
 	}
 
+	private static void putAttribute(Map<String, String> atts, String responseLine) {
+		if (responseLine.contains(X_OCCI_ATTRIBUTE + ": ")) {
+			String[] responseLineSplit = responseLine.substring((X_OCCI_ATTRIBUTE + ": ").length()).split("=");
+			String valueStr = responseLineSplit[1].trim().replace("\"", "");
+			if (!valueStr.equals(NULL_VALUE)) {
+				atts.put(responseLineSplit[0].trim(), valueStr);
+			}
+		}
+	}
+
 	private static AbstractTokenUpdatePlugin createTokenUpdatePlugin(Properties properties) throws Exception {
 
 		String providerClassName = properties.getProperty(AppPropertiesConstants.INFRA_AUTH_TOKEN_UPDATE_PLUGIN);
@@ -489,6 +847,28 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 		return tokenUpdatePlugin;
 	}
 
+	public void close() {
+		httpWrapper.close();
+		ExecutorService executor;
+		synchronized (this) {
+			if (asyncHttpWrapper != null) {
+				asyncHttpWrapper.close();
+			}
+			executor = datastoreExecutor;
+		}
+		if (executor != null) {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (frDatastore != null) {
+			frDatastore.close();
+		}
+	}
+
 	public HttpWrapper getHttpWrapper() {
 		return httpWrapper;
 	}
@@ -497,6 +877,36 @@ public class FogbowInfrastructureProvider implements InfrastructureProvider {
 		this.httpWrapper = httpWrapper;
 	}
 
+	protected synchronized AsyncHttpWrapper getAsyncHttpWrapper() {
+		if (asyncHttpWrapper == null) {
+			asyncHttpWrapper = new AsyncHttpWrapper(properties);
+		}
+		return asyncHttpWrapper;
+	}
+
+	public synchronized void setAsyncHttpWrapper(AsyncHttpWrapper asyncHttpWrapper) {
+		this.asyncHttpWrapper = asyncHttpWrapper;
+	}
+
+	/**
+	 * Thread the asynchronous operations store their resources on, so the
+	 * SQLite writes never run on the I/O threads of the HTTP client. Their
+	 * futures complete once the resource is stored.
+	 */
+	protected synchronized ExecutorService getDatastoreExecutor() {
+		if (datastoreExecutor == null) {
+			datastoreExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "blowout-fogbow-datastore");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return datastoreExecutor;
+	}
+
 	public String getManagerUrl() {
 		return managerUrl;
 	}
@@ -0,0 +1,607 @@
+package org.fogbowcloud.blowout.infrastructure.provider.fogbow;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.fogbowcloud.blowout.pool.ResourceCatalog;
+
+/**
+ * A FogbowRequirements expression compiled into a predicate over the typed
+ * attributes of a resource. Expressions are compiled once and cached by their
+ * text, so matching a resource is a few comparisons, without parsing or
+ * allocating.
+ *
+ * Only comparisons of an attribute with a number or a string literal on its
+ * right, combined with && and ||, are compiled; anything else is left to
+ * ClassAd (see {@link #forRequirements(String)}), and so are resources with a
+ * value that is not a plain literal. Evaluation follows ClassAd: a comparison
+ * with a missing value is undefined, one between a number and a string is an
+ * error, and string comparisons ignore case. As in
+ * {@link FogbowRequirementsHelper#matches(FogbowResource, String)}, comparisons
+ * on unknown attributes, or on a disk size the resource does not report, are
+ * left out of the expression.
+ */
+public class FogbowRequirements {
+
+	private static final int FALSE = 0;
+	private static final int TRUE = 1;
+	private static final int UNDEFINED = 2;
+	private static final int IGNORED = 3;
+	private static final int ERROR = 4;
+	// A value ClassAd reads differently, or not at all.
+	private static final int UNREADABLE = 7;
+
+	// Indexes in the attribute arrays below.
+	private static final int VCPU = 0;
+	private static final int RAM = 1;
+	private static final int DISK = 2;
+	private static final int LOCATION = 3;
+
+	private static final String[] ATTRIBUTE_NAMES = {
+			FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS_Glue2vCPU,
+			FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS_Glue2RAM,
+			FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS_Glue2disk,
+			FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS_1Glue2CloudComputeManagerID };
+
+	private static final String[] METADATA_NAMES = {
+			AbstractResource.METADATA_VCPU,
+			AbstractResource.METADATA_MEN_SIZE,
+			AbstractResource.METADATA_DISK_SIZE,
+			AbstractResource.METADATA_LOCATION };
+
+	// The ClassAd literals read the same way here, ints kept within 32 bits.
+	private static final Pattern NUMBER_PATTERN = Pattern.compile("[+-]?(0|[1-9][0-9]{0,8})(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+	private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+	private static final FogbowRequirements UNSUPPORTED = new FogbowRequirements(null, null, 0);
+
+	// Never released; a run only uses the requirements of a handful of specifications.
+	private static final ConcurrentMap<String, FogbowRequirements> compiledRequirements = new ConcurrentHashMap<String, FogbowRequirements>();
+
+	private final String requirements;
+	private final Node root;
+	// Bit mask of the attributes the comparisons refer to.
+	private final int referencedAttributes;
+
+	private FogbowRequirements(String requirements, Node root, int referencedAttributes) {
+		this.requirements = requirements;
+		this.root = root;
+		this.referencedAttributes = referencedAttributes;
+	}
+
+	/**
+	 * Returns the compiled form of the given requirements, or null when they
+	 * use something the compiler does not support, including invalid syntax.
+	 */
+	public static FogbowRequirements forRequirements(String requirements) {
+		if (requirements == null) {
+			return null;
+		}
+		FogbowRequirements compiled = compiledRequirements.get(requirements);
+		if (compiled == null) {
+			compiled = compile(requirements);
+			FogbowRequirements previous = compiledRequirements.putIfAbsent(requirements, compiled);
+			if (previous != null) {
+				compiled = previous;
+			}
+		}
+		return compiled == UNSUPPORTED ? null : compiled;
+	}
+
+	private static FogbowRequirements compile(String requirements) {
+		try {
+			Parser parser = new Parser(requirements);
+			Node root = parser.parseOr();
+			parser.skipSpaces();
+			if (!parser.atEnd()) {
+				return UNSUPPORTED;
+			}
+			return new FogbowRequirements(requirements, root, parser.referencedAttributes);
+		} catch (IllegalArgumentException e) {
+			return UNSUPPORTED;
+		}
+	}
+
+	public String getRequirements() {
+		return requirements;
+	}
+
+	public boolean matches(FogbowResource resource) {
+		Attributes attributes = resource.getRequirementAttributes();
+		if (attributes == null) {
+			attributes = Attributes.of(resource, null);
+		}
+		if ((attributes.unreadable & referencedAttributes) != 0) {
+			return FogbowRequirementsHelper.classAdMatches(resource, requirements);
+		}
+		return matches(attributes);
+	}
+
+	private boolean matches(Attributes attributes) {
+		int result = root.eval(attributes);
+		return result == TRUE || result == IGNORED;
+	}
+
+	/**
+	 * Returns a catalog query bounding the resources these requirements may
+	 * match, from the comparisons every match needs, that is the ones joined
+	 * by && at the top of the expression.
+	 */
+	public ResourceCatalog.Query toQuery() {
+		ResourceCatalog.Query query = new ResourceCatalog.Query();
+		narrow(query, root);
+		return query;
+	}
+
+	private static void narrow(ResourceCatalog.Query query, Node node) {
+		if (node instanceof And) {
+			narrow(query, ((And) node).left);
+			narrow(query, ((And) node).right);
+		} else if (node instanceof Comparison) {
+			((Comparison) node).narrow(query);
+		}
+	}
+
+	/**
+	 * The attributes of a resource that requirements refer to, parsed from its
+	 * metadata. A snapshot is kept while the metadata values stay the same
+	 * instances.
+	 */
+	public static class Attributes {
+
+		private final String[] rawValues = new String[METADATA_NAMES.length];
+		private final int[] kinds = new int[METADATA_NAMES.length];
+		private final double[] numbers = new double[METADATA_NAMES.length];
+		private final String[] strings = new String[METADATA_NAMES.length];
+		private int unreadable = 0;
+
+		private Attributes(AbstractResource resource) {
+			for (int i = 0; i < METADATA_NAMES.length; i++) {
+				String value = resource.getMetadataValue(METADATA_NAMES[i]);
+				rawValues[i] = value;
+				parse(i, value);
+			}
+			if (rawValues[DISK] == null || rawValues[DISK].equals(FogbowRequirementsHelper.ZERO)) {
+				kinds[DISK] = IGNORED;
+			}
+		}
+
+		/**
+		 * Returns the previous snapshot when the resource metadata has not
+		 * changed since it was taken, or a new one.
+		 */
+		public static Attributes of(AbstractResource resource, Attributes previous) {
+			if (previous != null && previous.isCurrent(resource)) {
+				return previous;
+			}
+			return new Attributes(resource);
+		}
+
+		private boolean isCurrent(AbstractResource resource) {
+			for (int i = 0; i < METADATA_NAMES.length; i++) {
+				if (resource.getMetadataValue(METADATA_NAMES[i]) != rawValues[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * ClassAd reads a value that is a name as a reference to a missing
+		 * attribute, and true, false or error as values no number or string
+		 * compares with.
+		 */
+		private void parse(int attribute, String value) {
+			kinds[attribute] = UNDEFINED;
+			if (value == null) {
+				return;
+			}
+			String trimmed = value.trim();
+			if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+				String string = trimmed.substring(1, trimmed.length() - 1);
+				if (string.indexOf('"') < 0 && string.indexOf('\\') < 0) {
+					strings[attribute] = string;
+					kinds[attribute] = Comparison.STRING;
+					return;
+				}
+			} else if (NUMBER_PATTERN.matcher(trimmed).matches()) {
+				numbers[attribute] = Double.parseDouble(trimmed);
+				kinds[attribute] = Comparison.NUMBER;
+				return;
+			} else if (NAME_PATTERN.matcher(trimmed).matches() && !isAttributeName(trimmed)) {
+				if (trimmed.equalsIgnoreCase("true") || trimmed.equalsIgnoreCase("false")
+						|| trimmed.equalsIgnoreCase("error")) {
+					kinds[attribute] = ERROR;
+				}
+				return;
+			}
+			kinds[attribute] = UNREADABLE;
+			unreadable |= 1 << attribute;
+		}
+
+		private static boolean isAttributeName(String name) {
+			for (String attributeName : ATTRIBUTE_NAMES) {
+				if (attributeName.equalsIgnoreCase(name)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static abstract class Node {
+		abstract int eval(Attributes attributes);
+	}
+
+	private static class Constant extends Node {
+
+		private final int value;
+
+		Constant(int value) {
+			this.value = value;
+		}
+
+		@Override
+		int eval(Attributes attributes) {
+			return value;
+		}
+	}
+
+	private static class And extends Node {
+
+		private final Node left;
+		private final Node right;
+
+		And(Node left, Node right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		/**
+		 * ClassAd evaluates from the left: false, then error, decide before the
+		 * right side is looked at.
+		 */
+		@Override
+		int eval(Attributes attributes) {
+			int l = left.eval(attributes);
+			if (l == FALSE || l == ERROR) {
+				return l;
+			}
+			int r = right.eval(attributes);
+			if (r == IGNORED) {
+				return l;
+			}
+			if (l == IGNORED || l == TRUE || r == FALSE || r == ERROR) {
+				return r;
+			}
+			return l;
+		}
+	}
+
+	private static class Or extends Node {
+
+		private final Node left;
+		private final Node right;
+
+		Or(Node left, Node right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		/**
+		 * As {@link And#eval(Attributes)}, with true in place of false.
+		 */
+		@Override
+		int eval(Attributes attributes) {
+			int l = left.eval(attributes);
+			if (l == TRUE || l == ERROR) {
+				return l;
+			}
+			int r = right.eval(attributes);
+			if (r == IGNORED) {
+				return l;
+			}
+			if (l == IGNORED || l == FALSE || r == TRUE || r == ERROR) {
+				return r;
+			}
+			return l;
+		}
+	}
+
+	private static class Comparison extends Node {
+
+		static final int NUMBER = 5;
+		static final int STRING = 6;
+
+		static final int LESS = 0;
+		static final int LESS_OR_EQUAL = 1;
+		static final int GREATER = 2;
+		static final int GREATER_OR_EQUAL = 3;
+		static final int EQUAL = 4;
+		static final int NOT_EQUAL = 5;
+
+		private final int attribute;
+		private final int operator;
+		private final int kind;
+		private final double number;
+		private final String string;
+
+		Comparison(int attribute, int operator, int kind, double number, String string) {
+			this.attribute = attribute;
+			this.operator = operator;
+			this.kind = kind;
+			this.number = number;
+			this.string = string;
+		}
+
+		@Override
+		int eval(Attributes attributes) {
+			int valueKind = attributes.kinds[attribute];
+			if (valueKind == IGNORED || valueKind == UNDEFINED) {
+				return valueKind;
+			}
+			if (valueKind != kind) {
+				return ERROR;
+			}
+			int compared;
+			if (kind == NUMBER) {
+				double value = attributes.numbers[attribute];
+				compared = value < number ? -1 : (value > number ? 1 : 0);
+			} else {
+				compared = attributes.strings[attribute].compareToIgnoreCase(string);
+			}
+			switch (operator) {
+			case LESS:
+				return compared < 0 ? TRUE : FALSE;
+			case LESS_OR_EQUAL:
+				return compared <= 0 ? TRUE : FALSE;
+			case GREATER:
+				return compared > 0 ? TRUE : FALSE;
+			case GREATER_OR_EQUAL:
+				return compared >= 0 ? TRUE : FALSE;
+			case EQUAL:
+				return compared == 0 ? TRUE : FALSE;
+			default:
+				return compared != 0 ? TRUE : FALSE;
+			}
+		}
+
+		/**
+		 * The catalog keeps sizes rounded down, so bounds are rounded down as
+		 * well, whether strict or not.
+		 */
+		void narrow(ResourceCatalog.Query query) {
+			if (attribute == LOCATION) {
+				if (kind == STRING && operator == EQUAL) {
+					query.location(string);
+				}
+				return;
+			}
+			if (kind != NUMBER) {
+				return;
+			}
+			long bound = (long) Math.floor(number);
+			long min = ResourceCatalog.UNKNOWN;
+			long max = Long.MAX_VALUE;
+			if (operator == GREATER || operator == GREATER_OR_EQUAL || operator == EQUAL) {
+				min = bound;
+			}
+			if (operator == LESS || operator == LESS_OR_EQUAL || operator == EQUAL) {
+				max = bound;
+			}
+			if (operator == NOT_EQUAL) {
+				return;
+			}
+			if (attribute == VCPU) {
+				query.narrowCores(min, max);
+			} else if (attribute == RAM) {
+				query.narrowMemory(min, max);
+			} else if (attribute == DISK) {
+				query.narrowDisk(min, max);
+			}
+		}
+	}
+
+	/**
+	 * Recursive descent over the supported subset; throws
+	 * IllegalArgumentException on anything else.
+	 */
+	private static class Parser {
+
+		private static final Constant IGNORED_COMPARISON = new Constant(IGNORED);
+
+		private final String text;
+		private int position = 0;
+		private int referencedAttributes = 0;
+
+		Parser(String text) {
+			this.text = text;
+		}
+
+		Node parseOr() {
+			Node node = parseAnd();
+			while (consume("||")) {
+				node = new Or(node, parseAnd());
+			}
+			return node;
+		}
+
+		private Node parseAnd() {
+			Node node = parseUnary();
+			while (consume("&&")) {
+				node = new And(node, parseUnary());
+			}
+			return node;
+		}
+
+		private Node parseUnary() {
+			skipSpaces();
+			if (peek() == '!' && !lookingAt("!=")) {
+				// The ClassAd path drops negations, so they are left to it.
+				throw new IllegalArgumentException("Unsupported negation at " + position);
+			}
+			if (consume("(")) {
+				Node node = parseOr();
+				if (!consume(")")) {
+					throw new IllegalArgumentException("Missing ) at " + position);
+				}
+				return node;
+			}
+			return parseComparison();
+		}
+
+		private Node parseComparison() {
+			Operand left = parseOperand();
+			int operator = parseOperator();
+			Operand right = parseOperand();
+			if (left.attribute != null && right.attribute == null) {
+				return comparison(left.attribute, operator, right);
+			}
+			// The ClassAd path only looks up attributes on the left of a comparison.
+			throw new IllegalArgumentException("Unsupported comparison at " + position);
+		}
+
+		private Node comparison(String attribute, int operator, Operand literal) {
+			for (int i = 0; i < ATTRIBUTE_NAMES.length; i++) {
+				if (ATTRIBUTE_NAMES[i].equals(attribute)) {
+					referencedAttributes |= 1 << i;
+					return new Comparison(i, operator, literal.kind, literal.number, literal.string);
+				}
+			}
+			return IGNORED_COMPARISON;
+		}
+
+		private int parseOperator() {
+			skipSpaces();
+			if (lookingAt("=?=") || lookingAt("=!=")) {
+				throw new IllegalArgumentException("Unsupported operator at " + position);
+			}
+			if (consume("<=")) {
+				return Comparison.LESS_OR_EQUAL;
+			}
+			if (consume(">=")) {
+				return Comparison.GREATER_OR_EQUAL;
+			}
+			if (consume("==")) {
+				return Comparison.EQUAL;
+			}
+			if (consume("!=")) {
+				return Comparison.NOT_EQUAL;
+			}
+			if (consume("<")) {
+				return Comparison.LESS;
+			}
+			if (consume(">")) {
+				return Comparison.GREATER;
+			}
+			throw new IllegalArgumentException("Expected a comparison at " + position);
+		}
+
+		private Operand parseOperand() {
+			skipSpaces();
+			int start = position;
+			char c = peek();
+			if (c == '"') {
+				position++;
+				while (!atEnd() && peek() != '"') {
+					if (peek() == '\\') {
+						throw new IllegalArgumentException("Unsupported escape at " + position);
+					}
+					position++;
+				}
+				if (atEnd()) {
+					throw new IllegalArgumentException("Unterminated string at " + start);
+				}
+				position++;
+				return Operand.string(text.substring(start + 1, position - 1));
+			}
+			if (Character.isLetter(c) || c == '_') {
+				while (!atEnd() && (Character.isLetterOrDigit(peek()) || peek() == '_')) {
+					position++;
+				}
+				String name = text.substring(start, position);
+				skipSpaces();
+				if (peek() == '(' || peek() == '.' || peek() == '[' || isKeyword(name)) {
+					throw new IllegalArgumentException("Unsupported expression at " + start);
+				}
+				return Operand.attribute(name);
+			}
+			if (c == '-' || c == '+') {
+				position++;
+			}
+			while (!atEnd() && (Character.isDigit(peek()) || peek() == '.' || peek() == 'e' || peek() == 'E'
+					|| ((peek() == '-' || peek() == '+') && (text.charAt(position - 1) == 'e' || text.charAt(position - 1) == 'E')))) {
+				position++;
+			}
+			String number = text.substring(start, position);
+			if (!NUMBER_PATTERN.matcher(number).matches()) {
+				throw new IllegalArgumentException("Expected a value at " + start);
+			}
+			return Operand.number(Double.parseDouble(number));
+		}
+
+		private static boolean isKeyword(String name) {
+			return name.equalsIgnoreCase("true") || name.equalsIgnoreCase("false")
+					|| name.equalsIgnoreCase("undefined") || name.equalsIgnoreCase("error")
+					|| name.equalsIgnoreCase("is") || name.equalsIgnoreCase("isnt");
+		}
+
+		private boolean consume(String token) {
+			skipSpaces();
+			if (lookingAt(token)) {
+				position += token.length();
+				return true;
+			}
+			return false;
+		}
+
+		private boolean lookingAt(String token) {
+			return text.startsWith(token, position);
+		}
+
+		private char peek() {
+			return atEnd() ? 0 : text.charAt(position);
+		}
+
+		void skipSpaces() {
+			while (!atEnd() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+
+		boolean atEnd() {
+			return position >= text.length();
+		}
+	}
+
+	private static class Operand {
+
+		String attribute;
+		int kind;
+		double number;
+		String string;
+
+		static Operand attribute(String name) {
+			Operand operand = new Operand();
+			operand.attribute = name;
+			return operand;
+		}
+
+		static Operand number(double value) {
+			Operand operand = new Operand();
+			operand.kind = Comparison.NUMBER;
+			operand.number = value;
+			return operand;
+		}
+
+		static Operand string(String value) {
+			Operand operand = new Operand();
+			operand.kind = Comparison.STRING;
+			operand.string = value;
+			return operand;
+		}
+	}
+}
@@ -4,8 +4,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.log4j.Logger;
+import org.fogbowcloud.blowout.core.model.Specification;
 import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
 import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.fogbowcloud.blowout.pool.ResourceCatalog;
 
 import condor.classad.AttrRef;
 import condor.classad.ClassAdParser;
@@ -32,7 +34,8 @@ public class FogbowRequirementsHelper {
 		
 		LOGGER.debug("Validating Fogbow Requirements ["+requirementsString+"]");
 		
-		if (requirementsString == null || requirementsString.isEmpty()) {
+		if (requirementsString == null || requirementsString.isEmpty()
+				|| FogbowRequirements.forRequirements(requirementsString) != null) {
 			
 			LOGGER.debug("Fogbow Requirements ["+requirementsString+"] Validate with sucess.");
 			return true;
@@ -52,8 +55,38 @@ public class FogbowRequirementsHelper {
 		}
 	}
 
+	/**
+	 * Requirements are compiled once into a {@link FogbowRequirements}
+	 * predicate; ClassAd only evaluates the ones the compiler does not support.
+	 */
 	public static boolean matches(FogbowResource resource, String requirementsStr) {
 		
+		if (requirementsStr == null || requirementsStr.trim().isEmpty()) {
+			return true;
+		}
+		FogbowRequirements compiled = FogbowRequirements.forRequirements(requirementsStr);
+		if (compiled != null) {
+			return compiled.matches(resource);
+		}
+		return classAdMatches(resource, requirementsStr);
+	}
+
+	/**
+	 * Returns the catalog query for the resources the requirements of the
+	 * specification may match; it has no bound when they cannot be compiled.
+	 */
+	public static ResourceCatalog.Query toQuery(Specification spec) {
+		String requirements = spec.getRequirementValue(METADATA_FOGBOW_REQUIREMENTS);
+		FogbowRequirements compiled = FogbowRequirements.forRequirements(requirements);
+		return compiled == null ? new ResourceCatalog.Query() : compiled.toQuery();
+	}
+
+	/**
+	 * The ClassAd evaluation the compiled requirements replace; also checked
+	 * against them in the tests.
+	 */
+	static boolean classAdMatches(FogbowResource resource, String requirementsStr) {
+		
 		LOGGER.debug("Matching Fogbow Requirements [" + requirementsStr + "] with Resource [id: "
 				+ resource.getId() + "]");
 		
@@ -3,10 +3,13 @@ package org.fogbowcloud.blowout.pool;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Future;
 
 import org.fogbowcloud.blowout.core.model.Specification;
 import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
 import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.infrastructure.monitor.ConnectivityProber;
+import org.fogbowcloud.blowout.infrastructure.monitor.ProbeResult;
 
 public abstract class AbstractResource {
 
@@ -55,10 +58,23 @@ public abstract class AbstractResource {
 	
 	public boolean checkConnectivity(){
 		
-		boolean success = this.internalCheckConnectivity();
+		return updateConnectivity(this.internalCheckConnectivity());
+		
+	}
+
+	/**
+	 * Starts a connectivity check that may run along with the checks of other
+	 * resources; the result must then be given to
+	 * {@link #updateConnectivity(boolean)}. By default the check is the
+	 * blocking one, done before returning.
+	 */
+	public Future<Boolean> probeConnectivity(ConnectivityProber prober) {
+		return ProbeResult.of(this.internalCheckConnectivity());
+	}
+
+	public boolean updateConnectivity(boolean success) {
 		connectionFailTries = success ? 0 : connectionFailTries+1;
 		return success;
-		
 	}
 
 	public void putMetadata(String attributeName, String value) {
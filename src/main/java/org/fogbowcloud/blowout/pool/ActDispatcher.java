@@ -0,0 +1,130 @@
+package org.fogbowcloud.blowout.pool;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs the pool act on a dedicated thread, coalescing every change notification
+ * received while a pass is pending or running into a single act pass.
+ *
+ * Passes are started at most once every minimum interval (derived from the max
+ * rate), as soon as the interval allows, so a pending notification waits at
+ * most that interval. The max latency may not be below it.
+ */
+public class ActDispatcher implements Runnable {
+
+	private static final Logger LOGGER = Logger.getLogger(ActDispatcher.class);
+
+	private final Runnable action;
+	private final long minInterval;
+	private final long maxLatency;
+
+	private final Object lock = new Object();
+	private boolean pending = false;
+	private long lastActAt = 0;
+
+	private long requestedActs = 0;
+	private long executedActs = 0;
+
+	private volatile boolean active = false;
+	private Thread dispatcherThread;
+
+	public ActDispatcher(Runnable action, double maxRate, long maxLatency) {
+		this.action = action;
+		this.minInterval = maxRate > 0 ? (long) (1000 / maxRate) : 0;
+		this.maxLatency = maxLatency;
+		if (maxLatency < minInterval) {
+			throw new IllegalArgumentException("Act max latency of " + maxLatency
+					+ " ms is below the " + minInterval + " ms between passes the max rate allows");
+		}
+	}
+
+	public void start() {
+		active = true;
+		dispatcherThread = new Thread(this, "blowout-act-dispatcher");
+		dispatcherThread.setDaemon(true);
+		dispatcherThread.start();
+		LOGGER.debug("Act dispatcher started - min interval: " + minInterval + " ms, max latency: " + maxLatency
+				+ " ms");
+	}
+
+	public void stop() {
+		active = false;
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+		if (dispatcherThread != null) {
+			dispatcherThread.interrupt();
+		}
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void requestAct() {
+		synchronized (lock) {
+			requestedActs++;
+			if (!pending) {
+				pending = true;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		while (active) {
+			try {
+				if (awaitNextAct()) {
+					action.run();
+				}
+			} catch (InterruptedException e) {
+				LOGGER.debug("Act dispatcher interrupted");
+			} catch (Throwable e) {
+				LOGGER.error("Error while dispatching act", e);
+			}
+		}
+	}
+
+	private boolean awaitNextAct() throws InterruptedException {
+		synchronized (lock) {
+			while (active && !pending) {
+				lock.wait();
+			}
+			if (!active) {
+				return false;
+			}
+			long now = System.currentTimeMillis();
+			long actAt = lastActAt + minInterval;
+			while (active && now < actAt) {
+				lock.wait(actAt - now);
+				now = System.currentTimeMillis();
+			}
+			if (!active) {
+				return false;
+			}
+			pending = false;
+			lastActAt = now;
+			executedActs++;
+			return true;
+		}
+	}
+
+	public long getRequestedActs() {
+		synchronized (lock) {
+			return requestedActs;
+		}
+	}
+
+	public long getExecutedActs() {
+		synchronized (lock) {
+			return executedActs;
+		}
+	}
+
+	public boolean isPending() {
+		synchronized (lock) {
+			return pending;
+		}
+	}
+}
@@ -11,6 +11,8 @@ public interface BlowoutPool{
 	
 	void start(InfrastructureManager infraManager, SchedulerInterface schedulerInterface);
 	
+	void stop();
+	
 	void addResource(AbstractResource resource);
 	
 	void addResourceList(List<AbstractResource> resources);
@@ -31,6 +33,8 @@ public interface BlowoutPool{
 	
 	Task getTaskById(String taskId);
 	
+	void updateTask(Task task);
+	
 	void removeTask(Task task);
 
 
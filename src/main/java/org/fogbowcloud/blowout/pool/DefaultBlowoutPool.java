@@ -1,13 +1,18 @@
 package org.fogbowcloud.blowout.pool;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.fogbowcloud.blowout.core.SchedulerInterface;
 import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.blowout.database.TaskJournal;
 import org.fogbowcloud.blowout.infrastructure.manager.InfrastructureManager;
 import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
 
@@ -15,22 +20,77 @@ public class DefaultBlowoutPool implements BlowoutPool {
 	
 	public static final Logger LOGGER = Logger.getLogger(DefaultBlowoutPool.class);
 
+	private static final String DEFAULT_ACT_MAX_RATE = "10";
+	private static final String DEFAULT_ACT_MAX_LATENCY = "1000";
+
 	private Map<String, AbstractResource> resourcePool = new ConcurrentHashMap<String, AbstractResource>();
-	private List<Task> taskPool = new ArrayList<Task>();
+	private IndexedTaskPool taskPool = new IndexedTaskPool();
 	private InfrastructureManager infraManager;
 	private SchedulerInterface schedulerInterface;
+	private ActDispatcher actDispatcher;
+	private TaskJournal taskJournal;
+	private volatile boolean hasRecoveredTasks = false;
+
+	public DefaultBlowoutPool() {
+	}
+
+	public DefaultBlowoutPool(Properties properties) {
+		double maxActRate = Double.parseDouble(
+				properties.getProperty(AppPropertiesConstants.POOL_ACT_MAX_RATE, DEFAULT_ACT_MAX_RATE));
+		long maxActLatency = Long.parseLong(
+				properties.getProperty(AppPropertiesConstants.POOL_ACT_MAX_LATENCY, DEFAULT_ACT_MAX_LATENCY));
+		if (maxActRate > 0) {
+			this.actDispatcher = new ActDispatcher(new Runnable() {
+				@Override
+				public void run() {
+					callAct();
+				}
+			}, maxActRate, maxActLatency);
+		}
+		this.taskJournal = TaskJournal.createTaskJournal(properties);
+		if (taskJournal != null) {
+			recoverTasks();
+		}
+	}
+
+	protected void recoverTasks() {
+		try {
+			taskPool.addAll(taskJournal.recover());
+			hasRecoveredTasks = taskPool.countUnfinished() > 0;
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not recover the tasks of the task journal", e);
+		}
+	}
 
 	@Override
 	public void start(InfrastructureManager infraManager, SchedulerInterface schedulerInterface) {
 		this.infraManager = infraManager;
 		this.schedulerInterface = schedulerInterface;
+		if (actDispatcher != null && !actDispatcher.isActive()) {
+			actDispatcher.start();
+		}
+		// Tasks recovered from the journal need resources before any new submission
+		if (hasRecoveredTasks) {
+			hasRecoveredTasks = false;
+			requestAct();
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (actDispatcher != null) {
+			actDispatcher.stop();
+		}
+		if (taskJournal != null) {
+			taskJournal.close();
+		}
 	}
 
 	@Override
 	public void addResource(AbstractResource resource) {
 		resource.setState(ResourceState.IDLE);
 		resourcePool.put(resource.getId(), resource);
-		callAct();
+		requestAct();
 	}
 	
 	@Override
@@ -39,7 +99,7 @@ public class DefaultBlowoutPool implements BlowoutPool {
 			resource.setState(ResourceState.IDLE);
 			resourcePool.put(resource.getId(), resource);
 		}
-		callAct();
+		requestAct();
 	}
 
 	@Override
@@ -48,14 +108,23 @@ public class DefaultBlowoutPool implements BlowoutPool {
 		if (currentResource != null) {
 			currentResource.setState(state);
 			resourcePool.put(resource.getId(), currentResource);
+			requestAct();
+		}
+	}
+
+	protected void requestAct() {
+		if (actDispatcher != null && actDispatcher.isActive()) {
+			actDispatcher.requestAct();
+		} else {
 			callAct();
 		}
 	}
 
 	protected synchronized void callAct() {
 		try {
-			infraManager.act(getAllResources(), getAllTasks());
-			schedulerInterface.act(getAllTasks(), getAllResources());
+			List<Task> unfinishedTasks = getUnfinishedTasks();
+			infraManager.act(getAllResources(), unfinishedTasks);
+			schedulerInterface.act(unfinishedTasks, getAllResources());
 		} catch (Exception e) {
 			LOGGER.error("Error while calling act", e);
 		}
@@ -78,38 +147,51 @@ public class DefaultBlowoutPool implements BlowoutPool {
 
 	@Override
 	public void putTask(Task task) {
-
 		taskPool.add(task);
-		callAct();
+		if (taskJournal != null) {
+			taskJournal.recordAdded(Collections.singletonList(task));
+		}
+		requestAct();
 	}
 
 	@Override
 	public void addTasks(List<Task> tasks) {
-
 		taskPool.addAll(tasks);
-		callAct();
+		if (taskJournal != null) {
+			taskJournal.recordAdded(tasks);
+		}
+		requestAct();
 	}
 
 	@Override
 	public List<Task> getAllTasks() {
-		return new ArrayList<Task>(taskPool);
+		return taskPool.getAll();
+	}
+
+	public List<Task> getUnfinishedTasks() {
+		return taskPool.getUnfinished();
 	}
 
 	@Override
 	public Task getTaskById(String taskId) {
-		for(int i = 0; i <= taskPool.size(); i++) {
-			if(taskPool.get(i).getId().equals(taskId)) {
-				return taskPool.get(i);
-			}
+		return taskPool.get(taskId);
+	}
+
+	@Override
+	public void updateTask(Task task) {
+		taskPool.update(task);
+		if (taskJournal != null) {
+			taskJournal.recordUpdated(task);
 		}
-		
-		return null;
 	}
 
 	@Override
 	public void removeTask(Task task) {
 		taskPool.remove(task);
-		callAct();
+		if (taskJournal != null) {
+			taskJournal.recordRemoved(task);
+		}
+		requestAct();
 	}
 
 	protected InfrastructureManager getInfraManager() {
@@ -136,11 +218,29 @@ public class DefaultBlowoutPool implements BlowoutPool {
 		this.resourcePool = resourcePool;
 	}
 
-	protected List<Task> getTaskPool() {
+	protected IndexedTaskPool getTaskPool() {
 		return taskPool;
 	}
 
-	protected void setTaskPool(List<Task> taskPool) {
+	protected void setTaskPool(List<Task> tasks) {
+		IndexedTaskPool taskPool = new IndexedTaskPool();
+		taskPool.addAll(tasks);
 		this.taskPool = taskPool;
 	}
+
+	protected TaskJournal getTaskJournal() {
+		return taskJournal;
+	}
+
+	protected void setTaskJournal(TaskJournal taskJournal) {
+		this.taskJournal = taskJournal;
+	}
+
+	protected ActDispatcher getActDispatcher() {
+		return actDispatcher;
+	}
+
+	protected void setActDispatcher(ActDispatcher actDispatcher) {
+		this.actDispatcher = actDispatcher;
+	}
 }
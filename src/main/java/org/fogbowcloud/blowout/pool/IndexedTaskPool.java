@@ -0,0 +1,188 @@
+package org.fogbowcloud.blowout.pool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.fogbowcloud.blowout.core.model.Task;
+
+/**
+ * Thread-safe task store indexed by id and by finished flag. Buckets preserve
+ * insertion order.
+ *
+ * Tasks are mutated outside the store, so whoever finishes a stored task must
+ * call {@link #update(Task)} to move it to the right bucket.
+ */
+public class IndexedTaskPool {
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<String, IndexEntry> entriesById = new LinkedHashMap<String, IndexEntry>();
+	private final Map<String, Task> finished = new LinkedHashMap<String, Task>();
+	private final Map<String, Task> unfinished = new LinkedHashMap<String, Task>();
+
+	public void add(Task task) {
+		lock.writeLock().lock();
+		try {
+			IndexEntry previous = entriesById.remove(task.getId());
+			if (previous != null) {
+				unindex(previous);
+			}
+			IndexEntry entry = new IndexEntry(task);
+			entriesById.put(task.getId(), entry);
+			index(entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void addAll(Collection<Task> tasks) {
+		lock.writeLock().lock();
+		try {
+			for (Task task : tasks) {
+				add(task);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public boolean remove(Task task) {
+		lock.writeLock().lock();
+		try {
+			IndexEntry entry = entriesById.remove(task.getId());
+			if (entry == null) {
+				return false;
+			}
+			unindex(entry);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void update(Task task) {
+		lock.writeLock().lock();
+		try {
+			IndexEntry entry = entriesById.get(task.getId());
+			if (entry == null) {
+				return;
+			}
+			if (entry.finished == task.isFinished()) {
+				return;
+			}
+			unindex(entry);
+			entry.finished = task.isFinished();
+			index(entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			entriesById.clear();
+			finished.clear();
+			unfinished.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Task get(String taskId) {
+		lock.readLock().lock();
+		try {
+			IndexEntry entry = entriesById.get(taskId);
+			return entry == null ? null : entry.task;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return entriesById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Task> getAll() {
+		lock.readLock().lock();
+		try {
+			List<Task> tasks = new ArrayList<Task>(entriesById.size());
+			for (IndexEntry entry : entriesById.values()) {
+				tasks.add(entry.task);
+			}
+			return tasks;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Task> getFinished() {
+		lock.readLock().lock();
+		try {
+			return copyOf(finished);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Task> getUnfinished() {
+		lock.readLock().lock();
+		try {
+			return copyOf(unfinished);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int countUnfinished() {
+		lock.readLock().lock();
+		try {
+			return unfinished.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void index(IndexEntry entry) {
+		if (entry.finished) {
+			finished.put(entry.task.getId(), entry.task);
+		} else {
+			unfinished.put(entry.task.getId(), entry.task);
+		}
+	}
+
+	private void unindex(IndexEntry entry) {
+		if (entry.finished) {
+			finished.remove(entry.task.getId());
+		} else {
+			unfinished.remove(entry.task.getId());
+		}
+	}
+
+	private static List<Task> copyOf(Map<String, Task> bucket) {
+		if (bucket == null) {
+			return new ArrayList<Task>();
+		}
+		return new ArrayList<Task>(bucket.values());
+	}
+
+	private static class IndexEntry {
+		private final Task task;
+		private boolean finished;
+
+		private IndexEntry(Task task) {
+			this.task = task;
+			this.finished = task.isFinished();
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package org.fogbowcloud.blowout.pool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe resource store that keeps the cores, memory, disk size and
+ * location of each resource as typed values, parsed once from its metadata,
+ * with sorted indexes by each. A {@link Query} is answered from the narrowest
+ * index instead of by scanning every resource.
+ *
+ * Numbers are kept rounded down, so a query may return resources that a
+ * fractional bound would exclude; results are candidates to be confirmed
+ * with {@link AbstractResource#match}. Resources are mutated outside the
+ * catalog, so whoever changes the metadata of a stored resource must call
+ * {@link #refresh(AbstractResource)}.
+ */
+public class ResourceCatalog {
+
+	public static final long UNKNOWN = -1;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<String, CatalogEntry> entriesById = new LinkedHashMap<String, CatalogEntry>();
+	private final NavigableMap<Long, Map<String, AbstractResource>> byCores = new TreeMap<Long, Map<String, AbstractResource>>();
+	private final NavigableMap<Long, Map<String, AbstractResource>> byMemory = new TreeMap<Long, Map<String, AbstractResource>>();
+	private final NavigableMap<Long, Map<String, AbstractResource>> byDisk = new TreeMap<Long, Map<String, AbstractResource>>();
+	private final Map<Integer, Map<String, AbstractResource>> byLocation = new HashMap<Integer, Map<String, AbstractResource>>();
+	// Resources that do not report a disk size, which requirements on it do not exclude.
+	private final Map<String, AbstractResource> unreportedDisk = new LinkedHashMap<String, AbstractResource>();
+	// Never released; there are only so many locations.
+	private final Map<String, Integer> locationIds = new HashMap<String, Integer>();
+
+	public void add(AbstractResource resource) {
+		lock.writeLock().lock();
+		try {
+			CatalogEntry previous = entriesById.remove(resource.getId());
+			if (previous != null) {
+				unindex(previous);
+			}
+			CatalogEntry entry = new CatalogEntry(resource);
+			entry.refresh(this);
+			entriesById.put(resource.getId(), entry);
+			index(entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void addAll(Collection<AbstractResource> resources) {
+		lock.writeLock().lock();
+		try {
+			for (AbstractResource resource : resources) {
+				add(resource);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public boolean remove(AbstractResource resource) {
+		lock.writeLock().lock();
+		try {
+			CatalogEntry entry = entriesById.remove(resource.getId());
+			if (entry == null) {
+				return false;
+			}
+			unindex(entry);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void refresh(AbstractResource resource) {
+		lock.writeLock().lock();
+		try {
+			CatalogEntry entry = entriesById.get(resource.getId());
+			if (entry == null || entry.isCurrent()) {
+				return;
+			}
+			unindex(entry);
+			entry.refresh(this);
+			index(entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			entriesById.clear();
+			byCores.clear();
+			byMemory.clear();
+			byDisk.clear();
+			byLocation.clear();
+			unreportedDisk.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return entriesById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the resources that may meet the query, in insertion order when
+	 * the query has no bound.
+	 */
+	public List<AbstractResource> find(Query query) {
+		lock.readLock().lock();
+		try {
+			Collection<Map<String, AbstractResource>> candidates = null;
+			int candidateCount = entriesById.size();
+
+			if (query.location != null) {
+				Integer locationId = locationIds.get(normalizeLocation(query.location));
+				Map<String, AbstractResource> bucket = locationId == null ? null : byLocation.get(locationId);
+				if (bucket == null) {
+					return new ArrayList<AbstractResource>();
+				}
+				candidates = Collections.singletonList(bucket);
+				candidateCount = bucket.size();
+			}
+			if (query.minCores != UNKNOWN || query.maxCores != Long.MAX_VALUE) {
+				Collection<Map<String, AbstractResource>> range = range(byCores, query.minCores, query.maxCores);
+				int count = count(range);
+				if (count < candidateCount) {
+					candidates = range;
+					candidateCount = count;
+				}
+			}
+			if (query.minMemory != UNKNOWN || query.maxMemory != Long.MAX_VALUE) {
+				Collection<Map<String, AbstractResource>> range = range(byMemory, query.minMemory, query.maxMemory);
+				int count = count(range);
+				if (count < candidateCount) {
+					candidates = range;
+					candidateCount = count;
+				}
+			}
+			if (query.minDisk != UNKNOWN || query.maxDisk != Long.MAX_VALUE) {
+				List<Map<String, AbstractResource>> range = new ArrayList<Map<String, AbstractResource>>(
+						range(byDisk, query.minDisk, query.maxDisk));
+				range.add(unreportedDisk);
+				int count = count(range);
+				if (count < candidateCount) {
+					candidates = range;
+					candidateCount = count;
+				}
+			}
+
+			List<AbstractResource> resources = new ArrayList<AbstractResource>(candidateCount);
+			if (candidates == null) {
+				for (CatalogEntry entry : entriesById.values()) {
+					resources.add(entry.resource);
+				}
+				return resources;
+			}
+			Integer locationId = query.location == null ? null : locationIds.get(normalizeLocation(query.location));
+			for (Map<String, AbstractResource> bucket : candidates) {
+				for (String resourceId : bucket.keySet()) {
+					CatalogEntry entry = entriesById.get(resourceId);
+					if (entry.meets(query, locationId)) {
+						resources.add(entry.resource);
+					}
+				}
+			}
+			return resources;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static Collection<Map<String, AbstractResource>> range(
+			NavigableMap<Long, Map<String, AbstractResource>> index, long min, long max) {
+		long lower = Math.max(min, 0);
+		if (lower > max) {
+			return new ArrayList<Map<String, AbstractResource>>();
+		}
+		return index.subMap(lower, true, max, true).values();
+	}
+
+	private static int count(Collection<Map<String, AbstractResource>> buckets) {
+		int count = 0;
+		for (Map<String, AbstractResource> bucket : buckets) {
+			count += bucket.size();
+		}
+		return count;
+	}
+
+	private void index(CatalogEntry entry) {
+		String resourceId = entry.resource.getId();
+		if (entry.cores != UNKNOWN) {
+			bucket(byCores, entry.cores).put(resourceId, entry.resource);
+		}
+		if (entry.memory != UNKNOWN) {
+			bucket(byMemory, entry.memory).put(resourceId, entry.resource);
+		}
+		if (entry.disk != UNKNOWN) {
+			bucket(byDisk, entry.disk).put(resourceId, entry.resource);
+		} else {
+			unreportedDisk.put(resourceId, entry.resource);
+		}
+		if (entry.locationId != UNKNOWN) {
+			bucket(byLocation, (int) entry.locationId).put(resourceId, entry.resource);
+		}
+	}
+
+	private void unindex(CatalogEntry entry) {
+		String resourceId = entry.resource.getId();
+		if (entry.cores != UNKNOWN) {
+			removeFromBucket(byCores, entry.cores, resourceId);
+		}
+		if (entry.memory != UNKNOWN) {
+			removeFromBucket(byMemory, entry.memory, resourceId);
+		}
+		if (entry.disk != UNKNOWN) {
+			removeFromBucket(byDisk, entry.disk, resourceId);
+		} else {
+			unreportedDisk.remove(resourceId);
+		}
+		if (entry.locationId != UNKNOWN) {
+			removeFromBucket(byLocation, (int) entry.locationId, resourceId);
+		}
+	}
+
+	private int internLocation(String location) {
+		String normalized = normalizeLocation(location);
+		Integer locationId = locationIds.get(normalized);
+		if (locationId == null) {
+			locationId = locationIds.size();
+			locationIds.put(normalized, locationId);
+		}
+		return locationId;
+	}
+
+	/**
+	 * Locations compare as ClassAd strings do, without case.
+	 */
+	private static String normalizeLocation(String location) {
+		return location.toLowerCase();
+	}
+
+	private static <K> Map<String, AbstractResource> bucket(Map<K, Map<String, AbstractResource>> index, K key) {
+		Map<String, AbstractResource> bucket = index.get(key);
+		if (bucket == null) {
+			bucket = new LinkedHashMap<String, AbstractResource>();
+			index.put(key, bucket);
+		}
+		return bucket;
+	}
+
+	private static <K> void removeFromBucket(Map<K, Map<String, AbstractResource>> index, K key,
+			String resourceId) {
+		Map<String, AbstractResource> bucket = index.get(key);
+		if (bucket != null) {
+			bucket.remove(resourceId);
+			if (bucket.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Bounds on the typed attributes, all inclusive; an unset bound does not
+	 * restrict. A resource missing an attribute the query bounds is left out,
+	 * except for the disk size, as requirements do not restrict resources
+	 * that do not report it.
+	 */
+	public static class Query {
+
+		private long minCores = UNKNOWN;
+		private long maxCores = Long.MAX_VALUE;
+		private long minMemory = UNKNOWN;
+		private long maxMemory = Long.MAX_VALUE;
+		private long minDisk = UNKNOWN;
+		private long maxDisk = Long.MAX_VALUE;
+		private String location;
+
+		public Query narrowCores(long min, long max) {
+			minCores = Math.max(minCores, min);
+			maxCores = Math.min(maxCores, max);
+			return this;
+		}
+
+		public Query narrowMemory(long min, long max) {
+			minMemory = Math.max(minMemory, min);
+			maxMemory = Math.min(maxMemory, max);
+			return this;
+		}
+
+		public Query narrowDisk(long min, long max) {
+			minDisk = Math.max(minDisk, min);
+			maxDisk = Math.min(maxDisk, max);
+			return this;
+		}
+
+		/**
+		 * Location as the resources report it, without the quotes ClassAd
+		 * needs around it.
+		 */
+		public Query location(String location) {
+			this.location = location;
+			return this;
+		}
+
+		public String getLocation() {
+			return location;
+		}
+	}
+
+	private static class CatalogEntry {
+		private final AbstractResource resource;
+		private String rawCores;
+		private String rawMemory;
+		private String rawDisk;
+		private String rawLocation;
+		private long cores;
+		private long memory;
+		private long disk;
+		private long locationId;
+
+		private CatalogEntry(AbstractResource resource) {
+			this.resource = resource;
+		}
+
+		private boolean isCurrent() {
+			return rawCores == resource.getMetadataValue(AbstractResource.METADATA_VCPU)
+					&& rawMemory == resource.getMetadataValue(AbstractResource.METADATA_MEN_SIZE)
+					&& rawDisk == resource.getMetadataValue(AbstractResource.METADATA_DISK_SIZE)
+					&& rawLocation == resource.getMetadataValue(AbstractResource.METADATA_LOCATION);
+		}
+
+		private void refresh(ResourceCatalog catalog) {
+			rawCores = resource.getMetadataValue(AbstractResource.METADATA_VCPU);
+			rawMemory = resource.getMetadataValue(AbstractResource.METADATA_MEN_SIZE);
+			rawDisk = resource.getMetadataValue(AbstractResource.METADATA_DISK_SIZE);
+			rawLocation = resource.getMetadataValue(AbstractResource.METADATA_LOCATION);
+			cores = parseSize(rawCores);
+			memory = parseSize(rawMemory);
+			disk = parseSize(rawDisk);
+			if (disk == 0) {
+				disk = UNKNOWN;
+			}
+			String location = unquote(rawLocation);
+			locationId = location == null ? UNKNOWN : catalog.internLocation(location);
+		}
+
+		private boolean meets(Query query, Integer locationId) {
+			if (query.location != null && (locationId == null || this.locationId != locationId)) {
+				return false;
+			}
+			if ((query.minCores != UNKNOWN || query.maxCores != Long.MAX_VALUE)
+					&& (cores == UNKNOWN || cores < query.minCores || cores > query.maxCores)) {
+				return false;
+			}
+			if ((query.minMemory != UNKNOWN || query.maxMemory != Long.MAX_VALUE)
+					&& (memory == UNKNOWN || memory < query.minMemory || memory > query.maxMemory)) {
+				return false;
+			}
+			return disk == UNKNOWN || (disk >= query.minDisk && disk <= query.maxDisk);
+		}
+
+		private static long parseSize(String value) {
+			if (value == null) {
+				return UNKNOWN;
+			}
+			try {
+				double size = Double.parseDouble(value.trim());
+				return size >= 0 ? (long) Math.floor(size) : UNKNOWN;
+			} catch (NumberFormatException e) {
+				return UNKNOWN;
+			}
+		}
+
+		/**
+		 * Only quoted values are ClassAd strings; anything else never equals
+		 * a location.
+		 */
+		private static String unquote(String value) {
+			if (value == null) {
+				return null;
+			}
+			String trimmed = value.trim();
+			if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+				return trimmed.substring(1, trimmed.length() - 1);
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package org.fogbowcloud.blowout.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fogbowcloud.blowout.core.model.Job;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class FairShareSchedulerTest {
+
+	private static final String FAKE_UUID = "1234";
+
+	private TaskMonitor taskMon;
+	private Specification spec;
+	private FairShareScheduler scheduler;
+	private List<Task> tasks;
+
+	@Before
+	public void setUp() {
+		taskMon = Mockito.mock(TaskMonitor.class);
+		spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		scheduler = new FairShareScheduler(taskMon);
+		tasks = new ArrayList<Task>();
+	}
+
+	@Test
+	public void testShortJobIsNotStarvedByLongJob() {
+		addTasks("sweep", 100, 1, 0, 0);
+		addTasks("interactive", 2, 1, 0, 0);
+
+		List<String> jobs = runOneAtATime(4);
+
+		Assert.assertEquals(2, countJob(jobs, "interactive"));
+	}
+
+	@Test
+	public void testTasksAreSharedByWeight() {
+		addTasks("heavy", 20, 2, 0, 0);
+		addTasks("light", 20, 1, 0, 0);
+
+		List<String> jobs = runOneAtATime(9);
+
+		Assert.assertEquals(6, countJob(jobs, "heavy"));
+		Assert.assertEquals(3, countJob(jobs, "light"));
+	}
+
+	@Test
+	public void testHigherPriorityJobsRunFirst() {
+		addTasks("batch", 5, 10, 0, 0);
+		addTasks("urgent", 3, 1, 1, 0);
+
+		List<String> jobs = runOneAtATime(4);
+
+		Assert.assertEquals("urgent", jobs.get(0));
+		Assert.assertEquals("urgent", jobs.get(1));
+		Assert.assertEquals("urgent", jobs.get(2));
+		Assert.assertEquals("batch", jobs.get(3));
+	}
+
+	@Test
+	public void testJobsDoNotRunMoreThanTheirMaximum() {
+		addTasks("capped", 5, 10, 0, 1);
+		addTasks("other", 5, 1, 0, 0);
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		for (int i = 0; i < 3; i++) {
+			AbstractResource resource = new FogbowResource("resource" + i, "order" + i, spec);
+			resource.setState(ResourceState.IDLE);
+			resources.add(resource);
+		}
+
+		scheduler.act(tasks, resources);
+
+		List<String> jobs = new ArrayList<String>();
+		for (Task task : scheduler.getRunningTasks()) {
+			jobs.add(task.getMetadata(TaskImpl.METADATA_JOB_ID));
+		}
+		Assert.assertEquals(1, countJob(jobs, "capped"));
+		Assert.assertEquals(2, countJob(jobs, "other"));
+	}
+
+	@Test
+	public void testJobTagsItsTasks() {
+		Task task = new TaskImpl("task", spec, FAKE_UUID);
+		List<Task> jobTasks = new ArrayList<Task>();
+		jobTasks.add(task);
+		Job job = new Job(jobTasks) {
+			private static final long serialVersionUID = 1L;
+			// Not yet set while the Job constructor runs.
+			private final String id = "job";
+
+			@Override
+			public void finish(Task task) {
+			}
+
+			@Override
+			public void fail(Task task) {
+			}
+
+			@Override
+			public String getId() {
+				return id;
+			}
+		};
+		job.setWeight(3);
+		job.setMaxRunningTasks(2);
+
+		Assert.assertEquals(task, job.getTasks().get(0));
+		Assert.assertNull(task.getMetadata(TaskImpl.METADATA_JOB_ID));
+
+		job.tagTasks();
+		Assert.assertEquals("job", task.getMetadata(TaskImpl.METADATA_JOB_ID));
+		Assert.assertEquals("3", task.getMetadata(TaskImpl.METADATA_JOB_WEIGHT));
+		Assert.assertEquals("0", task.getMetadata(TaskImpl.METADATA_JOB_PRIORITY));
+		Assert.assertEquals("2", task.getMetadata(TaskImpl.METADATA_JOB_MAX_RUNNING_TASKS));
+	}
+
+	private List<String> runOneAtATime(int count) {
+		AbstractResource resource = new FogbowResource("resource", "order", spec);
+		List<String> jobs = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			Task task = scheduler.chooseTaskForRunning(resource, tasks);
+			scheduler.runTask(task, resource);
+			task.finish();
+			jobs.add(task.getMetadata(TaskImpl.METADATA_JOB_ID));
+		}
+		return jobs;
+	}
+
+	private void addTasks(String jobId, int count, int weight, int priority, int maxRunningTasks) {
+		for (int i = 0; i < count; i++) {
+			Task task = new TaskImpl(jobId + i, spec, FAKE_UUID);
+			task.putMetadata(TaskImpl.METADATA_JOB_ID, jobId);
+			task.putMetadata(TaskImpl.METADATA_JOB_WEIGHT, String.valueOf(weight));
+			task.putMetadata(TaskImpl.METADATA_JOB_PRIORITY, String.valueOf(priority));
+			task.putMetadata(TaskImpl.METADATA_JOB_MAX_RUNNING_TASKS, String.valueOf(maxRunningTasks));
+			tasks.add(task);
+		}
+	}
+
+	private static int countJob(List<String> jobs, String jobId) {
+		int count = 0;
+		for (String job : jobs) {
+			if (jobId.equals(job)) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,180 @@
+package org.fogbowcloud.blowout.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
+import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowRequirementsHelper;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ScoringSchedulerTest {
+
+	private static final String FAKE_UUID = "1234";
+
+	private TaskMonitor taskMon;
+	private Specification spec;
+	private long now;
+	private ScoringScheduler scheduler;
+	private List<Task> tasks;
+
+	@Before
+	public void setUp() {
+		taskMon = Mockito.mock(TaskMonitor.class);
+		spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		now = 0;
+		scheduler = new ScoringScheduler(taskMon) {
+			@Override
+			protected long currentTimeMillis() {
+				return now;
+			}
+		};
+		tasks = new ArrayList<Task>();
+	}
+
+	@Test
+	public void testHigherPriorityFirstThenOldestFirst() {
+		Task first = addTask("first", spec, 0, null);
+		Task second = addTask("second", spec, 0, null);
+		Task urgent = addTask("urgent", spec, 2, null);
+		AbstractResource resource = new FogbowResource("resource", "order", spec);
+
+		Assert.assertEquals(urgent, scheduler.chooseTaskForRunning(resource, tasks));
+		tasks.remove(urgent);
+		Assert.assertEquals(first, scheduler.chooseTaskForRunning(resource, tasks));
+		tasks.remove(first);
+		Assert.assertEquals(second, scheduler.chooseTaskForRunning(resource, tasks));
+	}
+
+	@Test
+	public void testWaitingOutweighsPriority() {
+		Task waiting = addTask("waiting", spec, 0, null);
+		scheduler.chooseTaskForRunning(new FogbowResource("resource", "order", spec), tasks);
+		now = 2 * 60 * 1000;
+		addTask("urgent", spec, 1, null);
+
+		Assert.assertEquals(waiting,
+				scheduler.chooseTaskForRunning(new FogbowResource("resource", "order", spec), tasks));
+	}
+
+	@Test
+	public void testRejectedTaskKeepsItsWait() {
+		Task waiting = addTask("waiting", spec, 0, null);
+		AbstractResource resource = new FogbowResource("resource", "order", spec);
+		resource.setState(ResourceState.IDLE);
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		resources.add(resource);
+		scheduler.act(tasks, resources);
+		Mockito.verify(taskMon).runTask(waiting, resource);
+
+		now = 2 * 60 * 1000;
+		scheduler.taskRejected(waiting, resource);
+		addTask("urgent", spec, 1, null);
+
+		Assert.assertEquals(waiting,
+				scheduler.chooseTaskForRunning(new FogbowResource("other", "order", spec), tasks));
+	}
+
+	@Test
+	public void testTasksPreferTheirLocation() {
+		addTask("anywhere", spec, 0, null);
+		Task local = addTask("local", spec, 0, "memberA");
+		Task urgent = addTask("urgent", spec, 2, "memberB");
+		AbstractResource resource = new FogbowResource("resource", "order", spec);
+		resource.putMetadata(AbstractResource.METADATA_LOCATION, "\"MemberA\"");
+
+		Assert.assertEquals(urgent, scheduler.chooseTaskForRunning(resource, tasks));
+		tasks.remove(urgent);
+		Assert.assertEquals(local, scheduler.chooseTaskForRunning(resource, tasks));
+	}
+
+	@Test
+	public void testResourceRunsTasksOfSpecificationsItMatches() {
+		Specification otherSpec = new Specification("otherImage", "username", "publicKey", "privateKeyFilePath");
+		otherSpec.addRequirement(FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS, "Glue2vCPU >= 2");
+		Task other = addTask("other", otherSpec, 0, null);
+		AbstractResource resource = new FogbowResource("resource", "order", spec);
+		resource.putMetadata(AbstractResource.METADATA_IMAGE, "otherImage");
+		resource.putMetadata(AbstractResource.METADATA_PUBLIC_KEY, "publicKey");
+		resource.putMetadata(AbstractResource.METADATA_VCPU, "1");
+
+		Assert.assertNull(scheduler.chooseTaskForRunning(resource, tasks));
+
+		resource.putMetadata(AbstractResource.METADATA_VCPU, "2");
+
+		Assert.assertEquals(other, scheduler.chooseTaskForRunning(resource, tasks));
+	}
+
+	@Test
+	public void testResourceRunsOtherSpecificationsWhenItsOwnIsSaturated() {
+		Specification otherSpec = new Specification("otherImage", "username", "publicKey", "privateKeyFilePath");
+		otherSpec.addRequirement(FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS, "Glue2vCPU >= 1");
+		addTask("task", spec, 2, null);
+		Task other = addTask("other", otherSpec, 0, null);
+		AbstractResource resource = new FogbowResource("resource", "order", spec);
+		resource.setState(ResourceState.IDLE);
+		resource.putMetadata(AbstractResource.METADATA_IMAGE, "otherImage");
+		resource.putMetadata(AbstractResource.METADATA_PUBLIC_KEY, "publicKey");
+		resource.putMetadata(AbstractResource.METADATA_VCPU, "1");
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		resources.add(resource);
+		Mockito.doReturn(true).when(taskMon).isSaturated(spec);
+
+		scheduler.act(tasks, resources);
+
+		Mockito.verify(taskMon).runTask(other, resource);
+		Assert.assertEquals(1, scheduler.getRunningTasks().size());
+	}
+
+	@Test
+	public void testWarmResourcesAreServedFirst() {
+		Task task = addTask("task", spec, 0, null);
+		AbstractResource cold = new FogbowResource("cold", "orderCold", spec);
+		AbstractResource warm = new FogbowResource("warm", "orderWarm", spec);
+		cold.setState(ResourceState.IDLE);
+		warm.setState(ResourceState.IDLE);
+		warm.incrementReuse();
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		resources.add(cold);
+		resources.add(warm);
+
+		scheduler.act(tasks, resources);
+
+		Mockito.verify(taskMon).runTask(task, warm);
+		Assert.assertEquals(1, scheduler.getRunningTasks().size());
+	}
+
+	@Test
+	public void testSchedulingScoreFromProperties() {
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.SCHEDULER_SCORE_PRIORITY_WEIGHT, "10");
+		properties.setProperty(AppPropertiesConstants.SCHEDULER_SCORE_WAIT_WEIGHT, "0");
+
+		SchedulingScore score = ScoringScheduler.createSchedulingScore(properties);
+		Task task = new TaskImpl("task", spec, FAKE_UUID);
+		task.putMetadata(TaskImpl.METADATA_PRIORITY, "3");
+
+		Assert.assertTrue(score instanceof DefaultSchedulingScore);
+		Assert.assertEquals(30, score.scoreTask(task, 1000000), 0);
+	}
+
+	private Task addTask(String id, Specification taskSpec, int priority, String location) {
+		Task task = new TaskImpl(id, taskSpec, FAKE_UUID);
+		task.putMetadata(TaskImpl.METADATA_PRIORITY, String.valueOf(priority));
+		if (location != null) {
+			task.putMetadata(TaskImpl.METADATA_PREFERRED_LOCATION, location);
+		}
+		tasks.add(task);
+		return task;
+	}
+}
@@ -15,6 +15,8 @@ import org.fogbowcloud.blowout.pool.AbstractResource;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 public class StandardSchedulerTest {
 
@@ -167,4 +169,105 @@ public class StandardSchedulerTest {
 		Assert.assertEquals(0, taskTwoRunning.getRetries());
 	}
 	
+	@Test
+	public void testActDoesNotRunTaskWhenMonitorIsSaturated() {
+		Specification specA = new Specification("imageA", "usernameA", "publicKeyA", "privateKeyFilePathA");
+		TaskMonitor taskMon = Mockito.mock(TaskMonitor.class);
+		Mockito.doReturn(true).when(taskMon).isSaturated(specA);
+		StandardScheduler standardScheduler = new StandardScheduler(taskMon);
+
+		List<Task> tasks = new ArrayList<Task>();
+		tasks.add(new TaskImpl("taskOne", specA, FAKE_UUID));
+		AbstractResource resourceIdle = new FogbowResource("idOne", "orderIdOne", specA);
+		resourceIdle.setState(ResourceState.IDLE);
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		resources.add(resourceIdle);
+
+		standardScheduler.act(tasks, resources);
+
+		Assert.assertTrue(standardScheduler.getRunningTasks().isEmpty());
+		Mockito.verify(taskMon, Mockito.never()).runTask(Mockito.any(Task.class),
+				Mockito.any(AbstractResource.class));
+
+		Mockito.doReturn(false).when(taskMon).isSaturated(specA);
+		standardScheduler.act(tasks, resources);
+
+		Assert.assertEquals(1, standardScheduler.getRunningTasks().size());
+	}
+	
+	@Test
+	public void testRejectedTaskIsQueuedAgain() {
+		Specification specA = new Specification("imageA", "usernameA", "publicKeyA", "privateKeyFilePathA");
+		TaskMonitor taskMon = Mockito.mock(TaskMonitor.class);
+		final StandardScheduler standardScheduler = new StandardScheduler(taskMon);
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				Object[] args = invocation.getArguments();
+				standardScheduler.taskRejected((Task) args[0], (AbstractResource) args[1]);
+				return null;
+			}
+		}).when(taskMon).runTask(Mockito.any(Task.class), Mockito.any(AbstractResource.class));
+
+		List<Task> tasks = new ArrayList<Task>();
+		TaskImpl task = new TaskImpl("taskOne", specA, FAKE_UUID);
+		tasks.add(task);
+		int retriesBefore = task.getRetries();
+		AbstractResource resourceIdle = new FogbowResource("idOne", "orderIdOne", specA);
+		resourceIdle.setState(ResourceState.IDLE);
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		resources.add(resourceIdle);
+
+		standardScheduler.act(tasks, resources);
+
+		Assert.assertTrue(standardScheduler.getRunningTasks().isEmpty());
+		Assert.assertEquals(retriesBefore, task.getRetries());
+		Assert.assertEquals(task, standardScheduler.chooseTaskForRunning(resourceIdle));
+	}
+
+	@Test
+	public void testActOnLargeWorkloadWithinTimeBudget() {
+		final int numberOfTasks = 100000;
+		final int numberOfResources = 2000;
+		final long timeBudget = 10000;
+
+		TaskMonitor taskMon = new TaskMonitor(null, 0) {
+			@Override
+			public void runTask(Task task, AbstractResource resource) {
+			}
+		};
+		StandardScheduler standardScheduler = new StandardScheduler(taskMon);
+
+		Specification specA = new Specification("imageA", "usernameA", "publicKeyA", "privateKeyFilePathA");
+		Specification specB = new Specification("imageB", "usernameB", "publicKeyB", "privateKeyFilePathB");
+		List<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < numberOfTasks; i++) {
+			tasks.add(new TaskImpl("task" + i, i % 2 == 0 ? specA : specB, FAKE_UUID));
+		}
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		for (int i = 0; i < numberOfResources; i++) {
+			AbstractResource resource = new FogbowResource("resource" + i, "order" + i, i % 2 == 0 ? specA : specB);
+			resource.setState(ResourceState.IDLE);
+			resources.add(resource);
+		}
+
+		long startTime = System.currentTimeMillis();
+		int finishedTasks = 0;
+		while (finishedTasks < numberOfTasks) {
+			standardScheduler.act(tasks, resources);
+			List<Task> runningTasks = standardScheduler.getRunningTasks();
+			Assert.assertFalse(runningTasks.isEmpty());
+			for (Task runningTask : runningTasks) {
+				if (!runningTask.isFinished()) {
+					runningTask.finish();
+					finishedTasks++;
+				}
+			}
+		}
+		long elapsedTime = System.currentTimeMillis() - startTime;
+
+		Assert.assertEquals(numberOfTasks, finishedTasks);
+		Assert.assertTrue("Scheduling took " + elapsedTime + " ms", elapsedTime < timeBudget);
+	}
+	
 }
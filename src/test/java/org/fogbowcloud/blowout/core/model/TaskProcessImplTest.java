@@ -1,15 +1,22 @@
 package org.fogbowcloud.blowout.core.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.fogbowcloud.blowout.core.output.TaskProcessOutput;
+import org.fogbowcloud.blowout.core.ssh.SshSessionKey;
+import org.fogbowcloud.blowout.core.ssh.SshSessionPool;
 import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
 import org.junit.Test;
 
@@ -144,5 +151,85 @@ public class TaskProcessImplTest {
 		assertEquals(tp.getStatus(), TaskState.FAILED);
 	}
 
+	@Test
+	public void testListenerIsNotifiedWhenTaskFinishes() {
+		Specification spec = mock(Specification.class);
+		List<Command> commandList = new ArrayList<Command>();
+		commandList.add(new Command(FAKE_COMMAND, Command.Type.LOCAL));
+		FogbowResource resource = mock(FogbowResource.class);
+		TaskProcessImpl tp = spy(new TaskProcessImpl(FAKE_TASK_ID, commandList, spec, FAKE_UUID));
+		TaskProcessListener listener = mock(TaskProcessListener.class);
+		tp.addListener(listener);
+
+		TaskExecutionResult terSuccess = new TaskExecutionResult();
+		terSuccess.finish(0);
+		doReturn(terSuccess).when(tp).executeCommandString(FAKE_COMMAND, Command.Type.LOCAL, resource);
+
+		tp.executeTask(resource);
+
+		verify(listener).processCompleted(tp);
+	}
+
+	@Test
+	public void testListenerIsNotifiedWhenExecutionThrows() {
+		Specification spec = mock(Specification.class);
+		List<Command> commandList = new ArrayList<Command>();
+		commandList.add(new Command(FAKE_COMMAND, Command.Type.LOCAL));
+		FogbowResource resource = mock(FogbowResource.class);
+		TaskProcessImpl tp = spy(new TaskProcessImpl(FAKE_TASK_ID, commandList, spec, FAKE_UUID));
+		TaskProcessListener listener = mock(TaskProcessListener.class);
+		tp.addListener(listener);
+
+		doThrow(new IllegalStateException()).when(tp).executeCommandString(FAKE_COMMAND, Command.Type.LOCAL,
+				resource);
 
+		tp.executeTask(resource);
+
+		assertEquals(TaskState.FAILED, tp.getStatus());
+		verify(listener).processCompleted(tp);
+	}
+
+	@Test
+	public void testRemoteCommandUsesSshSessionPool() throws Exception {
+		Specification spec = mock(Specification.class);
+		doReturn("fogbow").when(spec).getUsername();
+		doReturn("/path/key").when(spec).getPrivateKeyFilePath();
+		List<Command> commandList = new ArrayList<Command>();
+		commandList.add(new Command(FAKE_COMMAND, Command.Type.REMOTE));
+		FogbowResource resource = mock(FogbowResource.class);
+		doReturn("10.0.0.1").when(resource).getMetadataValue(TaskProcessImpl.METADATA_SSH_HOST);
+		doReturn("2222").when(resource).getMetadataValue(TaskProcessImpl.METADATA_SSH_PORT);
+		SshSessionPool sshSessionPool = mock(SshSessionPool.class);
+		doReturn(0).when(sshSessionPool).execute(any(SshSessionKey.class), eq(FAKE_COMMAND),
+				any(OutputStream.class), any(OutputStream.class));
+		TaskProcessImpl tp = new TaskProcessImpl(FAKE_TASK_ID, commandList, spec, FAKE_UUID);
+		tp.setSshSessionPool(sshSessionPool);
+
+		tp.executeTask(resource);
+
+		verify(sshSessionPool).execute(any(SshSessionKey.class), eq(FAKE_COMMAND), any(OutputStream.class),
+				any(OutputStream.class));
+		assertEquals(TaskState.FINISHED, tp.getStatus());
+	}
+
+	@Test(timeout = 30000)
+	public void testLocalCommandWithLargeOutputDoesNotBlock() {
+		Specification spec = mock(Specification.class);
+		List<Command> commandList = new ArrayList<Command>();
+		commandList.add(new Command("head -c 1000000 /dev/zero; head -c 1000000 /dev/zero >&2; echo done",
+				Command.Type.LOCAL));
+		doReturn("fogbow").when(spec).getUsername();
+		doReturn("/path/key").when(spec).getPrivateKeyFilePath();
+		FogbowResource resource = mock(FogbowResource.class);
+		doReturn("10.0.0.1").when(resource).getMetadataValue(TaskProcessImpl.METADATA_SSH_HOST);
+		doReturn("22").when(resource).getMetadataValue(TaskProcessImpl.METADATA_SSH_PORT);
+		TaskProcessImpl tp = new TaskProcessImpl(FAKE_TASK_ID, commandList, spec, FAKE_UUID);
+
+		tp.executeTask(resource);
+
+		assertEquals(TaskState.FINISHED, tp.getStatus());
+		assertEquals(1000005, tp.getOutput().getWrittenBytes(TaskProcessOutput.Type.STDOUT));
+		assertEquals(1000000, tp.getOutput().getWrittenBytes(TaskProcessOutput.Type.STDERR));
+		assertEquals("done\n", new String(tp.getOutput().tail(TaskProcessOutput.Type.STDOUT, 5)));
+	}
 }
@@ -0,0 +1,117 @@
+package org.fogbowcloud.blowout.core.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestBinaryCodec {
+
+	private static final String FAKE_UUID = "1234";
+
+	private Specification spec;
+
+	@Before
+	public void setUp() {
+		spec = new Specification("image", "username", "publicKey", "privateKeyPath", "userDataFile", "userDataType");
+		spec.setContextScript("contextScript");
+		spec.addRequirement("FogbowRequirements", "Glue2vCPU >= 1, Glue2RAM >= 1024 && a=b");
+		spec.addRequirement("empty", "");
+	}
+
+	@Test
+	public void testTaskRoundTrip() throws IOException {
+		TaskImpl task = new TaskImpl("task-id", spec, FAKE_UUID);
+		task.addCommand(new Command("echo \"ação\"", Command.Type.REMOTE));
+		Command finishedCommand = new Command("scp a b", Command.Type.LOCAL);
+		finishedCommand.setState(Command.State.FINISHED);
+		task.addCommand(finishedCommand);
+		task.putMetadata(TaskImpl.METADATA_SANDBOX, "/tmp/sandbox");
+		task.putMetadata("nullValue", null);
+		task.addProcessId("process-id");
+		task.setRetries(-1);
+		task.setState(TaskState.RUNNING);
+		task.finish();
+		task.fail();
+
+		Task decoded = BinaryCodec.decode(BinaryCodec.encode(task));
+
+		Assert.assertEquals(task, decoded);
+		Assert.assertEquals(FAKE_UUID, decoded.getUUID());
+		Assert.assertEquals("contextScript", decoded.getSpecification().getContextScript());
+		Assert.assertEquals(spec.getAllRequirements(), decoded.getSpecification().getAllRequirements());
+		Assert.assertTrue(decoded.isFinished());
+		Assert.assertTrue(decoded.isFailed());
+		Assert.assertEquals(-1, decoded.getRetries());
+		Assert.assertEquals(TaskState.RUNNING, decoded.getState());
+		Assert.assertEquals(2, decoded.getAllCommands().size());
+		Assert.assertEquals("echo \"ação\"", decoded.getAllCommands().get(0).getCommand());
+		Assert.assertEquals(Command.Type.LOCAL, decoded.getAllCommands().get(1).getType());
+		Assert.assertEquals(Command.State.FINISHED, decoded.getAllCommands().get(1).getState());
+		Assert.assertEquals(task.getAllMetadata(), decoded.getAllMetadata());
+		Assert.assertEquals(task.getProcessId(), decoded.getProcessId());
+	}
+
+	@Test
+	public void testSpecificationsAreInternedInAStream() throws IOException {
+		Specification otherSpec = new Specification("otherImage", "username", "publicKey", "privateKeyPath");
+		List<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < 100; i++) {
+			tasks.add(new TaskImpl("task" + i, i % 2 == 0 ? spec : otherSpec.clone(), FAKE_UUID));
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(out);
+		for (Task task : tasks) {
+			encoder.writeTask(task);
+		}
+		encoder.flush();
+		BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(new ByteArrayInputStream(out.toByteArray()));
+		List<Task> decoded = new ArrayList<Task>();
+		while (decoder.hasMore()) {
+			decoded.add(decoder.readTask());
+		}
+
+		Assert.assertEquals(tasks, decoded);
+		Assert.assertSame(decoded.get(0).getSpecification(), decoded.get(98).getSpecification());
+		Assert.assertSame(decoded.get(1).getSpecification(), decoded.get(99).getSpecification());
+		Assert.assertTrue(out.size() < BinaryCodec.encode(tasks.get(0)).length * 50);
+	}
+
+	@Test
+	public void testLargeValuesGoThroughTheBuffer() throws IOException {
+		StringBuilder command = new StringBuilder();
+		for (int i = 0; i < 200000; i++) {
+			command.append('x');
+		}
+		TaskImpl task = new TaskImpl("task-id", spec, FAKE_UUID);
+		task.addCommand(new Command(command.toString(), Command.Type.REMOTE));
+
+		Task decoded = BinaryCodec.decode(BinaryCodec.encode(task));
+
+		Assert.assertEquals(command.toString(), decoded.getAllCommands().get(0).getCommand());
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownVersionIsRejected() throws IOException {
+		byte[] bytes = BinaryCodec.encode(new TaskImpl("task-id", spec, FAKE_UUID));
+		// The version follows the two bytes of the magic number.
+		bytes[2] = (byte) (BinaryCodec.VERSION + 1);
+
+		BinaryCodec.decode(bytes);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedTaskIsRejected() throws IOException {
+		byte[] bytes = BinaryCodec.encode(new TaskImpl("task-id", spec, FAKE_UUID));
+		byte[] truncated = new byte[bytes.length - 3];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+		BinaryCodec.decode(truncated);
+	}
+}
@@ -35,4 +35,25 @@ public class TestSpecification {
 		assertEquals(spec.getRequirementValue(SECOND_REQUIREMENTE), recoveredSpec.getRequirementValue(SECOND_REQUIREMENTE));
 	}
 
+	@Test
+	public void testRequirementWithCommasSurvivesJSon() {
+		Specification spec = new Specification(IMAGE, USERNAME, PUBLIC_KEY, PRIVATE_KEY_PATH);
+		spec.addRequirement(FIRST_REQUIREMENT, "Glue2vCPU >= 1, Glue2RAM >= 1024 && a=b");
+
+		Specification recoveredSpec = Specification.fromJSON(spec.toJSON());
+
+		assertEquals(spec, recoveredSpec);
+	}
+
+	@Test
+	public void testFromJSonWithRequirementsAsString() throws Exception {
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put(IMAGE, IMAGE);
+		jsonObject.put("requirementsMap", "{" + FIRST_REQUIREMENT + "=" + THIS_VALUE + "}");
+
+		Specification recoveredSpec = Specification.fromJSON(jsonObject);
+
+		assertEquals(THIS_VALUE, recoveredSpec.getRequirementValue(FIRST_REQUIREMENT));
+	}
+
 }
@@ -0,0 +1,134 @@
+package org.fogbowcloud.blowout.core.model;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSpecificationRegistry {
+
+	private static final String FAKE_UUID = "1234";
+
+	@Test
+	public void testEqualSpecificationsShareTheCanonicalInstance() {
+		Specification spec = createSpec("registryImageA");
+		Specification equalSpec = createSpec("registryImageA");
+
+		Specification canonical = SpecificationRegistry.intern(spec);
+
+		Assert.assertNotSame(spec, canonical);
+		Assert.assertSame(canonical, SpecificationRegistry.intern(equalSpec));
+		Assert.assertSame(canonical, SpecificationRegistry.intern(canonical));
+		Assert.assertSame(canonical, SpecificationRegistry.getById(canonical.getInternId()));
+		Assert.assertEquals(spec, canonical);
+		Assert.assertEquals(canonical, spec);
+		Assert.assertEquals(spec.hashCode(), canonical.hashCode());
+		Assert.assertEquals("contextScript", canonical.getContextScript());
+		Assert.assertFalse(spec.isInterned());
+	}
+
+	@Test
+	public void testDistinctSpecificationsGetDistinctIds() {
+		Specification canonicalA = createSpec("registryImageB").intern();
+		Specification canonicalB = createSpec("registryImageC").intern();
+
+		Assert.assertTrue(canonicalA.getInternId() > 0);
+		Assert.assertTrue(canonicalB.getInternId() > 0);
+		Assert.assertNotEquals(canonicalA.getInternId(), canonicalB.getInternId());
+		Assert.assertNotEquals(canonicalA, canonicalB);
+	}
+
+	@Test
+	public void testCanonicalInstancesCannotChange() {
+		Specification spec = createSpec("registryImageD");
+		Specification canonical = spec.intern();
+
+		try {
+			canonical.addRequirement("key", "value");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			canonical.getAllRequirements().put("key", "value");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			canonical.setPublicKey("otherKey");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		spec.addRequirement("key", "value");
+		Assert.assertNotEquals(canonical, spec);
+		Assert.assertNotSame(canonical, spec.intern());
+	}
+
+	@Test
+	public void testSpecificationIsInternedAgainOnlyAfterItChanges() {
+		Specification spec = createSpec("registryImageG");
+		Specification canonical = spec.intern();
+		int size = SpecificationRegistry.size();
+
+		Assert.assertSame(canonical, spec.getCanonical());
+		Assert.assertSame(canonical, spec.intern());
+
+		spec.setUserDataType("otherType");
+		Assert.assertNull(spec.getCanonical());
+		Specification changedCanonical = spec.intern();
+		Assert.assertNotSame(canonical, changedCanonical);
+		Assert.assertEquals(size + 1, SpecificationRegistry.size());
+
+		spec.getAllRequirements().remove("FogbowRequirements");
+		Assert.assertNotSame(changedCanonical, spec.intern());
+	}
+
+	@Test
+	public void testTasksKeepTheGivenSpecification() {
+		Specification spec = createSpec("registryImageE");
+
+		Task task = new TaskImpl("task", spec, FAKE_UUID);
+		spec.addRequirement("key", "value");
+		task.getSpecification().setPublicKey("otherKey");
+
+		Assert.assertSame(spec, task.getSpecification());
+		Assert.assertFalse(task.getSpecification().isInterned());
+		Assert.assertEquals("value", spec.getRequirementValue("key"));
+	}
+
+	@Test
+	public void testDeserializedCanonicalInstanceIsMutable() throws Exception {
+		Specification canonical = createSpec("registryImageF").intern();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(canonical);
+		out.close();
+
+		Specification copy = (Specification) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		copy.addRequirement("key", "value");
+
+		Assert.assertFalse(copy.isInterned());
+		Assert.assertEquals("value", copy.getRequirementValue("key"));
+		Assert.assertSame(canonical, createSpec("registryImageF").intern());
+	}
+
+	@Test
+	public void testSubclassesAreNotInterned() {
+		Specification spec = mock(Specification.class);
+
+		Assert.assertSame(spec, SpecificationRegistry.intern(spec));
+	}
+
+	private static Specification createSpec(String image) {
+		Specification spec = new Specification(image, "username", "publicKey", "privateKeyPath");
+		spec.setContextScript("contextScript");
+		spec.addRequirement("FogbowRequirements", "Glue2vCPU >= 1");
+		return spec;
+	}
+}
@@ -0,0 +1,156 @@
+package org.fogbowcloud.blowout.core.monitor;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTaskExecutor {
+
+	private TaskExecutor taskExecutor;
+	private Specification specA;
+	private Specification specB;
+	private CountDownLatch release;
+
+	@Before
+	public void setUp() {
+		specA = new Specification("imageA", "usernameA", "publicKeyA", "privateKeyFilePathA");
+		specB = new Specification("imageB", "usernameB", "publicKeyB", "privateKeyFilePathB");
+		release = new CountDownLatch(1);
+	}
+
+	@After
+	public void setDown() {
+		release.countDown();
+		if (taskExecutor != null) {
+			taskExecutor.shutdown();
+		}
+	}
+
+	@Test
+	public void testBoundedExecutorRejectsWhenFull() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.TASK_EXECUTOR_TYPE, TaskExecutor.TYPE_BOUNDED);
+		properties.setProperty(AppPropertiesConstants.TASK_EXECUTOR_MAX_THREADS, "2");
+		properties.setProperty(AppPropertiesConstants.TASK_EXECUTOR_QUEUE_SIZE, "1");
+		taskExecutor = TaskExecutor.createTaskExecutor(properties);
+		CountDownLatch started = new CountDownLatch(2);
+
+		Assert.assertTrue(taskExecutor.execute(specA, blockingCommand(started)));
+		Assert.assertTrue(taskExecutor.execute(specA, blockingCommand(started)));
+		Assert.assertTrue(taskExecutor.execute(specB, blockingCommand(started)));
+		Assert.assertTrue(started.await(2, TimeUnit.SECONDS));
+
+		Assert.assertTrue(taskExecutor.isSaturated(specB));
+		Assert.assertFalse(taskExecutor.execute(specB, blockingCommand(started)));
+		Assert.assertEquals(3, taskExecutor.getInFlightCount());
+		Assert.assertEquals(2, taskExecutor.getRunningCount());
+		Assert.assertEquals(1, taskExecutor.getQueueDepth());
+		Assert.assertEquals(1, taskExecutor.getRejectedCount());
+	}
+
+	@Test
+	public void testTaskMonitorDefaultsToBoundedExecutor() {
+		TaskMonitor taskMon = new TaskMonitor(null, 0);
+		taskExecutor = taskMon.getTaskExecutor();
+
+		Assert.assertTrue(taskExecutor.getExecutorService() instanceof ThreadPoolExecutor);
+		Assert.assertEquals(200, ((ThreadPoolExecutor) taskExecutor.getExecutorService()).getMaximumPoolSize());
+	}
+
+	@Test
+	public void testLimitPerSpecification() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.TASK_EXECUTOR_MAX_TASKS_PER_SPECIFICATION, "1");
+		taskExecutor = TaskExecutor.createTaskExecutor(properties);
+		CountDownLatch started = new CountDownLatch(1);
+
+		Assert.assertTrue(taskExecutor.execute(specA, blockingCommand(started)));
+
+		Assert.assertTrue(taskExecutor.isSaturated(specA));
+		Assert.assertFalse(taskExecutor.isSaturated(specB));
+		Assert.assertFalse(taskExecutor.execute(specA, blockingCommand(started)));
+		Assert.assertTrue(taskExecutor.execute(specB, blockingCommand(started)));
+		Assert.assertEquals(1, taskExecutor.getInFlightCount(specA));
+	}
+
+	@Test
+	public void testSlotIsReleasedWhenCommandEnds() throws Exception {
+		taskExecutor = new TaskExecutor(TaskExecutor.createBoundedExecutor(1, 1), 1, 0);
+		final CountDownLatch finished = new CountDownLatch(1);
+
+		Assert.assertTrue(taskExecutor.execute(specA, new Runnable() {
+			@Override
+			public void run() {
+				finished.countDown();
+			}
+		}));
+		Assert.assertTrue(finished.await(2, TimeUnit.SECONDS));
+
+		long deadline = System.currentTimeMillis() + 2000;
+		while (taskExecutor.getCompletedCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(1, taskExecutor.getCompletedCount());
+		Assert.assertEquals(0, taskExecutor.getInFlightCount());
+		Assert.assertFalse(taskExecutor.isSaturated(specA));
+	}
+
+	@Test
+	public void testReleaseCurrentSlotFreesCapacityBeforeCommandEnds() throws Exception {
+		taskExecutor = new TaskExecutor(TaskExecutor.createBoundedExecutor(1, 1), 1, 0);
+		final CountDownLatch slotReleased = new CountDownLatch(1);
+
+		Assert.assertTrue(taskExecutor.execute(specA, new Runnable() {
+			@Override
+			public void run() {
+				taskExecutor.releaseCurrentSlot();
+				slotReleased.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		}));
+		Assert.assertTrue(slotReleased.await(2, TimeUnit.SECONDS));
+
+		Assert.assertFalse(taskExecutor.isSaturated(specA));
+		Assert.assertEquals(0, taskExecutor.getInFlightCount());
+		release.countDown();
+		Thread.sleep(50);
+		Assert.assertEquals(0, taskExecutor.getInFlightCount());
+		Assert.assertEquals(1, taskExecutor.getCompletedCount());
+	}
+
+	@Test
+	public void testVirtualExecutorRunsCommands() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.TASK_EXECUTOR_TYPE, TaskExecutor.TYPE_VIRTUAL);
+		taskExecutor = TaskExecutor.createTaskExecutor(properties);
+		CountDownLatch started = new CountDownLatch(1);
+
+		Assert.assertTrue(taskExecutor.execute(specA, blockingCommand(started)));
+
+		Assert.assertTrue(started.await(2, TimeUnit.SECONDS));
+	}
+
+	private Runnable blockingCommand(final CountDownLatch started) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+	}
+}
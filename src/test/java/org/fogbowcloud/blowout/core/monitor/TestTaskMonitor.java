@@ -12,8 +12,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import org.fogbowcloud.blowout.core.StandardScheduler;
 import org.fogbowcloud.blowout.core.model.Command;
@@ -157,6 +155,43 @@ public class TestTaskMonitor {
 		Assert.assertEquals(true, taskOne.isFinished());
 	}
 	
+	@Test
+	public void testProcessCompletedReleasesResourceOnce() {
+		Task fakeTask = mock(Task.class);
+		TaskProcess fakeProcess = mock(TaskProcess.class);
+		doReturn(TaskState.FINISHED).when(fakeProcess).getStatus();
+		AbstractResource fakeResource = mock(AbstractResource.class);
+		doReturn(FAKE_ID).when(fakeTask).getId();
+		doReturn(FAKE_ID).when(fakeProcess).getTaskId();
+		doReturn(fakeResource).when(fakeProcess).getResource();
+		this.taskMon.getRunningTasks().put(fakeTask, fakeProcess);
+		
+		this.taskMon.processCompleted(fakeProcess);
+		this.taskMon.procMon();
+		
+		Assert.assertTrue(this.taskMon.getRunningTasks().isEmpty());
+		verify(fakeTask).finish();
+		verify(pool).updateTask(fakeTask);
+		verify(pool).updateResource(fakeResource, ResourceState.IDLE);
+	}
+	
+	@Test
+	public void testRunTaskReportsRejectionToScheduler() {
+		Task fakeTask = mock(Task.class);
+		AbstractResource fakeResource = mock(AbstractResource.class);
+		doReturn(FAKE_ID).when(fakeTask).getId();
+		doReturn(spec).when(fakeTask).getSpecification();
+		TaskExecutor taskExecutor = mock(TaskExecutor.class);
+		doReturn(taskExecutor).when(this.taskMon).getTaskExecutor();
+		doReturn(false).when(taskExecutor).execute(any(Specification.class), any(Runnable.class));
+		TaskRejectionListener listener = mock(TaskRejectionListener.class);
+		this.taskMon.setRejectionListener(listener);
+
+		this.taskMon.runTask(fakeTask, fakeResource);
+
+		verify(listener).taskRejected(fakeTask, fakeResource);
+	}
+	
 	@Test
 	public void testProcMonNothingHappens() {
 		TaskProcess fakeProcess = mock(TaskProcess.class);
@@ -229,15 +264,33 @@ public class TestTaskMonitor {
 		runningPrc.add(fakeProcess);
 		doReturn(runningPrc).when(this.taskMon).getRunningProcesses();
 		doNothing().when(pool).updateResource(fakeResource, ResourceState.BUSY);
-		ExecutorService execServ = mock(ExecutorService.class);
-		doReturn(execServ).when(this.taskMon).getExecutorService();
-		doReturn(mock(Future.class)).when(execServ).submit(any(Runnable.class));
+		TaskExecutor taskExecutor = mock(TaskExecutor.class);
+		doReturn(taskExecutor).when(this.taskMon).getTaskExecutor();
+		doReturn(true).when(taskExecutor).execute(any(Specification.class), any(Runnable.class));
 		Map<Task, TaskProcess> runningTasks = new HashMap<Task, TaskProcess>();
 		runningTasks.put(fakeTask, fakeProcess);
 		doReturn(runningTasks).when(this.taskMon).getRunningTasks();
 		
 		this.taskMon.runTask(fakeTask, fakeResource);
 		
+		verify(taskExecutor).execute(any(Specification.class), any(Runnable.class));
+	}
+	
+	@Test
+	public void testRunTaskWhenExecutorIsSaturated() {
+		Task fakeTask = mock(Task.class);
+		AbstractResource fakeResource = mock(AbstractResource.class);
+		doReturn(FAKE_ID).when(fakeTask).getId();
+		doReturn(spec).when(fakeTask).getSpecification();
+		TaskExecutor taskExecutor = mock(TaskExecutor.class);
+		doReturn(taskExecutor).when(this.taskMon).getTaskExecutor();
+		doReturn(false).when(taskExecutor).execute(any(Specification.class), any(Runnable.class));
+		
+		this.taskMon.runTask(fakeTask, fakeResource);
+		
+		Assert.assertNull(this.taskMon.getRunningTasks().get(fakeTask));
+		verify(pool).updateResource(fakeResource, ResourceState.BUSY);
+		verify(pool).updateResource(fakeResource, ResourceState.IDLE);
 	}
 	
 }
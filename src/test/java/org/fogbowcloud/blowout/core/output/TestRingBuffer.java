@@ -0,0 +1,48 @@
+package org.fogbowcloud.blowout.core.output;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRingBuffer {
+
+	@Test
+	public void testTailBeforeWrap() {
+		RingBuffer ringBuffer = new RingBuffer(8);
+		ringBuffer.write("abc".getBytes(), 0, 3);
+
+		Assert.assertEquals("abc", new String(ringBuffer.tail(8)));
+		Assert.assertEquals("bc", new String(ringBuffer.tail(2)));
+		Assert.assertEquals(3, ringBuffer.getWrittenBytes());
+	}
+
+	@Test
+	public void testTailKeepsLastBytesAfterWrap() {
+		RingBuffer ringBuffer = new RingBuffer(8);
+		ringBuffer.write("abcdef".getBytes(), 0, 6);
+		ringBuffer.write("ghijk".getBytes(), 0, 5);
+
+		Assert.assertEquals("defghijk", new String(ringBuffer.tail(8)));
+		Assert.assertEquals("ijk", new String(ringBuffer.tail(3)));
+		Assert.assertEquals(11, ringBuffer.getWrittenBytes());
+	}
+
+	@Test
+	public void testWriteLargerThanCapacity() {
+		RingBuffer ringBuffer = new RingBuffer(4);
+		ringBuffer.write("ab".getBytes(), 0, 2);
+		ringBuffer.write("0123456789".getBytes(), 1, 8);
+
+		Assert.assertEquals("5678", new String(ringBuffer.tail(10)));
+		ringBuffer.write("x".getBytes(), 0, 1);
+		Assert.assertEquals("678x", new String(ringBuffer.tail(4)));
+	}
+
+	@Test
+	public void testZeroCapacity() {
+		RingBuffer ringBuffer = new RingBuffer(0);
+		ringBuffer.write("abc".getBytes(), 0, 3);
+
+		Assert.assertEquals(0, ringBuffer.tail(3).length);
+		Assert.assertEquals(3, ringBuffer.getWrittenBytes());
+	}
+}
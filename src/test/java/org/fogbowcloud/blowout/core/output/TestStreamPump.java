@@ -0,0 +1,35 @@
+package org.fogbowcloud.blowout.core.output;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestStreamPump {
+
+	@Test(timeout = 20000)
+	public void testPumpsBothStreamsOfAProcess() throws Exception {
+		// Both streams write more than a pipe buffer holds
+		Process process = new ProcessBuilder("/bin/bash", "-c",
+				"head -c 200000 /dev/zero >&2; head -c 300000 /dev/zero; printf end >&2").start();
+		process.getOutputStream().close();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+		StreamPump.pump(process, out, err);
+
+		Assert.assertEquals(0, process.waitFor());
+		Assert.assertEquals(300000, out.size());
+		Assert.assertEquals(200003, err.size());
+		Assert.assertTrue(err.toString().endsWith("end"));
+	}
+
+	@Test(timeout = 20000)
+	public void testNullOutputsDiscard() throws Exception {
+		Process process = new ProcessBuilder("/bin/bash", "-c", "echo out; echo err >&2").start();
+
+		StreamPump.pump(process, null, null);
+
+		Assert.assertEquals(0, process.waitFor());
+	}
+}
@@ -0,0 +1,81 @@
+package org.fogbowcloud.blowout.core.output;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTaskProcessOutput {
+
+	private static final String FAKE_TASK_ID = "fakeTaskId";
+	private static final String FAKE_PROCESS_ID = "fakeProcessId";
+
+	private File outputDir;
+
+	@Before
+	public void setUp() throws IOException {
+		outputDir = File.createTempFile("blowout-output", "");
+		outputDir.delete();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(outputDir);
+	}
+
+	@Test
+	public void testOutputIsWrittenToFileSink() throws IOException {
+		FileTaskOutputSink sink = new FileTaskOutputSink(outputDir, 1024);
+		TaskProcessOutput output = new TaskProcessOutput(FAKE_TASK_ID, FAKE_PROCESS_ID, 4, sink);
+
+		output.getStream(TaskProcessOutput.Type.STDOUT).write("stdout line".getBytes());
+		output.close();
+
+		File stdoutFile = sink.getOutputFile(FAKE_TASK_ID, FAKE_PROCESS_ID, TaskProcessOutput.Type.STDOUT);
+		File stderrFile = sink.getOutputFile(FAKE_TASK_ID, FAKE_PROCESS_ID, TaskProcessOutput.Type.STDERR);
+		Assert.assertEquals("stdout line", FileUtils.readFileToString(stdoutFile));
+		Assert.assertFalse(stderrFile.exists());
+		Assert.assertEquals("line", output.getTail(TaskProcessOutput.Type.STDOUT));
+		Assert.assertEquals("", output.getTail(TaskProcessOutput.Type.STDERR));
+	}
+
+	@Test
+	public void testFileSinkDropsBytesBeyondMaxSize() throws IOException {
+		FileTaskOutputSink sink = new FileTaskOutputSink(outputDir, 5);
+		TaskProcessOutput output = new TaskProcessOutput(FAKE_TASK_ID, FAKE_PROCESS_ID, 16, sink);
+
+		output.getStream(TaskProcessOutput.Type.STDERR).write("0123".getBytes());
+		output.getStream(TaskProcessOutput.Type.STDERR).write("456789".getBytes());
+		output.close();
+
+		File stderrFile = sink.getOutputFile(FAKE_TASK_ID, FAKE_PROCESS_ID, TaskProcessOutput.Type.STDERR);
+		Assert.assertEquals("01234", FileUtils.readFileToString(stderrFile));
+		Assert.assertEquals(10, output.getWrittenBytes(TaskProcessOutput.Type.STDERR));
+		Assert.assertEquals("0123456789", output.getTail(TaskProcessOutput.Type.STDERR));
+	}
+
+	@Test
+	public void testBrokenSinkDoesNotStopCapture() throws IOException {
+		TaskOutputSink sink = mock(TaskOutputSink.class);
+		doThrow(new IOException()).when(sink).openStream(anyString(), anyString(),
+				any(TaskProcessOutput.Type.class));
+		TaskProcessOutput output = new TaskProcessOutput(FAKE_TASK_ID, FAKE_PROCESS_ID, 16, sink);
+
+		OutputStream stdout = output.getStream(TaskProcessOutput.Type.STDOUT);
+		stdout.write("first".getBytes());
+		stdout.write("second".getBytes());
+		output.close();
+
+		Assert.assertEquals("firstsecond", output.getTail(TaskProcessOutput.Type.STDOUT));
+	}
+}
@@ -0,0 +1,181 @@
+package org.fogbowcloud.blowout.core.ssh;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+public class TestSshSessionPool {
+
+	private static final String FAKE_COMMAND = "echo fake";
+	private static final String FAKE_OUTPUT = "fake";
+
+	private List<Session> createdSessions;
+	private SshSessionPool sshSessionPool;
+	private SshSessionKey keyA;
+	private SshSessionKey keyB;
+
+	@Before
+	public void setUp() {
+		createdSessions = new ArrayList<Session>();
+		sshSessionPool = new SshSessionPool(10, 0, 1000) {
+			@Override
+			protected Session createSession(SshSessionKey key) throws JSchException {
+				Session session = mock(Session.class);
+				doReturn(true).when(session).isConnected();
+				ChannelExec channel = mock(ChannelExec.class);
+				try {
+					doReturn(new ByteArrayInputStream(FAKE_OUTPUT.getBytes())).when(channel).getInputStream();
+				} catch (Exception e) {
+					throw new JSchException(e.getMessage());
+				}
+				doReturn(true).when(channel).isClosed();
+				doReturn(0).when(channel).getExitStatus();
+				doReturn(channel).when(session).openChannel("exec");
+				createdSessions.add(session);
+				return session;
+			}
+		};
+		keyA = SshSessionPool.createKey("10.0.0.1", "22", "fogbow", "/path/key");
+		keyB = SshSessionPool.createKey("10.0.0.2", null, "fogbow", "/path/key");
+	}
+
+	@Test
+	public void testSessionIsReusedForSameKey() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		Assert.assertEquals(0, sshSessionPool.execute(keyA, FAKE_COMMAND, out, null));
+		sshSessionPool.execute(SshSessionPool.createKey("10.0.0.1", "22", "fogbow", "/path/key"), FAKE_COMMAND,
+				null, null);
+
+		Assert.assertEquals(1, createdSessions.size());
+		Assert.assertEquals(1, sshSessionPool.getSessionCount());
+		Assert.assertEquals(FAKE_OUTPUT, out.toString());
+	}
+
+	@Test
+	public void testSessionPerKey() throws Exception {
+		sshSessionPool.execute(keyA, FAKE_COMMAND, null, null);
+		sshSessionPool.execute(keyB, FAKE_COMMAND, null, null);
+
+		Assert.assertEquals(2, createdSessions.size());
+		Assert.assertEquals(22, keyB.getPort());
+	}
+
+	@Test
+	public void testDisconnectedSessionIsReplaced() throws Exception {
+		sshSessionPool.execute(keyA, FAKE_COMMAND, null, null);
+		doReturn(false).when(createdSessions.get(0)).isConnected();
+
+		sshSessionPool.execute(keyA, FAKE_COMMAND, null, null);
+
+		Assert.assertEquals(2, createdSessions.size());
+	}
+
+	@Test
+	public void testFailedChannelClosesSessionAfterRunningCommands() throws Exception {
+		final CountDownLatch running = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Session session = mock(Session.class);
+		doReturn(true).when(session).isConnected();
+		final ChannelExec blockingChannel = mock(ChannelExec.class);
+		doReturn(new InputStream() {
+			@Override
+			public int read() throws IOException {
+				running.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return -1;
+			}
+		}).when(blockingChannel).getInputStream();
+		doReturn(true).when(blockingChannel).isClosed();
+		final AtomicInteger openedChannels = new AtomicInteger(0);
+		doAnswer(new Answer<ChannelExec>() {
+			@Override
+			public ChannelExec answer(InvocationOnMock invocation) throws JSchException {
+				if (openedChannels.incrementAndGet() == 1) {
+					return blockingChannel;
+				}
+				throw new JSchException("Channel not opened");
+			}
+		}).when(session).openChannel("exec");
+		final List<Session> sessions = new ArrayList<Session>();
+		final SshSessionPool pool = new SshSessionPool(10, 0, 1000) {
+			@Override
+			protected Session createSession(SshSessionKey key) throws JSchException {
+				sessions.add(session);
+				return session;
+			}
+		};
+		Thread runningCommand = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					pool.execute(keyA, FAKE_COMMAND, null, null);
+				} catch (Exception e) {
+				}
+			}
+		});
+		runningCommand.start();
+		Assert.assertTrue(running.await(2, TimeUnit.SECONDS));
+
+		try {
+			pool.execute(keyA, FAKE_COMMAND, null, null);
+			Assert.fail();
+		} catch (JSchException e) {
+		}
+		try {
+			pool.execute(keyA, FAKE_COMMAND, null, null);
+			Assert.fail();
+		} catch (JSchException e) {
+		}
+		verify(session, never()).disconnect();
+
+		release.countDown();
+		runningCommand.join(2000);
+
+		verify(session).disconnect();
+		Assert.assertEquals(2, openedChannels.get());
+		try {
+			pool.execute(keyA, FAKE_COMMAND, null, null);
+		} catch (JSchException e) {
+		}
+		Assert.assertEquals(2, sessions.size());
+	}
+
+	@Test
+	public void testEvictIdleSessions() throws Exception {
+		sshSessionPool.execute(keyA, FAKE_COMMAND, null, null);
+		Session session = createdSessions.get(0);
+		verify(session, never()).disconnect();
+
+		sshSessionPool.evictIdleSessions();
+
+		verify(session).disconnect();
+		Assert.assertEquals(0, sshSessionPool.getSessionCount());
+	}
+}
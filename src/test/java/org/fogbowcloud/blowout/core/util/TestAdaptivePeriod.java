@@ -0,0 +1,72 @@
+package org.fogbowcloud.blowout.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAdaptivePeriod {
+
+	@Test
+	public void testPeriodBacksOffWhileBusy() throws Exception {
+		AdaptivePeriod period = new AdaptivePeriod(10, 50);
+		period.reset();
+		Assert.assertEquals(10, period.getCurrentPeriod());
+
+		period.await(false);
+		Assert.assertEquals(20, period.getCurrentPeriod());
+		period.await(false);
+		Assert.assertEquals(40, period.getCurrentPeriod());
+		period.await(false);
+		Assert.assertEquals(50, period.getCurrentPeriod());
+	}
+
+	@Test
+	public void testIdleWaitsFullPeriod() throws Exception {
+		AdaptivePeriod period = new AdaptivePeriod(10, 200);
+		period.reset();
+
+		long start = System.currentTimeMillis();
+		period.await(true);
+
+		Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+	}
+
+	@Test
+	public void testResetShortensWaitInProgress() throws Exception {
+		final AdaptivePeriod period = new AdaptivePeriod(50, 10000);
+		resetLater(period, 100, false);
+
+		long start = System.currentTimeMillis();
+		period.await(true);
+
+		Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	@Test
+	public void testWakeUpEndsWait() throws Exception {
+		final AdaptivePeriod period = new AdaptivePeriod(10000, 10000);
+		resetLater(period, 100, true);
+
+		long start = System.currentTimeMillis();
+		period.await(false);
+
+		Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	private static void resetLater(final AdaptivePeriod period, final long delay, final boolean wakeUp) {
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (wakeUp) {
+					period.wakeUp();
+				} else {
+					period.reset();
+				}
+			}
+		}).start();
+	}
+}
@@ -1,6 +1,7 @@
 package org.fogbowcloud.blowout.database;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.spy;
@@ -51,6 +52,7 @@ public class TestResourceIdDataStore {
 
 	@After
 	public void tearDown() throws IOException{
+		db.close();
 		FileUtils.cleanDirectory(new File (DATASTORE_PATH));
 	}
 	
@@ -173,6 +175,79 @@ public class TestResourceIdDataStore {
 		
 		assertEquals(0, returnedFogbowResources.size());
 	}
-	
-	
+
+	@Test
+	public void testWritesAreCommittedTogetherAfterTheMaxDelay() throws SQLException, InterruptedException {
+		db.close();
+		properties.put(AppPropertiesConstants.DB_WRITE_MAX_DELAY, "200");
+		db = new FogbowResourceDatastore(properties);
+
+		db.addFogbowResource(new FogbowResource(FAKE_RESOURCE_ID1, FAKE_ORDER_ID1, spec));
+		db.addFogbowResource(new FogbowResource(FAKE_RESOURCE_ID2, FAKE_ORDER_ID2, spec));
+		assertEquals(2, db.getPendingMutations());
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (db.getPendingMutations() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertEquals(0, db.getPendingMutations());
+		assertEquals(2, db.getAllFogbowResources().size());
+	}
+
+	@Test
+	public void testQueuedWritesSurviveClose() throws SQLException, InterruptedException {
+		db.close();
+		properties.put(AppPropertiesConstants.DB_WRITE_MAX_DELAY, "60000");
+		db = new FogbowResourceDatastore(properties);
+
+		db.addFogbowResource(new FogbowResource(FAKE_RESOURCE_ID1, FAKE_ORDER_ID1, spec));
+		db.close();
+
+		db = new FogbowResourceDatastore(properties);
+		assertEquals(1, db.getAllFogbowResources().size());
+	}
+
+	@Test
+	public void testFailedWriteDoesNotDropTheBatch() throws SQLException, InterruptedException {
+		FogbowResource resourceA = new FogbowResource(FAKE_RESOURCE_ID1, FAKE_ORDER_ID1, spec);
+		FogbowResource resourceB = new FogbowResource(FAKE_RESOURCE_ID2, FAKE_ORDER_ID2, spec);
+
+		List<FogbowResource> fogbowResources = new ArrayList<FogbowResource>();
+		fogbowResources.add(resourceA);
+		fogbowResources.add(resourceA);
+		fogbowResources.add(resourceB);
+
+		db.addResourceIds(fogbowResources);
+		assertFalse(db.flush());
+
+		assertEquals(2, db.getAllFogbowResources().size());
+	}
+
+	@Test
+	public void testWritesFailWithoutAConnection() throws SQLException, InterruptedException {
+		db.close();
+		properties.put(AppPropertiesConstants.DB_DATASTORE_URL, "jdbc:unknown:" + DATASTORE_PATH);
+		properties.put(AppPropertiesConstants.DB_WRITE_MAX_DELAY, "0");
+		db = new FogbowResourceDatastore(properties);
+
+		assertFalse(db.addFogbowResource(new FogbowResource(FAKE_RESOURCE_ID1, FAKE_ORDER_ID1, spec)));
+		assertEquals(0, db.getPendingMutations());
+	}
+
+	@Test
+	public void testWriterKeepsDrainingWithoutAConnection() throws SQLException, InterruptedException {
+		db.close();
+		properties.put(AppPropertiesConstants.DB_DATASTORE_URL, "jdbc:unknown:" + DATASTORE_PATH);
+		properties.put(AppPropertiesConstants.DB_WRITE_MAX_DELAY, "50");
+		db = new FogbowResourceDatastore(properties);
+
+		for (int i = 0; i < 2; i++) {
+			db.addFogbowResource(new FogbowResource(FAKE_RESOURCE_ID1, FAKE_ORDER_ID1, spec));
+			long deadline = System.currentTimeMillis() + 5000;
+			while (db.getPendingMutations() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+			assertEquals(0, db.getPendingMutations());
+		}
+	}
 }
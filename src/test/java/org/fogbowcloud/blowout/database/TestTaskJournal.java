@@ -0,0 +1,159 @@
+package org.fogbowcloud.blowout.database;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.fogbowcloud.blowout.core.model.Command;
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.model.TaskState;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTaskJournal {
+
+	private static final String FAKE_UUID = "1234";
+
+	private File journalDir;
+	private Specification spec;
+	private TaskJournal journal;
+
+	@Before
+	public void setUp() throws IOException {
+		journalDir = File.createTempFile("blowout-journal", "");
+		journalDir.delete();
+		spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		journal = new TaskJournal(journalDir, 1000);
+		journal.recover();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		journal.close();
+		FileUtils.deleteDirectory(journalDir);
+	}
+
+	@Test
+	public void testRecoverAddedUpdatedAndRemovedTasks() throws IOException {
+		List<Task> tasks = createTasks(3);
+		tasks.get(0).addCommand(new Command("echo a", Command.Type.REMOTE));
+		journal.recordAdded(tasks);
+
+		tasks.get(0).setRetries(2);
+		tasks.get(0).finish();
+		journal.recordUpdated(tasks.get(0));
+		journal.recordRemoved(tasks.get(2));
+		journal.close();
+
+		Map<String, Task> recovered = recover(new TaskJournal(journalDir, 1000));
+
+		Assert.assertEquals(2, recovered.size());
+		Task first = recovered.get(tasks.get(0).getId());
+		Assert.assertTrue(first.isFinished());
+		Assert.assertEquals(2, first.getRetries());
+		Assert.assertEquals(1, first.getAllCommands().size());
+		Assert.assertEquals(spec, first.getSpecification());
+		Assert.assertFalse(recovered.get(tasks.get(1).getId()).isFinished());
+		Assert.assertNull(recovered.get(tasks.get(2).getId()));
+	}
+
+	@Test
+	public void testRunningTasksAreRecoveredAsReady() throws IOException {
+		Task task = createTasks(1).get(0);
+		journal.recordAdded(createTasks(1));
+		task.setState(TaskState.RUNNING);
+		journal.recordUpdated(task);
+		journal.close();
+
+		Task recovered = recover(new TaskJournal(journalDir, 1000)).get(task.getId());
+
+		Assert.assertEquals(TaskState.READY, recovered.getState());
+	}
+
+	@Test
+	public void testLogStartsOverAfterSnapshot() throws IOException {
+		journal.close();
+		journal = new TaskJournal(journalDir, 10);
+		journal.recover();
+
+		List<Task> tasks = createTasks(25);
+		journal.recordAdded(tasks.subList(0, 15));
+		journal.recordAdded(tasks.subList(15, 25));
+		for (Task task : tasks.subList(0, 5)) {
+			task.finish();
+			journal.recordUpdated(task);
+		}
+		File log = new File(journalDir, TaskJournal.LOG_FILE_NAME);
+		Assert.assertEquals(5, FileUtils.readLines(log).size());
+		journal.close();
+
+		Map<String, Task> recovered = recover(new TaskJournal(journalDir, 10));
+
+		Assert.assertEquals(25, recovered.size());
+		int finished = 0;
+		for (Task task : recovered.values()) {
+			if (task.isFinished()) {
+				finished++;
+			}
+		}
+		Assert.assertEquals(5, finished);
+	}
+
+	@Test
+	public void testIncompleteLastRecordIsIgnored() throws IOException {
+		journal.recordAdded(createTasks(2));
+		journal.close();
+		FileWriter log = new FileWriter(new File(journalDir, TaskJournal.LOG_FILE_NAME), true);
+		log.write("{\"op\":\"add\",\"task\":{\"id\":");
+		log.close();
+
+		Assert.assertEquals(2, recover(new TaskJournal(journalDir, 1000)).size());
+	}
+
+	@Test
+	public void testSnapshotOfLogRecordsIsRead() throws IOException {
+		journal.close();
+		FileWriter snapshot = new FileWriter(new File(journalDir, TaskJournal.SNAPSHOT_FILE_NAME));
+		snapshot.write("{\"op\":\"spec\",\"specRef\":0,\"spec\":" + spec.toJSON() + "}\n");
+		snapshot.write("{\"op\":\"add\",\"specRef\":0,\"task\":" + createTasks(1).get(0).toJSON() + "}\n");
+		snapshot.close();
+
+		Map<String, Task> recovered = recover(new TaskJournal(journalDir, 1000));
+
+		Assert.assertEquals(spec, recovered.get("task0").getSpecification());
+	}
+
+	@Test
+	public void testRecordsAreIgnoredWhenClosed() throws IOException {
+		journal.close();
+		journal.recordAdded(createTasks(2));
+
+		Assert.assertTrue(recover(new TaskJournal(journalDir, 1000)).isEmpty());
+	}
+
+	private Map<String, Task> recover(TaskJournal recoveringJournal) throws IOException {
+		Map<String, Task> tasks = new HashMap<String, Task>();
+		for (Task task : recoveringJournal.recover()) {
+			tasks.put(task.getId(), task);
+		}
+		recoveringJournal.close();
+		return tasks;
+	}
+
+	private List<Task> createTasks(int count) {
+		List<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < count; i++) {
+			tasks.add(new TaskImpl("task" + i, spec, FAKE_UUID));
+		}
+		return tasks;
+	}
+}
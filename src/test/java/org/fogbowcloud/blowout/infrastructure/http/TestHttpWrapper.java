@@ -0,0 +1,111 @@
+package org.fogbowcloud.blowout.infrastructure.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Properties;
+
+import org.apache.http.Header;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.manager.occi.order.OrderConstants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestHttpWrapper {
+
+	private static final String FAKE_BODY = "X-OCCI-Attribute: occi.core.id=\"fake\"";
+
+	private HttpServer server;
+	private HttpWrapper httpWrapper;
+	private String baseUrl;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/compute", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, 200, FAKE_BODY);
+			}
+		});
+		server.createContext("/missing", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, 404, "not found");
+			}
+		});
+		server.createContext("/" + OrderConstants.TERM, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String orderUrl = baseUrl + "/" + OrderConstants.TERM + "/";
+				exchange.getResponseHeaders().add("Location", orderUrl + "order01," + orderUrl + "order02");
+				respond(exchange, 201, "");
+			}
+		});
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.HTTP_MAX_CONNECTIONS, "4");
+		httpWrapper = new HttpWrapper(properties);
+	}
+
+	@After
+	public void tearDown() {
+		httpWrapper.close();
+		server.stop(0);
+	}
+
+	@Test
+	public void testConnectionIsReleasedAndKeptAlive() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			String response = httpWrapper.doRequest("get", baseUrl + "/compute/instance01", "token",
+					new ArrayList<Header>());
+			Assert.assertEquals(FAKE_BODY, response);
+		}
+
+		Assert.assertEquals(0, httpWrapper.getPoolStats().getLeased());
+		Assert.assertEquals(1, httpWrapper.getPoolStats().getAvailable());
+		Assert.assertEquals(4, httpWrapper.getPoolStats().getMax());
+	}
+
+	@Test
+	public void testConnectionIsReleasedOnError() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			try {
+				httpWrapper.doRequest("get", baseUrl + "/missing", "token", new ArrayList<Header>());
+				Assert.fail();
+			} catch (Exception e) {
+				Assert.assertTrue(e.getMessage().contains("404"));
+			}
+		}
+
+		Assert.assertEquals(0, httpWrapper.getPoolStats().getLeased());
+	}
+
+	@Test
+	public void testOrderLocations() throws Exception {
+		String response = httpWrapper.doRequest("post", baseUrl + "/" + OrderConstants.TERM, "token",
+				new ArrayList<Header>());
+
+		String[] lines = response.split("\n");
+		Assert.assertEquals(2, lines.length);
+		Assert.assertTrue(lines[0].startsWith("X-OCCI-Location: ") && lines[0].endsWith("order01"));
+		Assert.assertTrue(lines[1].endsWith("order02"));
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes();
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+}
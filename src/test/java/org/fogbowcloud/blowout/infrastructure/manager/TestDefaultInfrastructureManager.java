@@ -291,5 +291,24 @@ public class TestDefaultInfrastructureManager {
 		verify(resourceMonitor, times(1)).addPendingResource(Mockito.any(String.class), Mockito.any(Specification.class));
 		
 	}
+
+	@Test
+	public void testActDoesNotRequestResourcesAlreadyInFlight() throws Exception {
+		
+		Specification spec = new Specification("Image", "Fogbow", "myKey", "path");
+		List<Task> tasks = new ArrayList<Task>();
+		tasks.add(new TaskImpl("Task01", spec, FAKE_UUID));
+		tasks.add(new TaskImpl("Task02", spec, FAKE_UUID));
+		List<AbstractResource> resources = new ArrayList<AbstractResource>();
+		
+		ResourceProvisioner provisioner = Mockito.mock(ResourceProvisioner.class);
+		doReturn(1).when(provisioner).getInFlightCount(spec);
+		defaultInfrastructureManager = new DefaultInfrastructureManager(infraProvider, resourceMonitor, provisioner);
+		
+		defaultInfrastructureManager.act(resources, tasks);
+		verify(provisioner, times(1)).provision(spec, 1);
+		verify(infraProvider, times(0)).requestResource(spec);
+		
+	}
 	
 }
@@ -0,0 +1,159 @@
+package org.fogbowcloud.blowout.infrastructure.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowRequirementsHelper;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestDemandMatcher {
+
+	private static final String FAKE_UUID = "1234";
+
+	private Specification specA;
+	private Specification specB;
+	private Specification specC;
+	private List<Task> tasks;
+	private List<AbstractResource> resources;
+
+	@Before
+	public void setUp() {
+		specA = new Specification("imageA", "username", "publicKey", "privateKeyFilePath");
+		specB = new Specification("imageB", "username", "publicKey", "privateKeyFilePath");
+		specC = new Specification("imageC", "username", "publicKey", "privateKeyFilePath");
+		tasks = new ArrayList<Task>();
+		resources = new ArrayList<AbstractResource>();
+	}
+
+	@Test
+	public void testDemandIsTasksWithoutResource() {
+		addTasks(specA, 5);
+		addTasks(specB, 2);
+		addResources(3, specA);
+		addResources(2, specB);
+
+		Map<Specification, Integer> demand = DemandMatcher.computeDemand(tasks, resources);
+
+		assertEquals(1, demand.size());
+		assertEquals(Integer.valueOf(2), demand.get(specA));
+	}
+
+	@Test
+	public void testFinishedTasksAndUnmatchedResourcesAreIgnored() {
+		addTasks(specA, 3);
+		tasks.get(0).finish();
+		addResources(4, specC);
+
+		Map<Specification, Integer> demand = DemandMatcher.computeDemand(tasks, resources);
+
+		assertEquals(Integer.valueOf(2), demand.get(specA));
+		assertEquals(null, demand.get(specC));
+	}
+
+	@Test
+	public void testSharedResourceGoesWhereItIsNeeded() {
+		// A first fit would give the first resource to the task of A and
+		// leave B without one.
+		addTasks(specA, 1);
+		addTasks(specB, 1);
+		addResources(1, specA, specB);
+		addResources(1, specA);
+
+		assertTrue(DemandMatcher.computeDemand(tasks, resources).isEmpty());
+	}
+
+	@Test
+	public void testSharedResourcesAcrossSeveralSpecifications() {
+		addTasks(specA, 4);
+		addTasks(specB, 4);
+		addTasks(specC, 4);
+		addResources(3, specA, specB);
+		addResources(3, specB, specC);
+		addResources(2, specA, specC);
+		addResources(2, specC);
+
+		Map<Specification, Integer> demand = DemandMatcher.computeDemand(tasks, resources);
+
+		int total = 0;
+		for (Integer specDemand : demand.values()) {
+			total += specDemand;
+		}
+		assertEquals(2, total);
+	}
+
+	@Test
+	public void testFogbowResourcesAreMatchedByTheirRequirements() {
+		Specification smallSpec = createFogbowSpec("Glue2vCPU >= 1 && Glue2RAM >= 1024");
+		Specification largeSpec = createFogbowSpec("Glue2vCPU >= 4 && Glue2RAM >= 8192");
+		addTasks(smallSpec, 3);
+		addTasks(largeSpec, 2);
+		addFogbowResource(smallSpec, "2", "2048");
+		addFogbowResource(smallSpec, "8", "16384");
+		addFogbowResource(smallSpec, "8", "16384");
+		addResources(1, smallSpec);
+
+		Map<Specification, Integer> demand = DemandMatcher.computeDemand(tasks, resources);
+
+		// The large resources go to the large tasks, which no other resource can run.
+		assertEquals(1, demand.size());
+		assertEquals(Integer.valueOf(1), demand.get(smallSpec));
+	}
+
+	private Specification createFogbowSpec(String requirements) {
+		Specification spec = new Specification("imageF", "username", "publicKey", "privateKeyFilePath");
+		spec.addRequirement(FogbowRequirementsHelper.METADATA_FOGBOW_REQUIREMENTS, requirements);
+		return spec;
+	}
+
+	private void addFogbowResource(Specification spec, String vCpu, String memory) {
+		FogbowResource resource = new FogbowResource("resource" + resources.size(), "order", spec);
+		resource.putMetadata(AbstractResource.METADATA_IMAGE, spec.getImage());
+		resource.putMetadata(AbstractResource.METADATA_PUBLIC_KEY, spec.getPublicKey());
+		resource.putMetadata(AbstractResource.METADATA_VCPU, vCpu);
+		resource.putMetadata(AbstractResource.METADATA_MEN_SIZE, memory);
+		resources.add(resource);
+	}
+
+	private void addTasks(Specification spec, int count) {
+		for (int i = 0; i < count; i++) {
+			tasks.add(new TaskImpl("task" + tasks.size(), spec, FAKE_UUID));
+		}
+	}
+
+	private void addResources(int count, Specification... matchedSpecs) {
+		for (int i = 0; i < count; i++) {
+			resources.add(new MatchingResource("resource" + resources.size(), matchedSpecs));
+		}
+	}
+
+	private static class MatchingResource extends AbstractResource {
+
+		private final List<Specification> matchedSpecs;
+
+		MatchingResource(String id, Specification... matchedSpecs) {
+			super(id, matchedSpecs[0]);
+			this.matchedSpecs = Arrays.asList(matchedSpecs);
+		}
+
+		@Override
+		public boolean match(Specification spec) {
+			return matchedSpecs.contains(spec);
+		}
+
+		@Override
+		protected boolean internalCheckConnectivity() {
+			return true;
+		}
+	}
+}
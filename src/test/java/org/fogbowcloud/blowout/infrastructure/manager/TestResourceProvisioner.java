@@ -0,0 +1,140 @@
+package org.fogbowcloud.blowout.infrastructure.manager;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.infrastructure.exception.RequestResourceException;
+import org.fogbowcloud.blowout.infrastructure.monitor.ResourceMonitor;
+import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestResourceProvisioner {
+
+	private static final String FAKE_RESOURCE_ID = "fakeResourceId";
+
+	private InfrastructureProvider infraProvider;
+	private ResourceMonitor resourceMonitor;
+	private ResourceProvisioner provisioner;
+	private Specification spec;
+
+	@Before
+	public void setUp() {
+		infraProvider = mock(InfrastructureProvider.class);
+		resourceMonitor = mock(ResourceMonitor.class);
+		spec = new Specification("Image", "Fogbow", "myKey", "path");
+	}
+
+	@After
+	public void tearDown() {
+		if (provisioner != null) {
+			provisioner.shutdown();
+		}
+	}
+
+	@Test
+	public void testProvisionDoesNotWaitForProvider() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		doAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				release.await(10, TimeUnit.SECONDS);
+				return FAKE_RESOURCE_ID;
+			}
+		}).when(infraProvider).requestResource(spec);
+		provisioner = new ResourceProvisioner(infraProvider, resourceMonitor, 2, 0, 10, 10, 1);
+
+		provisioner.provision(spec, 3);
+
+		Assert.assertEquals(3, provisioner.getInFlightCount(spec));
+		verify(resourceMonitor, never()).addPendingResource(FAKE_RESOURCE_ID, spec);
+
+		release.countDown();
+		waitForInFlight(0);
+		verify(resourceMonitor, times(3)).addPendingResource(FAKE_RESOURCE_ID, spec);
+		Assert.assertEquals(3, provisioner.getRequestedCount());
+	}
+
+	@Test
+	public void testFailedRequestIsRetried() throws Exception {
+		doThrow(new RequestResourceException("fail")).doReturn(FAKE_RESOURCE_ID).when(infraProvider)
+				.requestResource(spec);
+		provisioner = new ResourceProvisioner(infraProvider, resourceMonitor, 1, 3, 10, 10, 1);
+
+		provisioner.provision(spec, 1);
+
+		waitForInFlight(0);
+		verify(resourceMonitor).addPendingResource(FAKE_RESOURCE_ID, spec);
+		verify(infraProvider, times(2)).requestResource(spec);
+		Assert.assertEquals(0, provisioner.getFailedCount());
+	}
+
+	@Test
+	public void testRequestIsDroppedAfterMaxRetries() throws Exception {
+		doThrow(new RequestResourceException("fail")).when(infraProvider).requestResource(spec);
+		provisioner = new ResourceProvisioner(infraProvider, resourceMonitor, 1, 2, 10, 10, 1);
+
+		provisioner.provision(spec, 1);
+
+		waitForInFlight(0);
+		verify(infraProvider, times(3)).requestResource(spec);
+		Assert.assertEquals(1, provisioner.getFailedCount());
+	}
+
+	@Test
+	public void testSynchronousProvisioner() throws Exception {
+		doReturn(FAKE_RESOURCE_ID).when(infraProvider).requestResource(spec);
+		provisioner = ResourceProvisioner.createSynchronousProvisioner(infraProvider, resourceMonitor);
+
+		provisioner.provision(spec, 2);
+
+		verify(resourceMonitor, times(2)).addPendingResource(FAKE_RESOURCE_ID, spec);
+		Assert.assertEquals(0, provisioner.getInFlightCount());
+	}
+
+	@Test
+	public void testResourcesAreRequestedInBatches() throws Exception {
+		doReturn(Arrays.asList("r1", "r2", "r3")).when(infraProvider).requestResources(spec, 3);
+		doReturn(Arrays.asList("r4", "r5")).when(infraProvider).requestResources(spec, 2);
+		provisioner = new ResourceProvisioner(infraProvider, resourceMonitor, 0, 0, 0, 0, 3);
+
+		provisioner.provision(spec, 5);
+
+		verify(infraProvider).requestResources(spec, 3);
+		verify(infraProvider).requestResources(spec, 2);
+		verify(resourceMonitor).addPendingResource("r5", spec);
+		Assert.assertEquals(5, provisioner.getRequestedCount());
+		Assert.assertEquals(0, provisioner.getInFlightCount());
+	}
+
+	@Test
+	public void testRetryDelayIsCapped() {
+		provisioner = new ResourceProvisioner(infraProvider, resourceMonitor, 0, 5, 1000, 5000, 1);
+
+		Assert.assertEquals(1000, provisioner.getRetryDelay(0));
+		Assert.assertEquals(4000, provisioner.getRetryDelay(2));
+		Assert.assertEquals(5000, provisioner.getRetryDelay(3));
+	}
+
+	private void waitForInFlight(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (provisioner.getInFlightCount() != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(expected, provisioner.getInFlightCount());
+	}
+}
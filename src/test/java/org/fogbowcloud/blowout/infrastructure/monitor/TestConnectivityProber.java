@@ -0,0 +1,132 @@
+package org.fogbowcloud.blowout.infrastructure.monitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestConnectivityProber {
+
+	private static final String LOCALHOST = "127.0.0.1";
+
+	private ServerSocket server;
+	private ConnectivityProber prober;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new ServerSocket(0, 200, InetAddress.getByName(LOCALHOST));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (prober != null) {
+			prober.close();
+		}
+		server.close();
+	}
+
+	@Test
+	public void testListeningPortIsReachable() throws Exception {
+		prober = new ConnectivityProber(1000, false, 10);
+
+		Assert.assertTrue(prober.probe(LOCALHOST, server.getLocalPort()).get(5, TimeUnit.SECONDS));
+		Assert.assertTrue(ConnectivityProber.isReachable(LOCALHOST, server.getLocalPort(), 1000));
+	}
+
+	@Test
+	public void testClosedPortIsNotReachable() throws Exception {
+		int port = server.getLocalPort();
+		server.close();
+		prober = new ConnectivityProber(1000, false, 10);
+
+		Assert.assertFalse(prober.probe(LOCALHOST, port).get(5, TimeUnit.SECONDS));
+		Assert.assertFalse(ConnectivityProber.isReachable(LOCALHOST, port, 1000));
+	}
+
+	@Test
+	public void testManyProbesShareTheSelector() throws Exception {
+		prober = new ConnectivityProber(2000, false, 16);
+
+		List<Future<Boolean>> probes = new ArrayList<Future<Boolean>>();
+		for (int i = 0; i < 100; i++) {
+			probes.add(prober.probe(LOCALHOST, server.getLocalPort()));
+		}
+		for (Future<Boolean> probe : probes) {
+			Assert.assertTrue(probe.get(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testFailedConnectGivesBackItsSlot() throws Exception {
+		prober = new ConnectivityProber(1000, false, 1);
+
+		Assert.assertFalse(prober.probe("unresolvable.invalid", server.getLocalPort()).get(5, TimeUnit.SECONDS));
+		Assert.assertFalse(prober.probe(null, server.getLocalPort()).get(5, TimeUnit.SECONDS));
+		Assert.assertTrue(prober.probe(LOCALHOST, server.getLocalPort()).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testUnresolvableHostFailsBeforeReachingTheSelector() throws Exception {
+		prober = new ConnectivityProber(1000, false, 1);
+
+		Future<Boolean> probe = prober.probe("unresolvable.invalid", server.getLocalPort());
+		Assert.assertTrue(probe.isDone());
+		Assert.assertFalse(probe.get());
+	}
+
+	@Test
+	public void testSshBannerIsValidated() throws Exception {
+		prober = new ConnectivityProber(500, true, 10);
+		Thread greeter = greetLater("SSH-2.0-OpenSSH\r\n");
+
+		Assert.assertTrue(prober.probe(LOCALHOST, server.getLocalPort()).get(5, TimeUnit.SECONDS));
+		greeter.join();
+	}
+
+	@Test
+	public void testMissingSshBannerTimesOut() throws Exception {
+		prober = new ConnectivityProber(300, true, 10);
+
+		long start = System.currentTimeMillis();
+		Assert.assertFalse(prober.probe(LOCALHOST, server.getLocalPort()).get(5, TimeUnit.SECONDS));
+		Assert.assertTrue(System.currentTimeMillis() - start >= 300);
+	}
+
+	@Test
+	public void testProbeAfterCloseFails() throws Exception {
+		prober = new ConnectivityProber(1000, false, 10);
+		prober.close();
+
+		Assert.assertFalse(prober.probe(LOCALHOST, server.getLocalPort()).get(5, TimeUnit.SECONDS));
+	}
+
+	private Thread greetLater(final String banner) {
+		Thread greeter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Socket socket = server.accept();
+					OutputStream out = socket.getOutputStream();
+					out.write(banner.getBytes());
+					out.flush();
+					Thread.sleep(200);
+					socket.close();
+				} catch (Exception e) {
+					// The probe fails and the test reports it.
+				}
+			}
+		});
+		greeter.start();
+		return greeter;
+	}
+}
@@ -2,22 +2,32 @@ package org.fogbowcloud.blowout.infrastructure.monitor;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fogbowcloud.blowout.core.model.Specification;
 import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
 import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.infrastructure.model.ResourceState;
 import org.fogbowcloud.blowout.infrastructure.provider.InfrastructureProvider;
 import org.fogbowcloud.blowout.pool.AbstractResource;
 import org.fogbowcloud.blowout.pool.BlowoutPool;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class TestResourceMonitor {
@@ -25,23 +35,25 @@ public class TestResourceMonitor {
 	private ResourceMonitor resourceMonitor;
 	private InfrastructureProvider infraProvider;
 	private BlowoutPool resourcePool;
+	private Properties properties;
 	
 	@Before
 	public void setUp() throws Exception {
 		
 		infraProvider = Mockito.mock(InfrastructureProvider.class);
 		resourcePool = Mockito.mock(BlowoutPool.class);
-		Properties properties = new Properties();
+		properties = new Properties();
 		properties.setProperty(AppPropertiesConstants.INFRA_MONITOR_PERIOD, "1000");
 		properties.setProperty(AppPropertiesConstants.INFRA_RESOURCE_IDLE_LIFETIME, "120000");
 		properties.setProperty(AppPropertiesConstants.INFRA_RESOURCE_CONNECTION_RETRY, "3");
+		properties.setProperty(AppPropertiesConstants.INFRA_MONITOR_POLLING_TIMEOUT, "500");
 		
 		resourceMonitor = Mockito.spy(new ResourceMonitor(infraProvider, resourcePool, properties));
 	}
 
 	@After
 	public void setDown() throws Exception {
-
+		resourceMonitor.stop();
 	}
 
 	@Test
@@ -62,7 +74,7 @@ public class TestResourceMonitor {
 		resourceMonitor.addPendingResource(resourceId, specA);
 		resourceMonitor.getMonitoringService().monitorProcess();
 		
-		verify(resourcePool, times(1)).addResource(resource);
+		assertEquals(Arrays.asList(resource), getAddedResources());
 		assertTrue(resourceMonitor.getPendingResources().isEmpty());
 
 	}
@@ -89,11 +101,146 @@ public class TestResourceMonitor {
 		resourceMonitor.addPendingResource(resourceIdB, spec);
 		resourceMonitor.getMonitoringService().monitorProcess();
 		
-		verify(resourcePool, times(1)).addResource(resource);
+		assertEquals(Arrays.asList(resource), getAddedResources());
 		assertEquals(1, resourceMonitor.getPendingResources().size());
 
 	}
+
+	@Test
+	public void testPendingResourcesArePolledConcurrently() throws Exception {
+
+		int count = 10;
+		long delay = 200;
+		Specification spec = new Specification("ImageA", "Fogbow", "myKeyA", "path");
+		SlowInfrastructureProvider slowProvider = new SlowInfrastructureProvider(delay);
+		for (int i = 0; i < count; i++) {
+			slowProvider.resources.put("resource" + i, new FogbowResource("resource" + i, "order" + i, spec));
+		}
+		resourceMonitor = new ResourceMonitor(slowProvider, resourcePool, properties);
+		doReturn(new ArrayList<AbstractResource>()).when(resourcePool).getAllResources();
+
+		for (int i = 0; i < count; i++) {
+			resourceMonitor.addPendingResource("resource" + i, spec);
+		}
+		long start = System.currentTimeMillis();
+		resourceMonitor.getMonitoringService().monitorProcess();
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertEquals(count, getAddedResources().size());
+		assertTrue(resourceMonitor.getPendingResources().isEmpty());
+		assertTrue(slowProvider.maxConcurrentPolls.get() > 1);
+		assertTrue(elapsed < count * delay);
+		verify(resourcePool, never()).addResource(Mockito.any(AbstractResource.class));
+	}
+
+	@Test
+	public void testSlowPendingResourceIsPolledOnNextCycle() throws Exception {
+
+		Specification spec = new Specification("ImageA", "Fogbow", "myKeyA", "path");
+		AbstractResource resource = new FogbowResource("resourceA", "orderA", spec);
+		SlowInfrastructureProvider slowProvider = new SlowInfrastructureProvider(0);
+		slowProvider.resources.put("resourceA", resource);
+		slowProvider.blockedResourceId = "resourceB";
+		resourceMonitor = new ResourceMonitor(slowProvider, resourcePool, properties);
+		doReturn(new ArrayList<AbstractResource>()).when(resourcePool).getAllResources();
+
+		resourceMonitor.addPendingResource("resourceA", spec);
+		resourceMonitor.addPendingResource("resourceB", spec);
+		long start = System.currentTimeMillis();
+		resourceMonitor.getMonitoringService().monitorProcess();
+		slowProvider.release.countDown();
+
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertEquals(Arrays.asList(resource), getAddedResources());
+		assertEquals(Arrays.asList("resourceB"), resourceMonitor.getPendingResources());
+	}
+
+	@Test
+	public void testFailedResourceIsProbedAndMovedToIdle() throws Exception {
+
+		ServerSocket server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+		try {
+			Specification spec = new Specification("ImageA", "Fogbow", "myKeyA", "path");
+			AbstractResource resource = new FogbowResource("resourceA", "orderA", spec);
+			resource.putMetadata(AbstractResource.METADATA_SSH_HOST, "127.0.0.1");
+			resource.putMetadata(AbstractResource.METADATA_SSH_PORT, String.valueOf(server.getLocalPort()));
+			resource.setState(ResourceState.FAILED);
+			doReturn(Arrays.asList(resource)).when(resourcePool).getAllResources();
+
+			resourceMonitor.getMonitoringService().monitorProcess();
+
+			verify(resourcePool).updateResource(resource, ResourceState.IDLE);
+			assertEquals(0, resource.getConnectionFailTries());
+		} finally {
+			server.close();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<AbstractResource> getAddedResources() {
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(resourcePool, Mockito.atLeastOnce()).addResourceList(captor.capture());
+		List<AbstractResource> added = new ArrayList<AbstractResource>();
+		for (List batch : captor.getAllValues()) {
+			added.addAll(batch);
+		}
+		return added;
+	}
 	
 	
 	
+	/**
+	 * Provider whose polls take some time, since calls on Mockito mocks are
+	 * not answered concurrently.
+	 */
+	private static class SlowInfrastructureProvider implements InfrastructureProvider {
+
+		private final Map<String, AbstractResource> resources = new ConcurrentHashMap<String, AbstractResource>();
+		private final AtomicInteger concurrentPolls = new AtomicInteger();
+		private final AtomicInteger maxConcurrentPolls = new AtomicInteger();
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final long delay;
+		private volatile String blockedResourceId;
+
+		private SlowInfrastructureProvider(long delay) {
+			this.delay = delay;
+		}
+
+		@Override
+		public AbstractResource getResource(String resourceId) {
+			int current = concurrentPolls.incrementAndGet();
+			maxConcurrentPolls.set(Math.max(maxConcurrentPolls.get(), current));
+			try {
+				if (resourceId.equals(blockedResourceId)) {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				return null;
+			} finally {
+				concurrentPolls.decrementAndGet();
+			}
+			return resources.get(resourceId);
+		}
+
+		@Override
+		public String requestResource(Specification specification) {
+			return null;
+		}
+
+		@Override
+		public List<String> requestResources(Specification specification, int count) {
+			return null;
+		}
+
+		@Override
+		public List<AbstractResource> getAllResources() {
+			return null;
+		}
+
+		@Override
+		public void deleteResource(String resourceId) {
+		}
+	}
+
 }
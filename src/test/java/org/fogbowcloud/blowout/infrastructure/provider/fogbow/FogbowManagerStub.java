@@ -0,0 +1,202 @@
+package org.fogbowcloud.blowout.infrastructure.provider.fogbow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fogbowcloud.manager.occi.order.OrderAttribute;
+import org.fogbowcloud.manager.occi.order.OrderConstants;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal Fogbow manager answering orders and compute instances over HTTP,
+ * one by one or listed with their attributes, every order being fulfilled at
+ * once. Each answer can be delayed to mimic a slow manager.
+ */
+public class FogbowManagerStub {
+
+	private static final String PROVIDING_MEMBER = "org.fogbowcloud.order.providing-member";
+	private static final String INSTANCE_ID = "org.fogbowcloud.order.instance-id";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, String> orders = new ConcurrentHashMap<String, String>();
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger concurrentRequests = new AtomicInteger();
+	private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+	private volatile long responseDelay;
+
+	public FogbowManagerStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/" + OrderConstants.TERM, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleOrder(exchange);
+			}
+		});
+		server.createContext("/compute", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleCompute(exchange);
+			}
+		});
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public void setResponseDelay(long responseDelay) {
+		this.responseDelay = responseDelay;
+	}
+
+	public int getRequestCount() {
+		return requests.get();
+	}
+
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests.get();
+	}
+
+	public boolean hasOrder(String orderId) {
+		return orders.containsKey(orderId);
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handleOrder(HttpExchange exchange) throws IOException {
+		enter();
+		try {
+			String method = exchange.getRequestMethod();
+			String id = getId(exchange, OrderConstants.TERM);
+			if ("POST".equals(method)) {
+				int count = getInstanceCount(exchange);
+				StringBuilder locations = new StringBuilder();
+				for (int i = 0; i < count; i++) {
+					String orderId = "order" + nextId.incrementAndGet();
+					orders.put(orderId, "instance-" + orderId);
+					if (locations.length() > 0) {
+						locations.append(",");
+					}
+					locations.append(getUrl() + "/" + OrderConstants.TERM + "/" + orderId);
+				}
+				exchange.getResponseHeaders().add("Location", locations.toString());
+				respond(exchange, 201, "");
+			} else if (id == null) {
+				StringBuilder listing = new StringBuilder();
+				for (String orderId : orders.keySet()) {
+					listing.append(location(OrderConstants.TERM, orderId) + "\n" + orderAttributes(orderId) + "\n");
+				}
+				respond(exchange, 200, listing.toString());
+			} else if (!orders.containsKey(id)) {
+				respond(exchange, 404, "");
+			} else if ("DELETE".equals(method)) {
+				orders.remove(id);
+				respond(exchange, 200, "Ok");
+			} else {
+				respond(exchange, 200, orderAttributes(id));
+			}
+		} finally {
+			concurrentRequests.decrementAndGet();
+		}
+	}
+
+	private void handleCompute(HttpExchange exchange) throws IOException {
+		enter();
+		try {
+			String id = getId(exchange, "compute");
+			if (id == null) {
+				StringBuilder listing = new StringBuilder();
+				for (String instanceId : orders.values()) {
+					listing.append(location("compute", instanceId) + "\n" + instanceAttributes(instanceId) + "\n");
+				}
+				respond(exchange, 200, listing.toString());
+			} else if (!orders.containsValue(id)) {
+				respond(exchange, 404, "");
+			} else if ("DELETE".equals(exchange.getRequestMethod())) {
+				respond(exchange, 200, "Ok");
+			} else {
+				respond(exchange, 200, instanceAttributes(id));
+			}
+		} finally {
+			concurrentRequests.decrementAndGet();
+		}
+	}
+
+	private String location(String term, String id) {
+		return "X-OCCI-Location: " + getUrl() + "/" + term + "/" + id;
+	}
+
+	private String orderAttributes(String orderId) {
+		return attribute(OrderAttribute.STATE.getValue(), "fulfilled") + "\n"
+				+ attribute(INSTANCE_ID, orders.get(orderId)) + "\n" + attribute(PROVIDING_MEMBER, "member");
+	}
+
+	private static String instanceAttributes(String instanceId) {
+		return attribute("occi.core.id", instanceId) + "\n" + attribute("occi.compute.memory", "2.0") + "\n"
+				+ attribute("occi.compute.cores", "1") + "\n"
+				+ attribute("org.fogbowcloud.order.ssh-public-address", "10.0.0.1:22");
+	}
+
+	private void enter() {
+		requests.incrementAndGet();
+		int current = concurrentRequests.incrementAndGet();
+		int max;
+		do {
+			max = maxConcurrentRequests.get();
+		} while (current > max && !maxConcurrentRequests.compareAndSet(max, current));
+
+		try {
+			Thread.sleep(responseDelay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static int getInstanceCount(HttpExchange exchange) {
+		List<String> attributes = exchange.getRequestHeaders().get("X-OCCI-Attribute");
+		if (attributes != null) {
+			for (String attribute : attributes) {
+				String prefix = OrderAttribute.INSTANCE_COUNT.getValue() + "=";
+				if (attribute.startsWith(prefix)) {
+					return Integer.parseInt(attribute.substring(prefix.length()).trim());
+				}
+			}
+		}
+		return 1;
+	}
+
+	private static String getId(HttpExchange exchange, String term) {
+		String path = exchange.getRequestURI().getPath();
+		String prefix = "/" + term + "/";
+		return path.startsWith(prefix) && path.length() > prefix.length() ? path.substring(prefix.length()) : null;
+	}
+
+	private static String attribute(String key, String value) {
+		return "X-OCCI-Attribute: " + key + "=\"" + value + "\"";
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes();
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+}
@@ -0,0 +1,177 @@
+package org.fogbowcloud.blowout.infrastructure.provider.fogbow;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.concurrent.FutureCallback;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
+import org.fogbowcloud.blowout.database.FogbowResourceDatastore;
+import org.fogbowcloud.blowout.infrastructure.exception.InfrastructureException;
+import org.fogbowcloud.blowout.infrastructure.http.AsyncHttpWrapper;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.infrastructure.token.AbstractTokenUpdatePlugin;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.fogbowcloud.manager.occi.model.Token;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestAsyncFogbowInfrastructureProvider {
+
+	private static final String FAKE_DATA_FILE = "src/test/java/org/fogbowcloud/blowout/infrastructure/provider/fogbow/userDataMock";
+	private static final long RESPONSE_DELAY = 200;
+
+	private FogbowManagerStub manager;
+	private FogbowInfrastructureProvider provider;
+	private FogbowResourceDatastore datastoreMock;
+	private Specification spec;
+
+	@Before
+	public void setUp() throws Exception {
+		manager = new FogbowManagerStub();
+
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.INFRA_IS_STATIC, "false");
+		properties.setProperty(AppPropertiesConstants.INFRA_FOGBOW_MANAGER_BASE_URL, manager.getUrl());
+
+		AbstractTokenUpdatePlugin tokenUpdatePluginMock = mock(AbstractTokenUpdatePlugin.class);
+		doReturn(mock(Token.class)).when(tokenUpdatePluginMock).generateToken();
+		doReturn(6).when(tokenUpdatePluginMock).getUpdateTime();
+		doReturn(TimeUnit.HOURS).when(tokenUpdatePluginMock).getUpdateTimeUnits();
+
+		provider = new FogbowInfrastructureProvider(properties, new ScheduledCurrentThreadExecutorService(),
+				tokenUpdatePluginMock);
+		provider.setManagerUrl(manager.getUrl());
+		datastoreMock = mock(FogbowResourceDatastore.class);
+		provider.setFrDatastore(datastoreMock);
+
+		spec = new Specification("imageMock", "UserName", "publicKeyMock", "privateKeyMock", FAKE_DATA_FILE,
+				"userDataType");
+	}
+
+	@After
+	public void tearDown() {
+		provider.close();
+		manager.stop();
+	}
+
+	@Test
+	public void testRequestResourcesAsync() throws Exception {
+		List<String> resourceIds = provider.requestResourcesAsync(spec, 3, null).get(5, TimeUnit.SECONDS);
+
+		Assert.assertEquals(3, resourceIds.size());
+		for (String resourceId : resourceIds) {
+			Assert.assertTrue(manager.hasOrder(provider.getResourcesMap().get(resourceId).getOrderId()));
+		}
+	}
+
+	@Test
+	public void testPendingResourcesArePolledConcurrently() throws Exception {
+		int count = 10;
+		List<String> resourceIds = provider.requestResourcesAsync(spec, count, null).get(5, TimeUnit.SECONDS);
+		manager.setResponseDelay(RESPONSE_DELAY);
+
+		long start = System.currentTimeMillis();
+		List<Future<AbstractResource>> polls = new ArrayList<Future<AbstractResource>>();
+		for (String resourceId : resourceIds) {
+			polls.add(provider.getResourceAsync(resourceId, null));
+		}
+		for (Future<AbstractResource> poll : polls) {
+			AbstractResource resource = poll.get(10, TimeUnit.SECONDS);
+			Assert.assertNotNull(resource);
+			Assert.assertEquals("10.0.0.1", resource.getMetadataValue(AbstractResource.METADATA_SSH_HOST));
+		}
+		long elapsed = System.currentTimeMillis() - start;
+
+		// Each poll is two requests; polled one after the other they would take 2 * count * RESPONSE_DELAY.
+		Assert.assertTrue(manager.getMaxConcurrentRequests() > 1);
+		Assert.assertTrue(elapsed < count * RESPONSE_DELAY);
+		verify(datastoreMock, Mockito.times(count)).updateFogbowResource(Mockito.any(FogbowResource.class));
+	}
+
+	@Test
+	public void testGetResourcesWithTwoListings() throws Exception {
+		List<String> resourceIds = provider.requestResources(spec, 5);
+		List<String> checkedIds = new ArrayList<String>(resourceIds.subList(0, 4));
+		checkedIds.add("unknown");
+		int requestsBefore = manager.getRequestCount();
+
+		List<AbstractResource> resources = provider.getResources(checkedIds);
+
+		Assert.assertEquals(2, manager.getRequestCount() - requestsBefore);
+		Assert.assertEquals(4, resources.size());
+		for (AbstractResource resource : resources) {
+			Assert.assertTrue(checkedIds.contains(resource.getId()));
+			Assert.assertEquals("22", resource.getMetadataValue(AbstractResource.METADATA_SSH_PORT));
+		}
+	}
+
+	@Test
+	public void testGetUnknownResourceAsync() throws Exception {
+		Assert.assertNull(provider.getResourceAsync("unknown", null).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testDeleteResourceAsync() throws Exception {
+		String resourceId = provider.requestResourcesAsync(spec, 1, null).get(5, TimeUnit.SECONDS).get(0);
+		String orderId = provider.getResourcesMap().get(resourceId).getOrderId();
+		Assert.assertNotNull(provider.getResourceAsync(resourceId, null).get(5, TimeUnit.SECONDS));
+		final AtomicReference<String> deletingThread = new AtomicReference<String>();
+		doAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) {
+				deletingThread.set(Thread.currentThread().getName());
+				return true;
+			}
+		}).when(datastoreMock).deleteFogbowResourceById(Mockito.any(FogbowResource.class));
+
+		provider.deleteResourceAsync(resourceId, null).get(5, TimeUnit.SECONDS);
+
+		Assert.assertFalse(manager.hasOrder(orderId));
+		Assert.assertNull(provider.getResourcesMap().get(resourceId));
+		verify(datastoreMock).deleteFogbowResourceById(Mockito.any(FogbowResource.class));
+		Assert.assertEquals("blowout-fogbow-datastore", deletingThread.get());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCancellingAnOperationCancelsItsRequest() throws Exception {
+		String resourceId = provider.requestResources(spec, 1).get(0);
+		AsyncHttpWrapper asyncHttpWrapperMock = mock(AsyncHttpWrapper.class);
+		Future<String> requestMock = mock(Future.class);
+		doReturn(requestMock).when(asyncHttpWrapperMock).doRequest(Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyList(), Mockito.any(FutureCallback.class));
+		provider.setAsyncHttpWrapper(asyncHttpWrapperMock);
+
+		Future<AbstractResource> poll = provider.getResourceAsync(resourceId, null);
+		Assert.assertTrue(poll.cancel(true));
+
+		verify(requestMock).cancel(true);
+	}
+
+	@Test
+	public void testDeleteUnknownResourceAsyncFails() throws Exception {
+		try {
+			provider.deleteResourceAsync("unknown", null).get(5, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof InfrastructureException);
+		}
+	}
+}
@@ -3,6 +3,7 @@ package org.fogbowcloud.blowout.infrastructure.provider.fogbow;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -26,6 +27,7 @@ import org.fogbowcloud.blowout.infrastructure.http.HttpWrapper;
 import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
 import org.fogbowcloud.blowout.infrastructure.token.AbstractTokenUpdatePlugin;
 import org.fogbowcloud.manager.occi.model.Token;
+import org.fogbowcloud.manager.occi.order.OrderAttribute;
 import org.fogbowcloud.manager.occi.order.OrderConstants;
 import org.fogbowcloud.manager.occi.order.OrderState;
 import org.junit.After;
@@ -33,6 +35,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 
@@ -84,6 +87,33 @@ public class TestFogbowInfrastructureProvider {
 	}
 
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void requestResourcesCreatesOneResourcePerOrder() throws Exception {
+
+		Specification specs = new Specification("imageMock", "UserName",
+				"publicKeyMock", "privateKeyMock", FAKE_DATA_FILE, "userDataType");
+
+		String fogbowResponse = "X-OCCI-Location: http://localhost:8182/order/order01\n"
+				+ "X-OCCI-Location: http://localhost:8182/order/order02\n"
+				+ "X-OCCI-Location: http://localhost:8182/order/order03";
+		doReturn(fogbowResponse).when(httpWrapperMock).doRequest(Mockito.eq("post"), Mockito.any(String.class),
+				Mockito.any(String.class), Mockito.any(List.class));
+		fogbowInfrastructureProvider.setHttpWrapper(httpWrapperMock);
+
+		List<String> resourceIds = fogbowInfrastructureProvider.requestResources(specs, 3);
+
+		ArgumentCaptor<List> headersCaptor = ArgumentCaptor.forClass(List.class);
+		verify(httpWrapperMock).doRequest(Mockito.eq("post"), Mockito.any(String.class),
+				Mockito.any(String.class), headersCaptor.capture());
+		assertTrue(headersCaptor.getValue().toString()
+				.contains(OrderAttribute.INSTANCE_COUNT.getValue() + "=3"));
+		assertEquals(3, resourceIds.size());
+		assertEquals("order01", fogbowInfrastructureProvider.getResourcesMap().get(resourceIds.get(0)).getOrderId());
+		assertEquals("order03", fogbowInfrastructureProvider.getResourcesMap().get(resourceIds.get(2)).getOrderId());
+		verify(fogbowResourceDsMock).addResourceIds(Mockito.any(List.class));
+	}
+
 	@Test
 	public void testHandleTokenUpdate(){
 		Token token = mock(Token.class);
@@ -0,0 +1,224 @@
+package org.fogbowcloud.blowout.infrastructure.provider.fogbow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.fogbowcloud.blowout.pool.AbstractResource;
+import org.fogbowcloud.blowout.pool.ResourceCatalog;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFogbowRequirements {
+
+	private FogbowResource resource;
+
+	@Before
+	public void setUp() {
+		Specification spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		resource = new FogbowResource("resource01", "order01", spec);
+		resource.putMetadata(AbstractResource.METADATA_VCPU, "2");
+		resource.putMetadata(AbstractResource.METADATA_MEN_SIZE, "8192.0");
+		resource.putMetadata(AbstractResource.METADATA_DISK_SIZE, "30");
+		resource.putMetadata(AbstractResource.METADATA_LOCATION, "\"servers.your.domain\"");
+	}
+
+	@Test
+	public void testComparisons() {
+		assertTrue(matches("Glue2vCPU >= 2 && Glue2RAM >= 2048"));
+		assertTrue(matches("Glue2vCPU == 2 && Glue2RAM <= 8192 && Glue2disk > 29"));
+		assertTrue(matches("Glue2CloudComputeManagerID == \"SERVERS.your.domain\""));
+		assertFalse(matches("Glue2vCPU >= 2 && Glue2RAM > 8192"));
+		assertFalse(matches("Glue2CloudComputeManagerID != \"servers.your.domain\""));
+		assertFalse(matches("Glue2disk < 30"));
+	}
+
+	@Test
+	public void testPrecedence() {
+		assertTrue(matches("Glue2vCPU >= 4 && Glue2RAM >= 1 || Glue2vCPU == 2"));
+		assertFalse(matches("Glue2vCPU >= 4 && (Glue2RAM >= 1 || Glue2vCPU == 2)"));
+	}
+
+	@Test
+	public void testMissingValuesAreUndefined() {
+		resource.putMetadata(AbstractResource.METADATA_VCPU, null);
+		resource.putMetadata(AbstractResource.METADATA_LOCATION, "servers.your.domain");
+
+		assertFalse(matches("Glue2vCPU >= 1"));
+		assertFalse(matches("Glue2vCPU < 1"));
+		assertFalse(matches("Glue2CloudComputeManagerID == \"servers.your.domain\""));
+		assertTrue(matches("Glue2vCPU >= 1 || Glue2RAM >= 1024"));
+	}
+
+	@Test
+	public void testComparingNumbersWithStringsIsAnError() {
+		resource.putMetadata(AbstractResource.METADATA_VCPU, "true");
+
+		assertFalse(matches("Glue2RAM == \"8192\""));
+		assertFalse(matches("Glue2RAM == \"8192\" || Glue2vCPU >= 1"));
+		assertFalse(matches("Glue2vCPU >= 1 || Glue2RAM >= 1"));
+		assertTrue(matches("Glue2RAM >= 1 || Glue2vCPU >= 1"));
+		assertFalse(matches("Glue2RAM >= 1 && Glue2vCPU >= 1"));
+	}
+
+	@Test
+	public void testUnknownAttributesAndUnreportedDiskAreLeftOut() {
+		resource.putMetadata(AbstractResource.METADATA_DISK_SIZE, "0");
+
+		assertTrue(matches("Glue2vCPU >= 2 && Glue2disk >= 100"));
+		assertTrue(matches("Glue2disk >= 100 && Other == 3"));
+		assertFalse(matches("Glue2vCPU >= 4 || Other == 3"));
+	}
+
+	@Test
+	public void testUnsupportedRequirementsAreNotCompiled() {
+		assertNull(FogbowRequirements.forRequirements("Glue2vCPU =?= 2"));
+		assertNull(FogbowRequirements.forRequirements("Glue2vCPU >= Glue2RAM"));
+		assertNull(FogbowRequirements.forRequirements("regexp(\"a.*\", Glue2CloudComputeManagerID)"));
+		assertNull(FogbowRequirements.forRequirements("!Glue2vCPU < 1"));
+		assertNull(FogbowRequirements.forRequirements("!(Glue2vCPU >= 4)"));
+		assertNull(FogbowRequirements.forRequirements("4 > Glue2vCPU"));
+		assertNull(FogbowRequirements.forRequirements("Glue2RAM >= 010"));
+		assertNull(FogbowRequirements.forRequirements("Glue2vCPU >= 1 &&"));
+		assertNull(FogbowRequirements.forRequirements("X (r =x) 1 && w = y"));
+		assertNull(FogbowRequirements.forRequirements(null));
+	}
+
+	@Test
+	public void testRequirementsAreCompiledOnce() {
+		String requirements = "Glue2vCPU >= 1 && Glue2RAM >= 1024";
+
+		FogbowRequirements compiled = FogbowRequirements.forRequirements(requirements);
+
+		assertSame(compiled, FogbowRequirements.forRequirements(new String(requirements)));
+	}
+
+	@Test
+	public void testAttributesAreKeptUntilTheMetadataChanges() {
+		FogbowRequirements.Attributes attributes = resource.getRequirementAttributes();
+
+		assertSame(attributes, resource.getRequirementAttributes());
+
+		resource.putMetadata(AbstractResource.METADATA_VCPU, "8");
+
+		assertNotSame(attributes, resource.getRequirementAttributes());
+		assertTrue(matches("Glue2vCPU == 8"));
+	}
+
+	@Test
+	public void testQueryKeepsEveryMatchingResource() {
+		ResourceCatalog catalog = new ResourceCatalog();
+		Specification spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		String[] cores = { "1", "2", "4", "8" };
+		String[] disks = { null, "0", "20", "40" };
+		for (int i = 0; i < 16; i++) {
+			FogbowResource candidate = new FogbowResource("resource" + i, "order" + i, spec);
+			candidate.putMetadata(AbstractResource.METADATA_VCPU, cores[i % 4]);
+			candidate.putMetadata(AbstractResource.METADATA_MEN_SIZE, String.valueOf(1024.5 * (1 + i / 4)));
+			candidate.putMetadata(AbstractResource.METADATA_DISK_SIZE, disks[i / 4]);
+			candidate.putMetadata(AbstractResource.METADATA_LOCATION, i % 2 == 0 ? "\"a\"" : "\"b\"");
+			catalog.add(candidate);
+		}
+		String[] requirements = { "Glue2vCPU >= 4 && Glue2RAM > 2049.5", "Glue2vCPU == 2 || Glue2RAM < 2048",
+				"Glue2disk >= 30 && Glue2CloudComputeManagerID == \"A\"", "Glue2RAM >= 2049 && Glue2RAM < 3074" };
+
+		for (String requirement : requirements) {
+			FogbowRequirements compiled = FogbowRequirements.forRequirements(requirement);
+			List<AbstractResource> candidates = catalog.find(compiled.toQuery());
+			int matching = 0;
+			for (AbstractResource candidate : catalog.find(new ResourceCatalog.Query())) {
+				if (compiled.matches((FogbowResource) candidate)) {
+					assertTrue(requirement, candidates.contains(candidate));
+					matching++;
+				}
+			}
+			assertTrue(requirement, matching > 0);
+		}
+		assertEquals(6, catalog.find(FogbowRequirements.forRequirements(requirements[0]).toQuery()).size());
+	}
+
+	@Test
+	public void testCompiledRequirementsAgreeWithClassAd() {
+		Assume.assumeTrue("ClassAd library cannot evaluate requirements", classAdEvaluates());
+		String[] requirements = new String[] {
+				"Glue2vCPU >= 2",
+				"Glue2vCPU >= 1 && Glue2RAM >= 1024",
+				"Glue2vCPU >= 4 || Glue2RAM >= 4096",
+				"Glue2vCPU >= 4 && Glue2RAM >= 1 || Glue2vCPU == 2",
+				"Glue2RAM == 1024.0",
+				"Glue2RAM != 1024",
+				"Glue2disk >= 20",
+				"Glue2vCPU >= 1 && Glue2disk >= 40",
+				"Glue2CloudComputeManagerID == \"memberA\"",
+				"Glue2CloudComputeManagerID != \"memberA\"",
+				"Glue2CloudComputeManagerID == \"memberA\" || Glue2vCPU >= 4",
+				"2 <= Glue2vCPU",
+				"4096 > Glue2RAM && \"memberb\" == Glue2CloudComputeManagerID",
+				"!(Glue2vCPU >= 4)",
+				"!(Glue2vCPU >= 4) && !!(Glue2RAM > 512)",
+				"!(Glue2CloudComputeManagerID == \"memberA\")",
+				"Glue2RAM == \"1024\" || Glue2vCPU >= 1",
+				"Glue2vCPU >= 1 || Glue2RAM == \"1024\"",
+				"Glue2vCPU >= 2 && Glue2RAM >= 1024 || Glue2disk >= 20",
+				"Glue2vCPU >= 1 && Glue2Unknown == 3",
+				"Glue2Unknown >= 1 || Glue2RAM >= 1024" };
+		List<FogbowResource> resources = new ArrayList<FogbowResource>();
+		resources.add(createResource("2", "1024.0", "20", "\"memberA\""));
+		resources.add(createResource("4", "8192", "40", "\"MEMBERA\""));
+		resources.add(createResource("1", "512", "0", "\"memberB\""));
+		resources.add(createResource("8", "2048", null, "memberA"));
+		resources.add(createResource(null, "1024", "20", null));
+		resources.add(createResource("2", null, "60", "\"memberb\""));
+		resources.add(createResource("many", "1024", "20", "\"memberA\""));
+		resources.add(createResource("true", "\"1024\"", "2 GB", "\"member\\\"A\""));
+		resources.add(createResource("010", "1024.", "1e1", "Glue2vCPU"));
+
+		for (String requirement : requirements) {
+			FogbowRequirements compiled = FogbowRequirements.forRequirements(requirement);
+			for (FogbowResource candidate : resources) {
+				boolean expected = FogbowRequirementsHelper.classAdMatches(candidate, requirement);
+				String message = requirement + " on " + candidate.getMetadataValue(AbstractResource.METADATA_VCPU)
+						+ "/" + candidate.getMetadataValue(AbstractResource.METADATA_MEN_SIZE) + "/"
+						+ candidate.getMetadataValue(AbstractResource.METADATA_DISK_SIZE) + "/"
+						+ candidate.getMetadataValue(AbstractResource.METADATA_LOCATION);
+				if (compiled != null) {
+					assertEquals(message, expected, compiled.matches(candidate));
+				}
+				assertEquals(message, expected, FogbowRequirementsHelper.matches(candidate, requirement));
+			}
+		}
+	}
+
+	private boolean classAdEvaluates() {
+		try {
+			return FogbowRequirementsHelper.classAdMatches(resource, "Glue2vCPU >= 1")
+					&& !FogbowRequirementsHelper.classAdMatches(resource, "Glue2vCPU >= 4");
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+
+	private FogbowResource createResource(String cores, String memory, String disk, String location) {
+		Specification spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		FogbowResource candidate = new FogbowResource("resource", "order", spec);
+		candidate.putMetadata(AbstractResource.METADATA_VCPU, cores);
+		candidate.putMetadata(AbstractResource.METADATA_MEN_SIZE, memory);
+		candidate.putMetadata(AbstractResource.METADATA_DISK_SIZE, disk);
+		candidate.putMetadata(AbstractResource.METADATA_LOCATION, location);
+		return candidate;
+	}
+
+	private boolean matches(String requirements) {
+		FogbowRequirements compiled = FogbowRequirements.forRequirements(requirements);
+		return compiled.matches(resource);
+	}
+}
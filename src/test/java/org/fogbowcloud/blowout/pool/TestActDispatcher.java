@@ -0,0 +1,101 @@
+package org.fogbowcloud.blowout.pool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestActDispatcher {
+
+	private ActDispatcher actDispatcher;
+
+	@After
+	public void setDown() {
+		if (actDispatcher != null) {
+			actDispatcher.stop();
+		}
+	}
+
+	@Test
+	public void testRequestActRunsAction() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		actDispatcher = new ActDispatcher(new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, 10, 1000);
+		actDispatcher.start();
+
+		actDispatcher.requestAct();
+
+		Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testBurstOfRequestsIsCoalesced() throws Exception {
+		final AtomicInteger executions = new AtomicInteger(0);
+		final CountDownLatch firstAct = new CountDownLatch(1);
+		final CountDownLatch releaseFirstAct = new CountDownLatch(1);
+		actDispatcher = new ActDispatcher(new Runnable() {
+			@Override
+			public void run() {
+				executions.incrementAndGet();
+				firstAct.countDown();
+				try {
+					releaseFirstAct.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		}, 1000, 1);
+		actDispatcher.start();
+
+		actDispatcher.requestAct();
+		Assert.assertTrue(firstAct.await(2, TimeUnit.SECONDS));
+		for (int i = 0; i < 1000; i++) {
+			actDispatcher.requestAct();
+		}
+		releaseFirstAct.countDown();
+
+		long deadline = System.currentTimeMillis() + 2000;
+		while (actDispatcher.isPending() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(50);
+
+		Assert.assertEquals(1001, actDispatcher.getRequestedActs());
+		Assert.assertEquals(2, executions.get());
+	}
+
+	@Test
+	public void testMaxRateDelaysNextAct() throws Exception {
+		final AtomicInteger executions = new AtomicInteger(0);
+		actDispatcher = new ActDispatcher(new Runnable() {
+			@Override
+			public void run() {
+				executions.incrementAndGet();
+			}
+		}, 1, 60000);
+		actDispatcher.start();
+
+		actDispatcher.requestAct();
+		Thread.sleep(100);
+		actDispatcher.requestAct();
+		Thread.sleep(100);
+
+		Assert.assertEquals(1, executions.get());
+		Assert.assertTrue(actDispatcher.isPending());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaxLatencyMayNotUndercutMaxRate() {
+		new ActDispatcher(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}, 0.5, 1000);
+	}
+}
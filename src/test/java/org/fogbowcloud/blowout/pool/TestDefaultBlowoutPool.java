@@ -7,16 +7,24 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.doReturn;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
+import org.apache.commons.io.FileUtils;
+import org.fogbowcloud.blowout.core.SchedulerInterface;
 import org.fogbowcloud.blowout.core.StandardScheduler;
 import org.fogbowcloud.blowout.core.model.Specification;
 import org.fogbowcloud.blowout.core.model.Task;
 import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.fogbowcloud.blowout.core.monitor.TaskExecutor;
 import org.fogbowcloud.blowout.core.monitor.TaskMonitor;
+import org.fogbowcloud.blowout.core.util.AppPropertiesConstants;
 import org.fogbowcloud.blowout.infrastructure.manager.DefaultInfrastructureManager;
 import org.fogbowcloud.blowout.infrastructure.manager.InfrastructureManager;
 import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
@@ -27,6 +35,7 @@ import org.fogbowcloud.blowout.infrastructure.provider.fogbow.FogbowRequirements
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class TestDefaultBlowoutPool {
 	
@@ -71,7 +80,8 @@ public class TestDefaultBlowoutPool {
 		InfrastructureProvider fogbowInfraProvider = mock(InfrastructureProvider.class);
 		ResourceMonitor resourceMonitor = mock(ResourceMonitor.class);
 		
-		TaskMonitor taskMon = new TaskMonitor(defaultBlowoutPool, 3000);
+		TaskMonitor taskMon = new TaskMonitor(defaultBlowoutPool, 3000,
+				new TaskExecutor(mock(ExecutorService.class), 0, 0));
 		
 		infraManager = new DefaultInfrastructureManager(fogbowInfraProvider, resourceMonitor);
 		standardScheduler = new StandardScheduler(taskMon);
@@ -258,4 +268,63 @@ public class TestDefaultBlowoutPool {
 	public void testAddResourceToList() {
 		
 	}
+
+	@Test
+	public void testTasksAreRecoveredFromTheJournal() throws IOException {
+		File journalDir = File.createTempFile("blowout-journal", "");
+		journalDir.delete();
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.POOL_ACT_MAX_RATE, "0");
+		properties.setProperty(AppPropertiesConstants.TASK_JOURNAL_DIR, journalDir.getAbsolutePath());
+		try {
+			DefaultBlowoutPool pool = new DefaultBlowoutPool(properties);
+			pool.setInfraManager(mock(InfrastructureManager.class));
+			pool.setSchedulerInterface(mock(SchedulerInterface.class));
+			TaskImpl taskOne = new TaskImpl("task-one-id", spec, FAKE_UUID);
+			TaskImpl taskTwo = new TaskImpl("task-two-id", spec, FAKE_UUID);
+			pool.putTask(taskOne);
+			pool.putTask(taskTwo);
+			taskOne.finish();
+			pool.updateTask(taskOne);
+			pool.stop();
+
+			DefaultBlowoutPool recoveredPool = new DefaultBlowoutPool(properties);
+
+			Assert.assertEquals(2, recoveredPool.getAllTasks().size());
+			Assert.assertEquals(1, recoveredPool.getUnfinishedTasks().size());
+			Assert.assertEquals("task-two-id", recoveredPool.getUnfinishedTasks().get(0).getId());
+			recoveredPool.stop();
+		} finally {
+			FileUtils.deleteDirectory(journalDir);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testStartActsOnRecoveredTasks() throws Exception {
+		File journalDir = File.createTempFile("blowout-journal", "");
+		journalDir.delete();
+		Properties properties = new Properties();
+		properties.setProperty(AppPropertiesConstants.POOL_ACT_MAX_RATE, "0");
+		properties.setProperty(AppPropertiesConstants.TASK_JOURNAL_DIR, journalDir.getAbsolutePath());
+		try {
+			DefaultBlowoutPool pool = new DefaultBlowoutPool(properties);
+			pool.setInfraManager(mock(InfrastructureManager.class));
+			pool.setSchedulerInterface(mock(SchedulerInterface.class));
+			pool.putTask(new TaskImpl("task-one-id", spec, FAKE_UUID));
+			pool.putTask(new TaskImpl("task-two-id", spec, FAKE_UUID));
+			pool.stop();
+
+			DefaultBlowoutPool recoveredPool = new DefaultBlowoutPool(properties);
+			InfrastructureManager recoveredInfraManager = mock(InfrastructureManager.class);
+			recoveredPool.start(recoveredInfraManager, mock(SchedulerInterface.class));
+
+			ArgumentCaptor<List> tasks = ArgumentCaptor.forClass(List.class);
+			verify(recoveredInfraManager).act(any(List.class), tasks.capture());
+			Assert.assertEquals(2, tasks.getValue().size());
+			recoveredPool.stop();
+		} finally {
+			FileUtils.deleteDirectory(journalDir);
+		}
+	}
 }
@@ -0,0 +1,70 @@
+package org.fogbowcloud.blowout.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.core.model.Task;
+import org.fogbowcloud.blowout.core.model.TaskImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestIndexedTaskPool {
+
+	private static final String FAKE_UUID = "1234";
+
+	private IndexedTaskPool taskPool;
+	private Specification specA;
+	private Specification specB;
+
+	@Before
+	public void setUp() {
+		taskPool = new IndexedTaskPool();
+		specA = new Specification("imageA", "usernameA", "publicKeyA", "privateKeyFilePathA");
+		specB = new Specification("imageB", "usernameB", "publicKeyB", "privateKeyFilePathB");
+	}
+
+	@Test
+	public void testAddKeepsInsertionOrder() {
+		List<Task> tasks = new ArrayList<Task>();
+		tasks.add(new TaskImpl("taskOne", specA, FAKE_UUID));
+		tasks.add(new TaskImpl("taskTwo", specB, FAKE_UUID));
+		tasks.add(new TaskImpl("taskThree", specA, FAKE_UUID));
+
+		taskPool.addAll(tasks);
+
+		Assert.assertEquals(tasks, taskPool.getAll());
+		Assert.assertEquals(3, taskPool.size());
+		Assert.assertEquals(tasks.get(1), taskPool.get("taskTwo"));
+	}
+
+	@Test
+	public void testUpdateMovesFinishedTask() {
+		Task taskOne = new TaskImpl("taskOne", specA, FAKE_UUID);
+		Task taskTwo = new TaskImpl("taskTwo", specA, FAKE_UUID);
+		taskPool.add(taskOne);
+		taskPool.add(taskTwo);
+
+		taskOne.finish();
+		taskPool.update(taskOne);
+
+		Assert.assertEquals(1, taskPool.getFinished().size());
+		Assert.assertEquals(taskOne, taskPool.getFinished().get(0));
+		Assert.assertEquals(1, taskPool.countUnfinished());
+		Assert.assertEquals(taskTwo, taskPool.getUnfinished().get(0));
+	}
+
+	@Test
+	public void testRemove() {
+		Task task = new TaskImpl("taskOne", specA, FAKE_UUID);
+		taskPool.add(task);
+
+		Assert.assertTrue(taskPool.remove(task));
+
+		Assert.assertNull(taskPool.get("taskOne"));
+		Assert.assertTrue(taskPool.getAll().isEmpty());
+		Assert.assertTrue(taskPool.getUnfinished().isEmpty());
+		Assert.assertFalse(taskPool.remove(task));
+	}
+}
@@ -0,0 +1,103 @@
+package org.fogbowcloud.blowout.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fogbowcloud.blowout.core.model.Specification;
+import org.fogbowcloud.blowout.infrastructure.model.FogbowResource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestResourceCatalog {
+
+	private Specification spec;
+	private ResourceCatalog catalog;
+
+	@Before
+	public void setUp() {
+		spec = new Specification("image", "username", "publicKey", "privateKeyFilePath");
+		catalog = new ResourceCatalog();
+	}
+
+	@Test
+	public void testFindByRanges() {
+		catalog.add(createResource("small", "1", "1024.0", "20", "\"memberA\""));
+		catalog.add(createResource("medium", "4", "8192.0", "40", "\"memberA\""));
+		catalog.add(createResource("large", "8", "16384.0", "80", "\"memberB\""));
+
+		assertEquals(ids("medium", "large"), ids(catalog.find(new ResourceCatalog.Query()
+				.narrowCores(4, Long.MAX_VALUE).narrowMemory(8192, Long.MAX_VALUE))));
+		assertEquals(ids("small", "medium"), ids(catalog.find(new ResourceCatalog.Query()
+				.narrowMemory(ResourceCatalog.UNKNOWN, 8192))));
+		assertEquals(ids("medium"), ids(catalog.find(new ResourceCatalog.Query()
+				.narrowDisk(30, 50))));
+		assertEquals(ids("small", "medium", "large"), ids(catalog.find(new ResourceCatalog.Query())));
+	}
+
+	@Test
+	public void testFindByLocationIgnoresCase() {
+		catalog.add(createResource("a", "1", "1024", "20", "\"memberA\""));
+		catalog.add(createResource("b", "1", "1024", "20", "\"memberB\""));
+		catalog.add(createResource("unquoted", "1", "1024", "20", "memberA"));
+
+		assertEquals(ids("a"), ids(catalog.find(new ResourceCatalog.Query().location("MEMBERA"))));
+		assertTrue(catalog.find(new ResourceCatalog.Query().location("memberC")).isEmpty());
+	}
+
+	@Test
+	public void testMissingValuesAreLeftOutExceptTheDisk() {
+		catalog.add(createResource("noCores", null, "1024", "20", null));
+		catalog.add(createResource("noDisk", "2", "1024", null, null));
+		catalog.add(createResource("zeroDisk", "2", "1024", "0", null));
+		catalog.add(createResource("smallDisk", "2", "1024", "10", null));
+
+		assertEquals(ids("noDisk", "zeroDisk", "smallDisk"), ids(catalog.find(new ResourceCatalog.Query()
+				.narrowCores(1, Long.MAX_VALUE))));
+		assertEquals(ids("noDisk", "zeroDisk"), ids(catalog.find(new ResourceCatalog.Query()
+				.narrowCores(1, Long.MAX_VALUE).narrowDisk(15, Long.MAX_VALUE))));
+	}
+
+	@Test
+	public void testRefreshAndRemove() {
+		FogbowResource resource = createResource("resource", "1", "1024", "20", null);
+		catalog.add(resource);
+		ResourceCatalog.Query query = new ResourceCatalog.Query().narrowCores(4, Long.MAX_VALUE);
+		assertTrue(catalog.find(query).isEmpty());
+
+		resource.putMetadata(AbstractResource.METADATA_VCPU, "4");
+		catalog.refresh(resource);
+		assertEquals(ids("resource"), ids(catalog.find(query)));
+
+		assertTrue(catalog.remove(resource));
+		assertTrue(catalog.find(query).isEmpty());
+		assertEquals(0, catalog.size());
+	}
+
+	private FogbowResource createResource(String id, String cores, String memory, String disk, String location) {
+		FogbowResource resource = new FogbowResource(id, "order-" + id, spec);
+		resource.putMetadata(AbstractResource.METADATA_VCPU, cores);
+		resource.putMetadata(AbstractResource.METADATA_MEN_SIZE, memory);
+		resource.putMetadata(AbstractResource.METADATA_DISK_SIZE, disk);
+		resource.putMetadata(AbstractResource.METADATA_LOCATION, location);
+		return resource;
+	}
+
+	private static List<String> ids(String... ids) {
+		List<String> list = new ArrayList<String>();
+		for (String id : ids) {
+			list.add(id);
+		}
+		return list;
+	}
+
+	private static List<String> ids(List<AbstractResource> resources) {
+		List<String> list = new ArrayList<String>();
+		for (AbstractResource resource : resources) {
+			list.add(resource.getId());
+		}
+		return list;
+	}
+}